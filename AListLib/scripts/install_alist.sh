@@ -24,3 +24,10 @@ sed -i 's#Key: conf.SearchIndex, Value: "none"#Key: conf.SearchIndex, Value: "da
 sed -i 's#Key: conf.AutoUpdateIndex, Value: "false"#Key: conf.AutoUpdateIndex, Value: "true"#g' ../sources/internal/bootstrap/data/setting.go
 sed -i 's#Permission: 0x31FF#Permission: 0xFFFF#g' ../sources/internal/bootstrap/data/user.go
 sed -i -z 's#Disabled:   true#Disabled:   false#g' ../sources/internal/bootstrap/data/user.go
+# Apply Patches (hooks used by alistlib)
+for p in ../patches/*.patch; do
+  echo "Applying ${p}"
+  patch -p1 -d ../sources < "$p" || exit 1
+done
+# Tidy Modules (alistlib requires go-sqlite3 directly)
+(cd ../sources && go mod tidy) || exit 1
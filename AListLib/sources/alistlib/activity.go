@@ -0,0 +1,97 @@
+package alistlib
+
+import (
+	"github.com/gin-gonic/gin"
+	"net"
+	"net/http"
+	"strings"
+	"sync"
+	"sync/atomic"
+)
+
+// 进行中的请求数与传输（上传/下载）数
+var activeRequests, activeTransfers atomic.Int64
+
+// 请求数在 0 与非 0 之间切换时发出信号，由 watchActivity 合并后回调 Android 端
+var activitySignal = make(chan struct{}, 1)
+var watchActivityOnce sync.Once
+
+// activityMiddleware 统计进行中的请求与传输，用于优雅关闭等待与电源策略；
+// 本机健康探测不计入，否则定时探测会使引擎周期性地在空闲/繁忙之间切换
+func activityMiddleware(c *gin.Context) {
+	if isHealthProbe(c) {
+		c.Next()
+		return
+	}
+	transfer := isTransfer(c.FullPath(), c.Request.Method)
+	if activeRequests.Add(1) == 1 {
+		signalActivity()
+	}
+	if transfer {
+		activeTransfers.Add(1)
+	}
+	defer func() {
+		if activeRequests.Add(-1) == 0 {
+			signalActivity()
+		}
+		if transfer {
+			activeTransfers.Add(-1)
+		}
+	}()
+	c.Next()
+}
+
+func signalActivity() {
+	watchActivityOnce.Do(func() {
+		go watchActivity()
+	})
+	select {
+	case activitySignal <- struct{}{}:
+	default:
+		// 已有待处理的信号，处理时会读取最新的请求数
+	}
+}
+
+// watchActivity 在请求处理路径之外回调 OnActivityChanged，仅在空闲/繁忙状态实际变化时通知
+func watchActivity() {
+	busy := false
+	for range activitySignal {
+		current := activeRequests.Load() > 0
+		if current != busy {
+			busy = current
+			event.OnActivityChanged(busy)
+		}
+	}
+}
+
+// isTransfer 判断请求是否为文件传输（下载、代理、上传、WebDAV 读写）
+func isTransfer(fullPath string, method string) bool {
+	if strings.HasSuffix(fullPath, "/d/*path") || strings.HasSuffix(fullPath, "/p/*path") ||
+		strings.HasSuffix(fullPath, "/api/fs/put") || strings.HasSuffix(fullPath, "/api/fs/form") {
+		return true
+	}
+	return strings.Contains(fullPath, "/dav") && (method == http.MethodGet || method == http.MethodPut)
+}
+
+// isHealthProbe 判断请求是否为经本机回环地址发起的 /ping 健康探测（按连接地址判断，不信任转发头）
+func isHealthProbe(c *gin.Context) bool {
+	if !strings.HasSuffix(c.FullPath(), "/ping") {
+		return false
+	}
+	host, _, err := net.SplitHostPort(c.Request.RemoteAddr)
+	if err != nil {
+		return false
+	}
+	ip := net.ParseIP(host)
+	return ip != nil && ip.IsLoopback()
+}
+
+// GetActiveRequests 获取进行中的请求数
+func GetActiveRequests() int64 {
+	return activeRequests.Load()
+}
+
+// GetActiveTransfers 获取进行中的传输数
+func GetActiveTransfers() int64 {
+	return activeTransfers.Load()
+}
@@ -0,0 +1,49 @@
+package alistlib
+
+import (
+	"encoding/json"
+	"fmt"
+
+	"github.com/OpenListTeam/OpenList/v4/alistlib/internal/chunkcache"
+	"github.com/OpenListTeam/OpenList/v4/internal/model"
+	"github.com/OpenListTeam/OpenList/v4/internal/stream"
+	"github.com/OpenListTeam/OpenList/v4/server/common"
+)
+
+// SetChunkCache 设置远程存储代理下载的分块缓存：dir 为缓存目录，maxBytes 为容量上限（<= 0 时关闭缓存），
+// chunkSize 为分块大小，readAhead 为顺序读取时预读的块数；已有缓存块在目录与块大小不变时继续使用
+func SetChunkCache(dir string, maxBytes int64, chunkSize int64, readAhead int) error {
+	return chunkcache.Configure(dir, maxBytes, chunkSize, readAhead)
+}
+
+// GetChunkCacheStats 返回分块缓存状态与累计命中、节省流量统计（JSON）
+func GetChunkCacheStats() string {
+	data, err := json.Marshal(chunkcache.GetStats())
+	if err != nil {
+		return "{}"
+	}
+	return string(data)
+}
+
+// cacheRange 远程存储的代理下载经由本地分块缓存读取；缓存未启用或为本地存储时原样返回
+func cacheRange(storage *model.Storage, rawPath string, link *model.Link, file model.Obj) *model.Link {
+	if !chunkcache.Enabled() || storage.Driver == "Local" {
+		return link
+	}
+	size := link.ContentLength
+	if size <= 0 {
+		size = file.GetSize()
+	}
+	if size <= 0 {
+		return link
+	}
+	rrf, err := stream.GetRangeReaderFromLink(size, link)
+	if err != nil {
+		return link
+	}
+	key := fmt.Sprintf("%d|%s|%s", storage.ID, rawPath, common.GetEtag(file, size))
+	return &model.Link{
+		RangeReader:   chunkcache.Wrap(key, size, rrf),
+		ContentLength: size,
+	}
+}
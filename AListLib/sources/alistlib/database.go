@@ -0,0 +1,121 @@
+package alistlib
+
+import (
+	"database/sql"
+	"encoding/json"
+	"errors"
+	"fmt"
+	"os"
+	"path/filepath"
+	"strings"
+	"time"
+
+	"github.com/OpenListTeam/OpenList/v4/internal/conf"
+	"github.com/OpenListTeam/OpenList/v4/internal/db"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+)
+
+// 空闲维护每次最多归还的空闲页数，避免单次维护占用数据库过久
+const maintainVacuumPages = 2000
+
+// MaintainDatabase 空闲时维护数据库：截断 WAL、更新查询统计、归还部分空闲页；
+// 返回维护结果说明
+func MaintainDatabase() (string, error) {
+	if conf.Conf == nil || conf.Conf.Database.Type != "sqlite3" {
+		return "", errors.New("database is not sqlite3")
+	}
+	gormDb := db.GetDb()
+	if gormDb == nil {
+		return "", errors.New("database is not initialized")
+	}
+	begin := time.Now()
+	var busy, logPages, checkpointed int
+	if err := gormDb.Raw("PRAGMA wal_checkpoint(TRUNCATE)").Row().Scan(&busy, &logPages, &checkpointed); err != nil {
+		return "", err
+	}
+	if err := gormDb.Exec("PRAGMA optimize").Error; err != nil {
+		return "", err
+	}
+	var freePages int
+	_ = gormDb.Raw("PRAGMA freelist_count").Row().Scan(&freePages)
+	if freePages > 0 {
+		if err := gormDb.Exec(fmt.Sprintf("PRAGMA incremental_vacuum(%d)", maintainVacuumPages)).Error; err != nil {
+			return "", err
+		}
+	}
+	result := fmt.Sprintf("checkpoint %d/%d pages (busy=%d), freelist %d pages, %dms",
+		checkpointed, logPages, busy, freePages, time.Since(begin).Milliseconds())
+	utils.Log.Infof("database maintained: %s", result)
+	return result, nil
+}
+
+type benchmarkResult struct {
+	Dsn          string `json:"dsn"`
+	InsertMillis int64  `json:"insert_millis"`
+	QueryMillis  int64  `json:"query_millis"`
+	Error        string `json:"error,omitempty"`
+}
+
+// BenchmarkDatabase 在数据库所在目录（同一存储介质）用临时数据库比较默认参数与当前调优参数：
+// 逐条提交 rows 次小事务写入（模拟建立索引），再按主键随机读取 rows 次；返回 JSON 结果
+func BenchmarkDatabase(rows int) (string, error) {
+	if conf.Conf == nil {
+		return "", errors.New("config is not loaded")
+	}
+	dir := filepath.Dir(conf.Conf.Database.DBFile)
+	var tuned sqliteTuning
+	if current := currentSqliteTuning.Load(); current != nil {
+		tuned = *current
+	}
+	results := map[string]benchmarkResult{
+		"baseline": runBenchmark(dir, sqliteTuning{}, rows),
+		"tuned":    runBenchmark(dir, tuned, rows),
+	}
+	data, err := json.Marshal(results)
+	if err != nil {
+		return "", err
+	}
+	return string(data), nil
+}
+
+func runBenchmark(dir string, tuning sqliteTuning, rows int) benchmarkResult {
+	file := filepath.Join(dir, fmt.Sprintf("benchmark-%d.db", time.Now().UnixNano()))
+	defer func() {
+		for _, suffix := range []string{"", "-wal", "-shm"} {
+			_ = os.Remove(file + suffix)
+		}
+	}()
+	dsn := sqliteDSN(file, tuning)
+	result := benchmarkResult{Dsn: strings.TrimPrefix(dsn, file)}
+	fail := func(err error) benchmarkResult {
+		result.Error = err.Error()
+		return result
+	}
+	sqlDb, err := sql.Open(sqliteDriverName(tuning), dsn)
+	if err != nil {
+		return fail(err)
+	}
+	defer sqlDb.Close()
+	// 与引擎一样在同一连接上执行，避免连接池差异影响结果
+	sqlDb.SetMaxOpenConns(1)
+	if _, err = sqlDb.Exec("CREATE TABLE search_nodes (id INTEGER PRIMARY KEY, parent TEXT, name TEXT, is_dir INTEGER, size INTEGER)"); err != nil {
+		return fail(err)
+	}
+	begin := time.Now()
+	for i := 0; i < rows; i++ {
+		if _, err = sqlDb.Exec("INSERT INTO search_nodes (parent, name, is_dir, size) VALUES (?, ?, ?, ?)",
+			fmt.Sprintf("/local/dir%d", i/100), fmt.Sprintf("file%d.mp4", i), i%10 == 0, i*1024); err != nil {
+			return fail(err)
+		}
+	}
+	result.InsertMillis = time.Since(begin).Milliseconds()
+	begin = time.Now()
+	var name string
+	for i := 0; i < rows; i++ {
+		if err = sqlDb.QueryRow("SELECT name FROM search_nodes WHERE id = ?", (i*7919)%rows+1).Scan(&name); err != nil {
+			return fail(err)
+		}
+	}
+	result.QueryMillis = time.Since(begin).Milliseconds()
+	return result
+}
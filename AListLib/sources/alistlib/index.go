@@ -0,0 +1,53 @@
+package alistlib
+
+import (
+	"context"
+	"github.com/OpenListTeam/OpenList/v4/internal/driver"
+	"github.com/OpenListTeam/OpenList/v4/internal/model"
+	"github.com/OpenListTeam/OpenList/v4/internal/op"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"path/filepath"
+	"strings"
+)
+
+// GetLocalStorageRoots 返回所有已加载本地存储的根目录，以换行分隔
+func GetLocalStorageRoots() string {
+	var roots []string
+	for _, storage := range op.GetAllStorages() {
+		if storage.Config().Name != "Local" {
+			continue
+		}
+		if root, ok := storage.(driver.IRootPath); ok {
+			roots = append(roots, root.GetRootPath())
+		}
+	}
+	return strings.Join(roots, "\n")
+}
+
+// UpdateLocalIndex 本地目录内容发生变化时（由 Android 端文件监听触发），
+// 刷新该目录的列表，由列表更新钩子增量更新搜索索引
+func UpdateLocalIndex(localDir string) {
+	localDir = filepath.Clean(localDir)
+	for _, storage := range op.GetAllStorages() {
+		if storage.Config().Name != "Local" {
+			continue
+		}
+		root, ok := storage.(driver.IRootPath)
+		if !ok {
+			continue
+		}
+		rel, err := filepath.Rel(root.GetRootPath(), localDir)
+		if err != nil || rel == ".." || strings.HasPrefix(rel, ".."+string(filepath.Separator)) {
+			continue
+		}
+		if rel == "." {
+			rel = ""
+		}
+		actualPath := utils.FixAndCleanPath(rel)
+		reqPath := utils.GetFullPath(storage.GetStorage().MountPath, actualPath)
+		_, err = op.List(context.Background(), storage, actualPath, model.ListArgs{ReqPath: reqPath, Refresh: true})
+		if err != nil {
+			utils.Log.Debugf("failed to update index of %s: %+v", reqPath, err)
+		}
+	}
+}
@@ -0,0 +1,462 @@
+package chunkcache
+
+import (
+	"container/list"
+	"context"
+	"crypto/sha1"
+	"encoding/hex"
+	"errors"
+	"fmt"
+	"io"
+	"os"
+	"path/filepath"
+	"sort"
+	"strings"
+	"sync"
+	"sync/atomic"
+	"time"
+
+	"github.com/OpenListTeam/OpenList/v4/internal/model"
+	"github.com/OpenListTeam/OpenList/v4/pkg/http_range"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+)
+
+// 远程文件的本地分块缓存：按固定大小切分文件，每块以 存储+路径+etag+块大小+偏移 为键保存为一个文件，
+// 总大小超过上限时按最近最少使用淘汰；顺序读取时在后台预读后续若干块。
+// 同一块同时只从上游获取一次，其余读取者等待获取完成后直接读盘
+
+const tempSuffix = ".tmp"
+
+// 同时进行的预读数量上限，避免预读占满上行带宽
+const maxPrefetching = 2
+
+type Cache struct {
+	dir       string
+	chunkSize int64
+
+	mu        sync.Mutex
+	maxBytes  int64
+	readAhead int
+	size      int64
+	lru       *list.List // 表头为最近使用
+	entries   map[string]*list.Element
+	inflight  map[string]*fetchCall
+	prefetch  chan struct{}
+}
+
+type entry struct {
+	name string
+	size int64
+	// 由预读获取且尚未被读取
+	prefetched bool
+}
+
+type fetchCall struct {
+	done chan struct{}
+	err  error
+}
+
+// chunkSource 一次块读取的数据来源
+type chunkSource int
+
+const (
+	// 读取前已缓存
+	sourceCache chunkSource = iota
+	// 本次从上游获取
+	sourceUpstream
+	// 预读获取后的首次读取（上游流量已计入预读，不算作命中）
+	sourcePrefetch
+)
+
+type Stats struct {
+	Enabled      bool   `json:"enabled"`
+	Dir          string `json:"dir"`
+	MaxBytes     int64  `json:"max_bytes"`
+	ChunkSize    int64  `json:"chunk_size"`
+	ReadAhead    int    `json:"read_ahead"`
+	Size         int64  `json:"size"`
+	Chunks       int    `json:"chunks"`
+	Hits         int64  `json:"hits"`
+	Misses       int64  `json:"misses"`
+	Prefetched   int64  `json:"prefetched"`
+	PrefetchHits int64  `json:"prefetch_hits"`
+	Evictions    int64  `json:"evictions"`
+	BytesSaved   int64  `json:"bytes_saved"`
+	BytesFetched int64  `json:"bytes_fetched"`
+}
+
+var current atomic.Pointer[Cache]
+
+// 自启动以来累计，重新配置缓存不清零
+var hits, misses, prefetched, prefetchHits, evictions, bytesSaved, bytesFetched atomic.Int64
+
+// Configure 启用或更新缓存；目录与块大小不变时只更新容量与预读块数，maxBytes <= 0 时关闭缓存
+func Configure(dir string, maxBytes int64, chunkSize int64, readAhead int) error {
+	if dir == "" || maxBytes <= 0 || chunkSize <= 0 {
+		current.Store(nil)
+		return nil
+	}
+	if readAhead < 0 {
+		readAhead = 0
+	}
+	if c := current.Load(); c != nil && c.dir == dir && c.chunkSize == chunkSize {
+		c.mu.Lock()
+		c.maxBytes = maxBytes
+		c.readAhead = readAhead
+		c.evictLocked()
+		c.mu.Unlock()
+		return nil
+	}
+	c := &Cache{
+		dir:       dir,
+		chunkSize: chunkSize,
+		maxBytes:  maxBytes,
+		readAhead: readAhead,
+		lru:       list.New(),
+		entries:   make(map[string]*list.Element),
+		inflight:  make(map[string]*fetchCall),
+		prefetch:  make(chan struct{}, maxPrefetching),
+	}
+	if err := c.load(); err != nil {
+		return err
+	}
+	current.Store(c)
+	utils.Log.Infof("chunk cache: %s, %d chunks (%d bytes) loaded, max %d bytes", dir, c.lru.Len(), c.size, maxBytes)
+	return nil
+}
+
+// Enabled 缓存是否已启用
+func Enabled() bool {
+	return current.Load() != nil
+}
+
+// GetStats 返回当前缓存状态与累计命中统计
+func GetStats() Stats {
+	stats := Stats{
+		Hits:         hits.Load(),
+		Misses:       misses.Load(),
+		Prefetched:   prefetched.Load(),
+		PrefetchHits: prefetchHits.Load(),
+		Evictions:    evictions.Load(),
+		BytesSaved:   bytesSaved.Load(),
+		BytesFetched: bytesFetched.Load(),
+	}
+	if c := current.Load(); c != nil {
+		c.mu.Lock()
+		stats.Enabled = true
+		stats.Dir = c.dir
+		stats.MaxBytes = c.maxBytes
+		stats.ChunkSize = c.chunkSize
+		stats.ReadAhead = c.readAhead
+		stats.Size = c.size
+		stats.Chunks = c.lru.Len()
+		c.mu.Unlock()
+	}
+	return stats
+}
+
+// load 读入目录中已有的块，按修改时间恢复使用顺序；清理上次中断留下的临时文件
+func (c *Cache) load() error {
+	if err := os.MkdirAll(c.dir, 0o777); err != nil {
+		return err
+	}
+	files, err := os.ReadDir(c.dir)
+	if err != nil {
+		return err
+	}
+	type chunkFile struct {
+		name    string
+		size    int64
+		modTime time.Time
+	}
+	chunks := make([]chunkFile, 0, len(files))
+	for _, file := range files {
+		if file.IsDir() {
+			continue
+		}
+		if strings.HasSuffix(file.Name(), tempSuffix) {
+			_ = os.Remove(filepath.Join(c.dir, file.Name()))
+			continue
+		}
+		info, err := file.Info()
+		if err != nil {
+			continue
+		}
+		chunks = append(chunks, chunkFile{name: file.Name(), size: info.Size(), modTime: info.ModTime()})
+	}
+	sort.Slice(chunks, func(i, j int) bool {
+		return chunks[i].modTime.Before(chunks[j].modTime)
+	})
+	for _, chunk := range chunks {
+		c.entries[chunk.name] = c.lru.PushFront(&entry{name: chunk.name, size: chunk.size})
+		c.size += chunk.size
+	}
+	c.evictLocked()
+	return nil
+}
+
+// evictLocked 淘汰最久未使用的块直到不超过上限（调用方持有锁）；正在读取的块文件删除后仍可读完
+func (c *Cache) evictLocked() {
+	for c.size > c.maxBytes && c.lru.Len() > 0 {
+		element := c.lru.Back()
+		e := element.Value.(*entry)
+		c.lru.Remove(element)
+		delete(c.entries, e.name)
+		c.size -= e.size
+		_ = os.Remove(filepath.Join(c.dir, e.name))
+		evictions.Add(1)
+	}
+}
+
+func (c *Cache) chunkName(key string, offset int64) string {
+	sum := sha1.Sum([]byte(fmt.Sprintf("%s|%d|%d", key, c.chunkSize, offset)))
+	return hex.EncodeToString(sum[:])
+}
+
+// getChunk 返回块文件路径与数据来源；未缓存时从上游获取，prefetch 表示由预读发起
+func (c *Cache) getChunk(ctx context.Context, rr model.RangeReaderIF, key string, offset, length int64, prefetch bool) (path string, source chunkSource, err error) {
+	name := c.chunkName(key, offset)
+	path = filepath.Join(c.dir, name)
+	c.mu.Lock()
+	if element, ok := c.entries[name]; ok {
+		c.lru.MoveToFront(element)
+		source = sourceCache
+		if e := element.Value.(*entry); e.prefetched && !prefetch {
+			e.prefetched = false
+			source = sourcePrefetch
+		}
+		c.mu.Unlock()
+		// 记录使用时间，重启后恢复使用顺序
+		now := time.Now()
+		_ = os.Chtimes(path, now, now)
+		return path, source, nil
+	}
+	if call, ok := c.inflight[name]; ok {
+		c.mu.Unlock()
+		select {
+		case <-call.done:
+		case <-ctx.Done():
+			return "", sourceCache, ctx.Err()
+		}
+		if ctx.Err() != nil {
+			return "", sourceCache, ctx.Err()
+		}
+		// 获取完成后按缓存记录判断来源；发起获取的请求已取消时由本次读取重新获取
+		return c.getChunk(ctx, rr, key, offset, length, prefetch)
+	}
+	call := &fetchCall{done: make(chan struct{})}
+	c.inflight[name] = call
+	c.mu.Unlock()
+
+	size, err := c.fetch(ctx, rr, path, offset, length)
+
+	c.mu.Lock()
+	delete(c.inflight, name)
+	if err == nil {
+		c.entries[name] = c.lru.PushFront(&entry{name: name, size: size, prefetched: prefetch})
+		c.size += size
+		c.evictLocked()
+	}
+	c.mu.Unlock()
+	call.err = err
+	close(call.done)
+	if err != nil {
+		return "", sourceUpstream, err
+	}
+	bytesFetched.Add(size)
+	return path, sourceUpstream, nil
+}
+
+// fetch 从上游读取整块写入临时文件，完整写入后重命名，中断时不会留下不完整的块
+func (c *Cache) fetch(ctx context.Context, rr model.RangeReaderIF, path string, offset, length int64) (int64, error) {
+	rc, err := rr.RangeRead(ctx, http_range.Range{Start: offset, Length: length})
+	if err != nil {
+		return 0, err
+	}
+	defer rc.Close()
+	file, err := os.CreateTemp(c.dir, filepath.Base(path)+"-*"+tempSuffix)
+	if err != nil {
+		return 0, err
+	}
+	written, err := utils.CopyWithBufferN(file, rc, length)
+	if closeErr := file.Close(); err == nil {
+		err = closeErr
+	}
+	if err == nil && written != length {
+		err = io.ErrUnexpectedEOF
+	}
+	if err == nil {
+		err = os.Rename(file.Name(), path)
+	}
+	if err != nil {
+		_ = os.Remove(file.Name())
+		return 0, err
+	}
+	return written, nil
+}
+
+// Wrap 为远程文件的范围读取加上分块缓存；缓存未启用时原样返回
+// key 需唯一标识文件内容（存储、路径与 etag），size 为文件大小
+func Wrap(key string, size int64, rr model.RangeReaderIF) model.RangeReaderIF {
+	c := current.Load()
+	if c == nil || size <= 0 {
+		return rr
+	}
+	return &cachedRangeReader{cache: c, key: key, size: size, upstream: rr}
+}
+
+type cachedRangeReader struct {
+	cache    *Cache
+	key      string
+	size     int64
+	upstream model.RangeReaderIF
+}
+
+func (r *cachedRangeReader) RangeRead(ctx context.Context, httpRange http_range.Range) (io.ReadCloser, error) {
+	if httpRange.Start < 0 || httpRange.Start > r.size {
+		return nil, errors.New("range start out of file size")
+	}
+	end := r.size
+	if httpRange.Length >= 0 && httpRange.Start+httpRange.Length < r.size {
+		end = httpRange.Start + httpRange.Length
+	}
+	ctx, cancel := context.WithCancel(ctx)
+	reader := &chunkReader{
+		cachedRangeReader: r,
+		ctx:               ctx,
+		cancel:            cancel,
+		pos:               httpRange.Start,
+		end:               end,
+		prefetchedTo:      -1,
+	}
+	return reader, nil
+}
+
+// chunkReader 按块顺序读取一个范围：逐块打开缓存文件，进入新块时调度后续块的预读
+type chunkReader struct {
+	*cachedRangeReader
+	ctx          context.Context
+	cancel       context.CancelFunc
+	pos          int64
+	end          int64
+	file         *os.File
+	remain       int64 // 当前块文件中属于本范围的剩余字节数
+	prefetchedTo int64 // 已调度预读的最大块序号
+	wg           sync.WaitGroup
+}
+
+func (r *chunkReader) Read(p []byte) (int, error) {
+	for r.remain == 0 {
+		if r.file != nil {
+			_ = r.file.Close()
+			r.file = nil
+		}
+		if r.pos >= r.end {
+			return 0, io.EOF
+		}
+		if err := r.openChunk(); err != nil {
+			return 0, err
+		}
+	}
+	if int64(len(p)) > r.remain {
+		p = p[:r.remain]
+	}
+	n, err := r.file.Read(p)
+	r.pos += int64(n)
+	r.remain -= int64(n)
+	if err == io.EOF {
+		err = nil
+		if n == 0 {
+			return 0, io.ErrUnexpectedEOF
+		}
+	}
+	return n, err
+}
+
+func (r *chunkReader) openChunk() error {
+	c := r.cache
+	index := r.pos / c.chunkSize
+	offset := index * c.chunkSize
+	length := min(c.chunkSize, r.size-offset)
+	r.schedulePrefetch(index)
+	path, source, err := c.getChunk(r.ctx, r.upstream, r.key, offset, length, false)
+	if err != nil {
+		return err
+	}
+	file, err := os.Open(path)
+	if err != nil {
+		// 块文件在打开前被淘汰或被系统清理，重新获取一次
+		c.forget(c.chunkName(r.key, offset))
+		if path, source, err = c.getChunk(r.ctx, r.upstream, r.key, offset, length, false); err != nil {
+			return err
+		}
+		if file, err = os.Open(path); err != nil {
+			return err
+		}
+	}
+	if _, err = file.Seek(r.pos-offset, io.SeekStart); err != nil {
+		_ = file.Close()
+		return err
+	}
+	r.file = file
+	r.remain = min(offset+length, r.end) - r.pos
+	switch source {
+	case sourceCache:
+		hits.Add(1)
+		bytesSaved.Add(r.remain)
+	case sourcePrefetch:
+		prefetchHits.Add(1)
+	default:
+		misses.Add(1)
+	}
+	return nil
+}
+
+// schedulePrefetch 在本范围内预读当前块之后的若干块；预读名额已满时跳过，进入下一块时再补
+func (r *chunkReader) schedulePrefetch(index int64) {
+	c := r.cache
+	c.mu.Lock()
+	readAhead := int64(c.readAhead)
+	c.mu.Unlock()
+	last := min(index+readAhead, (r.end-1)/c.chunkSize)
+	for i := max(index+1, r.prefetchedTo+1); i <= last; i++ {
+		select {
+		case c.prefetch <- struct{}{}:
+		default:
+			return
+		}
+		r.prefetchedTo = i
+		offset := i * c.chunkSize
+		length := min(c.chunkSize, r.size-offset)
+		r.wg.Add(1)
+		go func() {
+			defer r.wg.Done()
+			defer func() { <-c.prefetch }()
+			if _, source, err := c.getChunk(r.ctx, r.upstream, r.key, offset, length, true); err == nil && source == sourceUpstream {
+				prefetched.Add(1)
+			}
+		}()
+	}
+}
+
+func (c *Cache) forget(name string) {
+	c.mu.Lock()
+	defer c.mu.Unlock()
+	if element, ok := c.entries[name]; ok {
+		c.lru.Remove(element)
+		delete(c.entries, name)
+		c.size -= element.Value.(*entry).size
+	}
+}
+
+// Close 取消未完成的预读并等待其退出（上游连接随请求一并关闭）
+func (r *chunkReader) Close() error {
+	r.cancel()
+	r.wg.Wait()
+	if r.file != nil {
+		err := r.file.Close()
+		r.file = nil
+		return err
+	}
+	return nil
+}
@@ -0,0 +1,62 @@
+package alistlib
+
+import (
+	"encoding/json"
+	"math"
+	"runtime"
+	"runtime/debug"
+	"time"
+)
+
+// SetMemoryLimit 设置 Go 运行时软内存上限（字节），接近上限时 GC 更频繁地回收；
+// limit <= 0 时取消上限，返回之前的上限
+func SetMemoryLimit(limit int64) int64 {
+	if limit <= 0 {
+		limit = math.MaxInt64
+	}
+	previous := debug.SetMemoryLimit(limit)
+	if previous == math.MaxInt64 {
+		return 0
+	}
+	return previous
+}
+
+// FreeOSMemory 立即执行 GC 并将空闲内存归还给系统（耗时与堆大小相关，应在后台线程调用）
+func FreeOSMemory() {
+	debug.FreeOSMemory()
+}
+
+type memoryStats struct {
+	Time         int64  `json:"time"`
+	HeapAlloc    uint64 `json:"heap_alloc"`
+	HeapInuse    uint64 `json:"heap_inuse"`
+	HeapIdle     uint64 `json:"heap_idle"`
+	HeapReleased uint64 `json:"heap_released"`
+	Sys          uint64 `json:"sys"`
+	NumGC        uint32 `json:"num_gc"`
+	MemoryLimit  int64  `json:"memory_limit"`
+}
+
+// GetMemoryStats 返回 Go 堆使用情况（JSON）；memory_limit 为 0 表示未设置上限
+func GetMemoryStats() string {
+	var m runtime.MemStats
+	runtime.ReadMemStats(&m)
+	limit := debug.SetMemoryLimit(-1)
+	if limit == math.MaxInt64 {
+		limit = 0
+	}
+	data, err := json.Marshal(memoryStats{
+		Time:         time.Now().UnixMilli(),
+		HeapAlloc:    m.HeapAlloc,
+		HeapInuse:    m.HeapInuse,
+		HeapIdle:     m.HeapIdle,
+		HeapReleased: m.HeapReleased,
+		Sys:          m.Sys,
+		NumGC:        m.NumGC,
+		MemoryLimit:  limit,
+	})
+	if err != nil {
+		return "{}"
+	}
+	return string(data)
+}
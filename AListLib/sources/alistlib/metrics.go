@@ -0,0 +1,226 @@
+package alistlib
+
+import (
+	"encoding/json"
+	"github.com/OpenListTeam/OpenList/v4/internal/op"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"github.com/gin-gonic/gin"
+	"io"
+	"net"
+	"net/http"
+	"net/url"
+	"sync"
+	"sync/atomic"
+	"time"
+)
+
+// 请求耗时直方图的桶上界（毫秒），最后一个桶收集超出上界的请求
+var latencyBounds = []int64{1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000}
+
+// 全局计数器（自启动以来累计）
+var totalRequests, totalErrors, bytesIn, bytesOut, activeConns atomic.Int64
+
+// 按路由模板统计，路由数量有限，不会无限增长
+var routeMetrics sync.Map
+
+// 按存储挂载路径统计传输字节数
+var storageMetrics sync.Map
+
+type routeStats struct {
+	count   atomic.Int64
+	errors  atomic.Int64
+	buckets [16]atomic.Int64
+}
+
+type transferStats struct {
+	in  atomic.Int64
+	out atomic.Int64
+}
+
+// metricsMiddleware 记录请求数、耗时分布与收发字节数；传输请求按所属存储实时累计字节数（本机健康探测不计入）
+func metricsMiddleware(c *gin.Context) {
+	if isHealthProbe(c) {
+		c.Next()
+		return
+	}
+	begin := time.Now()
+	var storage *transferStats
+	if isTransfer(c.FullPath(), c.Request.Method) {
+		storage = transferStorage(c)
+	}
+	if c.Request.Body != nil && c.Request.Body != http.NoBody {
+		c.Request.Body = &countingReader{ReadCloser: c.Request.Body, storage: storage}
+	}
+	c.Writer = &countingWriter{ResponseWriter: c.Writer, storage: storage}
+	c.Next()
+
+	totalRequests.Add(1)
+	route := c.FullPath()
+	if route == "" {
+		// 未匹配路由（如前端静态页面）合并统计，避免路由数量无限增长
+		route = "other"
+	}
+	value, ok := routeMetrics.Load(route)
+	if !ok {
+		value, _ = routeMetrics.LoadOrStore(route, &routeStats{})
+	}
+	stats := value.(*routeStats)
+	stats.count.Add(1)
+	if c.Writer.Status() >= http.StatusInternalServerError {
+		stats.errors.Add(1)
+		totalErrors.Add(1)
+	}
+	millis := time.Since(begin).Milliseconds()
+	bucket := len(latencyBounds)
+	for i, bound := range latencyBounds {
+		if millis <= bound {
+			bucket = i
+			break
+		}
+	}
+	stats.buckets[bucket].Add(1)
+}
+
+// transferStorage 解析传输请求所属的存储
+func transferStorage(c *gin.Context) *transferStats {
+	rawPath := c.Param("path")
+	if rawPath == "" {
+		// 上传接口的路径通过请求头传递
+		rawPath, _ = url.PathUnescape(c.GetHeader("File-Path"))
+	}
+	if rawPath == "" {
+		return nil
+	}
+	storage, _, err := op.GetStorageAndActualPath(utils.FixAndCleanPath(rawPath))
+	if err != nil {
+		return nil
+	}
+	mountPath := storage.GetStorage().MountPath
+	value, ok := storageMetrics.Load(mountPath)
+	if !ok {
+		value, _ = storageMetrics.LoadOrStore(mountPath, &transferStats{})
+	}
+	return value.(*transferStats)
+}
+
+type countingReader struct {
+	io.ReadCloser
+	storage *transferStats
+}
+
+func (r *countingReader) Read(p []byte) (int, error) {
+	n, err := r.ReadCloser.Read(p)
+	if n > 0 {
+		bytesIn.Add(int64(n))
+		if r.storage != nil {
+			r.storage.in.Add(int64(n))
+		}
+	}
+	return n, err
+}
+
+type countingWriter struct {
+	gin.ResponseWriter
+	storage *transferStats
+}
+
+func (w *countingWriter) Write(p []byte) (int, error) {
+	n, err := w.ResponseWriter.Write(p)
+	w.count(n)
+	return n, err
+}
+
+func (w *countingWriter) WriteString(s string) (int, error) {
+	n, err := w.ResponseWriter.WriteString(s)
+	w.count(n)
+	return n, err
+}
+
+func (w *countingWriter) count(n int) {
+	if n > 0 {
+		bytesOut.Add(int64(n))
+		if w.storage != nil {
+			w.storage.out.Add(int64(n))
+		}
+	}
+}
+
+// connState 统计当前打开的连接数
+func connState(_ net.Conn, state http.ConnState) {
+	switch state {
+	case http.StateNew:
+		activeConns.Add(1)
+	case http.StateClosed, http.StateHijacked:
+		activeConns.Add(-1)
+	}
+}
+
+type routeSnapshot struct {
+	Route   string  `json:"route"`
+	Count   int64   `json:"count"`
+	Errors  int64   `json:"errors"`
+	Buckets []int64 `json:"buckets"`
+}
+
+type storageSnapshot struct {
+	MountPath string `json:"mount_path"`
+	BytesIn   int64  `json:"bytes_in"`
+	BytesOut  int64  `json:"bytes_out"`
+}
+
+type metricsSnapshot struct {
+	Time            int64             `json:"time"`
+	Requests        int64             `json:"requests"`
+	Errors          int64             `json:"errors"`
+	BytesIn         int64             `json:"bytes_in"`
+	BytesOut        int64             `json:"bytes_out"`
+	ActiveConns     int64             `json:"active_conns"`
+	ActiveRequests  int64             `json:"active_requests"`
+	ActiveTransfers int64             `json:"active_transfers"`
+	LatencyBounds   []int64           `json:"latency_bounds"`
+	Routes          []routeSnapshot   `json:"routes"`
+	Storages        []storageSnapshot `json:"storages"`
+}
+
+// GetMetricsSnapshot 返回自启动以来的累计指标（JSON），速率与分位数由调用方根据两次快照的差值计算
+func GetMetricsSnapshot() string {
+	snapshot := metricsSnapshot{
+		Time:            time.Now().UnixMilli(),
+		Requests:        totalRequests.Load(),
+		Errors:          totalErrors.Load(),
+		BytesIn:         bytesIn.Load(),
+		BytesOut:        bytesOut.Load(),
+		ActiveConns:     activeConns.Load(),
+		ActiveRequests:  activeRequests.Load(),
+		ActiveTransfers: activeTransfers.Load(),
+		LatencyBounds:   latencyBounds,
+	}
+	routeMetrics.Range(func(key, value any) bool {
+		stats := value.(*routeStats)
+		route := routeSnapshot{
+			Route:   key.(string),
+			Count:   stats.count.Load(),
+			Errors:  stats.errors.Load(),
+			Buckets: make([]int64, len(latencyBounds)+1),
+		}
+		for i := range route.Buckets {
+			route.Buckets[i] = stats.buckets[i].Load()
+		}
+		snapshot.Routes = append(snapshot.Routes, route)
+		return true
+	})
+	storageMetrics.Range(func(key, value any) bool {
+		stats := value.(*transferStats)
+		snapshot.Storages = append(snapshot.Storages, storageSnapshot{
+			MountPath: key.(string),
+			BytesIn:   stats.in.Load(),
+			BytesOut:  stats.out.Load(),
+		})
+		return true
+	})
+	data, err := json.Marshal(snapshot)
+	if err != nil {
+		return "{}"
+	}
+	return string(data)
+}
@@ -0,0 +1,174 @@
+package alistlib
+
+import (
+	"context"
+	"encoding/json"
+	"errors"
+	"fmt"
+	"github.com/OpenListTeam/OpenList/v4/cmd/flags"
+	"github.com/OpenListTeam/OpenList/v4/internal/bootstrap"
+	"github.com/OpenListTeam/OpenList/v4/internal/conf"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"net/http"
+	"os"
+	"path/filepath"
+	"reflect"
+	"strings"
+	"sync"
+	"sync/atomic"
+	"time"
+)
+
+// 重新绑定监听时等待旧连接结束的时间
+const rebindTimeout = 5 * time.Second
+
+var reloadLock sync.Mutex
+
+// 监听当前使用的配置：启动时取自 conf.Conf，热加载只替换这里，不修改请求处理中读取的全局配置
+var listenScheme atomic.Pointer[conf.Scheme]
+
+// 可在线生效的监听配置项（json 名称），变化时重新绑定对应监听或重新加载证书
+var hotSchemeFields = map[string]bool{
+	"address": true, "http_port": true, "https_port": true,
+	"cert_file": true, "key_file": true, "unix_file": true, "unix_file_perm": true,
+}
+
+type reloadResult struct {
+	// 需要重启服务才能生效的配置项
+	RestartRequired []string `json:"restart_required"`
+	// 重新绑定监听或加载证书的错误
+	Errors []string `json:"errors"`
+}
+
+// currentScheme 监听当前使用的配置
+func currentScheme() conf.Scheme {
+	if scheme := listenScheme.Load(); scheme != nil {
+		return *scheme
+	}
+	return conf.Conf.Scheme
+}
+
+// ReloadConfig 重新读取 config.json 并与运行中的配置比较。
+// 只有监听地址、端口与证书可在线生效：仅重新绑定发生变化的监听，证书通过原子指针替换；
+// 其余配置在启动时被各模块读取，运行中修改无法保证并发安全，变化时不修改运行中的配置，报告为需要重启。
+// 返回 JSON（见 reloadResult），重新绑定失败不影响其余监听，错误一并在结果中返回
+func ReloadConfig() (string, error) {
+	reloadLock.Lock()
+	defer reloadLock.Unlock()
+	if httpSrv == nil && httpsSrv == nil && unixSrv == nil {
+		return "", errors.New("server is not running")
+	}
+	configPath := filepath.Join(flags.DataDir, "config.json")
+	configBytes, err := os.ReadFile(configPath)
+	if err != nil {
+		return "", err
+	}
+	newConf := conf.DefaultConfig(flags.DataDir)
+	if err = utils.Json.Unmarshal(configBytes, newConf); err != nil {
+		return "", err
+	}
+	// 与 bootstrap.InitConfig 保持一致：相对路径基于工作目录
+	pwd := bootstrap.PWD()
+	for _, path := range []*string{&newConf.Database.DBFile, &newConf.Scheme.CertFile, &newConf.Scheme.KeyFile,
+		&newConf.Scheme.UnixFile, &newConf.Log.Name, &newConf.TempDir, &newConf.BleveDir, &newConf.DistDir} {
+		if *path != "" && !filepath.IsAbs(*path) {
+			*path = filepath.Join(pwd, *path)
+		}
+	}
+	if len(newConf.Log.Filter.Filters) == 0 {
+		newConf.Log.Filter.Enable = false
+	}
+	if !strings.Contains(newConf.SiteURL, "://") {
+		newConf.SiteURL = utils.FixAndCleanPath(newConf.SiteURL)
+	}
+	result := reloadResult{
+		RestartRequired: diffConfig(reflect.ValueOf(*newConf), reflect.ValueOf(*conf.Conf), ""),
+		Errors:          []string{},
+	}
+
+	// 监听：仅重新绑定发生变化的监听
+	oldScheme := currentScheme()
+	newScheme := newConf.Scheme
+	listenScheme.Store(&newScheme)
+	addError := func(name string, err error) {
+		if err != nil {
+			result.Errors = append(result.Errors, fmt.Sprintf("%s: %s", name, err.Error()))
+		}
+	}
+	if newScheme.Address != oldScheme.Address || newScheme.HttpPort != oldScheme.HttpPort {
+		addError("HTTP", rebind("HTTP", &httpSrv, newScheme.HttpPort != -1, func() error {
+			return startHttp(newScheme)
+		}))
+	}
+	if newScheme.Address != oldScheme.Address || newScheme.HttpsPort != oldScheme.HttpsPort {
+		addError("HTTPS", rebind("HTTPS", &httpsSrv, newScheme.HttpsPort != -1, func() error {
+			return startHttps(newScheme)
+		}))
+	} else if newScheme.HttpsPort != -1 {
+		// 证书路径不变时文件也可能已原地续期，始终重新加载，新连接即使用新证书
+		if err := loadCertificate(newScheme); err != nil {
+			addError("HTTPS", err)
+		} else {
+			utils.Log.Infof("TLS certificate reloaded")
+		}
+	}
+	if newScheme.UnixFile != oldScheme.UnixFile || newScheme.UnixFilePerm != oldScheme.UnixFilePerm {
+		addError("UNIX", rebind("UNIX", &unixSrv, newScheme.UnixFile != "", func() error {
+			return startUnix(newScheme)
+		}))
+	}
+	if len(result.RestartRequired) > 0 {
+		utils.Log.Infof("config reloaded, restart required for: %s", strings.Join(result.RestartRequired, ", "))
+	} else {
+		utils.Log.Infof("config reloaded")
+	}
+	if len(result.Errors) > 0 {
+		utils.Log.Errorf("config reload errors: %s", strings.Join(result.Errors, "; "))
+	}
+	data, err := json.Marshal(result)
+	if err != nil {
+		return "", err
+	}
+	return string(data), nil
+}
+
+// diffConfig 比较新旧配置，返回变化且需要重启才能生效的配置项（json 名称，嵌套项以 . 连接）；
+// 可在线生效的监听配置项与启动时写入的版本号不计入
+func diffConfig(newValue, oldValue reflect.Value, prefix string) []string {
+	var changed []string
+	for i := 0; i < newValue.NumField(); i++ {
+		field := newValue.Type().Field(i)
+		name := strings.Split(field.Tag.Get("json"), ",")[0]
+		if name == "" || name == "-" || name == "last_launched_version" {
+			continue
+		}
+		if prefix == "" && name == "scheme" {
+			changed = append(changed, diffConfig(newValue.Field(i), oldValue.Field(i), "scheme.")...)
+			continue
+		}
+		if prefix == "scheme." && hotSchemeFields[name] {
+			continue
+		}
+		if !reflect.DeepEqual(newValue.Field(i).Interface(), oldValue.Field(i).Interface()) {
+			changed = append(changed, prefix+name)
+		}
+	}
+	return changed
+}
+
+// rebind 关闭旧监听，按新配置重新启动（enabled 为 false 时仅关闭）
+func rebind(name string, srv **http.Server, enabled bool, start func() error) error {
+	if *srv != nil {
+		ctx, cancel := context.WithTimeout(context.Background(), rebindTimeout)
+		if err := (*srv).Shutdown(ctx); err != nil {
+			_ = (*srv).Close()
+		}
+		cancel()
+		*srv = nil
+		utils.Log.Infof("Server %s Shutdown for rebind", name)
+	}
+	if !enabled {
+		return nil
+	}
+	return start()
+}
@@ -2,6 +2,7 @@ package alistlib
 
 import (
 	"context"
+	"crypto/tls"
 	"errors"
 	"fmt"
 	"github.com/OpenListTeam/OpenList/v4/alistlib/internal"
@@ -10,14 +11,19 @@ import (
 	"github.com/OpenListTeam/OpenList/v4/internal/bootstrap"
 	"github.com/OpenListTeam/OpenList/v4/internal/conf"
 	"github.com/OpenListTeam/OpenList/v4/internal/db"
+	"github.com/OpenListTeam/OpenList/v4/internal/model"
+	"github.com/OpenListTeam/OpenList/v4/internal/op"
 	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
 	"github.com/OpenListTeam/OpenList/v4/server"
+	"github.com/OpenListTeam/OpenList/v4/server/common"
 	"github.com/gin-gonic/gin"
 	log "github.com/sirupsen/logrus"
 	"net"
 	"net/http"
 	"os"
 	"strconv"
+	"sync"
+	"sync/atomic"
 	"time"
 )
 
@@ -28,13 +34,44 @@ type LogCallback interface {
 type Event interface {
 	OnStartError(t string, err string)
 	OnShutdown(t string)
+	// OnStartPhase 异步启动阶段变化，取值见 Phase* 常量
+	OnStartPhase(phase string)
+	// OnStorageLoaded 单个存储加载完成，err 为空表示加载成功
+	OnStorageLoaded(mountPath string, millis int64, err string)
+	// OnDrainProgress 优雅关闭期间定时报告进行中的请求数与传输数
+	OnDrainProgress(activeRequests int64, activeTransfers int64)
+	// OnActivityChanged 是否有进行中的请求（空闲与繁忙之间切换时回调）
+	OnActivityChanged(busy bool)
 }
 
+// 异步启动阶段
+const (
+	PhaseListening       = "listening"
+	PhaseDelayed         = "delayed"
+	PhaseLoadingStorages = "loading_storages"
+	PhaseReady           = "ready"
+)
+
+// 存储并发加载数量，避免大量云盘同时登录
+const storageLoadConcurrency = 4
+
+const (
+	// 优雅关闭进度报告间隔
+	drainProgressInterval = 500 * time.Millisecond
+	// 无传输进行时，剩余请求（如空闲长连接、长轮询）的最长等待时间
+	drainIdleGrace = 3 * time.Second
+	// 强制断开连接后等待处理函数退出的最长时间
+	drainForceWait = 2 * time.Second
+)
+
 var event Event
 var logFormatter *internal.MyFormatter
 
 func Init(e Event, cb LogCallback) error {
 	event = e
+	bootstrap.SqliteDialector = openSqlite
+	common.RangeCache = cacheRange
+	server.FsRoutes = chunkUploadRoutes
 	cmd.Init()
 	logFormatter = &internal.MyFormatter{
 		OnLog: cb.OnLog,
@@ -79,58 +116,213 @@ func Start() {
 	bootstrap.InitOfflineDownloadTools()
 	bootstrap.LoadStorages()
 	bootstrap.InitTaskManager()
+	if err := startListeners(); err != nil {
+		event.OnStartError("http", err.Error())
+	}
+}
+
+// StartAsync 非阻塞启动：立即启动 HTTP 监听后返回，
+// 延迟启动、任务管理器初始化与存储加载在后台进行，并通过 Event 回调报告进度；
+// 端口绑定失败（如端口占用）时关闭已启动的监听并返回错误，不再继续启动
+func StartAsync() error {
+	return startAsync(true)
+}
+
+// StartAsyncNow 与 StartAsync 相同，但忽略 delayed_start（开机启动时由调用方等待系统就绪后再启动）
+func StartAsyncNow() error {
+	return startAsync(false)
+}
+
+func startAsync(delayed bool) error {
+	if err := startListeners(); err != nil {
+		return err
+	}
+	event.OnStartPhase(PhaseListening)
+	go func() {
+		if delayed && conf.Conf.DelayedStart != 0 {
+			utils.Log.Infof("delayed start for %d seconds", conf.Conf.DelayedStart)
+			event.OnStartPhase(PhaseDelayed)
+			time.Sleep(time.Duration(conf.Conf.DelayedStart) * time.Second)
+		}
+		bootstrap.InitOfflineDownloadTools()
+		bootstrap.InitTaskManager()
+		// 任务管理器就绪后即放行 API 请求，存储在加载完成后逐个挂载
+		conf.SendStoragesLoadedSignal()
+		event.OnStartPhase(PhaseLoadingStorages)
+		loadStorages()
+		event.OnStartPhase(PhaseReady)
+	}()
+	return nil
+}
+
+// loadStorages 并发加载所有已启用的存储，每个存储加载完成后回调 OnStorageLoaded
+func loadStorages() {
+	storages, err := db.GetEnabledStorages()
+	if err != nil {
+		utils.Log.Errorf("failed get enabled storages: %+v", err)
+		return
+	}
+	sem := make(chan struct{}, storageLoadConcurrency)
+	var wg sync.WaitGroup
+	for i := range storages {
+		wg.Add(1)
+		sem <- struct{}{}
+		go func(storage model.Storage) {
+			defer func() {
+				<-sem
+				wg.Done()
+			}()
+			begin := time.Now()
+			err := op.LoadStorage(context.Background(), storage)
+			millis := time.Since(begin).Milliseconds()
+			errMsg := ""
+			if err != nil {
+				errMsg = err.Error()
+				utils.Log.Errorf("failed load storage [%s]: %+v", storage.MountPath, err)
+			} else {
+				utils.Log.Infof("success load storage: [%s], driver: [%s], order: [%d], cost: %dms",
+					storage.MountPath, storage.Driver, storage.Order, millis)
+			}
+			event.OnStorageLoaded(storage.MountPath, millis, errMsg)
+		}(storages[i])
+	}
+	wg.Wait()
+}
+
+// 当前路由，配置热加载重新绑定监听时复用
+var engine *gin.Engine
+
+// startListeners 按配置启动各监听，任一监听失败时关闭已启动的监听并返回错误
+func startListeners() error {
 	if !flags.Debug && !flags.Dev {
 		gin.SetMode(gin.ReleaseMode)
 	}
 	r := gin.New()
 	r.Use(gin.LoggerWithWriter(log.StandardLogger().Out), gin.RecoveryWithWriter(log.StandardLogger().Out))
+	r.Use(activityMiddleware, metricsMiddleware, thumbMiddleware)
 	server.Init(r)
-	if conf.Conf.Scheme.HttpPort != -1 {
-		httpBase := fmt.Sprintf("%s:%d", conf.Conf.Scheme.Address, conf.Conf.Scheme.HttpPort)
-		utils.Log.Infof("start HTTP server @ %s", httpBase)
-		httpSrv = &http.Server{Addr: httpBase, Handler: r}
-		go func() {
-			err := httpSrv.ListenAndServe()
-			if err != nil && !errors.Is(err, http.ErrServerClosed) {
-				utils.Log.Fatalf("failed to start http: %s", err.Error())
-			}
-		}()
-	}
-	if conf.Conf.Scheme.HttpsPort != -1 {
-		httpsBase := fmt.Sprintf("%s:%d", conf.Conf.Scheme.Address, conf.Conf.Scheme.HttpsPort)
-		utils.Log.Infof("start HTTPS server @ %s", httpsBase)
-		httpsSrv = &http.Server{Addr: httpsBase, Handler: r}
-		go func() {
-			err := httpsSrv.ListenAndServeTLS(conf.Conf.Scheme.CertFile, conf.Conf.Scheme.KeyFile)
-			if err != nil && !errors.Is(err, http.ErrServerClosed) {
-				utils.Log.Fatalf("failed to start https: %s", err.Error())
-			}
-		}()
+	engine = r
+	scheme := conf.Conf.Scheme
+	listenScheme.Store(&scheme)
+	var err error
+	if scheme.HttpPort != -1 {
+		if err = startHttp(scheme); err != nil {
+			err = fmt.Errorf("failed to start http: %w", err)
+		}
 	}
-	if conf.Conf.Scheme.UnixFile != "" {
-		utils.Log.Infof("start unix server @ %s", conf.Conf.Scheme.UnixFile)
-		unixSrv = &http.Server{Handler: r}
-		go func() {
-			listener, err := net.Listen("unix", conf.Conf.Scheme.UnixFile)
-			if err != nil {
-				utils.Log.Fatalf("failed to listen unix: %+v", err)
-			}
-			// set socket file permission
-			mode, err := strconv.ParseUint(conf.Conf.Scheme.UnixFilePerm, 8, 32)
-			if err != nil {
-				utils.Log.Errorf("failed to parse socket file permission: %+v", err)
-			} else {
-				err = os.Chmod(conf.Conf.Scheme.UnixFile, os.FileMode(mode))
-				if err != nil {
-					utils.Log.Errorf("failed to chmod socket file: %+v", err)
-				}
-			}
-			err = unixSrv.Serve(listener)
-			if err != nil && !errors.Is(err, http.ErrServerClosed) {
-				utils.Log.Fatalf("failed to start unix: %s", err.Error())
+	if err == nil && scheme.HttpsPort != -1 {
+		if err = startHttps(scheme); err != nil {
+			err = fmt.Errorf("failed to start https: %w", err)
+		}
+	}
+	if err == nil && scheme.UnixFile != "" {
+		if err = startUnix(scheme); err != nil {
+			err = fmt.Errorf("failed to listen unix: %w", err)
+		}
+	}
+	if err != nil {
+		utils.Log.Errorf("%+v", err)
+		for _, srv := range []**http.Server{&httpSrv, &httpsSrv, &unixSrv} {
+			if *srv != nil {
+				_ = (*srv).Close()
+				*srv = nil
 			}
-		}()
+		}
+		return err
+	}
+	return nil
+}
+
+// startHttp 同步绑定端口（便于返回端口占用等错误），在后台处理请求
+func startHttp(scheme conf.Scheme) error {
+	httpBase := fmt.Sprintf("%s:%d", scheme.Address, scheme.HttpPort)
+	utils.Log.Infof("start HTTP server @ %s", httpBase)
+	listener, err := net.Listen("tcp", httpBase)
+	if err != nil {
+		return err
+	}
+	srv := &http.Server{Addr: httpBase, Handler: engine, ConnState: connState}
+	httpSrv = srv
+	go func() {
+		err := srv.Serve(listener)
+		if err != nil && !errors.Is(err, http.ErrServerClosed) {
+			utils.Log.Errorf("http server stopped: %s", err.Error())
+		}
+	}()
+	return nil
+}
+
+func startHttps(scheme conf.Scheme) error {
+	if err := loadCertificate(scheme); err != nil {
+		return err
+	}
+	httpsBase := fmt.Sprintf("%s:%d", scheme.Address, scheme.HttpsPort)
+	utils.Log.Infof("start HTTPS server @ %s", httpsBase)
+	listener, err := net.Listen("tcp", httpsBase)
+	if err != nil {
+		return err
+	}
+	srv := &http.Server{Addr: httpsBase, Handler: engine, ConnState: connState, TLSConfig: newTLSConfig(),
+		HTTP2: &http.HTTP2Config{MaxConcurrentStreams: http2MaxConcurrentStreams}}
+	httpsSrv = srv
+	go func() {
+		err := srv.ServeTLS(listener, "", "")
+		if err != nil && !errors.Is(err, http.ErrServerClosed) {
+			utils.Log.Errorf("https server stopped: %s", err.Error())
+		}
+	}()
+	return nil
+}
+
+func startUnix(scheme conf.Scheme) error {
+	utils.Log.Infof("start unix server @ %s", scheme.UnixFile)
+	listener, err := net.Listen("unix", scheme.UnixFile)
+	if err != nil {
+		return err
+	}
+	// set socket file permission
+	mode, err := strconv.ParseUint(scheme.UnixFilePerm, 8, 32)
+	if err != nil {
+		utils.Log.Errorf("failed to parse socket file permission: %+v", err)
+	} else {
+		err = os.Chmod(scheme.UnixFile, os.FileMode(mode))
+		if err != nil {
+			utils.Log.Errorf("failed to chmod socket file: %+v", err)
+		}
+	}
+	srv := &http.Server{Handler: engine, ConnState: connState}
+	unixSrv = srv
+	go func() {
+		err := srv.Serve(listener)
+		if err != nil && !errors.Is(err, http.ErrServerClosed) {
+			utils.Log.Errorf("unix server stopped: %s", err.Error())
+		}
+	}()
+	return nil
+}
+
+var certificate atomic.Pointer[tls.Certificate]
+
+// loadCertificate 读取配置中的证书与私钥，均未指定时使用设备证书
+func loadCertificate(scheme conf.Scheme) error {
+	if usesDeviceCertificate(scheme) {
+		cert := deviceCertificate.Load()
+		if cert == nil {
+			return errors.New("cert_file is not set and device certificate is not provisioned")
+		}
+		certificate.Store(cert)
+		return nil
 	}
+	cert, err := tls.LoadX509KeyPair(scheme.CertFile, scheme.KeyFile)
+	if err != nil {
+		return err
+	}
+	certificate.Store(&cert)
+	return nil
+}
+
+func getCertificate(*tls.ClientHelloInfo) (*tls.Certificate, error) {
+	return certificate.Load(), nil
 }
 
 func Release() {
@@ -138,42 +330,103 @@ func Release() {
 }
 
 // Shutdown timeout毫秒
-func Shutdown(timeout int64) (err error) {
+func Shutdown(timeout int64) error {
 	timeoutDuration := time.Duration(timeout) * time.Millisecond
 	utils.Log.Println("Shutdown server...")
-	if conf.Conf.Scheme.HttpPort != -1 {
-		err := shutdown(httpSrv, timeoutDuration)
-		if err != nil {
-			return err
+	// 逐个关闭所有监听（某个监听关闭失败不影响其余监听），全部结束后再关闭数据库
+	var errs []error
+	if httpSrv != nil {
+		if err := shutdown(httpSrv, timeoutDuration); err != nil {
+			errs = append(errs, fmt.Errorf("http: %w", err))
+		} else {
+			utils.Log.Println("Server HTTP Shutdown")
 		}
 		httpSrv = nil
-		utils.Log.Println("Server HTTP Shutdown")
 	}
-	if conf.Conf.Scheme.HttpsPort != -1 {
-		err := shutdown(httpsSrv, timeoutDuration)
-		if err != nil {
-			return err
+	if httpsSrv != nil {
+		if err := shutdown(httpsSrv, timeoutDuration); err != nil {
+			errs = append(errs, fmt.Errorf("https: %w", err))
+		} else {
+			utils.Log.Println("Server HTTPS Shutdown")
 		}
 		httpsSrv = nil
-		utils.Log.Println("Server HTTPS Shutdown")
 	}
-	if conf.Conf.Scheme.UnixFile != "" {
-		err := shutdown(unixSrv, timeoutDuration)
-		if err != nil {
-			return err
+	if unixSrv != nil {
+		if err := shutdown(unixSrv, timeoutDuration); err != nil {
+			errs = append(errs, fmt.Errorf("unix: %w", err))
+		} else {
+			utils.Log.Println("Server UNIX Shutdown")
 		}
 		unixSrv = nil
-		utils.Log.Println("Server UNIX Shutdown")
 	}
-	return nil
+	Release()
+	return errors.Join(errs...)
 }
 
 func shutdown(srv *http.Server, timeout time.Duration) error {
 	if srv == nil {
 		return nil
 	}
-	Release()
 	ctx, cancel := context.WithTimeout(context.Background(), timeout)
 	defer cancel()
 	return srv.Shutdown(ctx)
 }
+
+// ShutdownGraceful 优雅关闭，deadline毫秒：
+// 立即停止接受新连接，等待进行中的请求与传输完成，期间通过 OnDrainProgress 报告进度；
+// 传输全部完成后剩余请求最多再等待 drainIdleGrace，超过 deadline 则强制断开。
+// 所有监听结束后才关闭数据库
+func ShutdownGraceful(deadline int64) error {
+	utils.Log.Println("Graceful shutdown server...")
+	ctx, cancel := context.WithTimeout(context.Background(), time.Duration(deadline)*time.Millisecond)
+	defer cancel()
+	done := make(chan struct{})
+	go func() {
+		ticker := time.NewTicker(drainProgressInterval)
+		defer ticker.Stop()
+		var idleSince time.Time
+		for {
+			select {
+			case <-done:
+				return
+			case <-ticker.C:
+				transfers := activeTransfers.Load()
+				event.OnDrainProgress(activeRequests.Load(), transfers)
+				if transfers > 0 {
+					idleSince = time.Time{}
+				} else if idleSince.IsZero() {
+					idleSince = time.Now()
+				} else if time.Since(idleSince) > drainIdleGrace {
+					cancel()
+				}
+			}
+		}
+	}()
+	servers := map[string]*http.Server{"HTTP": httpSrv, "HTTPS": httpsSrv, "UNIX": unixSrv}
+	var wg sync.WaitGroup
+	for name, srv := range servers {
+		if srv == nil {
+			continue
+		}
+		wg.Add(1)
+		go func(name string, srv *http.Server) {
+			defer wg.Done()
+			if err := srv.Shutdown(ctx); err != nil {
+				utils.Log.Warnf("server %s drain interrupted (%v), force close with %d active requests",
+					name, err, activeRequests.Load())
+				_ = srv.Close()
+			}
+			utils.Log.Printf("Server %s Shutdown", name)
+		}(name, srv)
+	}
+	wg.Wait()
+	close(done)
+	httpSrv, httpsSrv, unixSrv = nil, nil, nil
+	// 强制断开后，等待仍在执行的处理函数退出，避免其访问已关闭的数据库
+	for waited := time.Duration(0); activeRequests.Load() > 0 && waited < drainForceWait; waited += 100 * time.Millisecond {
+		time.Sleep(100 * time.Millisecond)
+	}
+	event.OnDrainProgress(activeRequests.Load(), activeTransfers.Load())
+	Release()
+	return nil
+}
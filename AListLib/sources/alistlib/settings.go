@@ -7,6 +7,8 @@ import (
 	"github.com/OpenListTeam/OpenList/v4/internal/model"
 	"github.com/OpenListTeam/OpenList/v4/internal/op"
 	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"github.com/OpenListTeam/OpenList/v4/server/common"
+	"strconv"
 )
 
 func SetConfigData(path string) {
@@ -42,7 +44,8 @@ func AddLocalStorage(localPath string, mountPath string) {
 		// - mkdir_perm: 777 给予最大权限（rwxrwxrwx）
 		// - show_hidden: true 显示隐藏文件（包括.nomedia等）
 		// - recycle_bin_path: "delete permanently" 永久删除而不是移到回收站
-		Addition: "{\"root_folder_path\":\"" + localPath + "\",\"thumbnail\":false,\"thumb_cache_folder\":\"\",\"show_hidden\":true,\"mkdir_perm\":\"777\",\"recycle_bin_path\":\"delete permanently\"}",
+		// - thumbnail: 设置了缩略图缓存目录（SetThumbProvider）时开启，由 Android 端生成缩略图
+		Addition: "{\"root_folder_path\":\"" + localPath + "\",\"thumbnail\":" + strconv.FormatBool(thumbCacheFolder != "") + ",\"thumb_cache_folder\":\"" + thumbCacheFolder + "\",\"show_hidden\":true,\"mkdir_perm\":\"777\",\"recycle_bin_path\":\"delete permanently\"}",
 	}
 	//创建本地存储
 	storageId, err := op.CreateStorage(context.Background(), storage)
@@ -80,3 +83,12 @@ func GetAdminUser() string {
 	}
 	return admin.Username
 }
+
+// GenerateAdminToken 为管理员签发登录令牌，供 Android 端通过本机回环地址调用接口（如分享上传）
+func GenerateAdminToken() (string, error) {
+	admin, err := op.GetAdmin()
+	if err != nil {
+		return "", err
+	}
+	return common.GenerateToken(admin)
+}
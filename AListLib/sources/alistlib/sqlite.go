@@ -0,0 +1,110 @@
+package alistlib
+
+import (
+	"database/sql"
+	"fmt"
+	"os"
+	"path/filepath"
+	"strings"
+	"sync"
+	"sync/atomic"
+
+	"github.com/OpenListTeam/OpenList/v4/cmd/flags"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"github.com/mattn/go-sqlite3"
+	"gorm.io/driver/sqlite"
+	"gorm.io/gorm"
+)
+
+// SQLite 调优参数文件（位于数据目录，由客户端按存储介质生成，用户可手动修改）
+const sqliteTuningFile = "sqlite.json"
+
+// sqliteTuning SQLite 连接参数调优，零值表示保持 SQLite 默认值
+type sqliteTuning struct {
+	// Preset 由客户端写入的预设名称，不以 auto 开头时客户端不再覆盖
+	Preset string `json:"preset"`
+	// Synchronous 同步级别（OFF/NORMAL/FULL），WAL 模式下 NORMAL 不会损坏数据库
+	Synchronous string `json:"synchronous"`
+	// CacheSize 页缓存大小（KiB）
+	CacheSize int `json:"cache_size"`
+	// MmapSize 内存映射读取的最大字节数
+	MmapSize int64 `json:"mmap_size"`
+	// WalAutocheckpoint WAL 自动检查点的页数阈值
+	WalAutocheckpoint int `json:"wal_autocheckpoint"`
+	// BusyTimeout 数据库锁等待时间（毫秒）
+	BusyTimeout int `json:"busy_timeout"`
+}
+
+// 打开数据库时使用的参数，数据库测试以此作为当前参数
+var currentSqliteTuning atomic.Pointer[sqliteTuning]
+
+var sqliteDrivers sync.Map
+
+// loadSqliteTuning 读取调优参数，文件不存在或无法解析时使用默认参数
+func loadSqliteTuning() sqliteTuning {
+	var tuning sqliteTuning
+	data, err := os.ReadFile(filepath.Join(flags.DataDir, sqliteTuningFile))
+	if err != nil {
+		return tuning
+	}
+	if err = utils.Json.Unmarshal(data, &tuning); err != nil {
+		utils.Log.Warnf("failed to parse %s, use default sqlite parameters: %+v", sqliteTuningFile, err)
+		return sqliteTuning{}
+	}
+	return tuning
+}
+
+// openSqlite 按调优参数打开引擎数据库（打开数据库时由 bootstrap.InitDB 调用）
+func openSqlite(dbFile string) gorm.Dialector {
+	tuning := loadSqliteTuning()
+	currentSqliteTuning.Store(&tuning)
+	return sqlite.New(sqlite.Config{
+		DriverName: sqliteDriverName(tuning),
+		DSN:        sqliteDSN(dbFile, tuning),
+	})
+}
+
+// sqliteDSN 连接参数：在 WAL 与增量清理的基础上附加调优项（DSN 支持的部分）
+func sqliteDSN(file string, tuning sqliteTuning) string {
+	dsn := fmt.Sprintf("%s?_journal=WAL&_vacuum=incremental", file)
+	if tuning.Synchronous != "" {
+		dsn += "&_synchronous=" + strings.ToUpper(tuning.Synchronous)
+	}
+	if tuning.CacheSize > 0 {
+		// 负数表示 KiB
+		dsn += fmt.Sprintf("&_cache_size=-%d", tuning.CacheSize)
+	}
+	if tuning.BusyTimeout > 0 {
+		dsn += fmt.Sprintf("&_busy_timeout=%d", tuning.BusyTimeout)
+	}
+	return dsn
+}
+
+// sqliteDriverName DSN 不支持的 PRAGMA 通过注册带连接钩子的驱动在每个新连接上执行
+func sqliteDriverName(tuning sqliteTuning) string {
+	var pragmas []string
+	if tuning.MmapSize > 0 {
+		pragmas = append(pragmas, fmt.Sprintf("PRAGMA mmap_size=%d", tuning.MmapSize))
+	}
+	if tuning.WalAutocheckpoint > 0 {
+		pragmas = append(pragmas, fmt.Sprintf("PRAGMA wal_autocheckpoint=%d", tuning.WalAutocheckpoint))
+	}
+	if len(pragmas) == 0 {
+		return "sqlite3"
+	}
+	// 同一组参数只注册一次（sql.Register 重复注册会 panic，重启引擎时参数可能不变）
+	name := "sqlite3_" + strings.Join(pragmas, ";")
+	if _, loaded := sqliteDrivers.LoadOrStore(name, true); !loaded {
+		sql.Register(name, &sqlite3.SQLiteDriver{
+			ConnectHook: func(conn *sqlite3.SQLiteConn) error {
+				for _, pragma := range pragmas {
+					if _, err := conn.Exec(pragma, nil); err != nil {
+						return err
+					}
+				}
+				return nil
+			},
+		})
+	}
+	return name
+}
@@ -0,0 +1,171 @@
+package alistlib
+
+import (
+	"bytes"
+	"context"
+	"encoding/json"
+	"github.com/OpenListTeam/OpenList/v4/drivers/local"
+	"github.com/OpenListTeam/OpenList/v4/internal/conf"
+	"github.com/OpenListTeam/OpenList/v4/internal/driver"
+	"github.com/OpenListTeam/OpenList/v4/internal/model"
+	"github.com/OpenListTeam/OpenList/v4/internal/op"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"github.com/gin-gonic/gin"
+	"io"
+	"net/http"
+	"os"
+	"path/filepath"
+	"sort"
+	"strings"
+)
+
+// ThumbProvider 由 Android 端实现，使用系统硬件解码器生成缩略图
+type ThumbProvider interface {
+	// Generate 为 srcPath 生成缩略图并写入 dstPath（PNG），成功返回 true
+	Generate(srcPath string, dstPath string) bool
+}
+
+// 与 drivers/local 中缩略图缓存文件命名保持一致
+const thumbPrefix = "openlist_thumb_"
+
+var thumbProvider ThumbProvider
+var thumbCacheFolder string
+
+// 预取并发上限，避免与正常文件传输争抢 IO
+var thumbPrefetchSem = make(chan struct{}, 2)
+
+// SetThumbProvider 设置缩略图提供者及缓存目录，需在 AddLocalStorage 之前调用
+func SetThumbProvider(p ThumbProvider, cacheFolder string) {
+	thumbProvider = p
+	thumbCacheFolder = cacheFolder
+	// 由本地驱动在 Link 中调用，此时 /d 的签名与 /p 的权限校验均已通过
+	if p != nil {
+		local.ThumbGenerator = p.Generate
+	} else {
+		local.ThumbGenerator = nil
+	}
+}
+
+// SetLocalThumbnail 为已挂载的本地存储开启/关闭缩略图
+func SetLocalThumbnail(enabled bool) {
+	for _, storage := range op.GetAllStorages() {
+		if storage.Config().Name != "Local" {
+			continue
+		}
+		s := *storage.GetStorage()
+		var addition map[string]interface{}
+		if err := json.Unmarshal([]byte(s.Addition), &addition); err != nil {
+			utils.Log.Errorf("failed to parse local storage addition: %+v", err)
+			continue
+		}
+		if addition["thumbnail"] == enabled && addition["thumb_cache_folder"] == thumbCacheFolder {
+			continue
+		}
+		addition["thumbnail"] = enabled
+		addition["thumb_cache_folder"] = thumbCacheFolder
+		data, err := json.Marshal(addition)
+		if err != nil {
+			continue
+		}
+		s.Addition = string(data)
+		if err := op.UpdateStorage(context.Background(), s); err != nil {
+			utils.Log.Errorf("failed to update local storage [%s] thumbnail: %+v", s.MountPath, err)
+			continue
+		}
+		utils.Log.Infof("local storage [%s] thumbnail: %v", s.MountPath, enabled)
+	}
+}
+
+// localThumbPath 将虚拟路径解析为本地存储的真实路径及对应的缩略图缓存路径
+func localThumbPath(rawPath string) (string, string, bool) {
+	storage, actualPath, err := op.GetStorageAndActualPath(rawPath)
+	if err != nil || storage.Config().Name != "Local" {
+		return "", "", false
+	}
+	root, ok := storage.(driver.IRootPath)
+	if !ok {
+		return "", "", false
+	}
+	fullPath := filepath.Join(root.GetRootPath(), actualPath)
+	return fullPath, thumbCachePath(fullPath), true
+}
+
+func thumbCachePath(fullPath string) string {
+	return filepath.Join(thumbCacheFolder, thumbPrefix+utils.GetMD5EncodeStr(fullPath)+".png")
+}
+
+// thumbMiddleware 目录列表成功返回后（已通过鉴权），预取下一页的缩略图；
+// 单个缩略图请求由本地驱动在校验通过后调用 ThumbGenerator 生成
+func thumbMiddleware(c *gin.Context) {
+	if thumbProvider == nil || thumbCacheFolder == "" {
+		c.Next()
+		return
+	}
+	if !strings.HasSuffix(c.FullPath(), "/api/fs/list") || c.Request.Body == nil {
+		c.Next()
+		return
+	}
+	body, err := io.ReadAll(c.Request.Body)
+	c.Request.Body = io.NopCloser(bytes.NewReader(body))
+	c.Next()
+	if err != nil || c.Writer.Status() != http.StatusOK {
+		return
+	}
+	var req struct {
+		model.PageReq
+		Path string `json:"path"`
+	}
+	if json.Unmarshal(body, &req) != nil || req.PerPage < 1 {
+		return
+	}
+	user, ok := c.Request.Context().Value(conf.UserKey).(*model.User)
+	if !ok {
+		return
+	}
+	reqPath, err := user.JoinPath(req.Path)
+	if err != nil {
+		return
+	}
+	if req.Page < 1 {
+		req.Page = 1
+	}
+	go prefetchThumbs(reqPath, req.Page*req.PerPage, req.PerPage)
+}
+
+// prefetchThumbs 为目录中 [offset, offset+limit) 范围内的图片与视频生成缩略图
+func prefetchThumbs(reqPath string, offset int, limit int) {
+	dir, _, ok := localThumbPath(reqPath)
+	if !ok {
+		return
+	}
+	entries, err := os.ReadDir(dir)
+	if err != nil {
+		return
+	}
+	// 与本地驱动的 readDir 保持相同的排序
+	sort.Slice(entries, func(i, j int) bool { return entries[i].Name() < entries[j].Name() })
+	if offset >= len(entries) {
+		return
+	}
+	end := offset + limit
+	if end > len(entries) {
+		end = len(entries)
+	}
+	for _, entry := range entries[offset:end] {
+		if entry.IsDir() {
+			continue
+		}
+		fileType := utils.GetFileType(entry.Name())
+		if fileType != conf.IMAGE && fileType != conf.VIDEO {
+			continue
+		}
+		src := filepath.Join(dir, entry.Name())
+		dst := thumbCachePath(src)
+		if utils.Exists(dst) {
+			continue
+		}
+		thumbPrefetchSem <- struct{}{}
+		thumbProvider.Generate(src, dst)
+		<-thumbPrefetchSem
+	}
+}
@@ -0,0 +1,136 @@
+package alistlib
+
+import (
+	"crypto"
+	"crypto/ecdsa"
+	"crypto/rand"
+	"crypto/tls"
+	"crypto/x509"
+	"crypto/x509/pkix"
+	"encoding/pem"
+	"errors"
+	"fmt"
+	"io"
+	"math/big"
+	"net"
+	"strings"
+	"sync/atomic"
+	"time"
+
+	"github.com/OpenListTeam/OpenList/v4/internal/conf"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+)
+
+// KeySigner 设备私钥签名：私钥保存在 Android Keystore 中不可导出，签发证书与 TLS 握手时回调 Android 端签名
+type KeySigner interface {
+	// Sign 对 SHA-256 摘要进行 ECDSA 签名，返回 ASN.1 DER 编码的签名
+	Sign(digest []byte) ([]byte, error)
+}
+
+// HTTP/2 单连接最大并发流数（相册缩略图等大量小请求在一条连接上多路复用）
+const http2MaxConcurrentStreams = 256
+
+// 配置中未指定证书文件时 HTTPS 使用的设备证书
+var deviceCertificate atomic.Pointer[tls.Certificate]
+
+type deviceSigner struct {
+	public crypto.PublicKey
+	signer KeySigner
+}
+
+func (s *deviceSigner) Public() crypto.PublicKey {
+	return s.public
+}
+
+func (s *deviceSigner) Sign(_ io.Reader, digest []byte, opts crypto.SignerOpts) ([]byte, error) {
+	if opts.HashFunc() != crypto.SHA256 {
+		return nil, fmt.Errorf("unsupported hash: %v", opts.HashFunc())
+	}
+	return s.signer.Sign(digest)
+}
+
+// CreateDeviceCertificate 为设备密钥签发自签名证书并返回 PEM：publicKey 为 DER 编码的 P-256 公钥，
+// hosts 为以逗号分隔的 IP 或域名（写入证书的可选名称），validDays 为有效天数
+func CreateDeviceCertificate(publicKey []byte, signer KeySigner, hosts string, validDays int) (string, error) {
+	public, err := x509.ParsePKIXPublicKey(publicKey)
+	if err != nil {
+		return "", err
+	}
+	if _, ok := public.(*ecdsa.PublicKey); !ok {
+		return "", errors.New("device key must be ECDSA")
+	}
+	serial, err := rand.Int(rand.Reader, new(big.Int).Lsh(big.NewInt(1), 128))
+	if err != nil {
+		return "", err
+	}
+	now := time.Now()
+	template := &x509.Certificate{
+		SerialNumber: serial,
+		Subject:      pkix.Name{CommonName: "AListLite Device", Organization: []string{"AListLite"}},
+		// 容忍设备间的时钟偏差
+		NotBefore:             now.Add(-time.Hour),
+		NotAfter:              now.AddDate(0, 0, validDays),
+		KeyUsage:              x509.KeyUsageDigitalSignature,
+		ExtKeyUsage:           []x509.ExtKeyUsage{x509.ExtKeyUsageServerAuth},
+		BasicConstraintsValid: true,
+	}
+	for _, host := range strings.Split(hosts, ",") {
+		host = strings.TrimSpace(host)
+		if host == "" {
+			continue
+		}
+		if ip := net.ParseIP(host); ip != nil {
+			template.IPAddresses = append(template.IPAddresses, ip)
+		} else {
+			template.DNSNames = append(template.DNSNames, host)
+		}
+	}
+	der, err := x509.CreateCertificate(rand.Reader, template, template, public, &deviceSigner{public: public, signer: signer})
+	if err != nil {
+		return "", err
+	}
+	return string(pem.EncodeToMemory(&pem.Block{Type: "CERTIFICATE", Bytes: der})), nil
+}
+
+// SetDeviceCertificate 设置设备证书（certPEM 为空时清除），配置中未指定 cert_file 与 key_file 时 HTTPS 使用该证书；
+// HTTPS 运行中轮换证书时直接替换，新连接即使用新证书
+func SetDeviceCertificate(certPEM string, signer KeySigner) error {
+	if certPEM == "" {
+		deviceCertificate.Store(nil)
+		return nil
+	}
+	block, _ := pem.Decode([]byte(certPEM))
+	if block == nil || block.Type != "CERTIFICATE" {
+		return errors.New("invalid certificate PEM")
+	}
+	leaf, err := x509.ParseCertificate(block.Bytes)
+	if err != nil {
+		return err
+	}
+	deviceCertificate.Store(&tls.Certificate{
+		Certificate: [][]byte{block.Bytes},
+		PrivateKey:  &deviceSigner{public: leaf.PublicKey, signer: signer},
+		Leaf:        leaf,
+	})
+	if scheme := currentScheme(); httpsSrv != nil && usesDeviceCertificate(scheme) {
+		if err = loadCertificate(scheme); err != nil {
+			return err
+		}
+		utils.Log.Infof("device TLS certificate rotated, expires at %s", leaf.NotAfter.Format(time.DateOnly))
+	}
+	return nil
+}
+
+func usesDeviceCertificate(scheme conf.Scheme) bool {
+	return scheme.CertFile == "" && scheme.KeyFile == ""
+}
+
+// newTLSConfig HTTPS 监听的 TLS 配置：证书通过 GetCertificate 读取，热加载与轮换证书时无需重新绑定端口；
+// 显式协商 HTTP/2，会话票据（默认开启，密钥由运行时定期轮换）使重连跳过完整握手，减少设备私钥签名
+func newTLSConfig() *tls.Config {
+	return &tls.Config{
+		GetCertificate: getCertificate,
+		MinVersion:     tls.VersionTLS12,
+		NextProtos:     []string{"h2", "http/1.1"},
+	}
+}
@@ -0,0 +1,421 @@
+package alistlib
+
+import (
+	"bufio"
+	"crypto/sha1"
+	"encoding/hex"
+	"errors"
+	"fmt"
+	"io"
+	"math"
+	"net/url"
+	"os"
+	stdpath "path"
+	"path/filepath"
+	"regexp"
+	"strconv"
+	"strings"
+	"sync"
+	"time"
+
+	"github.com/OpenListTeam/OpenList/v4/internal/conf"
+	"github.com/OpenListTeam/OpenList/v4/internal/fs"
+	"github.com/OpenListTeam/OpenList/v4/internal/model"
+	"github.com/OpenListTeam/OpenList/v4/internal/stream"
+	"github.com/OpenListTeam/OpenList/v4/internal/task"
+	"github.com/OpenListTeam/OpenList/v4/pkg/utils"
+	"github.com/OpenListTeam/OpenList/v4/server/common"
+	"github.com/OpenListTeam/OpenList/v4/server/handles"
+	"github.com/OpenListTeam/OpenList/v4/server/middlewares"
+	"github.com/gin-gonic/gin"
+)
+
+// 分块上传：客户端将文件按固定大小分块，可并发、可重传地上传到同一临时文件的对应偏移，
+// 全部分块到齐后一次性写入目标存储。已收到的分块序号记录在旁路文件中，中断后查询即可续传。
+// 会话以 用户+目标路径+Upload-Id 为键，会话记录保存文件大小与分块大小，后续请求与记录不一致时拒绝
+
+const chunkUploadFolder = "chunk_upload"
+
+// 超过该时间未更新的上传会话会被清理
+const chunkUploadExpire = 24 * time.Hour
+
+// 过期会话清理间隔
+const chunkUploadSweepInterval = time.Hour
+
+// 会话文件后缀：分块数据、已收到的分块序号、会话记录
+const (
+	chunkDataSuffix    = ".part"
+	chunkRecordSuffix  = ".chunks"
+	chunkSessionSuffix = ".session"
+)
+
+var uploadIdPattern = regexp.MustCompile(`^[0-9A-Za-z_-]{8,64}$`)
+
+var errChunkUploadMismatch = errors.New("upload session mismatch")
+
+// 同一会话的会话记录、分块记录与完成操作互斥
+var chunkUploadLocks sync.Map
+
+var chunkUploadSweeper sync.Once
+
+// chunkUploadSession 会话记录
+type chunkUploadSession struct {
+	UserId    uint   `json:"user_id"`
+	Path      string `json:"path"`
+	FileSize  int64  `json:"file_size"`
+	ChunkSize int64  `json:"chunk_size"`
+}
+
+type chunkUploadArgs struct {
+	chunkUploadSession
+	uploadId string
+	// 会话文件名，由用户、目标路径与 Upload-Id 生成
+	key string
+}
+
+// chunkUploadRoutes 注册分块上传接口，并开始定期清理过期会话
+func chunkUploadRoutes(g *gin.RouterGroup) {
+	uploadLimiter := middlewares.UploadRateLimiter(stream.ClientUploadLimit)
+	g.GET("/put_chunk", middlewares.FsUp, chunkUploadStatus)
+	g.PUT("/put_chunk", middlewares.FsUp, uploadLimiter, chunkUploadPut)
+	g.POST("/put_chunk/complete", middlewares.FsUp, chunkUploadComplete)
+	chunkUploadSweeper.Do(func() {
+		go func() {
+			for {
+				cleanExpiredChunkUploads()
+				time.Sleep(chunkUploadSweepInterval)
+			}
+		}()
+	})
+}
+
+func (a chunkUploadArgs) file(suffix string) string {
+	return filepath.Join(conf.Conf.TempDir, chunkUploadFolder, a.key+suffix)
+}
+
+func (a chunkUploadArgs) chunkCount() int64 {
+	return (a.FileSize + a.ChunkSize - 1) / a.ChunkSize
+}
+
+func (a chunkUploadArgs) lock() *sync.Mutex {
+	lock, _ := chunkUploadLocks.LoadOrStore(a.key, &sync.Mutex{})
+	return lock.(*sync.Mutex)
+}
+
+func parseChunkUploadArgs(c *gin.Context) (chunkUploadArgs, error) {
+	var args chunkUploadArgs
+	path, err := url.PathUnescape(c.GetHeader("File-Path"))
+	if err != nil {
+		return args, err
+	}
+	user := c.Request.Context().Value(conf.UserKey).(*model.User)
+	if args.Path, err = user.JoinPath(path); err != nil {
+		return args, err
+	}
+	args.UserId = user.ID
+	args.uploadId = c.GetHeader("Upload-Id")
+	if !uploadIdPattern.MatchString(args.uploadId) {
+		return args, fmt.Errorf("invalid Upload-Id")
+	}
+	if args.FileSize, err = strconv.ParseInt(c.GetHeader("X-File-Size"), 10, 64); err != nil || args.FileSize <= 0 {
+		return args, fmt.Errorf("invalid X-File-Size")
+	}
+	if args.ChunkSize, err = strconv.ParseInt(c.GetHeader("Chunk-Size"), 10, 64); err != nil || args.ChunkSize <= 0 {
+		return args, fmt.Errorf("invalid Chunk-Size")
+	}
+	sum := sha1.Sum([]byte(fmt.Sprintf("%d|%s|%s", args.UserId, args.Path, args.uploadId)))
+	args.key = hex.EncodeToString(sum[:])
+	return args, nil
+}
+
+// checkSession 校验会话记录（调用方持有会话锁）：与记录不一致时返回 errChunkUploadMismatch；
+// 记录不存在时 create 为 true 则创建，否则返回 os.ErrNotExist
+func (a chunkUploadArgs) checkSession(create bool) error {
+	sessionFile := a.file(chunkSessionSuffix)
+	data, err := os.ReadFile(sessionFile)
+	if os.IsNotExist(err) && create {
+		if err = os.MkdirAll(filepath.Dir(sessionFile), 0o777); err != nil {
+			return err
+		}
+		if data, err = utils.Json.Marshal(a.chunkUploadSession); err != nil {
+			return err
+		}
+		return os.WriteFile(sessionFile, data, 0o666)
+	}
+	if err != nil {
+		return err
+	}
+	var session chunkUploadSession
+	if err = utils.Json.Unmarshal(data, &session); err != nil {
+		return err
+	}
+	if session != a.chunkUploadSession {
+		return errChunkUploadMismatch
+	}
+	// 刷新会话时间，进行中的会话不会被清理
+	now := time.Now()
+	_ = os.Chtimes(sessionFile, now, now)
+	return nil
+}
+
+// chunkUploadError 会话校验失败的响应
+func chunkUploadError(c *gin.Context, err error) {
+	switch {
+	case errors.Is(err, errChunkUploadMismatch):
+		common.ErrorResp(c, err, 409)
+	case errors.Is(err, os.ErrNotExist):
+		common.ErrorStrResp(c, "upload session not found", 404)
+	default:
+		common.ErrorResp(c, err, 500)
+	}
+}
+
+// readReceivedChunks 读取已收到的分块序号
+func readReceivedChunks(args chunkUploadArgs) map[int64]bool {
+	received := make(map[int64]bool)
+	file, err := os.Open(args.file(chunkRecordSuffix))
+	if err != nil {
+		return received
+	}
+	defer file.Close()
+	scanner := bufio.NewScanner(file)
+	for scanner.Scan() {
+		if index, err := strconv.ParseInt(scanner.Text(), 10, 64); err == nil {
+			received[index] = true
+		}
+	}
+	return received
+}
+
+// cleanExpiredChunkUploads 清理长时间未更新的上传会话（进行中的会话每次写入都会刷新文件时间）
+func cleanExpiredChunkUploads() {
+	if conf.Conf == nil {
+		return
+	}
+	dir := filepath.Join(conf.Conf.TempDir, chunkUploadFolder)
+	entries, err := os.ReadDir(dir)
+	if err != nil {
+		return
+	}
+	for _, entry := range entries {
+		info, err := entry.Info()
+		if err != nil || time.Since(info.ModTime()) <= chunkUploadExpire {
+			continue
+		}
+		if os.Remove(filepath.Join(dir, entry.Name())) == nil && strings.HasSuffix(entry.Name(), chunkSessionSuffix) {
+			chunkUploadLocks.Delete(strings.TrimSuffix(entry.Name(), chunkSessionSuffix))
+		}
+	}
+}
+
+// chunkUploadStatus 查询上传会话已收到的分块（续传时跳过）
+func chunkUploadStatus(c *gin.Context) {
+	args, err := parseChunkUploadArgs(c)
+	if err != nil {
+		common.ErrorResp(c, err, 400)
+		return
+	}
+	lock := args.lock()
+	lock.Lock()
+	err = args.checkSession(false)
+	received := readReceivedChunks(args)
+	lock.Unlock()
+	if err != nil && !errors.Is(err, os.ErrNotExist) {
+		chunkUploadError(c, err)
+		return
+	}
+	chunks := make([]int64, 0, len(received))
+	if err == nil {
+		for index := range received {
+			chunks = append(chunks, index)
+		}
+	}
+	common.SuccessResp(c, gin.H{
+		"chunks": chunks,
+	})
+}
+
+// chunkUploadPut 写入一个分块：Chunk-Index 指定序号，请求体为该分块的完整内容
+func chunkUploadPut(c *gin.Context) {
+	defer func() {
+		_ = c.Request.Body.Close()
+	}()
+	args, err := parseChunkUploadArgs(c)
+	if err != nil {
+		common.ErrorResp(c, err, 400)
+		return
+	}
+	index, err := strconv.ParseInt(c.GetHeader("Chunk-Index"), 10, 64)
+	if err != nil || index < 0 || index >= args.chunkCount() {
+		common.ErrorStrResp(c, "invalid Chunk-Index", 400)
+		return
+	}
+	offset := index * args.ChunkSize
+	length := min(args.ChunkSize, args.FileSize-offset)
+	if c.Request.ContentLength != length {
+		common.ErrorStrResp(c, fmt.Sprintf("chunk %d must be %d bytes", index, length), 400)
+		return
+	}
+	lock := args.lock()
+	lock.Lock()
+	err = args.checkSession(true)
+	lock.Unlock()
+	if err != nil {
+		chunkUploadError(c, err)
+		return
+	}
+	file, err := os.OpenFile(args.file(chunkDataSuffix), os.O_CREATE|os.O_WRONLY, 0o666)
+	if err != nil {
+		common.ErrorResp(c, err, 500)
+		return
+	}
+	defer file.Close()
+	written, err := utils.CopyWithBuffer(io.NewOffsetWriter(file, offset), io.LimitReader(c.Request.Body, length))
+	if err == nil && written != length {
+		err = io.ErrUnexpectedEOF
+	}
+	// 分块落盘后才记录，进程被杀后续传不会跳过未写完的分块
+	if err == nil {
+		err = file.Sync()
+	}
+	if err != nil {
+		common.ErrorResp(c, err, 500)
+		return
+	}
+	lock.Lock()
+	defer lock.Unlock()
+	// 写入期间会话可能已完成或被清理
+	if err = args.checkSession(false); err != nil {
+		chunkUploadError(c, err)
+		return
+	}
+	record, err := os.OpenFile(args.file(chunkRecordSuffix), os.O_CREATE|os.O_WRONLY|os.O_APPEND, 0o666)
+	if err != nil {
+		common.ErrorResp(c, err, 500)
+		return
+	}
+	_, err = fmt.Fprintf(record, "%d\n", index)
+	if closeErr := record.Close(); err == nil {
+		err = closeErr
+	}
+	if err != nil {
+		common.ErrorResp(c, err, 500)
+		return
+	}
+	common.SuccessResp(c)
+}
+
+// chunkUploadComplete 全部分块到齐后写入目标存储，参数与 /api/fs/put 相同；临时文件交由文件流在上传结束后删除
+func chunkUploadComplete(c *gin.Context) {
+	args, err := parseChunkUploadArgs(c)
+	if err != nil {
+		common.ErrorResp(c, err, 400)
+		return
+	}
+	lock := args.lock()
+	lock.Lock()
+	defer lock.Unlock()
+	if err = args.checkSession(false); err != nil {
+		chunkUploadError(c, err)
+		return
+	}
+	received := readReceivedChunks(args)
+	for index := int64(0); index < args.chunkCount(); index++ {
+		if !received[index] {
+			common.ErrorStrResp(c, fmt.Sprintf("chunk %d not received", index), 400)
+			return
+		}
+	}
+	asTask := c.GetHeader("As-Task") == "true"
+	overwrite := c.GetHeader("Overwrite") != "false"
+	if !overwrite {
+		if res, _ := fs.Get(c.Request.Context(), args.Path, &fs.GetArgs{NoLog: true}); res != nil {
+			common.ErrorStrResp(c, "file exists", 403)
+			return
+		}
+	}
+	file, err := os.Open(args.file(chunkDataSuffix))
+	if err != nil {
+		common.ErrorResp(c, err, 500)
+		return
+	}
+	_ = os.Remove(args.file(chunkRecordSuffix))
+	_ = os.Remove(args.file(chunkSessionSuffix))
+	chunkUploadLocks.Delete(args.key)
+	dir, name := stdpath.Split(args.Path)
+	mimetype := c.GetHeader("Content-Type")
+	if len(mimetype) == 0 {
+		mimetype = utils.GetMimeType(name)
+	}
+	s := &stream.FileStream{
+		Obj: &model.Object{
+			Name:     name,
+			Size:     args.FileSize,
+			Modified: lastModified(c),
+		},
+		Mimetype:     mimetype,
+		WebPutAsTask: asTask,
+	}
+	s.SetTmpFile(file)
+	var t task.TaskExtensionInfo
+	if asTask {
+		t, err = fs.PutAsTask(c.Request.Context(), dir, s)
+	} else {
+		err = fs.PutDirectly(c.Request.Context(), dir, s, true)
+	}
+	// 后台任务成功创建时由任务负责关闭
+	if err != nil || !asTask {
+		_ = s.Close()
+	}
+	if err != nil {
+		common.ErrorResp(c, err, 500)
+		return
+	}
+	if t == nil {
+		common.SuccessResp(c)
+		return
+	}
+	common.SuccessResp(c, gin.H{
+		"task": taskInfo(t),
+	})
+}
+
+// lastModified 客户端通过 Last-Modified（毫秒时间戳）指定的修改时间，与 /api/fs/put 一致
+func lastModified(c *gin.Context) time.Time {
+	millis, err := strconv.ParseInt(c.GetHeader("Last-Modified"), 10, 64)
+	if err != nil {
+		return time.Now()
+	}
+	return time.UnixMilli(millis)
+}
+
+// taskInfo 上传任务信息，与 /api/fs/put 返回的格式一致
+func taskInfo(t task.TaskExtensionInfo) handles.TaskInfo {
+	errMsg := ""
+	if t.GetErr() != nil {
+		errMsg = t.GetErr().Error()
+	}
+	progress := t.GetProgress()
+	if math.IsNaN(progress) {
+		progress = 100
+	}
+	creatorName := ""
+	creatorRole := -1
+	if t.GetCreator() != nil {
+		creatorName = t.GetCreator().Username
+		creatorRole = t.GetCreator().Role
+	}
+	return handles.TaskInfo{
+		ID:          t.GetID(),
+		Name:        t.GetName(),
+		Creator:     creatorName,
+		CreatorRole: creatorRole,
+		State:       t.GetState(),
+		Status:      t.GetStatus(),
+		Progress:    progress,
+		StartTime:   t.GetStartTime(),
+		EndTime:     t.GetEndTime(),
+		TotalBytes:  t.GetTotalBytes(),
+		Error:       errMsg,
+	}
+}
@@ -107,6 +107,10 @@ func readDir(dirname string) ([]fs.FileInfo, error) {
 	return list, nil
 }
 
+// ThumbGenerator external thumbnail generator (e.g. platform hardware decoder), writes a PNG thumbnail of
+// srcPath to dstPath and returns true on success. It is called from Link, after the request has been authorized.
+var ThumbGenerator func(srcPath string, dstPath string) bool
+
 func (d *Local) getThumb(file model.Obj) (*bytes.Buffer, *string, error) {
 	fullPath := file.GetPath()
 	thumbPrefix := "openlist_thumb_"
@@ -117,6 +121,10 @@ func (d *Local) getThumb(file model.Obj) (*bytes.Buffer, *string, error) {
 			return nil, &fullPath, nil
 		}
 		thumbPath := filepath.Join(d.ThumbCacheFolder, thumbName)
+		if ThumbGenerator != nil {
+			// on cache hit the generator only refreshes the access time; fall back to imaging on failure
+			ThumbGenerator(fullPath, thumbPath)
+		}
 		if utils.Exists(thumbPath) {
 			return nil, &thumbPath, nil
 		}
@@ -18,6 +18,10 @@ import (
 	"gorm.io/gorm/schema"
 )
 
+// SqliteDialector overrides how the sqlite3 database is opened (e.g. extra connection parameters),
+// the default parameters are used when it is nil
+var SqliteDialector func(dbFile string) gorm.Dialector
+
 func InitDB() {
 	logLevel := logger.Silent
 	if flags.Debug || flags.Dev {
@@ -51,8 +55,11 @@ func InitDB() {
 				if !(strings.HasSuffix(database.DBFile, ".db") && len(database.DBFile) > 3) {
 					log.Fatalf("db name error.")
 				}
-				dB, err = gorm.Open(sqlite.Open(fmt.Sprintf("%s?_journal=WAL&_vacuum=incremental",
-					database.DBFile)), gormConfig)
+				dialector := sqlite.Open(fmt.Sprintf("%s?_journal=WAL&_vacuum=incremental", database.DBFile))
+				if SqliteDialector != nil {
+					dialector = SqliteDialector(database.DBFile)
+				}
+				dB, err = gorm.Open(dialector, gormConfig)
 			}
 		case "mysql":
 			{
@@ -116,6 +116,17 @@ func ProxyRange(ctx context.Context, link *model.Link, size int64) *model.Link {
 	return link
 }
 
+// RangeCache wraps the link of a proxied file (e.g. reads it through a local chunk cache),
+// rawPath is the path of the file in the storage. It returns the link unchanged when caching is not applicable
+var RangeCache func(storage *model.Storage, rawPath string, link *model.Link, file model.Obj) *model.Link
+
+func CacheRange(storage *model.Storage, rawPath string, link *model.Link, file model.Obj) *model.Link {
+	if RangeCache == nil {
+		return link
+	}
+	return RangeCache(storage, rawPath, link, file)
+}
+
 type InterceptResponseWriter struct {
 	http.ResponseWriter
 	io.Writer
@@ -71,7 +71,7 @@ func Proxy(c *gin.Context) {
 			common.ErrorPage(c, err, 500)
 			return
 		}
-		proxy(c, link, file, storage.GetStorage().ProxyRange)
+		proxy(c, link, file, storage.GetStorage(), rawPath)
 	} else {
 		common.ErrorPage(c, errors.New("proxy not allowed"), 403)
 		return
@@ -97,7 +97,8 @@ func redirect(c *gin.Context, link *model.Link) {
 	c.Redirect(302, link.URL)
 }
 
-func proxy(c *gin.Context, link *model.Link, file model.Obj, proxyRange bool) {
+// proxy serves the link through the local proxy; when cachePath is not empty the file may be read through common.CacheRange
+func proxy(c *gin.Context, link *model.Link, file model.Obj, storage *model.Storage, cachePath string) {
 	defer link.Close()
 	var err error
 	if link.URL != "" && setting.GetBool(conf.ForwardDirectLinkParams) {
@@ -111,9 +112,13 @@ func proxy(c *gin.Context, link *model.Link, file model.Obj, proxyRange bool) {
 			return
 		}
 	}
-	if proxyRange {
+	if storage.ProxyRange {
 		link = common.ProxyRange(c, link, file.GetSize())
 	}
+	// derived content (transcoding, thumbnails, etc.) is not cached
+	if cachePath != "" && c.Query("type") == "" {
+		link = common.CacheRange(storage, cachePath, link, file)
+	}
 	Writer := &common.WrittenResponseWriter{ResponseWriter: c.Writer}
 	raw, _ := strconv.ParseBool(c.DefaultQuery("raw", "false"))
 	if utils.Ext(file.GetName()) == "md" && setting.GetBool(conf.FilterReadMeScripts) && !raw {
@@ -236,7 +236,7 @@ func SharingDown(c *gin.Context) {
 			return
 		}
 		_ = countAccess(c.ClientIP(), s)
-		proxy(c, link, obj, storage.GetStorage().ProxyRange)
+		proxy(c, link, obj, storage.GetStorage(), unwrapPath)
 	} else {
 		link, _, err := op.Link(c.Request.Context(), storage, actualPath, model.LinkArgs{
 			IP:       c.ClientIP(),
@@ -302,7 +302,7 @@ func SharingArchiveExtract(c *gin.Context) {
 			if dealErrorPage(c, err) {
 				return
 			}
-			proxy(c, link, obj, storage.GetStorage().ProxyRange)
+			proxy(c, link, obj, storage.GetStorage(), "")
 		} else {
 			args.Redirect = true
 			link, _, err := op.DriverExtract(c.Request.Context(), storage, actualPath, args)
@@ -189,6 +189,9 @@ func fsAndShare(g *gin.RouterGroup) {
 	a.Any("/list", handles.FsArchiveListSplit)
 }
 
+// FsRoutes registers additional routes under /api/fs, which are served after authorization
+var FsRoutes func(g *gin.RouterGroup)
+
 func _fs(g *gin.RouterGroup) {
 	g.Any("/search", middlewares.SearchIndex, handles.Search)
 	g.Any("/other", handles.FsOther)
@@ -211,6 +214,9 @@ func _fs(g *gin.RouterGroup) {
 	// g.POST("/add_transmission", handles.SetTransmission)
 	g.POST("/add_offline_download", handles.AddOfflineDownload)
 	g.POST("/archive/decompress", handles.FsArchiveDecompress)
+	if FsRoutes != nil {
+		FsRoutes(g)
+	}
 }
 
 func _task(g *gin.RouterGroup) {
@@ -3,19 +3,22 @@ package com.leohao.android.alistlite;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.DownloadManager;
-import android.content.ComponentName;
+import android.content.ActivityNotFoundException;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
+import android.graphics.Typeface;
 import android.net.Uri;
 import android.net.http.SslError;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
 import android.os.Looper;
-import android.service.quicksettings.TileService;
+import android.os.ParcelFileDescriptor;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.text.method.PasswordTransformationMethod;
 import android.util.Log;
 import android.util.TypedValue;
@@ -28,7 +31,7 @@ import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import cn.hutool.core.date.DateUtil;
 import cn.hutool.extra.qrcode.QrCodeUtil;
 import cn.hutool.http.Method;
 import cn.hutool.json.JSONObject;
@@ -38,13 +41,20 @@ import com.hjq.permissions.OnPermissionCallback;
 import com.hjq.permissions.Permission;
 import com.hjq.permissions.XXPermissions;
 import com.kyleduo.switchbutton.SwitchButton;
-import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.model.LogStore;
 import com.leohao.android.alistlite.service.AlistService;
-import com.leohao.android.alistlite.service.AlistTileService;
+import com.leohao.android.alistlite.service.EngineClient;
+import com.leohao.android.alistlite.service.LogPage;
+import com.leohao.android.alistlite.service.ReloadResult;
+import com.leohao.android.alistlite.service.TlsProvisioner;
 import com.leohao.android.alistlite.util.AppUtil;
+import com.leohao.android.alistlite.util.ChunkUploader;
 import com.leohao.android.alistlite.util.ClipBoardHelper;
 import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.DataLocation;
+import com.leohao.android.alistlite.util.JsonConfigFile;
 import com.leohao.android.alistlite.util.MyHttpUtil;
+import com.leohao.android.alistlite.util.SettingsStore;
 import com.leohao.android.alistlite.window.PopupMenuWindow;
 import com.yuyh.jsonviewer.library.JsonRecyclerView;
 import org.apache.commons.io.FileUtils;
@@ -52,12 +62,14 @@ import org.apache.commons.io.FileUtils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author LeoHao
@@ -65,10 +77,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class MainActivity extends AppCompatActivity {
     private static MainActivity instance;
     private static final String TAG = "MainActivity";
-    /**
-     * 广播定时发送定时器（用于实时更新服务磁贴状态）
-     */
-    private ScheduledExecutorService broadcastScheduler = null;
     private String currentAppVersion;
     private String currentAlistVersion;
     public ActionBar actionBar = null;
@@ -76,7 +84,10 @@ public class MainActivity extends AppCompatActivity {
     public TextView runningInfoTextView = null;
     public SwitchButton serviceSwitch = null;
     public String serverAddress = Constants.URL_ABOUT_BLANK;
-    private Alist alistServer;
+    /**
+     * 引擎运行在独立进程中，界面通过客户端访问
+     */
+    private final EngineClient engineClient = EngineClient.getInstance();
     public TextView appInfoTextView;
     private PopupMenuWindow popupMenuWindow;
     private final ClipBoardHelper clipBoardHelper = ClipBoardHelper.getInstance();
@@ -86,15 +97,25 @@ public class MainActivity extends AppCompatActivity {
     private ValueCallback<Uri[]> mFilePathCallback;
     private ValueCallback<Uri> mUploadMessage;
     private static final int FILE_CHOOSER_REQUEST_CODE = 100;
+    /**
+     * 正在进行的原生上传（同一时间只进行一批）
+     */
+    private volatile ChunkUploader chunkUploader = null;
     private static final int REQUEST_CODE_SAF_EXTERNAL_STORAGE = 2001;
+    private static final int REQUEST_CODE_EXPORT_LOGS = 2002;
+    private static final String[] LOG_LEVEL_OPTIONS = {"全部级别", "错误", "警告及以上", "信息及以上"};
+    private static final String[] LOG_TIME_OPTIONS = {"全部时间", "最近 5 分钟", "最近 1 小时", "最近 24 小时"};
+    private static final long[] LOG_TIME_RANGES = {0, 5 * 60 * 1000L, 3600 * 1000L, 24 * 3600 * 1000L};
+    /**
+     * 待导出日志的筛选条件（null 表示导出全部持久化日志）
+     */
+    private LogStore.Query logExportQuery = null;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         instance = this;
         setContentView(R.layout.activity_main);
-        //获取 AListServer 对象
-        alistServer = Alist.getInstance();
         //初始化控件
         initWidgets();
         //焦点设置
@@ -105,8 +126,26 @@ public class MainActivity extends AppCompatActivity {
         checkAndRequestSAFPermission();
         //检查系统更新
         checkUpdates(null);
-        //初始化广播发送定时器
-        initBroadcastScheduler();
+        //连接引擎进程，根据引擎状态更新界面
+        engineClient.bind(this, this::onEngineStatusChanged);
+    }
+
+    /**
+     * 引擎状态变化：同步服务开关（不触发监听事件）、前端页面与服务未开启提示
+     */
+    private void onEngineStatusChanged(boolean isRunning, String address) {
+        serviceSwitch.setCheckedNoEvent(isRunning);
+        if (isRunning && address != null) {
+            runningInfoTextView.setVisibility(View.GONE);
+            if (!address.equals(serverAddress)) {
+                //加载AList前端页面
+                serverAddress = address;
+                webView.loadUrl(serverAddress);
+            }
+        } else if (runningInfoTextView.getVisibility() != View.VISIBLE) {
+            runningInfoTextView.setVisibility(View.VISIBLE);
+            webView.reload();
+        }
     }
     
     /**
@@ -115,8 +154,7 @@ public class MainActivity extends AppCompatActivity {
     private void checkAndRequestSAFPermission() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
             // 检查设备是否Root
-            boolean isRootEnabled = com.leohao.android.alistlite.util.SharedDataHelper.getBoolean(
-                    Constants.KEY_ROOT_PERMISSION_ENABLED, false);
+            boolean isRootEnabled = SettingsStore.getInstance().get(SettingsStore.ROOT_PERMISSION_ENABLED);
             
             // 如果已启用ROOT权限，不需要SAF
             if (isRootEnabled) {
@@ -166,26 +204,6 @@ public class MainActivity extends AppCompatActivity {
                 .show();
     }
     
-    /**
-     * 初始化广播发送定时器
-     */
-    private void initBroadcastScheduler() {
-        //初始化广播定时发送定时器
-        broadcastScheduler = Executors.newSingleThreadScheduledExecutor();
-        //定时向 TileService 发送服务开启状态
-        broadcastScheduler.scheduleAtFixedRate(() -> {
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
-                //请求监听状态
-                TileService.requestListeningState(this, new ComponentName(this, AlistTileService.class));
-                //根据 AList 服务开启状态选择广播消息类型
-                String actionName = (alistServer != null && alistServer.hasRunning()) ? AlistTileService.ACTION_TILE_ON : AlistTileService.ACTION_TILE_OFF;
-                //更新磁贴开关状态
-                Intent tileServiceIntent = new Intent(this, AlistTileService.class).setAction(actionName);
-                LocalBroadcastManager.getInstance(this).sendBroadcast(tileServiceIntent);
-            }
-        }, 2, 1, TimeUnit.SECONDS);
-    }
-
     /**
      * 初始化焦点设置
      */
@@ -548,7 +566,18 @@ public class MainActivity extends AppCompatActivity {
 
             @Override
             public void onReceivedSslError(WebView webView, SslErrorHandler sslErrorHandler, SslError sslError) {
-                sslErrorHandler.proceed();
+                //本机设备证书（自签名）固定信任，其他证书错误由用户确认
+                if (TlsProvisioner.isDeviceCertificate(sslError.getCertificate())) {
+                    sslErrorHandler.proceed();
+                    return;
+                }
+                new AlertDialog.Builder(MainActivity.this)
+                        .setTitle("证书不受信任")
+                        .setMessage(String.format("%s 的证书无法验证，是否继续访问？", sslError.getUrl()))
+                        .setPositiveButton("继续", (dialog, which) -> sslErrorHandler.proceed())
+                        .setNegativeButton("取消", (dialog, which) -> sslErrorHandler.cancel())
+                        .setOnCancelListener(dialog -> sslErrorHandler.cancel())
+                        .show();
             }
         });
         // 设置下载监听器以支持文件下载
@@ -600,18 +629,26 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
         
+        // 处理日志导出回调
+        if (requestCode == REQUEST_CODE_EXPORT_LOGS) {
+            if (resultCode == Activity.RESULT_OK && data != null && data.getData() != null) {
+                exportLogs(data.getData());
+            }
+            return;
+        }
+        
         // 处理文件选择回调
         if (requestCode == FILE_CHOOSER_REQUEST_CODE) {
             // 处理Android 5.0及以上的回调
             if (mFilePathCallback != null) {
-                Uri[] results = null;
-                if (resultCode == Activity.RESULT_OK && data != null) {
-                    String dataString = data.getDataString();
-                    if (dataString != null) {
-                        results = new Uri[]{Uri.parse(dataString)};
-                    }
+                Uri[] results = parseChosenFiles(resultCode, data);
+                if (results != null && isNativeUploadPage()) {
+                    //文件列表页面的上传改由原生分块上传，前端不再接收文件
+                    mFilePathCallback.onReceiveValue(null);
+                    startNativeUpload(results);
+                } else {
+                    mFilePathCallback.onReceiveValue(results);
                 }
-                mFilePathCallback.onReceiveValue(results);
                 mFilePathCallback = null;
             }
             // 处理旧版本Android的回调
@@ -623,11 +660,169 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * 文件选择结果（支持多选）
+     */
+    private Uri[] parseChosenFiles(int resultCode, Intent data) {
+        if (resultCode != Activity.RESULT_OK || data == null) {
+            return null;
+        }
+        if (data.getClipData() != null && data.getClipData().getItemCount() > 0) {
+            Uri[] results = new Uri[data.getClipData().getItemCount()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = data.getClipData().getItemAt(i).getUri();
+            }
+            return results;
+        }
+        return data.getData() == null ? null : new Uri[]{data.getData()};
+    }
+
+    /**
+     * 当前页面为引擎前端的文件列表（管理、登录等页面的文件选择仍交给前端处理）
+     */
+    private boolean isNativeUploadPage() {
+        String url = webView.getUrl();
+        if (url == null || !engineClient.isRunning() || !url.startsWith(serverAddress) || chunkUploader != null) {
+            return false;
+        }
+        String path = Uri.parse(url).getPath();
+        return path != null && !path.contains("/@");
+    }
+
+    /**
+     * 将选择的文件原生分块上传到当前浏览的目录，进度显示在页面中，全部完成后刷新页面
+     */
+    private void startNativeUpload(Uri[] uris) {
+        Uri page = Uri.parse(webView.getUrl());
+        webView.evaluateJavascript("localStorage.getItem('token')", tokenJson -> {
+            //返回值为 JS 字面量（字符串带引号，未登录时为 null）
+            String token = tokenJson == null || "null".equals(tokenJson) ? null : JSONUtil.parseArray("[" + tokenJson + "]").getStr(0);
+            if (TextUtils.isEmpty(token)) {
+                showToast("未登录，无法上传");
+                return;
+            }
+            String basePath;
+            try {
+                basePath = MyHttpUtil.getSiteBasePath(new JsonConfigFile(new File(DataLocation.getInstance().getDataDir(),
+                        Constants.ALIST_CONFIG_FILENAME)).getValue("site_url"));
+            } catch (IOException e) {
+                basePath = "";
+            }
+            String pagePath = page.getPath() == null ? "/" : page.getPath();
+            String dirPath = pagePath.startsWith(basePath) ? pagePath.substring(basePath.length()) : pagePath;
+            String apiBase = String.format(Locale.CHINA, "%s://127.0.0.1:%d%s", page.getScheme(), page.getPort(), basePath);
+            ChunkUploader uploader = new ChunkUploader(getContentResolver(), apiBase, token);
+            chunkUploader = uploader;
+            new Thread(() -> runNativeUpload(uploader, uris, dirPath.isEmpty() ? "/" : dirPath)).start();
+        });
+    }
+
+    private void runNativeUpload(ChunkUploader uploader, Uri[] uris, String dirPath) {
+        AtomicLong lastReportTime = new AtomicLong(0);
+        int failedCount = 0;
+        String lastError = null;
+        for (int i = 0; i < uris.length; i++) {
+            String prefix = uris.length > 1 ? String.format(Locale.CHINA, "[%d/%d] ", i + 1, uris.length) : "";
+            try {
+                String fileName = uploader.upload(uris[i], dirPath, (name, uploaded, total) -> {
+                    long now = System.currentTimeMillis();
+                    if (now - lastReportTime.get() < Constants.UPLOAD_PROGRESS_INTERVAL) {
+                        return;
+                    }
+                    lastReportTime.set(now);
+                    String progress = total > 0 ? String.format(Locale.CHINA, "%.1f%%（%s / %s）", uploaded * 100.0 / total,
+                            FileUtils.byteCountToDisplaySize(uploaded), FileUtils.byteCountToDisplaySize(total))
+                            : FileUtils.byteCountToDisplaySize(uploaded);
+                    reportUploadProgress(prefix + "正在上传 " + name + "：" + progress, false, false);
+                });
+                Log.i(TAG, "原生上传完成: " + dirPath + " " + fileName);
+            } catch (Exception e) {
+                failedCount++;
+                lastError = e.getMessage();
+                Log.e(TAG, "原生上传失败: " + e.getMessage());
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+        }
+        uploader.shutdown();
+        chunkUploader = null;
+        if (failedCount == 0) {
+            reportUploadProgress(String.format(Locale.CHINA, "已上传 %d 个文件", uris.length), true, true);
+        } else {
+            reportUploadProgress(String.format(Locale.CHINA, "%d 个文件上传失败：%s（重新选择同一文件可续传）", failedCount, lastError), true, false);
+        }
+    }
+
+    /**
+     * 在页面底部显示上传进度，并派发 alistlite-upload 事件；结束后数秒移除，成功时刷新文件列表
+     */
+    private void reportUploadProgress(String text, boolean isFinished, boolean isSucceeded) {
+        String js = "(function(){var e=document.getElementById('alistlite-upload');"
+                + "if(!e){e=document.createElement('div');e.id='alistlite-upload';"
+                + "e.style.cssText='position:fixed;left:12px;right:12px;bottom:12px;z-index:99999;padding:10px 14px;"
+                + "border-radius:8px;background:rgba(0,0,0,.75);color:#fff;font-size:14px;word-break:break-all';"
+                + "document.body.appendChild(e);}"
+                + "e.textContent=" + JSONUtil.quote(text) + ";"
+                + "window.dispatchEvent(new CustomEvent('alistlite-upload',{detail:{text:e.textContent,finished:" + isFinished + "}}));"
+                + (isFinished ? "setTimeout(function(){e.remove();" + (isSucceeded ? "location.reload();" : "") + "},3000);" : "")
+                + "})()";
+        runOnUiThread(() -> {
+            if (!isDestroyed()) {
+                webView.evaluateJavascript(js, null);
+            }
+        });
+    }
+
+    /**
+     * 根据日志查看器中的筛选选项构建筛选条件
+     */
+    private LogStore.Query buildLogQuery(int levelOption, int timeOption, String keyword) {
+        int levelMask;
+        switch (levelOption) {
+            case 1:
+                levelMask = LogStore.levelMask(LogStore.LEVEL_ERROR);
+                break;
+            case 2:
+                levelMask = LogStore.levelMask(LogStore.LEVEL_ERROR, LogStore.LEVEL_WARN);
+                break;
+            case 3:
+                levelMask = LogStore.levelMask(LogStore.LEVEL_ERROR, LogStore.LEVEL_WARN, LogStore.LEVEL_INFO);
+                break;
+            default:
+                levelMask = LogStore.LEVEL_MASK_ALL;
+                break;
+        }
+        long from = timeOption > 0 && timeOption < LOG_TIME_RANGES.length ? System.currentTimeMillis() - LOG_TIME_RANGES[timeOption] : 0;
+        return new LogStore.Query(levelMask, from, 0, keyword);
+    }
+
+    /**
+     * 将日志写入用户选择的文件：指定筛选条件时只写入筛选结果，否则打包全部持久化日志
+     */
+    private void exportLogs(Uri uri) {
+        LogStore.Query query = logExportQuery;
+        logExportQuery = null;
+        new Thread(() -> {
+            //文件描述符交给引擎进程写入，日志不经过界面进程
+            try (ParcelFileDescriptor fd = getContentResolver().openFileDescriptor(uri, "w")) {
+                if (fd == null) {
+                    throw new IOException("无法打开文件");
+                }
+                engineClient.exportLogs(fd, query);
+                runOnUiThread(() -> showToast("日志已导出"));
+            } catch (Exception e) {
+                Log.e(TAG, "exportLogs: ", e);
+                runOnUiThread(() -> showToast("日志导出失败：" + e.getMessage()));
+            }
+        }).start();
+    }
+
     /**
      * 显示远程访问链接二维码
      */
     public void showQrCode(View view) {
-        if (!alistServer.hasRunning()) {
+        if (!engineClient.isRunning()) {
             showToast("AList 服务未启动");
             return;
         }
@@ -695,8 +890,7 @@ public class MainActivity extends AppCompatActivity {
                 //去除前后空格后的密码
                 String pwd = editText.getText().toString().trim();
                 if (!"".equals(pwd)) {
-                    alistServer.setAdminPassword(pwd);
-                    String adminUsername = alistServer.getAdminUser();
+                    String adminUsername = engineClient.setAdminPassword(pwd);
                     showToast(String.format("管理员密码已更新：%s | %s", adminUsername, pwd), Toast.LENGTH_LONG);
                 } else {
                     showToast("管理员密码不能为空");
@@ -713,7 +907,7 @@ public class MainActivity extends AppCompatActivity {
      * 跳转到AList主页面
      */
     public void jumpToHomepage(View view) {
-        if (alistServer.hasRunning()) {
+        if (engineClient.isRunning()) {
             webView.loadUrl(serverAddress);
         } else {
             showToast("AList 服务未启动");
@@ -731,11 +925,10 @@ public class MainActivity extends AppCompatActivity {
         ImageButton editButton = dialogView.findViewById(R.id.btn_edit_config);
         EditText jsonEditText = dialogView.findViewById(R.id.edit_text_config);
         jsonView.setTextSize(14);
-        //读取 AList 配置
-        String dataPath = this.getExternalFilesDir("data").getAbsolutePath();
-        String configPath = String.format("%s%s%s", dataPath, File.separator, Constants.ALIST_CONFIG_FILENAME);
+        //读取 AList 配置（数据目录可能已被引擎进程迁移）
+        SettingsStore.getInstance().reload();
+        File configFile = new File(DataLocation.getInstance().getDataDir(), Constants.ALIST_CONFIG_FILENAME);
         String configJsonData;
-        File configFile = new File(configPath);
         try {
             //AList 配置数据
             configJsonData = FileUtils.readFileToString(configFile, StandardCharsets.UTF_8);
@@ -775,7 +968,12 @@ public class MainActivity extends AppCompatActivity {
                 try {
                     //持久化配置
                     FileUtils.write(configFile, jsonEditText.getText());
-                    showToast("重启服务以应用新配置");
+                    if (engineClient.isRunning()) {
+                        //服务运行中则热加载新配置
+                        reloadConfig();
+                    } else {
+                        showToast("配置已保存，将在服务启动时生效");
+                    }
                 } catch (IOException e) {
                     showToast(Constants.ERROR_MSG_CONFIG_DATA_WRITE);
                 }
@@ -796,6 +994,181 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * 热加载配置（可在线生效的配置立即应用，仅重新绑定端口变化的监听）
+     */
+    private void reloadConfig() {
+        new Thread(() -> {
+            try {
+                //端口或协议变化后由引擎状态回调刷新前端页面地址
+                ReloadResult result = engineClient.reloadConfig();
+                runOnUiThread(() -> {
+                    if (!result.errors.isEmpty()) {
+                        showToast("监听重新绑定失败：" + TextUtils.join("; ", result.errors)
+                                + (result.restartRequired.isEmpty() ? "" : "\n以下配置需重启服务后生效：" + TextUtils.join(", ", result.restartRequired)));
+                    } else if (result.restartRequired.isEmpty()) {
+                        showToast("新配置已生效");
+                    } else {
+                        showToast("以下配置需重启服务后生效：" + TextUtils.join(", ", result.restartRequired));
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "reloadConfig: " + e.getLocalizedMessage());
+                runOnUiThread(() -> showToast("配置热加载失败，请重启服务: " + e.getLocalizedMessage()));
+            }
+        }).start();
+    }
+
+    /**
+     * 查看服务运行状态（看门狗探测统计与重启历史）
+     */
+    public void showServiceHealth(View view) {
+        String report;
+        try {
+            report = engineClient.getHealthReport();
+        } catch (Exception e) {
+            showToast("AList 服务未连接");
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.popup_menu_item_service_health)
+                .setMessage(report)
+                .setPositiveButton("复制", (dialog, which) -> {
+                    clipBoardHelper.copyText(report);
+                    showToast("已复制到剪贴板");
+                })
+                .setNegativeButton("数据库测试", (dialog, which) -> benchmarkDatabase())
+                .setNeutralButton("关闭", null)
+                .show();
+    }
+
+    /**
+     * 数据库参数前后对比测试（在数据库所在存储上使用临时数据库，不影响服务数据）
+     */
+    private void benchmarkDatabase() {
+        if (!engineClient.isRunning()) {
+            showToast("AList 服务未启动");
+            return;
+        }
+        showToast("正在测试数据库读写，请稍候");
+        new Thread(() -> {
+            String result;
+            try {
+                result = engineClient.benchmarkDatabase();
+            } catch (Exception e) {
+                result = "测试失败：" + e.getMessage();
+            }
+            String finalResult = result;
+            runOnUiThread(() -> new AlertDialog.Builder(this)
+                    .setTitle("数据库测试")
+                    .setMessage(finalResult)
+                    .setPositiveButton("复制", (dialog, which) -> {
+                        clipBoardHelper.copyText(finalResult);
+                        showToast("已复制到剪贴板");
+                    })
+                    .setNeutralButton("关闭", null)
+                    .show());
+        }).start();
+    }
+
+    /**
+     * 查看运行监控（吞吐、连接数、路由耗时分位数与各存储传输速率）
+     */
+    public void showMetricsDashboard(View view) {
+        AlertDialog.Builder dialogBuilder = new AlertDialog.Builder(this);
+        View dialogView = LayoutInflater.from(this).inflate(R.layout.service_logs_view, null);
+        TextView titleView = dialogView.findViewById(R.id.tv_config_view_title);
+        TextView textView = dialogView.findViewById(R.id.tv_service_logs);
+        titleView.setText(R.string.popup_menu_item_metrics);
+        dialogView.findViewById(R.id.layout_log_filter).setVisibility(View.GONE);
+        textView.setTypeface(Typeface.MONOSPACE);
+        textView.setTextSize(12);
+        dialogBuilder.setNeutralButton("关闭", null);
+        dialogBuilder.setNegativeButton("分块缓存", (dialog, which) -> showChunkCacheSettings());
+        //与采集间隔同步刷新（报告在引擎进程中生成）
+        Thread refreshThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                String report;
+                try {
+                    report = engineClient.getMetricsReport();
+                } catch (Exception e) {
+                    report = "AList 服务未连接";
+                }
+                String finalReport = report;
+                runOnUiThread(() -> textView.setText(finalReport));
+                try {
+                    Thread.sleep(Constants.METRICS_POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        });
+        refreshThread.start();
+        dialogBuilder.setView(dialogView);
+        AlertDialog metricsDialog = dialogBuilder.create();
+        metricsDialog.setOnDismissListener(dialog -> refreshThread.interrupt());
+        metricsDialog.show();
+        int width = getResources().getDisplayMetrics().widthPixels;
+        int height = getResources().getDisplayMetrics().heightPixels;
+        //窗口大小设置必须在show()之后
+        if (width < height) {
+            metricsDialog.getWindow().setLayout(width - 50, height * 3 / 5);
+        } else {
+            metricsDialog.getWindow().setLayout(width * 5 / 6, height - 200);
+        }
+    }
+
+    /**
+     * 远程文件分块缓存容量设置
+     */
+    private void showChunkCacheSettings() {
+        final String[] sizeNames = {"关闭", "512 MB", "1 GB", "2 GB", "4 GB", "8 GB"};
+        final long[] sizes = {0, 512L << 20, 1L << 30, 2L << 30, 4L << 30, 8L << 30};
+        SettingsStore.getInstance().reload();
+        long currentSize = SettingsStore.getInstance().get(SettingsStore.CHUNK_CACHE_SIZE);
+        int checkedIndex = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] == currentSize) {
+                checkedIndex = i;
+            }
+        }
+        final int[] selectedIndex = {checkedIndex};
+        new AlertDialog.Builder(this)
+                .setTitle("分块缓存容量")
+                .setSingleChoiceItems(sizeNames, checkedIndex, (dialog, which) -> selectedIndex[0] = which)
+                .setPositiveButton("确定", (dialog, which) -> configureChunkCache(sizes[selectedIndex[0]], false))
+                .setNeutralButton("重新测速", (dialog, which) -> configureChunkCache(sizes[selectedIndex[0]], true))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    /**
+     * 在引擎进程中应用缓存设置（重新测速时耗时数秒）
+     */
+    private void configureChunkCache(long maxBytes, boolean reselect) {
+        if (!engineClient.isRunning()) {
+            showToast("AList 服务未启动");
+            return;
+        }
+        if (reselect) {
+            showToast("正在测速选择缓存位置，请稍候");
+        }
+        new Thread(() -> {
+            String result;
+            try {
+                result = engineClient.configureChunkCache(maxBytes, reselect);
+            } catch (Exception e) {
+                result = "设置失败：" + e.getMessage();
+            }
+            String finalResult = result;
+            runOnUiThread(() -> new AlertDialog.Builder(this)
+                    .setTitle("分块缓存")
+                    .setMessage(finalResult)
+                    .setPositiveButton("关闭", null)
+                    .show());
+        }).start();
+    }
+
     /**
      * 查看服务日志
      */
@@ -803,42 +1176,139 @@ public class MainActivity extends AppCompatActivity {
         AlertDialog.Builder dialogBuilder = new AlertDialog.Builder(this);
         LayoutInflater inflater = LayoutInflater.from(this);
         View dialogView = inflater.inflate(R.layout.service_logs_view, null);
+        TextView titleView = dialogView.findViewById(R.id.tv_config_view_title);
         TextView textView = dialogView.findViewById(R.id.tv_service_logs);
         ScrollView scrollView = dialogView.findViewById(R.id.tv_logs_scroll_view);
+        Spinner levelSpinner = dialogView.findViewById(R.id.spinner_log_level);
+        Spinner timeSpinner = dialogView.findViewById(R.id.spinner_log_time);
+        EditText keywordText = dialogView.findViewById(R.id.edit_log_keyword);
         
         // 设置文本可选择和复制
         textView.setTextIsSelectable(true);
         
-        //显示服务日志
-        textView.setText(Alist.ALIST_LOGS);
-        //滚动到底部最新日志
-        scrollView.post(() -> scrollView.fullScroll(View.FOCUS_DOWN));
+        //筛选条件：级别、时间范围、关键字（筛选在刷新线程中执行）
+        levelSpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, LOG_LEVEL_OPTIONS));
+        timeSpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, LOG_TIME_OPTIONS));
+        AtomicLong filterVersion = new AtomicLong();
+        AtomicInteger levelOption = new AtomicInteger(0);
+        AtomicInteger timeOption = new AtomicInteger(0);
+        AtomicReference<String> keyword = new AtomicReference<>("");
+        AdapterView.OnItemSelectedListener filterListener = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View itemView, int position, long id) {
+                levelOption.set(levelSpinner.getSelectedItemPosition());
+                timeOption.set(timeSpinner.getSelectedItemPosition());
+                filterVersion.incrementAndGet();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        };
+        levelSpinner.setOnItemSelectedListener(filterListener);
+        timeSpinner.setOnItemSelectedListener(filterListener);
+        keywordText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable editable) {
+                keyword.set(editable.toString());
+                filterVersion.incrementAndGet();
+            }
+        });
+        // 当前显示的筛选结果（复制与导出均只针对筛选结果）
+        AtomicReference<String> shownLogs = new AtomicReference<>("");
+        AtomicReference<LogStore.Query> shownQuery = new AtomicReference<>(null);
         
-        // 添加复制全部日志按钮
-        dialogBuilder.setPositiveButton("复制全部", (dialog, which) -> {
-            clipBoardHelper.copyText(Alist.ALIST_LOGS.toString());
+        // 添加复制日志按钮
+        dialogBuilder.setPositiveButton("复制结果", (dialog, which) -> {
+            clipBoardHelper.copyText(shownLogs.get());
             showToast("日志已复制到剪贴板");
         });
         
         // 添加清空日志按钮
         dialogBuilder.setNegativeButton("清空日志", (dialog, which) -> {
-            Alist.ALIST_LOGS.setLength(0);
-            Alist.ALIST_LOGS.append("------ 日志已清空 ------\r\n\r\n");
-            showToast("日志已清空");
+            try {
+                engineClient.clearLogs();
+                showToast("日志已清空");
+            } catch (Exception e) {
+                showToast("AList 服务未连接");
+            }
         });
         
-        dialogBuilder.setNeutralButton("关闭", null);
+        // 无筛选条件时导出磁盘上的全部日志分段，否则只导出筛选结果
+        dialogBuilder.setNeutralButton("导出日志", (dialog, which) -> {
+            LogStore.Query query = shownQuery.get();
+            logExportQuery = query == null || query.isEmpty() ? null : query;
+            String time = DateUtil.format(new Date(), "yyyyMMdd-HHmmss");
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType(logExportQuery == null ? "application/zip" : "text/plain");
+            intent.putExtra(Intent.EXTRA_TITLE, logExportQuery == null ? String.format("alistlite-logs-%s.zip", time) : String.format("alistlite-logs-filtered-%s.log", time));
+            try {
+                startActivityForResult(intent, REQUEST_CODE_EXPORT_LOGS);
+            } catch (ActivityNotFoundException e) {
+                showToast("系统不支持文件保存");
+            }
+        });
         
-        //日志实时刷新
+        //日志实时刷新：按游标从引擎进程增量拉取新日志，筛选条件变化时从头读取
         Thread refreshThread = new Thread(() -> {
+            long shownFilterVersion = -1;
+            long cursor = 0;
+            int count = 0;
+            StringBuilder logs = new StringBuilder();
             while (true) {
-                runOnUiThread(() -> {
-                    textView.setText(Alist.ALIST_LOGS);
-                    //日志更新时，滚动到底部最新日志
-                    if (!Alist.ALIST_LOGS.toString().equals(textView.getText().toString())) {
-                        scrollView.post(() -> scrollView.fullScroll(View.FOCUS_DOWN));
+                long currentFilterVersion = filterVersion.get();
+                boolean isFilterChanged = currentFilterVersion != shownFilterVersion;
+                if (isFilterChanged) {
+                    shownFilterVersion = currentFilterVersion;
+                    cursor = 0;
+                    count = 0;
+                    logs.setLength(0);
+                }
+                LogStore.Query query = buildLogQuery(levelOption.get(), timeOption.get(), keyword.get());
+                try {
+                    long begin = System.currentTimeMillis();
+                    boolean isChanged = isFilterChanged;
+                    LogPage page;
+                    do {
+                        page = engineClient.readLogs(query, cursor, Constants.LOG_PAGE_MAX_CHARS);
+                        cursor = page.cursor;
+                        if (!page.text.isEmpty()) {
+                            logs.append(page.text);
+                            count += page.count;
+                            isChanged = true;
+                        }
+                    } while (page.hasMore);
+                    long millis = System.currentTimeMillis() - begin;
+                    //查看器只保留最近的日志，避免界面进程内存随日志增长
+                    if (logs.length() > LogStore.DEFAULT_MAX_CHARS) {
+                        logs.delete(0, logs.length() - (int) (LogStore.DEFAULT_MAX_CHARS * 0.8));
                     }
-                });
+                    if (isChanged) {
+                        String text = logs.toString();
+                        int shownCount = count;
+                        shownLogs.set(text);
+                        shownQuery.set(query);
+                        runOnUiThread(() -> {
+                            titleView.setText(query.isEmpty() ? getString(R.string.popup_menu_item_service_logs)
+                                    : String.format(Locale.CHINA, "%s（%d 条，%dms）", getString(R.string.popup_menu_item_service_logs), shownCount, millis));
+                            textView.setText(text);
+                            //日志更新时，滚动到底部最新日志
+                            scrollView.post(() -> scrollView.fullScroll(View.FOCUS_DOWN));
+                        });
+                    }
+                } catch (Exception e) {
+                    //引擎进程未连接，稍后重试
+                    Log.w(TAG, "读取日志失败: " + e.getMessage());
+                }
                 try {
                     Thread.sleep(500);
                 } catch (InterruptedException e) {
@@ -996,7 +1466,7 @@ public class MainActivity extends AppCompatActivity {
     public boolean onKeyDown(int keyCode, KeyEvent event) {
         //自定义返回键功能，实现webView的后退以及退出时保持后台运行而不是关闭app
         if (keyCode == KeyEvent.KEYCODE_BACK) {
-            if (webView.canGoBack() && alistServer != null && alistServer.hasRunning()) {
+            if (webView.canGoBack() && engineClient.isRunning()) {
                 webView.goBack();
             } else {
                 moveTaskToBack(true);
@@ -1026,19 +1496,32 @@ public class MainActivity extends AppCompatActivity {
      * 复制 AList 服务地址到剪切板
      */
     public void copyAddressToClipboard(View view) {
-        if (alistServer != null && alistServer.hasRunning()) {
+        if (engineClient.isRunning()) {
             clipBoardHelper.copyText(this.serverAddress);
             showToast("AList 服务地址已复制");
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        //界面进程内存紧张或退到后台时，释放 WebView 的内存缓存（磁盘缓存保留）
+        if (level >= TRIM_MEMORY_RUNNING_LOW && webView != null) {
+            webView.clearCache(false);
+            Log.i(TAG, String.format(Locale.CHINA, "内存紧张（级别 %d），已释放 WebView 缓存", level));
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 关闭定时任务调度器
-        if (broadcastScheduler != null) {
-            broadcastScheduler.shutdownNow();
+        //中断原生上传（已完成的分块下次选择同一文件时续传）
+        ChunkUploader uploader = chunkUploader;
+        if (uploader != null) {
+            uploader.shutdown();
         }
+        //断开与引擎进程的连接（服务继续在后台运行）
+        engineClient.unbind();
     }
 
     /**
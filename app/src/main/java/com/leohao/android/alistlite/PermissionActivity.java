@@ -21,7 +21,9 @@ import com.leohao.android.alistlite.adaptor.PermissionListAdapter;
 import com.leohao.android.alistlite.model.PermissionItem;
 import com.leohao.android.alistlite.util.Constants;
 import com.leohao.android.alistlite.util.RootUtil;
-import com.leohao.android.alistlite.util.SharedDataHelper;
+import com.leohao.android.alistlite.util.RouteBenchmark;
+import com.leohao.android.alistlite.util.SettingsStore;
+import com.leohao.android.alistlite.util.StorageUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -60,6 +62,44 @@ public class PermissionActivity extends AppCompatActivity implements OnItemClick
         
         //初始化ROOT权限开关
         initRootPermissionSwitch(rootSwitch);
+        //存储访问路径测速报告
+        findViewById(R.id.route_benchmark_container).setOnClickListener(view -> showRouteBenchmarkReport());
+    }
+
+    /**
+     * 显示最近一次存储访问路径测速报告（首次挂载存储时生成），可重新测速
+     */
+    private void showRouteBenchmarkReport() {
+        String report = RouteBenchmark.loadReport();
+        new AlertDialog.Builder(this)
+                .setTitle("存储访问路径测速")
+                .setMessage(report == null || report.isEmpty() ? "尚未测速" : report)
+                .setPositiveButton("重新测速", (dialog, which) -> runRouteBenchmark())
+                .setNeutralButton("关闭", null)
+                .show();
+    }
+
+    /**
+     * 对所有存储卷的候选路径重新测速（不改变已挂载存储的路径）
+     */
+    private void runRouteBenchmark() {
+        showToast("正在测速，请稍候");
+        new Thread(() -> {
+            StringBuilder report = new StringBuilder();
+            for (StorageUtil.StorageInfo storage : StorageUtil.getAllStorageDevices(this)) {
+                List<String> routes = RouteBenchmark.getCandidateRoutes(storage, storage.path);
+                if (!routes.isEmpty()) {
+                    RouteBenchmark.selectFastest(storage, routes, report);
+                }
+            }
+            report.append("已挂载的存储不会自动更改路径，可在 AList 管理页面修改本机存储的根目录");
+            RouteBenchmark.saveReport(report.toString());
+            runOnUiThread(() -> {
+                if (!isFinishing()) {
+                    showRouteBenchmarkReport();
+                }
+            });
+        }, "RouteBenchmark").start();
     }
     
     /**
@@ -67,7 +107,7 @@ public class PermissionActivity extends AppCompatActivity implements OnItemClick
      */
     private void initRootPermissionSwitch(SwitchButton rootSwitch) {
         // 读取保存的ROOT权限状态
-        boolean isRootEnabled = SharedDataHelper.getBoolean(Constants.KEY_ROOT_PERMISSION_ENABLED, false);
+        boolean isRootEnabled = SettingsStore.getInstance().get(SettingsStore.ROOT_PERMISSION_ENABLED);
         rootSwitch.setCheckedNoEvent(isRootEnabled);
         
         // 检查设备是否Root
@@ -96,7 +136,7 @@ public class PermissionActivity extends AppCompatActivity implements OnItemClick
                                 "是否确认启用ROOT权限？")
                         .setPositiveButton("确认启用", (dialog, which) -> {
                             // 保存状态
-                            SharedDataHelper.putBoolean(Constants.KEY_ROOT_PERMISSION_ENABLED, true);
+                            SettingsStore.getInstance().put(SettingsStore.ROOT_PERMISSION_ENABLED, true);
                             showToast("ROOT权限已启用，重启服务后生效");
                             Log.i(TAG, "✅ 用户启用了ROOT权限");
                         })
@@ -108,7 +148,7 @@ public class PermissionActivity extends AppCompatActivity implements OnItemClick
                         .show();
             } else {
                 // 关闭ROOT权限
-                SharedDataHelper.putBoolean(Constants.KEY_ROOT_PERMISSION_ENABLED, false);
+                SettingsStore.getInstance().put(SettingsStore.ROOT_PERMISSION_ENABLED, false);
                 showToast("ROOT权限已关闭");
                 Log.i(TAG, "❌ 用户关闭了ROOT权限");
             }
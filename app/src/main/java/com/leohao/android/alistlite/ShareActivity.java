@@ -0,0 +1,182 @@
+package com.leohao.android.alistlite;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.Parcelable;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.widget.EditText;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import com.leohao.android.alistlite.service.AlistService;
+import com.leohao.android.alistlite.service.IEngineService;
+import com.leohao.android.alistlite.util.ChunkUploader;
+import com.leohao.android.alistlite.util.SettingsStore;
+import org.apache.commons.io.IOUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分享上传 Activity
+ * 接收其他应用分享的单个或多个文件，选择目标 AList 目录后打开文件描述符交给引擎进程在后台上传，不经过 WebView
+ *
+ * @author LeoHao
+ */
+public class ShareActivity extends AppCompatActivity {
+    private static final String TAG = "ShareActivity";
+    private final List<Uri> uris = new ArrayList<>();
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private volatile IEngineService engineService = null;
+    private boolean isBound = false;
+    private boolean isSubmitting = false;
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            engineService = IEngineService.Stub.asInterface(binder);
+            connected.countDown();
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            engineService = null;
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        parseSharedUris(getIntent());
+        if (uris.isEmpty()) {
+            Toast.makeText(this, "没有可上传的文件", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        //单独绑定引擎服务，不影响主界面的引擎状态监听
+        isBound = bindService(new Intent(this, AlistService.class), connection, BIND_AUTO_CREATE);
+        showTargetDialog();
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (isBound) {
+            unbindService(connection);
+            isBound = false;
+        }
+        super.onDestroy();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void parseSharedUris(Intent intent) {
+        if (Intent.ACTION_SEND.equals(intent.getAction())) {
+            Parcelable stream = intent.getParcelableExtra(Intent.EXTRA_STREAM);
+            if (stream instanceof Uri) {
+                uris.add((Uri) stream);
+            }
+        } else if (Intent.ACTION_SEND_MULTIPLE.equals(intent.getAction())) {
+            ArrayList<Parcelable> streams = intent.getParcelableArrayListExtra(Intent.EXTRA_STREAM);
+            if (streams != null) {
+                for (Parcelable stream : streams) {
+                    if (stream instanceof Uri) {
+                        uris.add((Uri) stream);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 选择目标目录（默认为上次使用的目录）
+     */
+    private void showTargetDialog() {
+        final EditText editText = new EditText(this);
+        editText.setSingleLine();
+        editText.setText(SettingsStore.getInstance().get(SettingsStore.SHARE_TARGET_PATH));
+        editText.setSelection(editText.getText().length());
+        new AlertDialog.Builder(this)
+                .setTitle(String.format(Locale.CHINA, "上传 %d 个文件到 AList 目录", uris.size()))
+                .setView(editText)
+                .setPositiveButton("上传", (dialog, which) -> {
+                    String dirPath = editText.getText().toString().trim();
+                    submit(dirPath.startsWith("/") ? dirPath : "/" + dirPath);
+                })
+                .setNegativeButton("取消", null)
+                .setOnDismissListener(dialog -> {
+                    if (!isSubmitting) {
+                        finish();
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * 在后台线程打开文件描述符并提交给引擎进程（内容提供方可能较慢），提交完成后关闭页面
+     */
+    private void submit(String dirPath) {
+        isSubmitting = true;
+        SettingsStore.getInstance().put(SettingsStore.SHARE_TARGET_PATH, dirPath);
+        new Thread(() -> {
+            String message;
+            List<ParcelFileDescriptor> descriptors = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            List<Long> modifiedTimes = new ArrayList<>();
+            try {
+                for (Uri uri : uris) {
+                    try {
+                        ChunkUploader.SourceInfo source = ChunkUploader.querySource(getContentResolver(), uri);
+                        ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "r");
+                        if (descriptor == null) {
+                            continue;
+                        }
+                        descriptors.add(descriptor);
+                        names.add(source.fileName);
+                        modifiedTimes.add(source.lastModified);
+                    } catch (Exception e) {
+                        Log.w(TAG, String.format("无法读取分享的文件 %s: %s", uri, e.getMessage()));
+                    }
+                }
+                if (descriptors.isEmpty()) {
+                    throw new IllegalStateException("无法读取分享的文件");
+                }
+                IEngineService service = engineService;
+                if (service == null && connected.await(5, TimeUnit.SECONDS)) {
+                    service = engineService;
+                }
+                if (service == null) {
+                    throw new IllegalStateException("引擎服务未连接");
+                }
+                if (!service.isRunning()) {
+                    throw new IllegalStateException("AList 服务未启动");
+                }
+                long[] times = new long[modifiedTimes.size()];
+                for (int i = 0; i < times.length; i++) {
+                    times[i] = modifiedTimes.get(i);
+                }
+                //文件描述符经 Binder 复制到引擎进程，本进程的副本随后关闭
+                service.ingestSharedFiles(descriptors.toArray(new ParcelFileDescriptor[0]), names.toArray(new String[0]), times, dirPath);
+                message = String.format(Locale.CHINA, "已开始后台上传 %d 个文件", descriptors.size());
+            } catch (Exception e) {
+                Log.e(TAG, "提交分享上传失败: ", e);
+                message = "上传失败：" + e.getMessage();
+            } finally {
+                for (ParcelFileDescriptor descriptor : descriptors) {
+                    IOUtils.closeQuietly(descriptor);
+                }
+            }
+            String toastMessage = message;
+            runOnUiThread(() -> {
+                Toast.makeText(this, toastMessage, Toast.LENGTH_SHORT).show();
+                finish();
+            });
+        }, TAG).start();
+    }
+}
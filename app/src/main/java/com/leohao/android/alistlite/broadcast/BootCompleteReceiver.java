@@ -22,8 +22,8 @@ public class BootCompleteReceiver extends BroadcastReceiver {
     public void onReceive(Context context, Intent intent) {
         //处理启动完成的广播消息
         if (intent.getAction().equals(ACTION_BOOT_COMPLETED)) {
-            //启动 AList 服务
-            Intent serviceIntent = new Intent(context, AlistService.class).setAction(AlistService.ACTION_STARTUP);
+            //启动 AList 服务（前台服务先等待存储与网络就绪后再启动引擎）
+            Intent serviceIntent = new Intent(context, AlistService.class).setAction(AlistService.ACTION_BOOT_STARTUP);
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 context.startForegroundService(serviceIntent);
             } else {
@@ -0,0 +1,172 @@
+package com.leohao.android.alistlite.engine;
+
+import alistlib.Alistlib;
+import alistlib.Event;
+
+/**
+ * 基于 gomobile 绑定（alistlib）的引擎实现
+ *
+ * @author LeoHao
+ */
+public class GomobileEngine implements AlistEngine {
+    @Override
+    public void init(String dataPath, Listener listener) throws Exception {
+        Alistlib.setConfigData(dataPath);
+        Alistlib.setConfigLogStd(true);
+        Alistlib.init(new Event() {
+            @Override
+            public void onShutdown(String s) {
+                listener.onShutdown(s);
+            }
+
+            @Override
+            public void onStartPhase(String phase) {
+                listener.onStartPhase(phase);
+            }
+
+            @Override
+            public void onStorageLoaded(String mountPath, long millis, String err) {
+                listener.onStorageLoaded(mountPath, millis, err);
+            }
+
+            @Override
+            public void onDrainProgress(long activeRequests, long activeTransfers) {
+                listener.onDrainProgress(activeRequests, activeTransfers);
+            }
+
+            @Override
+            public void onActivityChanged(boolean busy) {
+                listener.onActivityChanged(busy);
+            }
+
+            @Override
+            public void onStartError(String s, String s1) {
+                listener.onStartError(s, s1);
+            }
+        }, listener::onLog);
+    }
+
+    @Override
+    public boolean isRunning(String type) {
+        return Alistlib.isRunning(type);
+    }
+
+    @Override
+    public void startAsync(boolean isDelayed) throws Exception {
+        if (isDelayed) {
+            Alistlib.startAsync();
+        } else {
+            Alistlib.startAsyncNow();
+        }
+    }
+
+    @Override
+    public void shutdown(long timeout) throws Exception {
+        Alistlib.shutdown(timeout);
+    }
+
+    @Override
+    public void shutdownGraceful(long deadline) throws Exception {
+        Alistlib.shutdownGraceful(deadline);
+    }
+
+    @Override
+    public String reloadConfig() throws Exception {
+        return Alistlib.reloadConfig();
+    }
+
+    @Override
+    public void setAdminPassword(String password) {
+        Alistlib.setAdminPassword(password);
+    }
+
+    @Override
+    public String getAdminUser() {
+        return Alistlib.getAdminUser();
+    }
+
+    @Override
+    public String generateAdminToken() throws Exception {
+        return Alistlib.generateAdminToken();
+    }
+
+    @Override
+    public void addLocalStorage(String localPath, String mountPath) {
+        Alistlib.addLocalStorage(localPath, mountPath);
+    }
+
+    @Override
+    public void setThumbnailProvider(ThumbnailProvider provider, String cacheFolder) {
+        Alistlib.setThumbProvider(provider::generate, cacheFolder);
+    }
+
+    @Override
+    public void setLocalThumbnail(boolean isEnabled) {
+        Alistlib.setLocalThumbnail(isEnabled);
+    }
+
+    @Override
+    public String getOutboundIP() {
+        return Alistlib.getOutboundIPString();
+    }
+
+    @Override
+    public String getLocalStorageRoots() {
+        return Alistlib.getLocalStorageRoots();
+    }
+
+    @Override
+    public void updateLocalIndex(String localDir) {
+        Alistlib.updateLocalIndex(localDir);
+    }
+
+    @Override
+    public String getMetricsSnapshot() {
+        return Alistlib.getMetricsSnapshot();
+    }
+
+    @Override
+    public long setMemoryLimit(long limit) {
+        return Alistlib.setMemoryLimit(limit);
+    }
+
+    @Override
+    public void freeOSMemory() {
+        Alistlib.freeOSMemory();
+    }
+
+    @Override
+    public String getMemoryStats() {
+        return Alistlib.getMemoryStats();
+    }
+
+    @Override
+    public String maintainDatabase() throws Exception {
+        return Alistlib.maintainDatabase();
+    }
+
+    @Override
+    public String benchmarkDatabase(long rows) throws Exception {
+        return Alistlib.benchmarkDatabase(rows);
+    }
+
+    @Override
+    public void setChunkCache(String dir, long maxBytes, long chunkSize, long readAhead) throws Exception {
+        Alistlib.setChunkCache(dir, maxBytes, chunkSize, readAhead);
+    }
+
+    @Override
+    public String getChunkCacheStats() {
+        return Alistlib.getChunkCacheStats();
+    }
+
+    @Override
+    public String createDeviceCertificate(byte[] publicKey, KeySigner signer, String hosts, long validDays) throws Exception {
+        return Alistlib.createDeviceCertificate(publicKey, signer::sign, hosts, validDays);
+    }
+
+    @Override
+    public void setDeviceCertificate(String certPem, KeySigner signer) throws Exception {
+        Alistlib.setDeviceCertificate(certPem, signer == null ? null : signer::sign);
+    }
+}
@@ -1,22 +1,27 @@
 package com.leohao.android.alistlite.model;
 
-import alistlib.Alistlib;
-import alistlib.Event;
 import android.content.Intent;
+import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
-import cn.hutool.core.date.DateUtil;
-import com.jayway.jsonpath.JsonPath;
+import com.leohao.android.alistlite.engine.AlistEngine;
+import com.leohao.android.alistlite.engine.GomobileEngine;
 import com.leohao.android.alistlite.service.AlistService;
+import com.leohao.android.alistlite.service.DatabaseTuner;
+import com.leohao.android.alistlite.service.PersistentLog;
+import com.leohao.android.alistlite.service.PowerPolicy;
+import com.leohao.android.alistlite.service.ReloadResult;
+import com.leohao.android.alistlite.service.ThumbnailService;
+import com.leohao.android.alistlite.util.ConfigSource;
 import com.leohao.android.alistlite.util.Constants;
-import org.apache.commons.io.FileUtils;
+import com.leohao.android.alistlite.util.DataLocation;
+import com.leohao.android.alistlite.util.JsonConfigFile;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
+import java.util.Locale;
 
 import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
 
@@ -25,91 +30,163 @@ import static com.leohao.android.alistlite.AlistLiteApplication.applicationConte
  */
 public class Alist {
     public static String ACTION_STATUS_CHANGED = "com.leohao.android.alistlite.ACTION_STATUS_CHANGED";
-    public static StringBuilder ALIST_LOGS = new StringBuilder();
-    private static final int MAX_LOG_SIZE = 500000; // 最大日志500KB，防止内存溢出
+    public static String ACTION_START_PROGRESS = "com.leohao.android.alistlite.ACTION_START_PROGRESS";
+    public static String EXTRA_PHASE = "phase";
+    public static String EXTRA_STORAGE = "storage";
+    public static String EXTRA_MILLIS = "millis";
+    public static String EXTRA_ERROR = "error";
+    public static String ACTION_DRAIN_PROGRESS = "com.leohao.android.alistlite.ACTION_DRAIN_PROGRESS";
+    public static String EXTRA_ACTIVE_REQUESTS = "active_requests";
+    public static String EXTRA_ACTIVE_TRANSFERS = "active_transfers";
+    /**
+     * 异步启动阶段（与引擎 alistlib.Phase* 常量一致）
+     */
+    public static String PHASE_LISTENING = AlistEngine.PHASE_LISTENING;
+    public static String PHASE_DELAYED = AlistEngine.PHASE_DELAYED;
+    public static String PHASE_LOADING_STORAGES = AlistEngine.PHASE_LOADING_STORAGES;
+    public static String PHASE_READY = AlistEngine.PHASE_READY;
     final String TYPE_HTTP = "http";
     final String TYPE_HTTPS = "https";
     final String TYPE_UNIX = "unix";
     /**
      * 应用数据存储目录
      */
-    String dataPath = applicationContext.getExternalFilesDir("data").getAbsolutePath();
+    private volatile String dataPath;
+    private volatile ConfigSource configSource;
     /**
-     * 配置数据存储目录
+     * 引擎实现（测试时可替换为模拟引擎）
      */
-    String configPath = String.format("%s%s%s", dataPath, File.separator, Constants.ALIST_CONFIG_FILENAME);
+    private volatile AlistEngine engine = new GomobileEngine();
+    /**
+     * 当前启动阶段
+     */
+    private volatile String startPhase = null;
 
     private static class SingletonHolder {
         private static final Alist INSTANCE = new Alist();
     }
 
     private Alist() {
+        setDataDir(DataLocation.getInstance().getDataDir());
+    }
+
+    private void setDataDir(File dataDir) {
+        dataPath = dataDir.getAbsolutePath();
+        configSource = new JsonConfigFile(new File(dataDir, Constants.ALIST_CONFIG_FILENAME));
+    }
+
+    /**
+     * 准备数据目录：迁移到设置的位置并更新数据库参数（服务启动前、引擎未打开数据库时调用）
+     */
+    public void prepareDataDir() {
+        if (hasRunning()) {
+            return;
+        }
+        setDataDir(DataLocation.getInstance().migrate());
+        //数据库参数在打开数据库时生效，启动前按当前存储介质更新
+        DatabaseTuner.getInstance().applyPreset(new File(dataPath));
     }
 
     public static Alist getInstance() {
         return SingletonHolder.INSTANCE;
     }
 
+    public AlistEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * 替换引擎实现（需在服务启动前调用）
+     */
+    public void setEngine(AlistEngine engine) {
+        this.engine = engine;
+    }
+
     /**
      * 获取当前服务运行状态
      */
     public Boolean hasRunning() {
-        return (Alistlib.isRunning(TYPE_HTTP) || Alistlib.isRunning(TYPE_HTTPS) || Alistlib.isRunning(TYPE_UNIX));
+        return (engine.isRunning(TYPE_HTTP) || engine.isRunning(TYPE_HTTPS) || engine.isRunning(TYPE_UNIX));
     }
 
     public void init() throws Exception {
-        Alistlib.setConfigData(dataPath);
-        Alistlib.setConfigLogStd(true);
-        Alistlib.init(new Event() {
+        engine.init(dataPath, new AlistEngine.Listener() {
             @Override
-            public void onShutdown(String s) {
+            public void onShutdown(String type) {
                 notifyStatusChanged();
             }
 
             @Override
-            public void onStartError(String s, String s1) {
-                String errorMsg = "onStartError: " + s + " " + s1;
+            public void onStartPhase(String phase) {
+                startPhase = phase;
+                if (PHASE_READY.equals(phase)) {
+                    //存储加载完成后为本地存储开启缩略图
+                    engine.setLocalThumbnail(true);
+                }
+                notifyStartProgress(phase, null, 0, null);
+            }
+
+            @Override
+            public void onStorageLoaded(String mountPath, long millis, String error) {
+                notifyStartProgress(startPhase, mountPath, millis, error);
+            }
+
+            @Override
+            public void onDrainProgress(long activeRequests, long activeTransfers) {
+                Intent intent = new Intent(ACTION_DRAIN_PROGRESS)
+                        .putExtra(EXTRA_ACTIVE_REQUESTS, activeRequests)
+                        .putExtra(EXTRA_ACTIVE_TRANSFERS, activeTransfers);
+                LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(intent);
+            }
+
+            @Override
+            public void onActivityChanged(boolean busy) {
+                PowerPolicy.getInstance().onActivityChanged(busy);
+                DatabaseTuner.getInstance().onActivityChanged(busy);
+            }
+
+            @Override
+            public void onStartError(String type, String error) {
+                String errorMsg = "onStartError: " + type + " " + error;
                 Log.e("AListServer", errorMsg);
                 Looper.prepare();
                 showToast(errorMsg);
                 Looper.loop();
                 notifyStatusChanged();
             }
-        }, (level, msg) -> {
-            //日志捕捉
-            String levelName = "INFO";
-            switch (level) {
-                case 1:
-                    levelName = "ERROR";
-                    break;
-                case 2:
-                    levelName = "DEBUG";
-                    break;
-                case 3:
-                    levelName = "WARN";
-                    break;
-                case 4:
-                    levelName = "INFO";
-                    break;
-                default:
-                    break;
-            }
-            String log = String.format("%s[%s] %s\r\n\r\n", levelName, DateUtil.format(new Date(), "yyyy-MM-dd HH:mm:ss.SSS"), msg);
-            
-            // 内存优化：限制日志大小，防止无限增长
-            synchronized (ALIST_LOGS) {
-                if (ALIST_LOGS.length() > MAX_LOG_SIZE) {
-                    // 保留最后80%的日志，删除最旧的20%
-                    int keepSize = (int) (MAX_LOG_SIZE * 0.8);
-                    int deleteSize = ALIST_LOGS.length() - keepSize;
-                    ALIST_LOGS.delete(0, deleteSize);
-                    ALIST_LOGS.insert(0, "... [日志已自动清理旧内容] ...\r\n\r\n");
-                }
-                ALIST_LOGS.append(log);
+
+            @Override
+            public void onLog(int level, String message) {
+                //日志捕捉（logcat 自带时间与级别，直接输出原始消息）
+                appendLog(level, message);
+                Log.println(getLogPriority(level), AlistService.TAG, message);
             }
-            
-            Log.i(AlistService.TAG, log);
         });
+        //本地存储缩略图交由 Android 系统解码器生成
+        ThumbnailService thumbnailService = ThumbnailService.getInstance();
+        engine.setThumbnailProvider(thumbnailService, thumbnailService.getCacheFolder());
+    }
+
+    /**
+     * 追加日志：写入内存日志（供 APP 内查看与筛选）并持久化到磁盘
+     */
+    public static void appendLog(int level, String message) {
+        long time = System.currentTimeMillis();
+        LogStore.getInstance().append(level, time, message);
+        PersistentLog.getInstance().append(LogStore.getLevelName(level), time, message);
+    }
+
+    private static int getLogPriority(int level) {
+        switch (level) {
+            case LogStore.LEVEL_ERROR:
+                return Log.ERROR;
+            case LogStore.LEVEL_WARN:
+                return Log.WARN;
+            case LogStore.LEVEL_DEBUG:
+                return Log.DEBUG;
+            default:
+                return Log.INFO;
+        }
     }
 
     /**
@@ -118,23 +195,21 @@ public class Alist {
      * @param jsonPath 配置项路径 如 scheme.http_port
      */
     public String getConfigValue(String jsonPath) throws IOException {
-        File configFile = new File(configPath);
-        String configString = FileUtils.readFileToString(configFile, StandardCharsets.UTF_8);
-        return JsonPath.read(configString, jsonPath).toString();
+        return configSource.getValue(jsonPath);
     }
 
     public void setAdminPassword(String pwd) throws Exception {
         if (!hasRunning()) {
             init();
         }
-        Alistlib.setAdminPassword(pwd);
+        engine.setAdminPassword(pwd);
     }
 
     public String getAdminUser() throws Exception {
         if (!hasRunning()) {
             init();
         }
-        return Alistlib.getAdminUser();
+        return engine.getAdminUser();
     }
 
     /**
@@ -147,20 +222,44 @@ public class Alist {
         if (!hasRunning()) {
             init();
         }
-        Alistlib.addLocalStorage(localPath, mountPath);
+        engine.addLocalStorage(localPath, mountPath);
     }
 
     private void notifyStatusChanged() {
         LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(new Intent(ACTION_STATUS_CHANGED));
     }
 
+    /**
+     * 广播启动进度
+     *
+     * @param phase     当前启动阶段
+     * @param mountPath 刚加载完成的存储挂载路径（阶段变化时为空）
+     * @param millis    存储加载耗时
+     * @param err       存储加载错误信息（成功时为空）
+     */
+    private void notifyStartProgress(String phase, String mountPath, long millis, String err) {
+        Intent intent = new Intent(ACTION_START_PROGRESS)
+                .putExtra(EXTRA_PHASE, phase)
+                .putExtra(EXTRA_STORAGE, mountPath)
+                .putExtra(EXTRA_MILLIS, millis)
+                .putExtra(EXTRA_ERROR, err);
+        LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(intent);
+    }
+
+    /**
+     * 获取当前启动阶段
+     */
+    public String getStartPhase() {
+        return startPhase;
+    }
+
     public void shutdown(Long timeout) {
         try {
-            Alistlib.shutdown(timeout);
-            ALIST_LOGS.append("------ 服务已关闭 ------\r\n\r\n");
+            engine.shutdown(timeout);
+            appendLog(LogStore.LEVEL_INFO, "------ 服务已关闭 ------");
         } catch (Exception e) {
             showToast("Alist服务关闭失败");
-            ALIST_LOGS.append("------ 服务关闭失败 ------\r\n\r\n");
+            appendLog(LogStore.LEVEL_ERROR, "------ 服务关闭失败 ------");
         }
     }
 
@@ -168,17 +267,61 @@ public class Alist {
         shutdown(5000L);
     }
 
+    /**
+     * 优雅关闭：停止接受新连接，等待进行中的传输完成（阻塞，需在后台线程调用）
+     *
+     * @param deadline 最长等待时间（毫秒）
+     */
+    public void shutdownGraceful(Long deadline) {
+        try {
+            engine.shutdownGraceful(deadline);
+            appendLog(LogStore.LEVEL_INFO, "------ 服务已关闭 ------");
+        } catch (Exception e) {
+            new Handler(Looper.getMainLooper()).post(() -> showToast("Alist服务关闭失败"));
+            appendLog(LogStore.LEVEL_ERROR, "------ 服务关闭失败 ------");
+        }
+    }
+
     public void startup() throws Exception {
-        if (Alistlib.isRunning("")) {
+        startup(true);
+    }
+
+    /**
+     * @param isDelayed 是否执行配置中的 delayed_start（开机启动已由调度器等待，不再重复延迟）
+     */
+    public void startup(boolean isDelayed) throws Exception {
+        if (engine.isRunning("")) {
             return;
         }
         init();
-        Alistlib.start();
+        //非阻塞启动：监听端口就绪后立即返回，存储在后台加载
+        startPhase = null;
+        engine.startAsync(isDelayed);
         notifyStatusChanged();
     }
 
+    /**
+     * 热加载配置文件：可在线生效的配置立即应用，仅重新绑定端口发生变化的监听（阻塞，需在后台线程调用）
+     *
+     * @return 需要重启服务才能生效的配置项与重新绑定监听的错误
+     */
+    public ReloadResult reloadConfig() throws Exception {
+        return ReloadResult.parse(engine.reloadConfig());
+    }
+
+    /**
+     * 获取 AList 服务地址（根据当前采用的协议类型动态）
+     */
+    public String getServerAddress() throws IOException {
+        //开启 HTTPS 端口时优先使用 HTTPS（未指定证书文件时使用设备证书），以便 WebView 通过 HTTP/2 多路复用请求
+        boolean isHttpsMode = !"-1".equals(getConfigValue("scheme.https_port"));
+        //读取 AList 服务运行端口
+        String serverPort = getConfigValue(isHttpsMode ? "scheme.https_port" : "scheme.http_port");
+        return String.format(Locale.CHINA, "%s://%s:%s", isHttpsMode ? "https" : "http", getBindingIP(), serverPort);
+    }
+
     public String getBindingIP() {
-        return Alistlib.getOutboundIPString();
+        return engine.getOutboundIP();
     }
 
     private void showToast(String msg) {
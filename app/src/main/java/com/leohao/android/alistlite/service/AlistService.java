@@ -1,17 +1,21 @@
 package com.leohao.android.alistlite.service;
 
 import android.app.*;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.graphics.Color;
 import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
 import android.os.IBinder;
-import android.os.PowerManager;
+import android.os.Looper;
+import android.os.RemoteCallbackList;
+import android.os.RemoteException;
 import android.service.quicksettings.TileService;
 import android.util.Log;
-import android.view.View;
 import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
@@ -20,40 +24,78 @@ import com.leohao.android.alistlite.MainActivity;
 import com.leohao.android.alistlite.R;
 import com.leohao.android.alistlite.broadcast.CopyReceiver;
 import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.model.LogStore;
 import com.leohao.android.alistlite.util.AppUtil;
 import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.DataLocation;
+import com.leohao.android.alistlite.util.MountTable;
 import com.leohao.android.alistlite.util.StorageUtil;
 import com.leohao.android.alistlite.util.PermissionDiagnostic;
 import com.leohao.android.alistlite.util.RootUtil;
-import com.leohao.android.alistlite.util.SharedDataHelper;
+import com.leohao.android.alistlite.util.RouteBenchmark;
+import com.leohao.android.alistlite.util.SettingsStore;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * AList 服务
+ * 运行在独立的 :engine 进程中，界面进程通过绑定获取 {@link IEngineService} 查询状态、读取日志与指标
  *
  * @author LeoHao
  */
 public class AlistService extends Service {
-    /**
-     * 电源唤醒锁
-     */
-    private PowerManager.WakeLock wakeLock = null;
     public final static String TAG = "AListService";
     private final static String CHANNEL_ID = "com.leohao.android.alistlite";
     private final static String CHANNEL_NAME = "AlistService";
     public final static String ACTION_STARTUP = "com.leohao.android.alistlite.ACTION_STARTUP";
     public final static String ACTION_SHUTDOWN = "com.leohao.android.alistlite.ACTION_SHUTDOWN";
+    public final static String ACTION_BOOT_STARTUP = "com.leohao.android.alistlite.ACTION_BOOT_STARTUP";
     private final Alist alistServer = Alist.getInstance();
+    private String channelId = "";
+    private PendingIntent pendingIntent = null;
+    private int notificationId = 0;
+    /**
+     * 服务访问地址（服务启动完成前为空）
+     */
+    private volatile String serverAddress = null;
+    /**
+     * 本次启动已加载的存储数量
+     */
+    private int loadedStorageCount = 0;
+    /**
+     * 是否正在优雅关闭（等待进行中的传输完成）
+     */
+    private volatile boolean isDraining = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 启动前的耗时准备（数据目录迁移与落盘、数据库参数调整、设备证书签发）与首次挂载存储（访问路径测速）在后台线程执行，避免阻塞主线程
+     */
+    private final ExecutorService startupExecutor = Executors.newSingleThreadExecutor();
+    /**
+     * 是否正在后台准备启动
+     */
+    private volatile boolean isPreparing = false;
+    /**
+     * 后台准备期间前台服务消息的内容
+     */
+    private String preparingStatus = "";
+    /**
+     * 通知栏中的运行指标摘要
+     */
+    private String metricsSummary = "";
+    private final EngineBinder binder = new EngineBinder(this);
+    /**
+     * 界面进程注册的状态回调
+     */
+    private final RemoteCallbackList<IEngineCallback> callbacks = new RemoteCallbackList<>();
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        String channelId;
         // 8.0 以上需要特殊处理
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             channelId = createNotificationChannel(CHANNEL_ID, CHANNEL_NAME);
@@ -62,7 +104,6 @@ public class AlistService extends Service {
         }
         Intent clickIntent = new Intent(getApplicationContext(), MainActivity.class);
         //用于点击状态栏进入主页面
-        PendingIntent pendingIntent;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             pendingIntent = PendingIntent.getActivity(this, 0, clickIntent, PendingIntent.FLAG_IMMUTABLE);
         } else {
@@ -71,87 +112,289 @@ public class AlistService extends Service {
         //根据action决定是否启动AList服务端
         if (ACTION_SHUTDOWN.equals(intent.getAction())) {
             if (alistServer.hasRunning()) {
-                //关闭服务
+                //关闭服务（等待进行中的传输完成后才真正退出）
                 exitService();
+            } else if (isPreparing) {
+                showToast("AList 服务正在准备启动，请稍后再试");
+            } else if (BootScheduler.getInstance().isWaiting()) {
+                //开机启动尚在等待系统就绪，取消启动
+                BootScheduler.getInstance().cancel();
+                stopForeground(true);
+                notificationId = 0;
+                stopSelf();
+                showToast("已取消开机启动");
+            } else {
+                showToast("AList 服务已关闭");
             }
             //更新磁贴状态
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
                 updateAlistTileServiceState(AlistTileService.ACTION_TILE_OFF);
             }
-            showToast("AList 服务已关闭");
+        }
+        if (ACTION_STARTUP.equals(intent.getAction()) && isDraining) {
+            showToast("AList 服务正在关闭，请稍后再试");
+            return START_NOT_STICKY;
         }
         if (ACTION_STARTUP.equals(intent.getAction())) {
-            try {
-                //创建消息以维持后台（此处必须先执行，否则可能产生由于未及时调用 startForeground 导致的 ANR 异常）
-                Notification notification = new NotificationCompat.Builder(this, channelId).setContentTitle(getString(R.string.alist_service_is_running)).setContentText("服务正在初始化").setSmallIcon(R.drawable.ic_launcher).setContentIntent(pendingIntent).build();
-                startForeground(startId, notification);
-                //若服务未运行则开启
-                if (!alistServer.hasRunning()) {
-                    //开启AList服务端
-                    alistServer.startup();
-                    //判断 AList 是否为首次初始化
-                    boolean hasInitialized = AppUtil.checkAlistHasInitialized();
-                    if (!hasInitialized) {
-                        //自动挂载所有存储设备（包括内置存储、SD卡、OTG）
-                        mountAllStorageDevices();
-                        //初始化密码
-                        alistServer.setAdminPassword(Constants.ALIST_DEFAULT_PASSWORD);
-                        //管理员用户名
-                        String adminUsername = alistServer.getAdminUser();
-                        showToast(String.format("初始登录信息：%s | %s", adminUsername, Constants.ALIST_DEFAULT_PASSWORD), Toast.LENGTH_LONG);
-                    }
-                }
-                //AList服务前端访问地址
-                String serverAddress = getAlistServerAddress();
-                if (MainActivity.getInstance() != null) {
-                    //状态开关恢复到开启状态（不触发监听事件）
-                    MainActivity.getInstance().serviceSwitch.setCheckedNoEvent(true);
-                    //加载AList前端页面
-                    MainActivity.getInstance().serverAddress = serverAddress;
-                    MainActivity.getInstance().webView.loadUrl(serverAddress);
-                    //隐藏服务未开启提示
-                    MainActivity.getInstance().runningInfoTextView.setVisibility(View.GONE);
-                }
-                //创建 Intent，用于复制服务器地址到剪贴板
-                Intent copyIntent = new Intent(this, CopyReceiver.class);
-                copyIntent.putExtra("address", serverAddress);
-                PendingIntent copyPendingIntent;
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                    copyPendingIntent = PendingIntent.getBroadcast(this, 0, copyIntent, PendingIntent.FLAG_IMMUTABLE);
-                } else {
-                    copyPendingIntent = PendingIntent.getBroadcast(this, 0, copyIntent, PendingIntent.FLAG_ONE_SHOT);
+            //手动启动时不再等待开机就绪
+            BootScheduler.getInstance().cancel();
+            startupService(startId, true);
+        }
+        if (ACTION_BOOT_STARTUP.equals(intent.getAction()) && !alistServer.hasRunning() && !BootScheduler.getInstance().isWaiting()) {
+            //先以前台服务保活，等待存储卷挂载与网络可用后再启动引擎
+            notificationId = startId;
+            startForeground(notificationId, buildNotification("正在等待系统就绪"));
+            BootScheduler.getInstance().start(new BootScheduler.Callback() {
+                @Override
+                public void onWaiting(String status) {
+                    updateNotification(status);
                 }
-                //创建复制服务地址的 Action
-                NotificationCompat.Action addressCopyAction = new NotificationCompat.Action.Builder(
-                        R.drawable.copy,
-                        "复制服务地址",
-                        copyPendingIntent)
-                        .build();
-                //更新消息内容里的服务地址，同时添加服务地址复制入口
-                notification = new NotificationCompat.Builder(this, channelId)
-                        .setContentTitle(getString(R.string.alist_service_is_running))
-                        .setContentText(serverAddress)
-                        .setSmallIcon(R.drawable.ic_launcher)
-                        .addAction(addressCopyAction)
-                        .setContentIntent(pendingIntent).build();
-                startForeground(startId, notification);
-                //更新磁贴状态
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                    updateAlistTileServiceState(AlistTileService.ACTION_TILE_ON);
+
+                @Override
+                public void onReady() {
+                    startupService(startId, false);
                 }
-                showToast("AList 服务已开启");
+            });
+        }
+        return START_NOT_STICKY;
+    }
+
+    /**
+     * 启动服务
+     *
+     * @param isDelayed 是否执行配置中的 delayed_start
+     */
+    private void startupService(int startId, boolean isDelayed) {
+        if (isPreparing) {
+            //已在后台准备启动，仅刷新前台消息（每次启动请求都需调用 startForeground）
+            startForeground(notificationId, buildNotification(preparingStatus));
+            return;
+        }
+        //创建消息以维持后台（此处必须先执行，否则可能产生由于未及时调用 startForeground 导致的 ANR 异常）
+        notificationId = startId;
+        serverAddress = null;
+        startForeground(notificationId, buildNotification("服务正在初始化"));
+        //读入界面进程修改过的设置
+        SettingsStore.getInstance().reload();
+        if (alistServer.hasRunning()) {
+            startEngine(isDelayed);
+            return;
+        }
+        //按引擎请求活动持有唤醒锁与 WiFi 锁
+        PowerPolicy.getInstance().enable();
+        isPreparing = true;
+        if (DataLocation.getInstance().isMigrationPending()) {
+            preparingStatus = "正在迁移数据目录，请勿关闭应用";
+            updateNotification(preparingStatus);
+        } else {
+            preparingStatus = "服务正在初始化";
+        }
+        startupExecutor.execute(() -> {
+            try {
+                //旧版本的数据目录位于外部存储（FUSE），首次启动前迁移到内部存储，并按存储介质更新数据库参数
+                alistServer.prepareDataDir();
             } catch (Exception e) {
-                Log.e(TAG, e.getLocalizedMessage());
-                if (MainActivity.getInstance() != null) {
-                    //状态开关恢复到关闭状态（不触发监听事件）
-                    MainActivity.getInstance().serviceSwitch.setCheckedNoEvent(false);
+                Log.e(TAG, "准备数据目录失败: ", e);
+            }
+            try {
+                //配置未指定证书文件时 HTTPS 使用设备证书，需在监听启动前就绪（Keystore 生成密钥较慢）
+                TlsProvisioner.getInstance().provision();
+            } catch (Exception e) {
+                Log.e(TAG, "准备设备证书失败: ", e);
+            } finally {
+                mainHandler.post(() -> {
+                    isPreparing = false;
+                    startEngine(isDelayed);
+                });
+            }
+        });
+    }
+
+    /**
+     * 数据目录就绪后开启引擎，并启动运行期间的各项监控
+     *
+     * @param isDelayed 是否执行配置中的 delayed_start
+     */
+    private void startEngine(boolean isDelayed) {
+        try {
+            //若服务未运行则开启
+            if (!alistServer.hasRunning()) {
+                updateNotification("服务正在初始化");
+                //开启AList服务端
+                alistServer.startup(isDelayed);
+                //判断 AList 是否为首次初始化
+                boolean hasInitialized = AppUtil.checkAlistHasInitialized();
+                if (!hasInitialized) {
+                    //挂载前需对各访问路径测速与写入测试，耗时较长，在后台线程执行
+                    startupExecutor.execute(this::initializeFirstRun);
                 }
-                showToast(String.format("AList 服务开启失败: %s", e.getLocalizedMessage()));
             }
+            //AList服务前端访问地址
+            serverAddress = getAlistServerAddress();
+            //通知界面加载 AList 前端页面
+            notifyStatusChanged();
+            //更新消息内容里的服务地址，同时添加服务地址复制入口
+            startForeground(notificationId, buildNotification(getStartProgressText()));
+            //定时探测服务存活，无响应时自动重启
+            EngineWatchdog.getInstance().start();
+            //采集运行指标，在通知栏显示吞吐
+            MetricsMonitor.getInstance().start();
+            //按设备内存限制引擎堆
+            MemoryGovernor.getInstance().start();
+            //引擎空闲时维护数据库
+            DatabaseTuner.getInstance().start();
+            //定期检查设备证书是否需要轮换
+            TlsProvisioner.getInstance().start();
+            //远程存储代理下载的分块缓存
+            ChunkCacheManager.getInstance().start();
+            //更新磁贴状态
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                updateAlistTileServiceState(AlistTileService.ACTION_TILE_ON);
+            }
+            showToast("AList 服务已开启");
+        } catch (Exception e) {
+            Log.e(TAG, e.getLocalizedMessage());
+            if (!alistServer.hasRunning()) {
+                PowerPolicy.getInstance().disable();
+            }
+            notifyStatusChanged();
+            showToast(String.format("AList 服务开启失败: %s", e.getLocalizedMessage()));
         }
-        return START_NOT_STICKY;
     }
 
+    /**
+     * 首次初始化（后台线程）：设置初始密码并自动挂载所有存储设备
+     */
+    private void initializeFirstRun() {
+        //先设置初始密码，挂载存储失败不影响登录
+        try {
+            alistServer.setAdminPassword(Constants.ALIST_DEFAULT_PASSWORD);
+            //管理员用户名
+            String adminUsername = alistServer.getAdminUser();
+            showToast(String.format("初始登录信息：%s | %s", adminUsername, Constants.ALIST_DEFAULT_PASSWORD), Toast.LENGTH_LONG);
+        } catch (Exception e) {
+            Log.e(TAG, "初始密码设置失败: ", e);
+        }
+        //自动挂载所有存储设备（包括内置存储、SD卡、OTG）
+        try {
+            mountAllStorageDevices();
+        } catch (Exception e) {
+            Log.e(TAG, "自动挂载存储设备失败: ", e);
+        }
+    }
+
+    /**
+     * 构建前台服务消息（服务地址已知时附带地址复制入口）
+     *
+     * @param contentText 消息内容
+     */
+    private Notification buildNotification(String contentText) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, channelId)
+                .setContentTitle(getString(R.string.alist_service_is_running))
+                .setContentText(contentText)
+                .setSmallIcon(R.drawable.ic_launcher)
+                .setOnlyAlertOnce(true)
+                .setContentIntent(pendingIntent);
+        if (serverAddress != null) {
+            //创建 Intent，用于复制服务器地址到剪贴板
+            Intent copyIntent = new Intent(this, CopyReceiver.class);
+            copyIntent.putExtra("address", serverAddress);
+            PendingIntent copyPendingIntent;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                copyPendingIntent = PendingIntent.getBroadcast(this, 0, copyIntent, PendingIntent.FLAG_IMMUTABLE);
+            } else {
+                copyPendingIntent = PendingIntent.getBroadcast(this, 0, copyIntent, PendingIntent.FLAG_ONE_SHOT);
+            }
+            //创建复制服务地址的 Action
+            NotificationCompat.Action addressCopyAction = new NotificationCompat.Action.Builder(
+                    R.drawable.copy,
+                    "复制服务地址",
+                    copyPendingIntent)
+                    .build();
+            builder.addAction(addressCopyAction);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 更新前台服务消息内容
+     */
+    private void updateNotification(String contentText) {
+        if (notificationId == 0) {
+            return;
+        }
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        manager.notify(notificationId, buildNotification(contentText));
+    }
+
+    /**
+     * 根据启动阶段生成消息内容
+     */
+    private String getStartProgressText() {
+        String phase = alistServer.getStartPhase();
+        String address = serverAddress != null ? serverAddress : "";
+        if (Alist.PHASE_DELAYED.equals(phase)) {
+            return String.format("%s（延迟启动中）", address);
+        }
+        if (Alist.PHASE_LOADING_STORAGES.equals(phase)) {
+            return String.format(Locale.CHINA, "%s（已加载 %d 个存储）", address, loadedStorageCount);
+        }
+        if (!metricsSummary.isEmpty()) {
+            return String.format("%s · %s", address, metricsSummary);
+        }
+        return address;
+    }
+
+    /**
+     * 启动进度监听（阶段变化与存储加载完成）
+     */
+    private final BroadcastReceiver startProgressReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String storage = intent.getStringExtra(Alist.EXTRA_STORAGE);
+            if (storage != null) {
+                String error = intent.getStringExtra(Alist.EXTRA_ERROR);
+                long millis = intent.getLongExtra(Alist.EXTRA_MILLIS, 0);
+                loadedStorageCount++;
+                if (error == null || error.isEmpty()) {
+                    Log.i(TAG, String.format(Locale.CHINA, "存储 [%s] 加载完成，耗时 %dms", storage, millis));
+                } else {
+                    Log.w(TAG, String.format(Locale.CHINA, "存储 [%s] 加载失败（%dms）: %s", storage, millis, error));
+                }
+            } else if (Alist.PHASE_READY.equals(intent.getStringExtra(Alist.EXTRA_PHASE))) {
+                //存储全部加载完成后监听本地存储变更，增量更新搜索索引
+                LocalIndexWatcher.getInstance().start();
+                PowerPolicy.getInstance().setStarting(false);
+            } else if (Alist.PHASE_LISTENING.equals(intent.getStringExtra(Alist.EXTRA_PHASE))) {
+                loadedStorageCount = 0;
+                //启动期间保持唤醒，避免存储加载被休眠打断
+                PowerPolicy.getInstance().setStarting(true);
+            }
+            if (serverAddress != null) {
+                updateNotification(getStartProgressText());
+            }
+        }
+    };
+
+    /**
+     * 优雅关闭进度监听（在前台服务消息中显示剩余传输数）
+     */
+    private final BroadcastReceiver drainProgressReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (!isDraining) {
+                return;
+            }
+            long activeRequests = intent.getLongExtra(Alist.EXTRA_ACTIVE_REQUESTS, 0);
+            long activeTransfers = intent.getLongExtra(Alist.EXTRA_ACTIVE_TRANSFERS, 0);
+            if (activeTransfers > 0) {
+                updateNotification(String.format(Locale.CHINA, "服务正在关闭，正在等待 %d 个传输完成", activeTransfers));
+            } else {
+                updateNotification(String.format(Locale.CHINA, "服务正在关闭（剩余 %d 个请求）", activeRequests));
+            }
+        }
+    };
+
     /**
      * 获取 AList 服务地址
      *
@@ -159,59 +402,171 @@ public class AlistService extends Service {
      * @throws IOException
      */
     public String getAlistServerAddress() throws IOException {
-        //判断是否强制开启了 HTTPS
-        boolean isForceHttps = "true".equals(alistServer.getConfigValue("scheme.force_https"));
-        boolean isHttpPortLegal = !"-1".equals(alistServer.getConfigValue("scheme.https_port"));
-        boolean isHttpsMode = isForceHttps && isHttpPortLegal;
-        //读取 AList 服务运行端口
-        String serverPort = alistServer.getConfigValue(isHttpsMode ? "scheme.https_port" : "scheme.http_port");
-        //AList 服务前端访问地址
-        return String.format(Locale.CHINA, "%s://%s:%s", isHttpsMode ? "https" : "http", alistServer.getBindingIP(), serverPort);
+        return alistServer.getServerAddress();
     }
 
+    boolean isEngineRunning() {
+        return !isDraining && alistServer.hasRunning();
+    }
+
+    String getServerAddress() {
+        return serverAddress;
+    }
+
+    /**
+     * 配置热加载后重新读取服务地址（端口或协议可能已变化）
+     */
+    void refreshServerAddress() {
+        if (serverAddress == null) {
+            return;
+        }
+        try {
+            serverAddress = getAlistServerAddress();
+        } catch (IOException e) {
+            Log.w(TAG, "读取服务地址失败: " + e.getMessage());
+        }
+        mainHandler.post(() -> {
+            if (serverAddress != null) {
+                updateNotification(getStartProgressText());
+            }
+        });
+        notifyStatusChanged();
+    }
+
+    void registerCallback(IEngineCallback callback) {
+        callbacks.register(callback);
+        try {
+            callback.onStatusChanged(isEngineRunning(), serverAddress);
+        } catch (RemoteException e) {
+            Log.w(TAG, "回调界面进程失败: " + e.getMessage());
+        }
+    }
+
+    void unregisterCallback(IEngineCallback callback) {
+        callbacks.unregister(callback);
+    }
+
+    /**
+     * 向界面进程广播当前运行状态（界面据此更新开关与前端页面）
+     */
+    private void notifyStatusChanged() {
+        boolean isRunning = isEngineRunning();
+        String address = serverAddress;
+        synchronized (callbacks) {
+            int count = callbacks.beginBroadcast();
+            for (int i = 0; i < count; i++) {
+                try {
+                    callbacks.getBroadcastItem(i).onStatusChanged(isRunning, address);
+                } catch (RemoteException e) {
+                    //界面进程已退出，由 RemoteCallbackList 自动移除
+                }
+            }
+            callbacks.finishBroadcast();
+        }
+    }
+
+    /**
+     * 引擎自身状态变化（启动失败、关闭）
+     */
+    private final BroadcastReceiver statusChangedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            notifyStatusChanged();
+        }
+    };
+
     @Override
     public void onDestroy() {
+        BootScheduler.getInstance().cancel();
+        startupExecutor.shutdown();
+        LocalBroadcastManager.getInstance(this).unregisterReceiver(startProgressReceiver);
+        LocalBroadcastManager.getInstance(this).unregisterReceiver(drainProgressReceiver);
+        LocalBroadcastManager.getInstance(this).unregisterReceiver(statusChangedReceiver);
+        MetricsMonitor.getInstance().setListener(null);
+        callbacks.kill();
         super.onDestroy();
     }
 
     public void exitService() {
+        if (isDraining) {
+            return;
+        }
+        isDraining = true;
+        //关闭期间不再显示服务地址，前台消息保留至传输结束以维持进程存活
+        serverAddress = null;
+        updateNotification("服务正在关闭");
+        notifyStatusChanged();
+        //停止看门狗、指标采集与本地存储变更监听
+        EngineWatchdog.getInstance().stop();
+        MetricsMonitor.getInstance().stop();
+        metricsSummary = "";
+        LocalIndexWatcher.getInstance().stop();
+        MemoryGovernor.getInstance().stop();
+        DatabaseTuner.getInstance().stop();
+        TlsProvisioner.getInstance().stop();
+        //优雅关闭会阻塞至传输完成或超时，放到后台线程执行
+        new Thread(() -> {
+            alistServer.shutdownGraceful(Constants.SHUTDOWN_DRAIN_DEADLINE);
+            mainHandler.post(this::onServiceExited);
+        }, "AListShutdown").start();
+    }
+
+    /**
+     * 服务完全关闭后恢复界面状态并结束前台服务
+     */
+    private void onServiceExited() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             stopForeground(STOP_FOREGROUND_REMOVE);
         } else {
             stopForeground(true);
         }
-        //关闭服务
-        alistServer.shutdown();
-        if (MainActivity.getInstance() != null) {
-            //状态开关恢复到关闭状态（不触发监听事件）
-            MainActivity.getInstance().serviceSwitch.setCheckedNoEvent(false);
-            //刷新 webview
-            MainActivity.getInstance().webView.reload();
-            //显示服务未开启提示
-            MainActivity.getInstance().runningInfoTextView.setVisibility(View.VISIBLE);
-        }
-        if (wakeLock != null) {
-            wakeLock.release();
-            wakeLock = null;
-        }
+        //服务关闭后不再更新消息
+        notificationId = 0;
+        isDraining = false;
+        notifyStatusChanged();
+        //释放唤醒锁与 WiFi 锁
+        PowerPolicy.getInstance().disable();
+        showToast("AList 服务已关闭");
         this.stopSelf();
     }
 
     @Override
     public void onCreate() {
         super.onCreate();
-        //初始化电源管理器
-        PowerManager pm = (PowerManager) getSystemService(Context.POWER_SERVICE);
-        wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, AlistService.class.getName());
-        // 常驻服务需要持续保持CPU唤醒，不设置超时
-        // 配合前台服务使用，确保Web服务24/7可用
-        wakeLock.acquire();
+        //监听引擎启动进度
+        LocalBroadcastManager.getInstance(this).registerReceiver(startProgressReceiver, new IntentFilter(Alist.ACTION_START_PROGRESS));
+        //运行指标变化时刷新通知栏
+        MetricsMonitor.getInstance().setListener(summary -> mainHandler.post(() -> {
+            if (summary.equals(metricsSummary)) {
+                return;
+            }
+            metricsSummary = summary;
+            if (serverAddress != null && !isDraining) {
+                updateNotification(getStartProgressText());
+            }
+        }));
+        //监听引擎优雅关闭进度
+        LocalBroadcastManager.getInstance(this).registerReceiver(drainProgressReceiver, new IntentFilter(Alist.ACTION_DRAIN_PROGRESS));
+        //引擎启动失败或自行关闭时通知界面进程
+        LocalBroadcastManager.getInstance(this).registerReceiver(statusChangedReceiver, new IntentFilter(Alist.ACTION_STATUS_CHANGED));
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        MemoryGovernor.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        MemoryGovernor.getInstance().onTrimMemory(TRIM_MEMORY_COMPLETE);
     }
 
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return binder;
     }
 
     /**
@@ -254,7 +609,7 @@ public class AlistService extends Service {
             
             // 检查Root状态和用户设置
             boolean isDeviceRooted = RootUtil.isDeviceRooted();
-            boolean isRootEnabled = SharedDataHelper.getBoolean(Constants.KEY_ROOT_PERMISSION_ENABLED, false);
+            boolean isRootEnabled = SettingsStore.getInstance().get(SettingsStore.ROOT_PERMISSION_ENABLED);
             Log.i(TAG, "设备Root状态: " + (isDeviceRooted ? "✅ 已Root" : "❌ 未Root"));
             Log.i(TAG, "ROOT权限开关: " + (isRootEnabled ? "✅ 已启用" : "❌ 未启用（可在权限配置中启用）"));
             
@@ -272,6 +627,7 @@ public class AlistService extends Service {
             // 挂载所有发现的存储设备
             int mountCount = 0;
             int skippedCount = 0;
+            StringBuilder routeReport = new StringBuilder();
             for (StorageUtil.StorageInfo storage : storageDevices) {
                 try {
                     // 验证路径可访问
@@ -297,11 +653,12 @@ public class AlistService extends Service {
                         File mediaRwFile = new File(mediaRwPath);
                         
                         // 优先检查/mnt/media_rw路径（这是外置存储的真实挂载点）
-                        boolean mediaRwExists = mediaRwFile.exists();
+                        MountTable.MountEntry mediaRwMount = MountTable.isMountPoint(mediaRwPath) ? MountTable.findMount(mediaRwPath) : null;
+                        boolean mediaRwExists = mediaRwMount != null || mediaRwFile.exists();
                         boolean mediaRwReadable = mediaRwExists && mediaRwFile.canRead();
                         
-                        Log.i(TAG, String.format("   🔍 检查/mnt/media_rw路径: %s (存在:%s, 可读:%s)", 
-                                mediaRwPath, mediaRwExists, mediaRwReadable));
+                        Log.i(TAG, String.format("   🔍 检查/mnt/media_rw路径: %s (存在:%s, 可读:%s, 挂载:%s)", 
+                                mediaRwPath, mediaRwExists, mediaRwReadable, mediaRwMount != null ? mediaRwMount : "无"));
                         
                         if (mediaRwReadable) {
                             // 路径存在且可读，尝试使用它
@@ -378,6 +735,33 @@ public class AlistService extends Service {
                         canWrite = storageFile.canWrite();
                     }
                     
+                    // 同一存储卷的多条访问路径测速（FUSE 视图与底层文件系统速度可能相差数倍），选用最快的可写路径
+                    List<String> routes = RouteBenchmark.getCandidateRoutes(storage, physicalPath);
+                    if (!routes.isEmpty()) {
+                        RouteBenchmark.RouteResult fastest = RouteBenchmark.selectFastest(storage, routes, routeReport);
+                        if (fastest != null) {
+                            if (!fastest.path.equals(physicalPath)) {
+                                Log.i(TAG, String.format("   ⚡ 选用更快的访问路径: %s -> %s", physicalPath, fastest.path));
+                                logToAppInternal("INFO", String.format("存储 %s 选用更快的访问路径: %s", storage.name, fastest.path));
+                                physicalPath = fastest.path;
+                            }
+                            // 以测速时的实际写入结果为准
+                            canWrite = fastest.isWritable;
+                        } else {
+                            Log.w(TAG, "   ⚠️ 测速时所有访问路径均无法写入");
+                            canWrite = false;
+                        }
+                    }
+                    
+                    // 挂载表显示为只读挂载时无需写入测试，直接跳过
+                    if (storage.isRemovable && MountTable.isReadOnly(physicalPath)) {
+                        String errorMsg = String.format("❌ 外置存储 %s 为只读挂载，跳过挂载 (路径: %s)", storage.name, physicalPath);
+                        Log.e(TAG, errorMsg);
+                        logToAppInternal("ERROR", errorMsg);
+                        skippedCount++;
+                        continue;
+                    }
+                    
                     // Android 9+ 关键修复：对外置存储进行实际写入测试
                     // 注意：这个测试必须在挂载之前执行，确保只有可写的存储才会被挂载
                     if (storage.isRemovable && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
@@ -543,6 +927,7 @@ public class AlistService extends Service {
             
             Log.i(TAG, String.format("========== 挂载完成：成功 %d/%d，跳过 %d ==========", 
                     mountCount, storageDevices.size(), skippedCount));
+            RouteBenchmark.saveReport(routeReport.toString());
             
             if (mountCount > 0) {
                 if (skippedCount > 0) {
@@ -570,19 +955,7 @@ public class AlistService extends Service {
      */
     private void logToAppInternal(String level, String message) {
         try {
-            String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.CHINA).format(new Date());
-            String logEntry = String.format("%s[%s] [AlistService] %s\r\n\r\n", level, timestamp, message);
-            
-            synchronized (Alist.ALIST_LOGS) {
-                // 检查日志大小，防止内存溢出
-                if (Alist.ALIST_LOGS.length() > 500000) {
-                    int keepSize = (int) (500000 * 0.8);
-                    int deleteSize = Alist.ALIST_LOGS.length() - keepSize;
-                    Alist.ALIST_LOGS.delete(0, deleteSize);
-                    Alist.ALIST_LOGS.insert(0, "... [日志已自动清理旧内容] ...\r\n\r\n");
-                }
-                Alist.ALIST_LOGS.append(logEntry);
-            }
+            Alist.appendLog(LogStore.parseLevel(level), "[AlistService] " + message);
         } catch (Exception e) {
             // 如果同步失败，至少保证Logcat输出
             Log.e(TAG, "记录日志到APP内部失败: " + e.getMessage());
@@ -726,10 +1099,17 @@ public class AlistService extends Service {
     }
 
     private void showToast(String msg) {
-        Toast.makeText(getApplicationContext(), msg, Toast.LENGTH_SHORT).show();
+        showToast(msg, Toast.LENGTH_SHORT);
     }
 
+    /**
+     * 显示提示，可在任意线程调用（Toast 需要 Looper，非主线程时转到主线程显示）
+     */
     private void showToast(String msg, int duration) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> showToast(msg, duration));
+            return;
+        }
         Toast.makeText(getApplicationContext(), msg, duration).show();
     }
 }
@@ -0,0 +1,217 @@
+package com.leohao.android.alistlite.service;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.storage.StorageManager;
+import android.os.storage.StorageVolume;
+import android.util.Log;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.SettingsStore;
+
+import java.util.Locale;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 开机启动调度
+ * 开机后等待存储卷挂载完成、网络可用，再等待可选的启动延迟后才启动服务，
+ * 避免首次挂载遗漏 SD 卡以及与系统开机争抢 I/O；超过最长等待时间后不再等待就绪信号
+ *
+ * @author LeoHao
+ */
+public class BootScheduler {
+    private static final String TAG = "BootScheduler";
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Callback callback = null;
+    private long waitingSince = 0;
+    /**
+     * 存储与网络均就绪（或等待超时）的时间
+     */
+    private long readySince = 0;
+    private long startDelay = 0;
+    private BroadcastReceiver mediaReceiver = null;
+    private ConnectivityManager.NetworkCallback networkCallback = null;
+    private final Runnable checkTask = this::check;
+
+    /**
+     * 等待状态回调（主线程）
+     */
+    public interface Callback {
+        /**
+         * @param status 当前等待状态说明
+         */
+        void onWaiting(String status);
+
+        void onReady();
+    }
+
+    private static class SingletonHolder {
+        private static final BootScheduler INSTANCE = new BootScheduler();
+    }
+
+    private BootScheduler() {
+    }
+
+    public static BootScheduler getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 开始等待系统就绪（主线程调用），就绪后回调一次 {@link Callback#onReady()}
+     */
+    public void start(Callback callback) {
+        if (this.callback != null) {
+            return;
+        }
+        this.callback = callback;
+        waitingSince = SystemClock.elapsedRealtime();
+        readySince = 0;
+        startDelay = getStartDelay();
+        registerSignals();
+        Log.i(TAG, String.format(Locale.CHINA, "开机启动：等待存储与网络就绪（启动延迟 %dms）", startDelay));
+        check();
+    }
+
+    /**
+     * 取消等待（用户手动启动或关闭服务时调用）
+     */
+    public void cancel() {
+        if (callback == null) {
+            return;
+        }
+        finish();
+        Log.i(TAG, "开机启动等待已取消");
+    }
+
+    public boolean isWaiting() {
+        return callback != null;
+    }
+
+    /**
+     * 开机启动延迟：取用户设置与配置文件 delayed_start 中的较大值（引擎启动时不再重复等待）
+     */
+    private long getStartDelay() {
+        long delay = SettingsStore.getInstance().get(SettingsStore.BOOT_START_DELAY);
+        try {
+            delay = Math.max(delay, Long.parseLong(Alist.getInstance().getConfigValue("delayed_start")) * 1000);
+        } catch (Exception e) {
+            Log.w(TAG, "读取 delayed_start 失败: " + e.getMessage());
+        }
+        return Math.max(0, delay);
+    }
+
+    private void check() {
+        if (callback == null) {
+            return;
+        }
+        handler.removeCallbacks(checkTask);
+        long now = SystemClock.elapsedRealtime();
+        boolean isStorageReady = isStorageReady();
+        boolean isNetworkReady = isNetworkReady();
+        if (readySince == 0) {
+            if (isStorageReady && isNetworkReady) {
+                readySince = now;
+                Log.i(TAG, String.format(Locale.CHINA, "存储与网络已就绪（等待 %dms）", now - waitingSince));
+            } else if (now - waitingSince > Constants.BOOT_READY_TIMEOUT) {
+                readySince = now;
+                Log.w(TAG, String.format(Locale.CHINA, "等待系统就绪超时（存储：%s，网络：%s），继续启动", isStorageReady, isNetworkReady));
+            }
+        }
+        if (readySince != 0) {
+            long remaining = startDelay - (now - readySince);
+            if (remaining <= 0) {
+                Callback readyCallback = callback;
+                finish();
+                readyCallback.onReady();
+                return;
+            }
+            callback.onWaiting(String.format(Locale.CHINA, "系统已就绪，%d 秒后启动服务", (remaining + 999) / 1000));
+            handler.postDelayed(checkTask, Math.min(remaining, Constants.BOOT_READY_CHECK_INTERVAL));
+            return;
+        }
+        String waitingFor = !isStorageReady && !isNetworkReady ? "存储挂载与网络连接" : (!isStorageReady ? "存储挂载" : "网络连接");
+        callback.onWaiting(String.format(Locale.CHINA, "正在等待%s（%d 秒）", waitingFor, (now - waitingSince) / 1000));
+        //就绪信号到达时会立即检查，定时检查作为兜底
+        handler.postDelayed(checkTask, Constants.BOOT_READY_CHECK_INTERVAL);
+    }
+
+    private void finish() {
+        handler.removeCallbacks(checkTask);
+        unregisterSignals();
+        callback = null;
+    }
+
+    /**
+     * 内置存储已挂载，且没有正在检查（尚未完成挂载）的存储卷
+     */
+    private boolean isStorageReady() {
+        if (!Environment.MEDIA_MOUNTED.equals(Environment.getExternalStorageState())) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            StorageManager storageManager = (StorageManager) applicationContext.getSystemService(Context.STORAGE_SERVICE);
+            for (StorageVolume volume : storageManager.getStorageVolumes()) {
+                if (Environment.MEDIA_CHECKING.equals(volume.getState())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean isNetworkReady() {
+        ConnectivityManager cm = (ConnectivityManager) applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = cm == null ? null : cm.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    private void registerSignals() {
+        mediaReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                check();
+            }
+        };
+        IntentFilter mediaFilter = new IntentFilter();
+        mediaFilter.addAction(Intent.ACTION_MEDIA_MOUNTED);
+        mediaFilter.addAction(Intent.ACTION_MEDIA_CHECKING);
+        mediaFilter.addAction(Intent.ACTION_MEDIA_UNMOUNTED);
+        mediaFilter.addDataScheme("file");
+        applicationContext.registerReceiver(mediaReceiver, mediaFilter);
+        ConnectivityManager cm = (ConnectivityManager) applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            networkCallback = new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    handler.post(BootScheduler.this::check);
+                }
+            };
+            cm.registerNetworkCallback(new NetworkRequest.Builder().build(), networkCallback);
+        }
+    }
+
+    private void unregisterSignals() {
+        if (mediaReceiver != null) {
+            applicationContext.unregisterReceiver(mediaReceiver);
+            mediaReceiver = null;
+        }
+        if (networkCallback != null) {
+            ConnectivityManager cm = (ConnectivityManager) applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+            cm.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.leohao.android.alistlite.service;
+
+import android.util.Log;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.RouteBenchmark;
+import com.leohao.android.alistlite.util.SettingsStore;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 远程文件分块缓存
+ * 代理下载远程存储的文件时，引擎按固定大小分块缓存到本地，重复播放与拖动进度不再从上游获取。
+ * 缓存放在各存储卷的应用缓存目录中测速最快的一个（无需存储权限，卸载时随应用清除），选择结果保存在设置中，
+ * 缓存目录不可用或用户要求时重新测速；容量不超过所在存储卷可用空间的一定比例
+ *
+ * @author LeoHao
+ */
+public class ChunkCacheManager {
+    private static final String TAG = "ChunkCacheManager";
+    /**
+     * 最近一次缓存目录测速报告（测速期间不阻塞状态查询）
+     */
+    private volatile String selectReport = null;
+
+    private static class SingletonHolder {
+        private static final ChunkCacheManager INSTANCE = new ChunkCacheManager();
+    }
+
+    private ChunkCacheManager() {
+    }
+
+    public static ChunkCacheManager getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 服务启动后按设置启用缓存（首次启用需要测速，在后台线程执行）
+     */
+    public void start() {
+        new Thread(() -> apply(false), TAG).start();
+    }
+
+    /**
+     * 修改缓存容量（阻塞，需在后台线程调用）
+     *
+     * @param maxBytes 容量上限（字节），0 为关闭并清除缓存
+     * @param reselect 是否重新测速选择缓存目录
+     * @return 缓存状态报告
+     */
+    public String configure(long maxBytes, boolean reselect) {
+        SettingsStore.getInstance().edit().put(SettingsStore.CHUNK_CACHE_SIZE, Math.max(0, maxBytes)).commit();
+        apply(reselect);
+        return getReport();
+    }
+
+    private synchronized void apply(boolean reselect) {
+        SettingsStore settingsStore = SettingsStore.getInstance();
+        long maxBytes = settingsStore.get(SettingsStore.CHUNK_CACHE_SIZE);
+        String savedDir = settingsStore.get(SettingsStore.CHUNK_CACHE_DIR);
+        try {
+            if (maxBytes <= 0) {
+                Alist.getInstance().getEngine().setChunkCache("", 0, 0, 0);
+                if (!savedDir.isEmpty()) {
+                    FileUtils.deleteQuietly(new File(savedDir));
+                    settingsStore.edit().put(SettingsStore.CHUNK_CACHE_DIR, "").commit();
+                }
+                Log.i(TAG, "分块缓存已关闭");
+                return;
+            }
+            File cacheDir = savedDir.isEmpty() ? null : new File(savedDir);
+            if (reselect || cacheDir == null || !(cacheDir.isDirectory() || cacheDir.mkdirs()) || !cacheDir.canWrite()) {
+                File selectedDir = selectCacheDir();
+                if (cacheDir != null && !cacheDir.equals(selectedDir)) {
+                    FileUtils.deleteQuietly(cacheDir);
+                }
+                cacheDir = selectedDir;
+                settingsStore.edit().put(SettingsStore.CHUNK_CACHE_DIR, cacheDir.getAbsolutePath()).commit();
+            }
+            //已缓存的块计入可用空间，避免缓存占满后容量被逐次压缩
+            long available = cacheDir.getUsableSpace() + FileUtils.sizeOfDirectory(cacheDir);
+            long limit = Math.min(maxBytes, (long) (available * Constants.CHUNK_CACHE_SPACE_RATIO));
+            Alist.getInstance().getEngine().setChunkCache(cacheDir.getAbsolutePath(), limit,
+                    Constants.CHUNK_CACHE_CHUNK_SIZE, Constants.CHUNK_CACHE_READ_AHEAD);
+            Log.i(TAG, String.format("分块缓存：%s，容量 %s", cacheDir, FileUtil.readableFileSize(limit)));
+        } catch (Exception e) {
+            Log.e(TAG, "设置分块缓存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 测量各存储卷应用缓存目录的读写速度，选用最快的可写目录（均不可写时使用内部存储）
+     */
+    private File selectCacheDir() {
+        List<File> candidates = new ArrayList<>();
+        for (File dir : applicationContext.getExternalCacheDirs()) {
+            if (dir != null) {
+                candidates.add(dir);
+            }
+        }
+        candidates.add(applicationContext.getCacheDir());
+        StringBuilder report = new StringBuilder();
+        RouteBenchmark.RouteResult fastest = null;
+        for (File dir : candidates) {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                continue;
+            }
+            RouteBenchmark.RouteResult result = RouteBenchmark.measure(dir.getAbsolutePath());
+            report.append(result).append("\n");
+            if (result.isWritable && (fastest == null || result.getScore() > fastest.getScore())) {
+                fastest = result;
+            }
+        }
+        File baseDir = fastest == null ? applicationContext.getCacheDir() : new File(fastest.path);
+        report.append(String.format("  → 选用 %s\n", baseDir));
+        selectReport = report.toString();
+        return new File(baseDir, Constants.CHUNK_CACHE_FOLDER_NAME);
+    }
+
+    /**
+     * 缓存状态报告：位置、占用、块命中率与节省的上游流量
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("【分块缓存】\n");
+        try {
+            JSONObject stats = JSONUtil.parseObj(Alist.getInstance().getEngine().getChunkCacheStats());
+            if (!stats.getBool("enabled", false)) {
+                report.append("未开启\n");
+            } else {
+                long hits = stats.getLong("hits", 0L);
+                //预读获取后的首次读取不算作命中（其上游流量已计入预读）
+                long reads = hits + stats.getLong("misses", 0L) + stats.getLong("prefetch_hits", 0L);
+                report.append("位置：").append(stats.getStr("dir", "")).append("\n");
+                report.append(String.format(Locale.CHINA, "占用：%s / %s（%d 块）\n", FileUtil.readableFileSize(stats.getLong("size", 0L)),
+                        FileUtil.readableFileSize(stats.getLong("max_bytes", 0L)), stats.getLong("chunks", 0L)));
+                report.append(String.format(Locale.CHINA, "命中：%d / %d 块（%.1f%%），淘汰 %d 块\n", hits, reads,
+                        reads > 0 ? hits * 100.0 / reads : 0, stats.getLong("evictions", 0L)));
+                report.append(String.format(Locale.CHINA, "预读：%d 块，其中 %d 块已被读取\n", stats.getLong("prefetched", 0L),
+                        stats.getLong("prefetch_hits", 0L)));
+                report.append(String.format(Locale.CHINA, "节省流量：%s（上游获取 %s）\n", FileUtil.readableFileSize(stats.getLong("bytes_saved", 0L)),
+                        FileUtil.readableFileSize(stats.getLong("bytes_fetched", 0L))));
+            }
+        } catch (Exception e) {
+            report.append("状态未知\n");
+        }
+        String lastSelectReport = selectReport;
+        if (lastSelectReport != null) {
+            report.append("存储测速：\n").append(lastSelectReport);
+        }
+        return report.toString();
+    }
+}
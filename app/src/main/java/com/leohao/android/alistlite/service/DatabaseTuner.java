@@ -0,0 +1,265 @@
+package com.leohao.android.alistlite.service;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.MountTable;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 数据库调优
+ * 按数据目录所在存储介质与设备内存生成 SQLite 参数预设，在引擎启动前写入数据目录；
+ * 服务运行期间引擎空闲一段时间后执行检查点与统计更新，把建立索引时推迟的写入放到空闲时完成
+ *
+ * @author LeoHao
+ */
+public class DatabaseTuner {
+    private static final String TAG = "DatabaseTuner";
+    private static final long MB = 1024 * 1024;
+    public static final String MEDIUM_EMMC = "emmc";
+    public static final String MEDIUM_SD = "sd";
+    public static final String MEDIUM_UFS = "ufs";
+    public static final String MEDIUM_NVME = "nvme";
+    public static final String MEDIUM_UNKNOWN = "unknown";
+    /**
+     * 预设名称前缀，用户将 preset 改为其他值（如 manual）后不再覆盖
+     */
+    private static final String PRESET_AUTO = "auto";
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Runnable maintainTask = this::maintain;
+    private boolean isEnabled = false;
+    private String medium = MEDIUM_UNKNOWN;
+    private JSONObject preset = null;
+    private long lastMaintainTime = 0;
+    private String lastMaintainResult = "暂无";
+
+    private static class SingletonHolder {
+        private static final DatabaseTuner INSTANCE = new DatabaseTuner();
+    }
+
+    private DatabaseTuner() {
+    }
+
+    public static DatabaseTuner getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 将参数预设写入数据目录下的调优参数文件（引擎启动前调用，数据库参数在打开数据库时生效）
+     */
+    public synchronized void applyPreset(File dataDir) {
+        medium = detectMedium(dataDir);
+        preset = buildPreset(medium);
+        File configFile = new File(dataDir, Constants.ALIST_CONFIG_FILENAME);
+        File tuningFile = new File(dataDir, Constants.DB_TUNING_FILENAME);
+        try {
+            //首次启动时配置文件由引擎生成，默认使用 sqlite3
+            if (configFile.exists()) {
+                JSONObject config = JSONUtil.parseObj(FileUtils.readFileToString(configFile, StandardCharsets.UTF_8), true);
+                JSONObject database = config.getJSONObject("database");
+                if (database != null && !"sqlite3".equals(database.getStr("type"))) {
+                    return;
+                }
+            }
+            JSONObject current = tuningFile.exists()
+                    ? JSONUtil.parseObj(FileUtils.readFileToString(tuningFile, StandardCharsets.UTF_8), true) : null;
+            String currentPreset = current == null ? "" : current.getStr("preset", "");
+            if (!currentPreset.isEmpty() && !currentPreset.startsWith(PRESET_AUTO)) {
+                Log.i(TAG, "数据库参数由用户配置（preset: " + currentPreset + "），不再覆盖");
+                preset = current;
+                return;
+            }
+            if (current != null && preset.toString().equals(current.toString())) {
+                return;
+            }
+            FileUtils.writeStringToFile(tuningFile, preset.toStringPretty(), StandardCharsets.UTF_8);
+            Log.i(TAG, "已写入数据库参数预设：" + preset);
+        } catch (Exception e) {
+            Log.w(TAG, "写入数据库参数预设失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按存储介质与内存生成参数：
+     * WAL 模式下 synchronous=NORMAL 只在提交检查点时同步，掉电最多丢失最近的事务，不会损坏数据库；
+     * 慢速闪存上放宽自动检查点阈值，把检查点集中到空闲维护时执行；
+     * 页缓存随内存增大，内存映射仅在非低内存设备上开启（32 位进程地址空间有限，上限更小）
+     */
+    private JSONObject buildPreset(String medium) {
+        ActivityManager activityManager = (ActivityManager) applicationContext.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        boolean isSlowMedium = !MEDIUM_UFS.equals(medium) && !MEDIUM_NVME.equals(medium);
+        boolean isLowRam = activityManager.isLowRamDevice() || activityManager.getMemoryClass() <= Constants.DB_LOW_MEMORY_CLASS;
+        long cacheSize = Math.max(Constants.DB_CACHE_SIZE_MIN, Math.min(memoryInfo.totalMem / 512, Constants.DB_CACHE_SIZE_MAX));
+        long mmapLimit = is64BitProcess() ? Constants.DB_MMAP_SIZE_MAX : Constants.DB_MMAP_SIZE_MAX_32BIT;
+        long mmapSize = isLowRam ? 0 : Math.min(memoryInfo.totalMem / 16, mmapLimit);
+        JSONObject preset = new JSONObject(true);
+        preset.set("preset", String.format(Locale.CHINA, "%s-%s-%dmb", PRESET_AUTO, medium, memoryInfo.totalMem / MB));
+        preset.set("synchronous", "NORMAL");
+        preset.set("cache_size", cacheSize / 1024);
+        preset.set("mmap_size", mmapSize);
+        preset.set("wal_autocheckpoint", isSlowMedium ? Constants.DB_WAL_AUTOCHECKPOINT_SLOW : Constants.DB_WAL_AUTOCHECKPOINT_FAST);
+        preset.set("busy_timeout", Constants.DB_BUSY_TIMEOUT);
+        return preset;
+    }
+
+    private boolean is64BitProcess() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && Process.is64Bit();
+    }
+
+    /**
+     * 根据数据目录所在挂载项的块设备判断存储介质（经 dm 加密层解析到底层设备），无法读取时视为未知（按慢速介质处理）
+     */
+    private String detectMedium(File dataDir) {
+        MountTable.MountEntry mount = MountTable.findMount(dataDir.getAbsolutePath());
+        if (mount == null || !mount.source.startsWith("/dev/")) {
+            return MEDIUM_UNKNOWN;
+        }
+        try {
+            String device = new File(mount.source).getCanonicalFile().getName();
+            //dm-N（文件加密、动态分区）取其底层设备
+            for (int depth = 0; device.startsWith("dm-") && depth < 4; depth++) {
+                String[] slaves = new File("/sys/block/" + device + "/slaves").list();
+                if (slaves == null || slaves.length == 0) {
+                    return MEDIUM_UNKNOWN;
+                }
+                device = slaves[0];
+            }
+            if (device.startsWith("mmcblk")) {
+                String disk = device.replaceAll("p\\d+$", "");
+                String type = FileUtils.readFileToString(new File("/sys/block/" + disk + "/device/type"), StandardCharsets.UTF_8).trim();
+                return "SD".equalsIgnoreCase(type) ? MEDIUM_SD : MEDIUM_EMMC;
+            }
+            if (device.startsWith("nvme")) {
+                return MEDIUM_NVME;
+            }
+            if (device.startsWith("sd")) {
+                return MEDIUM_UFS;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "无法识别存储介质: " + e.getMessage());
+        }
+        return MEDIUM_UNKNOWN;
+    }
+
+    /**
+     * 服务启动后开启空闲维护
+     */
+    public void start() {
+        handler.post(() -> {
+            isEnabled = true;
+            scheduleMaintain();
+        });
+    }
+
+    public void stop() {
+        handler.post(() -> {
+            isEnabled = false;
+            handler.removeCallbacks(maintainTask);
+        });
+    }
+
+    /**
+     * 引擎请求活动状态变化（可能来自任意线程）：忙碌时取消维护，空闲后重新计时
+     */
+    public void onActivityChanged(boolean busy) {
+        handler.post(() -> {
+            handler.removeCallbacks(maintainTask);
+            if (!busy) {
+                scheduleMaintain();
+            }
+        });
+    }
+
+    private void scheduleMaintain() {
+        if (!isEnabled) {
+            return;
+        }
+        long sinceLast = SystemClock.elapsedRealtime() - lastMaintainTime;
+        long delay = lastMaintainTime == 0 ? Constants.DB_MAINTAIN_IDLE_DELAY
+                : Math.max(Constants.DB_MAINTAIN_IDLE_DELAY, Constants.DB_MAINTAIN_INTERVAL - sinceLast);
+        handler.postDelayed(maintainTask, delay);
+    }
+
+    private void maintain() {
+        if (!isEnabled) {
+            return;
+        }
+        lastMaintainTime = SystemClock.elapsedRealtime();
+        worker.execute(() -> {
+            String result;
+            try {
+                result = Alist.getInstance().getEngine().maintainDatabase();
+            } catch (Exception e) {
+                result = "失败：" + e.getMessage();
+            }
+            Log.i(TAG, "数据库空闲维护：" + result);
+            synchronized (this) {
+                lastMaintainResult = String.format(Locale.CHINA, "%tT %s", System.currentTimeMillis(), result);
+            }
+        });
+        //维护后若仍空闲，按间隔继续
+        scheduleMaintain();
+    }
+
+    /**
+     * 比较默认参数与当前参数的写入、读取耗时（阻塞，服务运行时调用）
+     */
+    public String runBenchmark() throws Exception {
+        JSONObject results = JSONUtil.parseObj(Alist.getInstance().getEngine().benchmarkDatabase(Constants.DB_BENCHMARK_ROWS));
+        JSONObject baseline = results.getJSONObject("baseline");
+        JSONObject tuned = results.getJSONObject("tuned");
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.CHINA, "存储介质：%s，逐条写入并随机读取 %d 行\n\n", getMedium(), Constants.DB_BENCHMARK_ROWS));
+        appendResult(report, "默认参数", baseline);
+        appendResult(report, "当前参数", tuned);
+        long baselineInsert = baseline.getLong("insert_millis", 0L);
+        long tunedInsert = tuned.getLong("insert_millis", 0L);
+        if (baselineInsert > 0 && tunedInsert > 0) {
+            report.append(String.format(Locale.CHINA, "写入耗时为默认参数的 %.0f%%\n", tunedInsert * 100.0 / baselineInsert));
+        }
+        return report.toString();
+    }
+
+    private void appendResult(StringBuilder report, String title, JSONObject result) {
+        report.append(String.format(Locale.CHINA, "【%s】%s\n", title, result.getStr("dsn", "")));
+        if (result.containsKey("error")) {
+            report.append("测试失败：").append(result.getStr("error")).append("\n\n");
+            return;
+        }
+        report.append(String.format(Locale.CHINA, "写入 %dms，读取 %dms\n\n", result.getLong("insert_millis", 0L), result.getLong("query_millis", 0L)));
+    }
+
+    public synchronized String getMedium() {
+        return medium;
+    }
+
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("【数据库】\n");
+        report.append("存储介质：").append(medium).append("\n");
+        report.append("参数：").append(preset == null ? "默认" : preset.toString()).append("\n");
+        report.append("空闲维护：").append(lastMaintainResult).append("\n");
+        return report.toString();
+    }
+}
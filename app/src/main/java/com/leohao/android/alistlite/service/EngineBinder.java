@@ -0,0 +1,149 @@
+package com.leohao.android.alistlite.service;
+
+import android.os.Binder;
+import android.os.Parcel;
+import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.os.RemoteException;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.model.LogStore;
+import org.apache.commons.io.IOUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 引擎进程对界面进程提供的控制接口
+ *
+ * @author LeoHao
+ */
+class EngineBinder extends IEngineService.Stub {
+    private final AlistService service;
+    private final Alist alistServer = Alist.getInstance();
+
+    EngineBinder(AlistService service) {
+        this.service = service;
+    }
+
+    @Override
+    public boolean onTransact(int code, Parcel data, Parcel reply, int flags) throws RemoteException {
+        //服务对外导出（供磁贴与自动化工具启停），控制接口只允许本应用调用
+        if (Binder.getCallingUid() != Process.myUid()) {
+            throw new SecurityException("仅允许本应用调用");
+        }
+        return super.onTransact(code, data, reply, flags);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return service.isEngineRunning();
+    }
+
+    @Override
+    public String getServerAddress() {
+        return service.getServerAddress();
+    }
+
+    @Override
+    public String getStartPhase() {
+        return alistServer.getStartPhase();
+    }
+
+    @Override
+    public String getMetricsReport() {
+        return MetricsMonitor.getInstance().getReport() + "\n" + MemoryGovernor.getInstance().getReport()
+                + "\n" + ChunkCacheManager.getInstance().getReport();
+    }
+
+    @Override
+    public String getHealthReport() {
+        return EngineWatchdog.getInstance().getReport() + "\n" + DatabaseTuner.getInstance().getReport()
+                + "\n" + TlsProvisioner.getInstance().getReport();
+    }
+
+    @Override
+    public String benchmarkDatabase() {
+        if (!service.isEngineRunning()) {
+            throw new IllegalStateException("AList 服务未启动");
+        }
+        try {
+            return DatabaseTuner.getInstance().runBenchmark();
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    @Override
+    public String configureChunkCache(long maxBytes, boolean reselect) {
+        return ChunkCacheManager.getInstance().configure(maxBytes, reselect);
+    }
+
+    @Override
+    public void ingestSharedFiles(ParcelFileDescriptor[] fds, String[] names, long[] modifiedTimes, String dirPath) {
+        if (!service.isEngineRunning() || fds.length != names.length || fds.length != modifiedTimes.length) {
+            for (ParcelFileDescriptor fd : fds) {
+                IOUtils.closeQuietly(fd);
+            }
+            throw new IllegalStateException(service.isEngineRunning() ? "参数不匹配" : "AList 服务未启动");
+        }
+        ShareIngestor.getInstance().submit(fds, names, modifiedTimes, dirPath);
+    }
+
+    @Override
+    public String setAdminPassword(String password) {
+        try {
+            alistServer.setAdminPassword(password);
+            return alistServer.getAdminUser();
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    @Override
+    public ReloadResult reloadConfig() {
+        try {
+            ReloadResult result = alistServer.reloadConfig();
+            //端口或协议可能已变化
+            service.refreshServerAddress();
+            return result;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    @Override
+    public LogPage readLogs(int levelMask, long from, long to, String keyword, long cursor, int maxChars) {
+        return new LogPage(LogStore.getInstance().read(new LogStore.Query(levelMask, from, to, keyword), cursor, maxChars));
+    }
+
+    @Override
+    public void clearLogs() {
+        LogStore.getInstance().clear();
+        Alist.appendLog(LogStore.LEVEL_INFO, "------ 日志已清空 ------");
+    }
+
+    @Override
+    public void exportLogs(ParcelFileDescriptor fd, int levelMask, long from, long to, String keyword, boolean isFiltered) {
+        try (OutputStream outputStream = new ParcelFileDescriptor.AutoCloseOutputStream(fd)) {
+            if (isFiltered) {
+                LogStore logStore = LogStore.getInstance();
+                String logs = logStore.format(logStore.query(new LogStore.Query(levelMask, from, to, keyword)));
+                outputStream.write(logs.getBytes(StandardCharsets.UTF_8));
+            } else {
+                PersistentLog.getInstance().exportZip(outputStream);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void registerCallback(IEngineCallback callback) {
+        service.registerCallback(callback);
+    }
+
+    @Override
+    public void unregisterCallback(IEngineCallback callback) {
+        service.unregisterCallback(callback);
+    }
+}
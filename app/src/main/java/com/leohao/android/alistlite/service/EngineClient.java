@@ -0,0 +1,196 @@
+package com.leohao.android.alistlite.service;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.DeadObjectException;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+import android.util.Log;
+import com.leohao.android.alistlite.model.LogStore;
+
+
+/**
+ * 界面进程访问引擎进程的客户端
+ * 绑定 AlistService 并缓存引擎运行状态，界面查询状态不发起跨进程调用；引擎进程退出后自动重新绑定
+ *
+ * @author LeoHao
+ */
+public class EngineClient {
+    private static final String TAG = "EngineClient";
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile IEngineService service = null;
+    private volatile boolean isRunning = false;
+    private volatile String serverAddress = null;
+    private Listener listener = null;
+    private Context boundContext = null;
+
+    /**
+     * 引擎状态监听（主线程回调）
+     */
+    public interface Listener {
+        void onStatusChanged(boolean isRunning, String serverAddress);
+    }
+
+    private static class SingletonHolder {
+        private static final EngineClient INSTANCE = new EngineClient();
+    }
+
+    private EngineClient() {
+    }
+
+    public static EngineClient getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private final IEngineCallback callback = new IEngineCallback.Stub() {
+        @Override
+        public void onStatusChanged(boolean isRunning, String serverAddress) {
+            updateStatus(isRunning, serverAddress);
+        }
+    };
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            IEngineService engineService = IEngineService.Stub.asInterface(binder);
+            service = engineService;
+            try {
+                engineService.registerCallback(callback);
+            } catch (RemoteException e) {
+                Log.w(TAG, "注册引擎状态回调失败: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            //引擎进程意外退出，系统重建服务后会再次回调 onServiceConnected
+            service = null;
+            updateStatus(false, null);
+        }
+    };
+
+    /**
+     * 绑定引擎服务（主线程调用）
+     */
+    public void bind(Context context, Listener listener) {
+        this.listener = listener;
+        if (boundContext != null) {
+            return;
+        }
+        boundContext = context.getApplicationContext();
+        boundContext.bindService(new Intent(boundContext, AlistService.class), connection, Context.BIND_AUTO_CREATE);
+    }
+
+    /**
+     * 解除绑定（主线程调用），引擎在前台服务中继续运行
+     */
+    public void unbind() {
+        listener = null;
+        if (boundContext == null) {
+            return;
+        }
+        IEngineService engineService = service;
+        if (engineService != null) {
+            try {
+                engineService.unregisterCallback(callback);
+            } catch (RemoteException e) {
+                Log.w(TAG, "注销引擎状态回调失败: " + e.getMessage());
+            }
+        }
+        boundContext.unbindService(connection);
+        boundContext = null;
+        service = null;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public String getServerAddress() {
+        return serverAddress;
+    }
+
+    public String getMetricsReport() throws RemoteException {
+        return getService().getMetricsReport();
+    }
+
+    public String getHealthReport() throws RemoteException {
+        return getService().getHealthReport();
+    }
+
+    /**
+     * 数据库参数前后对比测试（耗时数秒，不应在主线程调用）
+     */
+    public String benchmarkDatabase() throws RemoteException {
+        return getService().benchmarkDatabase();
+    }
+
+    /**
+     * 设置远程文件分块缓存（重新测速时耗时数秒，不应在主线程调用）
+     */
+    public String configureChunkCache(long maxBytes, boolean reselect) throws RemoteException {
+        return getService().configureChunkCache(maxBytes, reselect);
+    }
+
+    /**
+     * @return 管理员用户名
+     */
+    public String setAdminPassword(String password) throws RemoteException {
+        return getService().setAdminPassword(password);
+    }
+
+    /**
+     * 热加载配置（阻塞，需在后台线程调用）
+     *
+     * @return 需要重启服务才能生效的配置项与重新绑定监听的错误
+     */
+    public ReloadResult reloadConfig() throws RemoteException {
+        return getService().reloadConfig();
+    }
+
+    public LogPage readLogs(LogStore.Query query, long cursor, int maxChars) throws RemoteException {
+        return getService().readLogs(query.levelMask, query.from, query.to, query.keyword, cursor, maxChars);
+    }
+
+    public void clearLogs() throws RemoteException {
+        getService().clearLogs();
+    }
+
+    /**
+     * 导出日志（阻塞，需在后台线程调用）
+     *
+     * @param query 筛选条件，为空时导出全部持久化日志
+     */
+    public void exportLogs(ParcelFileDescriptor fd, LogStore.Query query) throws RemoteException {
+        if (query == null) {
+            getService().exportLogs(fd, LogStore.LEVEL_MASK_ALL, 0, 0, "", false);
+        } else {
+            getService().exportLogs(fd, query.levelMask, query.from, query.to, query.keyword, true);
+        }
+    }
+
+    private IEngineService getService() throws RemoteException {
+        IEngineService engineService = service;
+        if (engineService == null) {
+            //RemoteException(String) 需要 API 24，使用无参的 DeadObjectException
+            Log.w(TAG, "引擎服务未连接");
+            throw new DeadObjectException();
+        }
+        return engineService;
+    }
+
+    private void updateStatus(boolean isRunning, String serverAddress) {
+        this.isRunning = isRunning;
+        this.serverAddress = serverAddress;
+        mainHandler.post(() -> {
+            if (listener != null) {
+                listener.onStatusChanged(isRunning, serverAddress);
+            }
+        });
+    }
+}
@@ -0,0 +1,235 @@
+package com.leohao.android.alistlite.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+import cn.hutool.core.date.DateUtil;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.MyHttpUtil;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务看门狗
+ * 定时通过本机回环地址探测 /ping，记录探测耗时分位数；连续多次探测失败时重启服务，
+ * 重启间隔按指数退避增长，避免服务反复崩溃时频繁重启
+ *
+ * @author LeoHao
+ */
+public class EngineWatchdog {
+    private static final String TAG = "EngineWatchdog";
+    private final Alist alistServer = Alist.getInstance();
+    private ScheduledExecutorService scheduler = null;
+    /**
+     * 最近的探测耗时（毫秒，环形缓冲）
+     */
+    private final long[] latencies = new long[Constants.WATCHDOG_LATENCY_SAMPLES];
+    private int latencyCount = 0;
+    private int latencyIndex = 0;
+    private long probeCount = 0;
+    private long failureCount = 0;
+    private int consecutiveFailures = 0;
+    /**
+     * 连续重启次数（服务稳定运行一段时间后清零）及上次重启时间
+     */
+    private int restartAttempts = 0;
+    private long restartCount = 0;
+    private long lastRestartAt = 0;
+    private final Deque<String> history = new ArrayDeque<>();
+
+    private static class SingletonHolder {
+        private static final EngineWatchdog INSTANCE = new EngineWatchdog();
+    }
+
+    private EngineWatchdog() {
+    }
+
+    public static EngineWatchdog getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 开始定时探测
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        consecutiveFailures = 0;
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::probe, Constants.WATCHDOG_PROBE_INTERVAL, Constants.WATCHDOG_PROBE_INTERVAL, TimeUnit.MILLISECONDS);
+        addHistory("看门狗已启动");
+    }
+
+    /**
+     * 停止探测（服务主动关闭前调用，避免关闭过程被判定为故障）
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        addHistory("看门狗已停止");
+    }
+
+    private void probe() {
+        long begin = SystemClock.elapsedRealtime();
+        String error = null;
+        try {
+            //看门狗运行期间服务应处于运行状态，监听意外退出同样视为故障
+            if (!alistServer.hasRunning()) {
+                throw new IllegalStateException("服务监听已退出");
+            }
+            int code = ping();
+            if (code != HttpURLConnection.HTTP_OK) {
+                error = "HTTP " + code;
+            }
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        long latency = SystemClock.elapsedRealtime() - begin;
+        synchronized (this) {
+            probeCount++;
+            if (error == null) {
+                recordLatency(latency);
+                consecutiveFailures = 0;
+                //重启后稳定运行一段时间，重置退避
+                if (restartAttempts > 0 && SystemClock.elapsedRealtime() - lastRestartAt > Constants.WATCHDOG_STABLE_PERIOD) {
+                    restartAttempts = 0;
+                }
+                return;
+            }
+            failureCount++;
+            consecutiveFailures++;
+            addHistory(String.format(Locale.CHINA, "探测失败（连续 %d 次，%dms）：%s", consecutiveFailures, latency, error));
+            if (consecutiveFailures < Constants.WATCHDOG_FAILURE_THRESHOLD) {
+                return;
+            }
+            long backoff = getRestartBackoff();
+            if (lastRestartAt != 0 && SystemClock.elapsedRealtime() - lastRestartAt < backoff) {
+                return;
+            }
+            restartAttempts++;
+            restartCount++;
+            lastRestartAt = SystemClock.elapsedRealtime();
+            addHistory(String.format(Locale.CHINA, "服务无响应，执行第 %d 次重启（下次重启至少间隔 %ds）", restartAttempts, getRestartBackoff() / 1000));
+        }
+        restart();
+    }
+
+    /**
+     * 受控重启：停止索引监听，快速关闭后重新启动
+     */
+    private void restart() {
+        try {
+            LocalIndexWatcher.getInstance().stop();
+            alistServer.shutdown(Constants.WATCHDOG_SHUTDOWN_TIMEOUT);
+            //重启无需等待 delayed_start
+            alistServer.startup(false);
+            addHistory("重启完成");
+        } catch (Exception e) {
+            Log.e(TAG, "restart: ", e);
+            addHistory("重启失败：" + e.getMessage());
+        } finally {
+            synchronized (this) {
+                consecutiveFailures = 0;
+            }
+        }
+    }
+
+    /**
+     * 当前重启退避时间：基础间隔 * 2^(连续重启次数-1)，不超过上限
+     */
+    private long getRestartBackoff() {
+        int exponent = Math.max(0, Math.min(restartAttempts - 1, 16));
+        return Math.min(Constants.WATCHDOG_RESTART_BACKOFF_BASE << exponent, Constants.WATCHDOG_RESTART_BACKOFF_MAX);
+    }
+
+    /**
+     * 请求本机 /ping，优先使用 HTTP 端口，未开启时使用 HTTPS 端口
+     */
+    private int ping() throws Exception {
+        String httpPort = alistServer.getConfigValue("scheme.http_port");
+        boolean isHttps = "-1".equals(httpPort);
+        String port = isHttps ? alistServer.getConfigValue("scheme.https_port") : httpPort;
+        if ("-1".equals(port)) {
+            throw new IllegalStateException("未开启 HTTP/HTTPS 端口，无法探测");
+        }
+        URL url = new URL(String.format("%s://127.0.0.1:%s%s/ping", isHttps ? "https" : "http", port, getBasePath()));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        //本机回环探测，证书签发给对外域名，不校验证书
+        MyHttpUtil.trustLoopback(connection);
+        connection.setConnectTimeout(Constants.WATCHDOG_PROBE_TIMEOUT);
+        connection.setReadTimeout(Constants.WATCHDOG_PROBE_TIMEOUT);
+        connection.setUseCaches(false);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * site_url 中的路径前缀（路由注册在该前缀下）
+     */
+    private String getBasePath() {
+        try {
+            return MyHttpUtil.getSiteBasePath(alistServer.getConfigValue("site_url"));
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private void recordLatency(long latency) {
+        latencies[latencyIndex] = latency;
+        latencyIndex = (latencyIndex + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+    }
+
+    private synchronized void addHistory(String event) {
+        String record = String.format("[%s] %s", DateUtil.format(new Date(), "yyyy-MM-dd HH:mm:ss"), event);
+        Log.i(TAG, record);
+        history.addLast(record);
+        while (history.size() > Constants.WATCHDOG_HISTORY_SIZE) {
+            history.removeFirst();
+        }
+    }
+
+    /**
+     * 获取探测统计与重启历史
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.CHINA, "探测次数：%d（失败 %d，当前连续失败 %d）\n", probeCount, failureCount, consecutiveFailures));
+        if (latencyCount > 0) {
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            report.append(String.format(Locale.CHINA, "探测耗时（最近 %d 次）：P50 %dms，P95 %dms，P99 %dms，最大 %dms\n",
+                    latencyCount, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), sorted[sorted.length - 1]));
+        }
+        report.append(String.format(Locale.CHINA, "自动重启次数：%d\n\n", restartCount));
+        report.append("历史记录：\n");
+        if (history.isEmpty()) {
+            report.append("暂无\n");
+        }
+        for (String record : history) {
+            report.append(record).append("\n");
+        }
+        return report.toString();
+    }
+
+    private long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,200 @@
+package com.leohao.android.alistlite.service;
+
+import android.os.FileObserver;
+import android.util.Log;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地存储变更监听
+ * 通过 inotify（FileObserver）递归监听已挂载的本地存储目录，将变更目录合并后推送给引擎增量更新搜索索引，
+ * 避免引擎周期性全量遍历
+ *
+ * @author LeoHao
+ */
+public class LocalIndexWatcher {
+    private static final String TAG = "LocalIndexWatcher";
+    private static final int WATCH_MASK = FileObserver.CREATE | FileObserver.DELETE | FileObserver.MOVED_FROM | FileObserver.MOVED_TO | FileObserver.CLOSE_WRITE | FileObserver.DELETE_SELF | FileObserver.MOVE_SELF;
+    /**
+     * 目录路径 -> 监听器
+     */
+    private final Map<String, DirectoryObserver> observers = new ConcurrentHashMap<>();
+    /**
+     * 待推送给引擎的变更目录（合并短时间内的重复事件）
+     */
+    private final Set<String> pendingDirs = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private ScheduledExecutorService scheduler = null;
+
+    private static class SingletonHolder {
+        private static final LocalIndexWatcher INSTANCE = new LocalIndexWatcher();
+    }
+
+    private LocalIndexWatcher() {
+    }
+
+    public static LocalIndexWatcher getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 开始监听引擎中所有本地存储的根目录
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        //定时将合并后的变更推送给引擎
+        scheduler.scheduleWithFixedDelay(this::flushPendingDirs, Constants.INDEX_WATCH_FLUSH_INTERVAL, Constants.INDEX_WATCH_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        //目录树较大时遍历耗时，放到后台执行
+        scheduler.execute(() -> {
+            String roots = Alist.getInstance().getEngine().getLocalStorageRoots();
+            for (String root : roots.split("\n")) {
+                if (!root.isEmpty()) {
+                    watchRecursively(root);
+                }
+            }
+            Log.i(TAG, String.format("已监听 %d 个本地目录", observers.size()));
+        });
+    }
+
+    /**
+     * 停止所有监听
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        for (DirectoryObserver observer : observers.values()) {
+            observer.stopWatching();
+        }
+        observers.clear();
+        pendingDirs.clear();
+    }
+
+    /**
+     * 递归监听目录（广度优先，受 inotify 监听数量上限约束）
+     */
+    private void watchRecursively(String rootPath) {
+        Deque<File> queue = new ArrayDeque<>();
+        queue.add(new File(rootPath));
+        while (!queue.isEmpty()) {
+            File dir = queue.poll();
+            if (observers.size() >= Constants.INDEX_WATCH_MAX_DIRS) {
+                Log.w(TAG, "监听目录数量已达上限，其余目录由引擎按需更新索引: " + dir.getAbsolutePath());
+                return;
+            }
+            String path = dir.getAbsolutePath();
+            if (observers.containsKey(path)) {
+                continue;
+            }
+            DirectoryObserver observer = new DirectoryObserver(path);
+            observers.put(path, observer);
+            observer.startWatching();
+            File[] children = dir.listFiles(File::isDirectory);
+            if (children == null) {
+                continue;
+            }
+            for (File child : children) {
+                //跳过隐藏目录与系统受保护目录
+                if (!child.getName().startsWith(".") && !isProtectedPath(child.getAbsolutePath())) {
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止监听目录及其所有子目录
+     */
+    private void unwatchRecursively(String path) {
+        String prefix = path + File.separator;
+        Iterator<Map.Entry<String, DirectoryObserver>> iterator = observers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, DirectoryObserver> entry = iterator.next();
+            if (entry.getKey().equals(path) || entry.getKey().startsWith(prefix)) {
+                entry.getValue().stopWatching();
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isProtectedPath(String path) {
+        return path.endsWith("/Android/data") || path.endsWith("/Android/obb");
+    }
+
+    private void flushPendingDirs() {
+        if (pendingDirs.isEmpty()) {
+            return;
+        }
+        List<String> dirs = new ArrayList<>(pendingDirs);
+        pendingDirs.removeAll(dirs);
+        for (String dir : dirs) {
+            try {
+                Alist.getInstance().getEngine().updateLocalIndex(dir);
+            } catch (Exception e) {
+                Log.w(TAG, "更新索引失败 " + dir + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个目录的监听器
+     */
+    private class DirectoryObserver extends FileObserver {
+        private final String path;
+
+        @SuppressWarnings("deprecation")
+        DirectoryObserver(String path) {
+            super(path, WATCH_MASK);
+            this.path = path;
+        }
+
+        @Override
+        public void onEvent(int event, String name) {
+            event &= FileObserver.ALL_EVENTS;
+            if ((event & (FileObserver.DELETE_SELF | FileObserver.MOVE_SELF)) != 0) {
+                //目录自身被删除或移动，由父目录的事件负责更新索引
+                unwatchRecursively(path);
+                return;
+            }
+            if (name == null) {
+                return;
+            }
+            pendingDirs.add(path);
+            String childPath = path + File.separator + name;
+            if ((event & (FileObserver.CREATE | FileObserver.MOVED_TO)) != 0) {
+                File child = new File(childPath);
+                if (child.isDirectory() && !name.startsWith(".")) {
+                    ScheduledExecutorService executor = scheduler;
+                    try {
+                        if (executor != null) {
+                            executor.execute(() -> watchRecursively(childPath));
+                        }
+                    } catch (RejectedExecutionException ignored) {
+                        //监听已停止
+                    }
+                }
+            } else if ((event & FileObserver.MOVED_FROM) != 0) {
+                unwatchRecursively(childPath);
+            }
+        }
+    }
+}
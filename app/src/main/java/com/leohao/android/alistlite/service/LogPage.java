@@ -0,0 +1,56 @@
+package com.leohao.android.alistlite.service;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import com.leohao.android.alistlite.model.LogStore;
+
+/**
+ * 跨进程传输的日志分页（见 {@link LogStore#read(LogStore.Query, long, int)}）
+ *
+ * @author LeoHao
+ */
+public class LogPage implements Parcelable {
+    public final String text;
+    public final int count;
+    public final long cursor;
+    public final boolean hasMore;
+
+    public LogPage(LogStore.Page page) {
+        this.text = page.text;
+        this.count = page.count;
+        this.cursor = page.cursor;
+        this.hasMore = page.hasMore;
+    }
+
+    private LogPage(Parcel in) {
+        text = in.readString();
+        count = in.readInt();
+        cursor = in.readLong();
+        hasMore = in.readInt() != 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(text);
+        dest.writeInt(count);
+        dest.writeLong(cursor);
+        dest.writeInt(hasMore ? 1 : 0);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<LogPage> CREATOR = new Creator<LogPage>() {
+        @Override
+        public LogPage createFromParcel(Parcel in) {
+            return new LogPage(in);
+        }
+
+        @Override
+        public LogPage[] newArray(int size) {
+            return new LogPage[size];
+        }
+    };
+}
@@ -0,0 +1,189 @@
+package com.leohao.android.alistlite.service;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.model.LogStore;
+import com.leohao.android.alistlite.util.Constants;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 内存调控
+ * 按设备内存为引擎堆设置软上限，系统内存紧张（onTrimMemory）时回收引擎空闲内存、收缩内存日志，
+ * 压力较大时临时收紧上限，一段时间内不再收到内存警告后恢复，降低整个服务被低内存机制杀死的概率
+ *
+ * @author LeoHao
+ */
+public class MemoryGovernor {
+    private static final String TAG = "MemoryGovernor";
+    private static final long MB = 1024 * 1024;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * 回收内存需要完整 GC，放到后台线程执行
+     */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    /**
+     * 正常情况下的引擎堆上限
+     */
+    private long baseLimit = 0;
+    private long currentLimit = 0;
+    private boolean isShrunk = false;
+    private int trimCount = 0;
+    private int lastTrimLevel = 0;
+    private long lastFreeTime = 0;
+    private final Runnable restoreTask = this::restore;
+
+    private static class SingletonHolder {
+        private static final MemoryGovernor INSTANCE = new MemoryGovernor();
+    }
+
+    private MemoryGovernor() {
+    }
+
+    public static MemoryGovernor getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 设置引擎堆上限（引擎启动后调用）
+     */
+    public synchronized void start() {
+        baseLimit = computeLimit();
+        applyLimit(baseLimit);
+        Log.i(TAG, String.format(Locale.CHINA, "引擎堆上限：%s", FileUtil.readableFileSize(baseLimit)));
+    }
+
+    /**
+     * 引擎关闭后恢复内存日志容量并取消恢复任务
+     */
+    public synchronized void stop() {
+        handler.removeCallbacks(restoreTask);
+        if (isShrunk) {
+            LogStore.getInstance().setMaxChars(LogStore.DEFAULT_MAX_CHARS);
+            isShrunk = false;
+        }
+    }
+
+    /**
+     * 上限取应用内存等级的若干倍（不低于最小值），且不超过设备总内存的一定比例
+     */
+    private long computeLimit() {
+        ActivityManager activityManager = (ActivityManager) applicationContext.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        long limit = Math.max(activityManager.getMemoryClass() * MB * Constants.MEMORY_LIMIT_CLASS_FACTOR, Constants.MEMORY_LIMIT_MIN);
+        return Math.min(limit, (long) (memoryInfo.totalMem * Constants.MEMORY_LIMIT_TOTAL_RATIO));
+    }
+
+    private void applyLimit(long limit) {
+        currentLimit = limit;
+        try {
+            Alist.getInstance().getEngine().setMemoryLimit(limit);
+        } catch (Exception e) {
+            Log.w(TAG, "设置引擎堆上限失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 系统内存警告（主线程调用）
+     */
+    public synchronized void onTrimMemory(int level) {
+        //引擎所在进程没有界面，UI_HIDDEN 不代表内存紧张
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return;
+        }
+        trimCount++;
+        lastTrimLevel = level;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            //收缩内存日志（较早的日志仍保留在磁盘日志中）
+            if (!isShrunk) {
+                LogStore.getInstance().setMaxChars(Constants.LOG_MAX_CHARS_LOW_MEMORY);
+                isShrunk = true;
+            }
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL && baseLimit > 0 && currentLimit == baseLimit) {
+            //临时收紧上限，让引擎更积极地回收
+            applyLimit(Math.max(baseLimit / 2, Constants.MEMORY_LIMIT_MIN));
+        }
+        freeOSMemory();
+        Log.w(TAG, String.format(Locale.CHINA, "系统内存紧张（级别 %d），已回收引擎空闲内存", level));
+        //持续一段时间没有新的内存警告后恢复
+        handler.removeCallbacks(restoreTask);
+        handler.postDelayed(restoreTask, Constants.MEMORY_RESTORE_DELAY);
+    }
+
+    /**
+     * 回收引擎空闲内存（限制频率，避免连续警告时反复 GC）
+     */
+    private void freeOSMemory() {
+        long now = SystemClock.elapsedRealtime();
+        if (lastFreeTime != 0 && now - lastFreeTime < Constants.MEMORY_FREE_MIN_INTERVAL) {
+            return;
+        }
+        lastFreeTime = now;
+        worker.execute(() -> {
+            long begin = SystemClock.elapsedRealtime();
+            try {
+                Alist.getInstance().getEngine().freeOSMemory();
+                Log.i(TAG, String.format(Locale.CHINA, "引擎内存回收耗时 %dms", SystemClock.elapsedRealtime() - begin));
+            } catch (Exception e) {
+                Log.w(TAG, "引擎内存回收失败: " + e.getMessage());
+            }
+        });
+    }
+
+    private synchronized void restore() {
+        if (baseLimit > 0 && currentLimit != baseLimit) {
+            applyLimit(baseLimit);
+        }
+        if (isShrunk) {
+            LogStore.getInstance().setMaxChars(LogStore.DEFAULT_MAX_CHARS);
+            isShrunk = false;
+        }
+        Log.i(TAG, "内存警告已解除，恢复引擎堆上限与日志容量");
+    }
+
+    /**
+     * 内存使用报告：引擎堆、应用 Java 堆、内存日志与系统可用内存
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("【内存】\n");
+        try {
+            JSONObject stats = JSONUtil.parseObj(Alist.getInstance().getEngine().getMemoryStats());
+            long limit = stats.getLong("memory_limit", 0L);
+            report.append(String.format(Locale.CHINA, "引擎堆：%s / 上限 %s（GC %d 次）\n",
+                    FileUtil.readableFileSize(stats.getLong("heap_inuse", 0L)),
+                    limit > 0 ? FileUtil.readableFileSize(limit) : "无", stats.getLong("num_gc", 0L)));
+            report.append(String.format(Locale.CHINA, "引擎占用：%s（已归还 %s）\n",
+                    FileUtil.readableFileSize(stats.getLong("sys", 0L)), FileUtil.readableFileSize(stats.getLong("heap_released", 0L))));
+        } catch (Exception e) {
+            report.append("引擎堆：未知\n");
+        }
+        Runtime runtime = Runtime.getRuntime();
+        report.append(String.format(Locale.CHINA, "Java 堆：%s / %s\n",
+                FileUtil.readableFileSize(runtime.totalMemory() - runtime.freeMemory()), FileUtil.readableFileSize(runtime.maxMemory())));
+        LogStore logStore = LogStore.getInstance();
+        report.append(String.format(Locale.CHINA, "内存日志：%d / %d 字符%s\n", logStore.getTotalChars(), logStore.getMaxChars(), isShrunk ? "（已收缩）" : ""));
+        ActivityManager activityManager = (ActivityManager) applicationContext.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        report.append(String.format(Locale.CHINA, "系统可用：%s / %s%s\n", FileUtil.readableFileSize(memoryInfo.availMem),
+                FileUtil.readableFileSize(memoryInfo.totalMem), memoryInfo.lowMemory ? "（内存不足）" : ""));
+        report.append(String.format(Locale.CHINA, "内存警告：%d 次%s\n", trimCount, trimCount > 0 ? String.format(Locale.CHINA, "（最近级别 %d）", lastTrimLevel) : ""));
+        return report.toString();
+    }
+}
@@ -0,0 +1,271 @@
+package com.leohao.android.alistlite.service;
+
+import android.util.Log;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行指标监控
+ * 定时从引擎读取累计指标快照并保存最近几分钟的历史，根据快照差值计算吞吐速率与各路由耗时分位数
+ *
+ * @author LeoHao
+ */
+public class MetricsMonitor {
+    private static final String TAG = "MetricsMonitor";
+    private ScheduledExecutorService scheduler = null;
+    /**
+     * 最近的指标快照（环形缓冲，最旧的在前）
+     */
+    private final Deque<JSONObject> snapshots = new ArrayDeque<>();
+    private Listener listener = null;
+
+    /**
+     * 指标更新监听
+     */
+    public interface Listener {
+        /**
+         * @param summary 简要指标（用于通知栏）
+         */
+        void onMetricsUpdated(String summary);
+    }
+
+    private static class SingletonHolder {
+        private static final MetricsMonitor INSTANCE = new MetricsMonitor();
+    }
+
+    private MetricsMonitor() {
+    }
+
+    public static MetricsMonitor getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 开始定时采集
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::poll, 0, Constants.METRICS_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止采集并清空历史
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        snapshots.clear();
+    }
+
+    private void poll() {
+        Listener currentListener;
+        String summary;
+        try {
+            JSONObject snapshot = JSONUtil.parseObj(Alist.getInstance().getEngine().getMetricsSnapshot());
+            synchronized (this) {
+                //引擎重启后计数器归零，丢弃之前的历史
+                JSONObject latest = snapshots.peekLast();
+                if (latest != null && snapshot.getLong("requests", 0L) < latest.getLong("requests", 0L)) {
+                    snapshots.clear();
+                }
+                snapshots.addLast(snapshot);
+                while (snapshots.size() > Constants.METRICS_HISTORY_SIZE) {
+                    snapshots.removeFirst();
+                }
+                currentListener = listener;
+                summary = getSummary();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "读取运行指标失败: " + e.getMessage());
+            return;
+        }
+        if (currentListener != null) {
+            currentListener.onMetricsUpdated(summary);
+        }
+    }
+
+    /**
+     * 简要指标：最近一次采集间隔内的速率与当前连接数
+     */
+    public synchronized String getSummary() {
+        if (snapshots.size() < 2) {
+            return "";
+        }
+        JSONObject latest = snapshots.peekLast();
+        JSONObject previous = getPrevious();
+        double seconds = elapsedSeconds(previous, latest);
+        long out = rate(previous, latest, "bytes_out", seconds);
+        long in = rate(previous, latest, "bytes_in", seconds);
+        if (out == 0 && in == 0 && latest.getLong("active_conns", 0L) == 0) {
+            return "";
+        }
+        return String.format(Locale.CHINA, "↓%s/s ↑%s/s · %d 连接",
+                FileUtil.readableFileSize(out), FileUtil.readableFileSize(in), latest.getLong("active_conns", 0L));
+    }
+
+    /**
+     * 完整指标报告：当前速率、窗口内各路由耗时分位数与各存储传输速率
+     */
+    public synchronized String getReport() {
+        if (snapshots.size() < 2) {
+            return "正在采集数据，请稍候…";
+        }
+        JSONObject oldest = snapshots.peekFirst();
+        JSONObject latest = snapshots.peekLast();
+        JSONObject previous = getPrevious();
+        double currentSeconds = elapsedSeconds(previous, latest);
+        double windowSeconds = elapsedSeconds(oldest, latest);
+        StringBuilder report = new StringBuilder();
+        report.append("【当前】\n");
+        report.append(String.format(Locale.CHINA, "请求：%.1f/s  错误：%.1f/s\n",
+                delta(previous, latest, "requests") / currentSeconds, delta(previous, latest, "errors") / currentSeconds));
+        report.append(String.format(Locale.CHINA, "发送：%s/s  接收：%s/s\n",
+                FileUtil.readableFileSize(rate(previous, latest, "bytes_out", currentSeconds)),
+                FileUtil.readableFileSize(rate(previous, latest, "bytes_in", currentSeconds))));
+        report.append(String.format(Locale.CHINA, "连接：%d  进行中请求：%d  传输：%d\n\n",
+                latest.getLong("active_conns", 0L), latest.getLong("active_requests", 0L), latest.getLong("active_transfers", 0L)));
+
+        report.append(String.format(Locale.CHINA, "【最近 %d 秒】\n", Math.round(windowSeconds)));
+        report.append(String.format(Locale.CHINA, "请求：%d（%.1f/s）  错误：%d\n",
+                delta(oldest, latest, "requests"), delta(oldest, latest, "requests") / windowSeconds, delta(oldest, latest, "errors")));
+        report.append(String.format(Locale.CHINA, "发送：%s/s  接收：%s/s\n\n",
+                FileUtil.readableFileSize(rate(oldest, latest, "bytes_out", windowSeconds)),
+                FileUtil.readableFileSize(rate(oldest, latest, "bytes_in", windowSeconds))));
+
+        report.append("【路由耗时 P50/P95/P99】\n");
+        JSONArray bounds = latest.getJSONArray("latency_bounds");
+        Map<String, JSONObject> oldRoutes = indexBy(oldest.getJSONArray("routes"), "route");
+        List<long[]> routeBuckets = new ArrayList<>();
+        List<String> routeNames = new ArrayList<>();
+        JSONArray routes = latest.getJSONArray("routes");
+        if (routes != null) {
+            for (int i = 0; i < routes.size(); i++) {
+                JSONObject route = routes.getJSONObject(i);
+                String name = route.getStr("route");
+                long[] buckets = bucketDelta(route, oldRoutes.get(name));
+                if (sum(buckets) > 0) {
+                    routeNames.add(name);
+                    routeBuckets.add(buckets);
+                }
+            }
+        }
+        if (routeNames.isEmpty()) {
+            report.append("暂无请求\n");
+        }
+        for (int i = 0; i < routeNames.size(); i++) {
+            long[] buckets = routeBuckets.get(i);
+            report.append(String.format(Locale.CHINA, "%s ×%d\n  %s / %s / %s\n", routeNames.get(i), sum(buckets),
+                    percentile(buckets, bounds, 0.50), percentile(buckets, bounds, 0.95), percentile(buckets, bounds, 0.99)));
+        }
+
+        report.append("\n【存储传输（发送/接收）】\n");
+        JSONArray storages = latest.getJSONArray("storages");
+        Map<String, JSONObject> previousStorages = indexBy(previous.getJSONArray("storages"), "mount_path");
+        Map<String, JSONObject> oldStorages = indexBy(oldest.getJSONArray("storages"), "mount_path");
+        if (storages == null || storages.isEmpty()) {
+            report.append("暂无传输\n");
+        } else {
+            for (int i = 0; i < storages.size(); i++) {
+                JSONObject storage = storages.getJSONObject(i);
+                String mountPath = storage.getStr("mount_path");
+                report.append(String.format(Locale.CHINA, "%s\n  当前 %s/s / %s/s，平均 %s/s / %s/s\n", mountPath,
+                        FileUtil.readableFileSize(rate(previousStorages.get(mountPath), storage, "bytes_out", currentSeconds)),
+                        FileUtil.readableFileSize(rate(previousStorages.get(mountPath), storage, "bytes_in", currentSeconds)),
+                        FileUtil.readableFileSize(rate(oldStorages.get(mountPath), storage, "bytes_out", windowSeconds)),
+                        FileUtil.readableFileSize(rate(oldStorages.get(mountPath), storage, "bytes_in", windowSeconds))));
+            }
+        }
+        return report.toString();
+    }
+
+    private JSONObject getPrevious() {
+        //倒数第二个快照
+        JSONObject latest = snapshots.pollLast();
+        JSONObject previous = snapshots.peekLast();
+        snapshots.addLast(latest);
+        return previous;
+    }
+
+    private double elapsedSeconds(JSONObject from, JSONObject to) {
+        return Math.max(0.001, (to.getLong("time", 0L) - from.getLong("time", 0L)) / 1000.0);
+    }
+
+    private long delta(JSONObject from, JSONObject to, String key) {
+        long base = from == null ? 0 : from.getLong(key, 0L);
+        return Math.max(0, to.getLong(key, 0L) - base);
+    }
+
+    private long rate(JSONObject from, JSONObject to, String key, double seconds) {
+        return Math.round(delta(from, to, key) / seconds);
+    }
+
+    private Map<String, JSONObject> indexBy(JSONArray array, String key) {
+        Map<String, JSONObject> map = new HashMap<>();
+        if (array != null) {
+            for (int i = 0; i < array.size(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                map.put(item.getStr(key), item);
+            }
+        }
+        return map;
+    }
+
+    private long[] bucketDelta(JSONObject route, JSONObject oldRoute) {
+        JSONArray buckets = route.getJSONArray("buckets");
+        JSONArray oldBuckets = oldRoute == null ? null : oldRoute.getJSONArray("buckets");
+        long[] result = new long[buckets.size()];
+        for (int i = 0; i < result.length; i++) {
+            long base = oldBuckets == null ? 0 : oldBuckets.getLong(i, 0L);
+            result[i] = Math.max(0, buckets.getLong(i, 0L) - base);
+        }
+        return result;
+    }
+
+    private long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * 根据直方图估算分位数，返回所在桶的上界
+     */
+    private String percentile(long[] buckets, JSONArray bounds, double percent) {
+        long target = (long) Math.ceil(sum(buckets) * percent);
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i];
+            if (cumulative >= target) {
+                return i < bounds.size() ? "≤" + bounds.getLong(i) + "ms" : ">" + bounds.getLong(bounds.size() - 1) + "ms";
+            }
+        }
+        return "-";
+    }
+}
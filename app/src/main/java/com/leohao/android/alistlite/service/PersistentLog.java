@@ -0,0 +1,338 @@
+package com.leohao.android.alistlite.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+import cn.hutool.core.date.DateUtil;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.LogEncoder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 持久化日志
+ * 日志追加写入内存映射的分段文件（进程被杀后已写入内容仍保留在页缓存中），按大小/时间滚动，
+ * 关闭的分段在后台压缩为 gzip，并按总大小配额删除最旧的分段
+ *
+ * @author LeoHao
+ */
+public class PersistentLog {
+    private static final String TAG = "PersistentLog";
+    private static final String SEGMENT_PREFIX = "alist-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPRESSED_SUFFIX = ".log.gz";
+    private static final int COPY_BUFFER_SIZE = 8192;
+    /**
+     * 日志目录
+     */
+    private final File logDir = new File(applicationContext.getFilesDir(), Constants.LOG_FOLDER_NAME);
+    /**
+     * 后台线程：定时刷盘、压缩关闭的分段、清理超出配额的分段、导出
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private RandomAccessFile activeFile = null;
+    private File activeSegment = null;
+    private MappedByteBuffer activeBuffer = null;
+    private long activeCreatedAt = 0;
+    private boolean isDirty = false;
+    /**
+     * 复用的日志行编码缓冲
+     */
+    private final LogEncoder encoder = new LogEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] lineChars = new char[256];
+    private CharBuffer lineBuffer = CharBuffer.wrap(lineChars);
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /**
+     * 打开分段失败后停止写入，避免每条日志重复报错
+     */
+    private boolean isBroken = false;
+
+    private static class SingletonHolder {
+        private static final PersistentLog INSTANCE = new PersistentLog();
+    }
+
+    private PersistentLog() {
+        if (!logDir.exists() && !logDir.mkdirs()) {
+            Log.e(TAG, "无法创建日志目录: " + logDir.getAbsolutePath());
+        }
+        //上次进程退出时未关闭的分段：截掉映射区未写入的尾部后压缩
+        executor.execute(this::recoverSegments);
+        executor.scheduleWithFixedDelay(this::flush, Constants.LOG_FLUSH_INTERVAL, Constants.LOG_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public static PersistentLog getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 追加一条日志：编码到复用的字符缓冲后直接以 UTF-8 写入映射区，不产生中间字符串/字节数组
+     */
+    public synchronized void append(String levelName, long time, String message) {
+        if (isBroken) {
+            return;
+        }
+        line.setLength(0);
+        encoder.encode(line, levelName, time, message);
+        int length = line.length();
+        if (lineChars.length < length) {
+            lineChars = new char[Math.max(length, lineChars.length * 2)];
+            lineBuffer = CharBuffer.wrap(lineChars);
+        }
+        line.getChars(0, length, lineChars, 0);
+        try {
+            if (activeBuffer != null && SystemClock.elapsedRealtime() - activeCreatedAt > Constants.LOG_SEGMENT_MAX_AGE) {
+                closeSegment();
+            }
+            if (activeBuffer == null) {
+                openSegment();
+            }
+            if (!write(length)) {
+                //当前分段剩余空间不足，滚动后重写（超过分段大小的单行日志截断）
+                closeSegment();
+                openSegment();
+                write(length);
+            }
+            isDirty = true;
+        } catch (IOException e) {
+            isBroken = true;
+            Log.e(TAG, "写入持久化日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将 lineChars 中的一行编码写入当前分段，空间不足时回退写入位置并返回 false
+     */
+    private boolean write(int length) {
+        int mark = activeBuffer.position();
+        lineBuffer.clear().limit(length);
+        utf8.reset();
+        CoderResult result = utf8.encode(lineBuffer, activeBuffer, true);
+        if (!result.isOverflow()) {
+            result = utf8.flush(activeBuffer);
+        }
+        if (result.isOverflow() && mark > 0) {
+            activeBuffer.position(mark);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 将所有日志分段写入 zip（逐块复制，不把日志整体读入内存；阻塞，需在后台线程调用）
+     */
+    public void exportZip(OutputStream outputStream) throws Exception {
+        //与压缩/清理任务在同一线程执行，避免导出过程中分段被压缩或删除
+        executor.submit(() -> {
+            File segment;
+            long activeLength;
+            synchronized (this) {
+                segment = activeSegment;
+                activeLength = activeBuffer == null ? 0 : activeBuffer.position();
+            }
+            try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+                for (File file : listSegments()) {
+                    //当前分段只导出已写入部分
+                    long limit = file.equals(segment) ? activeLength : file.length();
+                    zip.putNextEntry(new ZipEntry(file.getName()));
+                    try (InputStream input = new FileInputStream(file)) {
+                        copy(input, zip, limit);
+                    }
+                    zip.closeEntry();
+                }
+            }
+            return null;
+        }).get();
+    }
+
+    /**
+     * 日志占用的磁盘空间
+     */
+    public long getTotalSize() {
+        long total = 0;
+        for (File file : listSegments()) {
+            total += file.length();
+        }
+        return total;
+    }
+
+    private void openSegment() throws IOException {
+        activeSegment = new File(logDir, SEGMENT_PREFIX + DateUtil.format(new Date(), "yyyyMMdd-HHmmss-SSS") + SEGMENT_SUFFIX);
+        activeFile = new RandomAccessFile(activeSegment, "rw");
+        activeBuffer = activeFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Constants.LOG_SEGMENT_SIZE);
+        activeCreatedAt = SystemClock.elapsedRealtime();
+    }
+
+    private void closeSegment() throws IOException {
+        File segment = activeSegment;
+        activeBuffer.force();
+        //截掉映射区未写入的部分
+        activeFile.setLength(activeBuffer.position());
+        activeFile.close();
+        activeFile = null;
+        activeBuffer = null;
+        activeSegment = null;
+        isDirty = false;
+        executor.execute(() -> {
+            compress(segment);
+            enforceQuota();
+        });
+    }
+
+    /**
+     * 批量刷盘：定时将映射区的修改写回文件
+     */
+    private synchronized void flush() {
+        if (activeBuffer != null && isDirty) {
+            activeBuffer.force();
+            isDirty = false;
+        }
+    }
+
+    private void recoverSegments() {
+        File[] files = logDir.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            synchronized (this) {
+                if (file.equals(activeSegment)) {
+                    continue;
+                }
+            }
+            try {
+                trimTrailingZeros(file);
+                compress(file);
+            } catch (IOException e) {
+                Log.w(TAG, "恢复日志分段失败: " + file.getName() + ", " + e.getMessage());
+            }
+        }
+        enforceQuota();
+    }
+
+    /**
+     * 从尾部向前查找最后一个非零字节，截掉映射区预分配但未写入的部分
+     */
+    private void trimTrailingZeros(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long end = raf.length();
+            while (end > 0) {
+                int size = (int) Math.min(buffer.length, end);
+                raf.seek(end - size);
+                raf.readFully(buffer, 0, size);
+                int i = size - 1;
+                while (i >= 0 && buffer[i] == 0) {
+                    i--;
+                }
+                if (i >= 0) {
+                    end = end - size + i + 1;
+                    break;
+                }
+                end -= size;
+            }
+            raf.setLength(end);
+        }
+    }
+
+    private void compress(File segment) {
+        if (!segment.exists()) {
+            return;
+        }
+        if (segment.length() == 0) {
+            segment.delete();
+            return;
+        }
+        String name = segment.getName();
+        File target = new File(logDir, name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + COMPRESSED_SUFFIX);
+        File temp = new File(logDir, target.getName() + ".tmp");
+        try (InputStream input = new FileInputStream(segment);
+             OutputStream output = new GZIPOutputStream(new FileOutputStream(temp))) {
+            copy(input, output, Long.MAX_VALUE);
+        } catch (IOException e) {
+            Log.w(TAG, "压缩日志分段失败: " + name + ", " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(target)) {
+            segment.delete();
+        } else {
+            temp.delete();
+        }
+    }
+
+    /**
+     * 总大小超出配额时从最旧的分段开始删除（不删除当前分段）
+     */
+    private void enforceQuota() {
+        File[] files = listSegments();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        File segment;
+        synchronized (this) {
+            segment = activeSegment;
+        }
+        for (File file : files) {
+            if (total <= Constants.LOG_TOTAL_QUOTA) {
+                break;
+            }
+            if (file.equals(segment)) {
+                continue;
+            }
+            long size = file.length();
+            if (file.delete()) {
+                total -= size;
+                Log.i(TAG, "日志超出配额，已删除: " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * 所有分段（文件名包含创建时间，按名称排序即按时间排序，最旧的在前）
+     */
+    private File[] listSegments() {
+        File[] files = logDir.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                && (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPRESSED_SUFFIX)));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void copy(InputStream input, OutputStream output, long limit) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = limit;
+        int read;
+        while (remaining > 0 && (read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+}
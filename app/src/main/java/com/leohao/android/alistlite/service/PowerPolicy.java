@@ -0,0 +1,152 @@
+package com.leohao.android.alistlite.service;
+
+import android.content.Context;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.util.Log;
+import com.leohao.android.alistlite.util.SettingsStore;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 电源策略
+ * 仅在引擎有进行中的请求/传输（或正在启动）时持有 CPU 唤醒锁与高性能 WiFi 锁，
+ * 空闲超过设定时间后释放，兼顾息屏传输速度与待机耗电
+ *
+ * @author LeoHao
+ */
+public class PowerPolicy {
+    private static final String TAG = "PowerPolicy";
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private PowerManager.WakeLock wakeLock = null;
+    private WifiManager.WifiLock wifiLock = null;
+    /**
+     * 策略是否生效（服务运行期间）
+     */
+    private boolean isEnabled = false;
+    /**
+     * 引擎是否有进行中的请求
+     */
+    private boolean isBusy = false;
+    /**
+     * 引擎是否正在启动（加载存储）
+     */
+    private boolean isStarting = false;
+    private final Runnable releaseTask = this::releaseLocks;
+
+    private static class SingletonHolder {
+        private static final PowerPolicy INSTANCE = new PowerPolicy();
+    }
+
+    private PowerPolicy() {
+    }
+
+    public static PowerPolicy getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 服务启动时开启策略
+     */
+    public void enable() {
+        handler.post(() -> {
+            isEnabled = true;
+            update();
+        });
+    }
+
+    /**
+     * 服务关闭后停用策略并立即释放所有锁
+     */
+    public void disable() {
+        handler.post(() -> {
+            isEnabled = false;
+            isBusy = false;
+            isStarting = false;
+            handler.removeCallbacks(releaseTask);
+            releaseLocks();
+        });
+    }
+
+    /**
+     * 引擎请求活动状态变化（由引擎回调，可能来自任意线程）
+     */
+    public void onActivityChanged(boolean busy) {
+        handler.post(() -> {
+            isBusy = busy;
+            update();
+        });
+    }
+
+    /**
+     * 引擎启动状态变化（启动期间保持唤醒，避免存储加载被休眠打断）
+     */
+    public void setStarting(boolean starting) {
+        handler.post(() -> {
+            isStarting = starting;
+            update();
+        });
+    }
+
+    /**
+     * 获取空闲释放等待时间（毫秒）
+     */
+    public static long getIdleReleaseDelay() {
+        return SettingsStore.getInstance().get(SettingsStore.POWER_IDLE_RELEASE_DELAY);
+    }
+
+    private void update() {
+        if (!isEnabled) {
+            return;
+        }
+        if (isBusy || isStarting) {
+            handler.removeCallbacks(releaseTask);
+            acquireLocks();
+        } else if (isHeld()) {
+            //空闲一段时间后再释放，避免请求间隙频繁获取/释放
+            handler.removeCallbacks(releaseTask);
+            handler.postDelayed(releaseTask, getIdleReleaseDelay());
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void acquireLocks() {
+        if (wakeLock == null) {
+            PowerManager pm = (PowerManager) applicationContext.getSystemService(Context.POWER_SERVICE);
+            wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, AlistService.class.getName());
+            wakeLock.setReferenceCounted(false);
+        }
+        if (wifiLock == null) {
+            WifiManager wm = (WifiManager) applicationContext.getSystemService(Context.WIFI_SERVICE);
+            if (wm != null) {
+                //息屏后阻止 WiFi 进入省电模式，保证局域网传输吞吐
+                wifiLock = wm.createWifiLock(WifiManager.WIFI_MODE_FULL_HIGH_PERF, AlistService.class.getName());
+                wifiLock.setReferenceCounted(false);
+            }
+        }
+        if (!wakeLock.isHeld()) {
+            wakeLock.acquire();
+            if (wifiLock != null) {
+                wifiLock.acquire();
+            }
+            Log.i(TAG, "有进行中的请求，已获取唤醒锁与 WiFi 锁");
+        }
+    }
+
+    private void releaseLocks() {
+        if (!isHeld()) {
+            return;
+        }
+        wakeLock.release();
+        if (wifiLock != null && wifiLock.isHeld()) {
+            wifiLock.release();
+        }
+        Log.i(TAG, "服务空闲，已释放唤醒锁与 WiFi 锁");
+    }
+
+    private boolean isHeld() {
+        return wakeLock != null && wakeLock.isHeld();
+    }
+}
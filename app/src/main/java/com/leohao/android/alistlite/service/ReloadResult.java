@@ -0,0 +1,71 @@
+package com.leohao.android.alistlite.service;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置热加载结果（跨进程传输）：需要重启服务才能生效的配置项，以及重新绑定监听或加载证书的错误
+ *
+ * @author LeoHao
+ */
+public class ReloadResult implements Parcelable {
+    public final List<String> restartRequired;
+    public final List<String> errors;
+
+    public ReloadResult(List<String> restartRequired, List<String> errors) {
+        this.restartRequired = restartRequired;
+        this.errors = errors;
+    }
+
+    /**
+     * 解析引擎返回的 JSON（restart_required 与 errors 均为字符串数组）
+     */
+    public static ReloadResult parse(String json) {
+        JSONObject result = JSONUtil.parseObj(json);
+        return new ReloadResult(toList(result.getJSONArray("restart_required")), toList(result.getJSONArray("errors")));
+    }
+
+    private static List<String> toList(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.size(); i++) {
+                list.add(array.getStr(i));
+            }
+        }
+        return list;
+    }
+
+    private ReloadResult(Parcel in) {
+        restartRequired = in.createStringArrayList();
+        errors = in.createStringArrayList();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeStringList(restartRequired);
+        dest.writeStringList(errors);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<ReloadResult> CREATOR = new Creator<ReloadResult>() {
+        @Override
+        public ReloadResult createFromParcel(Parcel in) {
+            return new ReloadResult(in);
+        }
+
+        @Override
+        public ReloadResult[] newArray(int size) {
+            return new ReloadResult[size];
+        }
+    };
+}
@@ -0,0 +1,291 @@
+package com.leohao.android.alistlite.service;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import androidx.core.app.NotificationCompat;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.leohao.android.alistlite.MainActivity;
+import com.leohao.android.alistlite.R;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.ChunkUploader;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.MyHttpUtil;
+import org.apache.commons.io.IOUtils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 分享上传
+ * 其他应用分享的文件由分享页打开文件描述符后交给引擎进程，在前台服务中按并发上限上传到选定的 AList 目录，不经过 WebView。
+ * 上传走本机回环地址的 HTTP 接口：写完请求头后用 FileChannel.transferTo 把文件直接送入套接字（内核 sendfile，不经过用户态缓冲）；
+ * 大小未知或无法定位读取的内容（管道等）以及 HTTP 端口不可用（未开启，或开启 force_https 时只返回重定向）时改用分块上传。一批文件全部结束后发送汇总通知
+ *
+ * @author LeoHao
+ */
+public class ShareIngestor {
+    private static final String TAG = "ShareIngestor";
+    private static final String CHANNEL_ID = "com.leohao.android.alistlite.share";
+    private static final String CHANNEL_NAME = "分享上传";
+    private static final String LOOPBACK = "127.0.0.1";
+    private final ExecutorService workers = Executors.newFixedThreadPool(Constants.SHARE_INGEST_CONCURRENCY);
+    /**
+     * 当前批次统计（上一批未结束时新分享的文件并入同一批次）
+     */
+    private int totalCount = 0;
+    private int pendingCount = 0;
+    private int succeededCount = 0;
+    private int skippedCount = 0;
+    private long uploadedBytes = 0;
+    private final List<String> failures = new ArrayList<>();
+    private String dirPath = "/";
+
+    private static class SingletonHolder {
+        private static final ShareIngestor INSTANCE = new ShareIngestor();
+    }
+
+    private ShareIngestor() {
+    }
+
+    public static ShareIngestor getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 提交分享的文件（立即返回，文件描述符由上传任务关闭）
+     *
+     * @param names         文件名
+     * @param modifiedTimes 修改时间（毫秒），未知时为 0
+     * @param dirPath       目标 AList 目录
+     */
+    public synchronized void submit(ParcelFileDescriptor[] descriptors, String[] names, long[] modifiedTimes, String dirPath) {
+        this.dirPath = dirPath;
+        for (int i = 0; i < descriptors.length; i++) {
+            ParcelFileDescriptor descriptor = descriptors[i];
+            String fileName = names[i];
+            long lastModified = modifiedTimes[i];
+            totalCount++;
+            pendingCount++;
+            workers.execute(() -> ingest(descriptor, fileName, lastModified, dirPath));
+        }
+        Log.i(TAG, String.format(Locale.CHINA, "收到 %d 个分享文件，目标目录 %s", descriptors.length, dirPath));
+        notifyProgress();
+    }
+
+    private void ingest(ParcelFileDescriptor descriptor, String fileName, long lastModified, String dirPath) {
+        long size = 0;
+        Exception error = null;
+        try (ParcelFileDescriptor fd = descriptor) {
+            size = upload(fd, fileName, lastModified, dirPath);
+        } catch (Exception e) {
+            error = e;
+            Log.w(TAG, String.format("上传 %s 失败: %s", fileName, e.getMessage()));
+        }
+        onFinished(fileName, size, error);
+    }
+
+    /**
+     * 上传单个文件（阻塞）
+     *
+     * @return 上传的字节数
+     */
+    private long upload(ParcelFileDescriptor descriptor, String fileName, long lastModified, String dirPath) throws Exception {
+        Alist alistServer = Alist.getInstance();
+        String token = alistServer.getEngine().generateAdminToken();
+        String basePath = MyHttpUtil.getSiteBasePath(alistServer.getConfigValue("site_url"));
+        String httpPort = alistServer.getConfigValue("scheme.http_port");
+        String httpsPort = alistServer.getConfigValue("scheme.https_port");
+        //开启 force_https 且 HTTPS 端口可用时，HTTP 端口对所有请求返回 302 重定向
+        boolean isForceHttps = "true".equals(alistServer.getConfigValue("scheme.force_https")) && !"-1".equals(httpsPort);
+        boolean isHttpUsable = !"-1".equals(httpPort) && !isForceHttps;
+        String filePath = (dirPath.endsWith("/") ? dirPath : dirPath + "/") + fileName;
+        long size = descriptor.getStatSize();
+        //不关闭输入流，文件描述符由调用方关闭
+        FileChannel channel = new FileInputStream(descriptor.getFileDescriptor()).getChannel();
+        if (isHttpUsable && size > 0 && isSeekable(channel)) {
+            sendFile(channel, Integer.parseInt(httpPort), basePath, token, filePath, size, lastModified);
+            return size;
+        }
+        //TLS 连接无法由内核直接发送文件，流式内容需要服务端缓存后写入存储，均交给分块上传
+        String apiBase;
+        if (isHttpUsable) {
+            apiBase = String.format("http://%s:%s%s", LOOPBACK, httpPort, basePath);
+        } else {
+            if ("-1".equals(httpsPort)) {
+                throw new IllegalStateException("未开启 HTTP/HTTPS 端口，无法上传");
+            }
+            apiBase = String.format("https://%s:%s%s", LOOPBACK, httpsPort, basePath);
+        }
+        ChunkUploader uploader = new ChunkUploader(applicationContext.getContentResolver(), apiBase, token);
+        long[] uploaded = new long[1];
+        try {
+            uploader.upload(descriptor, fileName, size, lastModified, "share", dirPath, (name, sent, total) -> uploaded[0] = sent);
+        } finally {
+            uploader.shutdown();
+        }
+        return uploaded[0];
+    }
+
+    private boolean isSeekable(FileChannel channel) {
+        try {
+            channel.position(0);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 通过回环套接字上传文件：请求头之后由 transferTo 直接发送文件内容。
+     * 使用 HTTP/1.0 并关闭连接，服务端响应以连接关闭结束，不会使用分块传输编码
+     */
+    private void sendFile(FileChannel channel, int port, String basePath, String token, String filePath, long size,
+                          long lastModified) throws IOException {
+        String header = "PUT " + basePath + "/api/fs/put HTTP/1.0\r\n" +
+                "Host: " + LOOPBACK + ":" + port + "\r\n" +
+                "Authorization: " + token + "\r\n" +
+                //服务端按 URL 路径规则解码，空格不能编码为 +
+                "File-Path: " + URLEncoder.encode(filePath, "UTF-8").replace("+", "%20") + "\r\n" +
+                "Last-Modified: " + (lastModified > 0 ? lastModified : System.currentTimeMillis()) + "\r\n" +
+                "Overwrite: false\r\n" +
+                "Content-Length: " + size + "\r\n" +
+                "Connection: close\r\n\r\n";
+        try (SocketChannel socket = SocketChannel.open()) {
+            socket.socket().connect(new InetSocketAddress(LOOPBACK, port), Constants.UPLOAD_CONNECT_TIMEOUT);
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8));
+            while (headerBuffer.hasRemaining()) {
+                socket.write(headerBuffer);
+            }
+            long position = 0;
+            while (position < size) {
+                long count = channel.transferTo(position, size - position, socket);
+                if (count <= 0) {
+                    throw new IOException("文件在上传过程中被截断");
+                }
+                position += count;
+            }
+            //远程存储在请求体接收完后才开始写入，等待时间较长
+            socket.socket().setSoTimeout(Constants.SHARE_RESPONSE_TIMEOUT);
+            readResponse(IOUtils.toString(socket.socket().getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 解析接口响应，状态码或业务码不为 200 时抛出异常
+     */
+    private void readResponse(String response) throws IOException {
+        int headerEnd = response.indexOf("\r\n\r\n");
+        String[] statusLine = response.split(" ", 3);
+        if (headerEnd < 0 || statusLine.length < 2) {
+            throw new IOException("响应不完整");
+        }
+        String body = response.substring(headerEnd + 4);
+        if (!"200".equals(statusLine[1])) {
+            throw new IOException(String.format("HTTP %s %s", statusLine[1], body));
+        }
+        JSONObject result = JSONUtil.parseObj(body);
+        if (result.getInt("code", 0) != 200) {
+            throw new IOException(result.getStr("message", body));
+        }
+    }
+
+    private synchronized void onFinished(String fileName, long size, Exception error) {
+        pendingCount--;
+        if (error == null) {
+            succeededCount++;
+            uploadedBytes += size;
+        } else if (String.valueOf(error.getMessage()).contains("file exists")) {
+            //不覆盖同名文件，重复分享同一批文件时跳过已上传的
+            skippedCount++;
+        } else {
+            failures.add(fileName + "：" + error.getMessage());
+        }
+        if (pendingCount > 0) {
+            notifyProgress();
+            return;
+        }
+        notifySummary();
+        totalCount = 0;
+        succeededCount = 0;
+        skippedCount = 0;
+        uploadedBytes = 0;
+        failures.clear();
+    }
+
+    private void notifyProgress() {
+        int finishedCount = totalCount - pendingCount;
+        Notification notification = createBuilder()
+                .setContentTitle("正在上传到 AList")
+                .setContentText(String.format(Locale.CHINA, "%d / %d 个文件 → %s", finishedCount, totalCount, dirPath))
+                .setProgress(totalCount, finishedCount, false)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .build();
+        getNotificationManager().notify(Constants.SHARE_NOTIFICATION_ID, notification);
+    }
+
+    private void notifySummary() {
+        String summary = String.format(Locale.CHINA, "成功 %d 个（%s）", succeededCount, FileUtil.readableFileSize(uploadedBytes));
+        if (skippedCount > 0) {
+            summary += String.format(Locale.CHINA, "，已存在跳过 %d 个", skippedCount);
+        }
+        if (!failures.isEmpty()) {
+            summary += String.format(Locale.CHINA, "，失败 %d 个", failures.size());
+        }
+        Log.i(TAG, String.format("分享上传完成（%s）：%s", dirPath, summary));
+        StringBuilder detail = new StringBuilder(summary).append("\n目标目录：").append(dirPath);
+        for (String failure : failures) {
+            detail.append("\n").append(failure);
+        }
+        Notification notification = createBuilder()
+                .setContentTitle(failures.isEmpty() ? "分享上传完成" : "分享上传部分失败")
+                .setContentText(summary)
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(detail))
+                .setAutoCancel(true)
+                .build();
+        getNotificationManager().notify(Constants.SHARE_NOTIFICATION_ID, notification);
+    }
+
+    private NotificationCompat.Builder createBuilder() {
+        Intent clickIntent = new Intent(applicationContext, MainActivity.class);
+        PendingIntent pendingIntent;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            pendingIntent = PendingIntent.getActivity(applicationContext, 0, clickIntent, PendingIntent.FLAG_IMMUTABLE);
+        } else {
+            pendingIntent = PendingIntent.getActivity(applicationContext, 0, clickIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+        }
+        return new NotificationCompat.Builder(applicationContext, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher)
+                .setContentIntent(pendingIntent);
+    }
+
+    private NotificationManager getNotificationManager() {
+        NotificationManager manager = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID, CHANNEL_NAME, NotificationManager.IMPORTANCE_LOW));
+        }
+        return manager;
+    }
+}
@@ -0,0 +1,267 @@
+package com.leohao.android.alistlite.service;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.media.ThumbnailUtils;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+import android.util.Size;
+import android.webkit.MimeTypeMap;
+import com.leohao.android.alistlite.engine.AlistEngine;
+import com.leohao.android.alistlite.util.Constants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 缩略图服务
+ * 使用系统媒体缩略图接口（硬件解码）为本地存储生成缩略图，缓存于应用数据目录并按 LRU 限制总大小
+ *
+ * @author LeoHao
+ */
+public class ThumbnailService implements AlistEngine.ThumbnailProvider {
+    private static final String TAG = "ThumbnailService";
+    /**
+     * 缩略图缓存目录
+     */
+    private final File cacheDir = new File(applicationContext.getCacheDir(), Constants.THUMB_CACHE_FOLDER_NAME);
+    /**
+     * 缓存总大小（-1 表示尚未统计）
+     */
+    private final AtomicLong cacheSize = new AtomicLong(-1);
+    private final AtomicBoolean isTrimming = new AtomicBoolean(false);
+    private final ExecutorService trimExecutor = Executors.newSingleThreadExecutor();
+
+    private static class SingletonHolder {
+        private static final ThumbnailService INSTANCE = new ThumbnailService();
+    }
+
+    private ThumbnailService() {
+    }
+
+    public static ThumbnailService getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 获取缩略图缓存目录路径
+     */
+    public String getCacheFolder() {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            Log.w(TAG, "无法创建缩略图缓存目录: " + cacheDir.getAbsolutePath());
+        }
+        return cacheDir.getAbsolutePath();
+    }
+
+    /**
+     * 生成缩略图（由 AList 引擎回调，可能并发调用）
+     *
+     * @param srcPath 原文件路径
+     * @param dstPath 缩略图缓存路径
+     * @return 是否生成成功
+     */
+    @Override
+    public boolean generate(String srcPath, String dstPath) {
+        File dst = new File(dstPath);
+        if (dst.exists()) {
+            //缓存命中，刷新访问时间（LRU 依据）
+            dst.setLastModified(System.currentTimeMillis());
+            return true;
+        }
+        File src = new File(srcPath);
+        if (!src.isFile()) {
+            return false;
+        }
+        Bitmap bitmap = null;
+        File tmp = new File(dstPath + ".tmp" + Thread.currentThread().getId());
+        try {
+            bitmap = createThumbnail(src);
+            if (bitmap == null) {
+                return false;
+            }
+            //先写临时文件再重命名，避免引擎读到不完整的缩略图
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            }
+            if (!tmp.renameTo(dst)) {
+                tmp.delete();
+                return dst.exists();
+            }
+            addCacheSize(dst.length());
+            return true;
+        } catch (Throwable t) {
+            Log.w(TAG, "生成缩略图失败 " + srcPath + ": " + t.getMessage());
+            tmp.delete();
+            return false;
+        } finally {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * 使用系统接口生成缩略图，宽度与引擎保持一致（高度按比例）
+     */
+    private Bitmap createThumbnail(File src) throws Exception {
+        boolean isVideo = isVideo(src.getName());
+        Bitmap bitmap;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            //Android 10+ 接口会使用硬件解码器并自动处理 EXIF 方向
+            Size size = new Size(Constants.THUMB_WIDTH * 2, Constants.THUMB_WIDTH * 2);
+            bitmap = isVideo ? ThumbnailUtils.createVideoThumbnail(src, size, null) : ThumbnailUtils.createImageThumbnail(src, size, null);
+        } else if (isVideo) {
+            bitmap = ThumbnailUtils.createVideoThumbnail(src.getAbsolutePath(), MediaStore.Images.Thumbnails.MINI_KIND);
+        } else {
+            bitmap = decodeSampledImage(src);
+        }
+        return scaleToWidth(bitmap, Constants.THUMB_WIDTH);
+    }
+
+    /**
+     * 按采样率解码图片，避免将原图完整载入内存
+     */
+    private Bitmap decodeSampledImage(File src) throws Exception {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(src.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= Constants.THUMB_WIDTH) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeFile(src.getAbsolutePath(), options);
+        if (bitmap == null) {
+            return null;
+        }
+        //根据 EXIF 信息修正方向
+        int orientation = new ExifInterface(src.getAbsolutePath()).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        int degrees;
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                degrees = 90;
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                degrees = 180;
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                degrees = 270;
+                break;
+            default:
+                return bitmap;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(degrees);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) {
+            bitmap.recycle();
+        }
+        return rotated;
+    }
+
+    private Bitmap scaleToWidth(Bitmap bitmap, int width) {
+        if (bitmap == null || bitmap.getWidth() <= width) {
+            return bitmap;
+        }
+        int height = Math.max(1, Math.round(bitmap.getHeight() * (float) width / bitmap.getWidth()));
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    private boolean isVideo(String fileName) {
+        int index = fileName.lastIndexOf('.');
+        if (index < 0) {
+            return false;
+        }
+        String mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(fileName.substring(index + 1).toLowerCase(Locale.ROOT));
+        return mimeType != null && mimeType.startsWith("video/");
+    }
+
+    /**
+     * 累加缓存大小，超出上限时在后台按 LRU 清理
+     */
+    private void addCacheSize(long delta) {
+        long size;
+        if (cacheSize.get() < 0) {
+            //首次写入时统计已有缓存（统计结果已包含本次写入的文件）
+            synchronized (cacheSize) {
+                if (cacheSize.get() < 0) {
+                    cacheSize.set(calculateCacheSize());
+                }
+            }
+            size = cacheSize.get();
+        } else {
+            size = cacheSize.addAndGet(delta);
+        }
+        if (size > Constants.THUMB_CACHE_MAX_SIZE && isTrimming.compareAndSet(false, true)) {
+            trimExecutor.execute(this::trimCache);
+        }
+    }
+
+    private long calculateCacheSize() {
+        long size = 0;
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 删除最久未访问的缩略图，直至缓存大小降至上限的 80%
+     */
+    private void trimCache() {
+        try {
+            File[] files = cacheDir.listFiles();
+            if (files == null) {
+                return;
+            }
+            long[] lastModified = new long[files.length];
+            Integer[] order = new Integer[files.length];
+            long size = 0;
+            for (int i = 0; i < files.length; i++) {
+                lastModified[i] = files[i].lastModified();
+                order[i] = i;
+                size += files[i].length();
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+            long target = (long) (Constants.THUMB_CACHE_MAX_SIZE * 0.8);
+            int deleted = 0;
+            for (Integer i : order) {
+                if (size <= target) {
+                    break;
+                }
+                long length = files[i].length();
+                if (files[i].delete()) {
+                    size -= length;
+                    deleted++;
+                }
+            }
+            cacheSize.set(size);
+            Log.i(TAG, String.format(Locale.CHINA, "缩略图缓存清理完成：删除 %d 个，剩余 %d KB", deleted, size / 1024));
+        } finally {
+            isTrimming.set(false);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.leohao.android.alistlite.service;
+
+import android.net.http.SslCertificate;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Log;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.leohao.android.alistlite.engine.AlistEngine;
+import com.leohao.android.alistlite.model.Alist;
+import com.leohao.android.alistlite.util.Constants;
+import com.leohao.android.alistlite.util.SettingsStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 设备 TLS 证书
+ * 配置开启 HTTPS 端口但未指定证书文件时，引擎使用本机签发的设备证书，用户无需自备证书。私钥优先生成在 Android Keystore 中
+ * （不可导出，引擎签发证书与 TLS 握手时回调签名），Android 6.0 以下或 Keystore 不可用时使用保存在应用私有目录的软件密钥。
+ * 证书临近到期时连同密钥一起轮换，本机地址变化时用原密钥重新签发；WebView 只对与当前设备证书完全一致的证书跳过校验
+ *
+ * @author LeoHao
+ */
+public class TlsProvisioner {
+    private static final String TAG = "TlsProvisioner";
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS_PREFIX = "alistlite_tls_";
+    private static final String SIGNATURE_ALGORITHM = "NONEwithECDSA";
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private volatile String report = "设备证书未就绪\n";
+
+    private final Runnable checkTask = new Runnable() {
+        @Override
+        public void run() {
+            //Keystore 操作可能较慢，不在主线程执行
+            new Thread(TlsProvisioner.this::provision, TAG).start();
+            handler.postDelayed(this, Constants.TLS_CHECK_INTERVAL);
+        }
+    };
+
+    /**
+     * 设备私钥（keyAlias 为空表示软件密钥）
+     */
+    private static class DeviceKey {
+        final PrivateKey privateKey;
+        final byte[] publicKey;
+        final String keyAlias;
+
+        DeviceKey(PrivateKey privateKey, byte[] publicKey, String keyAlias) {
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.keyAlias = keyAlias;
+        }
+
+        AlistEngine.KeySigner getSigner() {
+            return digest -> {
+                Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+                signature.initSign(privateKey);
+                signature.update(digest);
+                return signature.sign();
+            };
+        }
+    }
+
+    private static class SingletonHolder {
+        private static final TlsProvisioner INSTANCE = new TlsProvisioner();
+    }
+
+    private TlsProvisioner() {
+    }
+
+    public static TlsProvisioner getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 每天检查设备证书是否需要轮换（引擎启动前由调用方在后台线程先执行一次 {@link #provision()}）
+     */
+    public void start() {
+        handler.removeCallbacks(checkTask);
+        handler.postDelayed(checkTask, Constants.TLS_CHECK_INTERVAL);
+    }
+
+    public void stop() {
+        handler.removeCallbacks(checkTask);
+    }
+
+    /**
+     * 检查设备证书：缺失、密钥不可用或临近到期时轮换密钥并签发，本机地址变化时重新签发，最后交给引擎
+     * （阻塞，首次生成密钥可能耗时数百毫秒，不在主线程调用）
+     */
+    public synchronized void provision() {
+        try {
+            AlistEngine engine = Alist.getInstance().getEngine();
+            String hosts = "localhost,127.0.0.1," + Alist.getInstance().getBindingIP();
+            File certFile = getCertFile();
+            X509Certificate certificate = certFile.isFile() ? parseCertificate(FileUtil.readUtf8String(certFile)) : null;
+            DeviceKey deviceKey = certificate == null ? null : loadKey(certificate);
+            String certPem;
+            if (deviceKey == null || certificate.getNotAfter().getTime() - System.currentTimeMillis() < Constants.TLS_CERT_RENEW_BEFORE) {
+                deviceKey = generateKey();
+                certPem = engine.createDeviceCertificate(deviceKey.publicKey, deviceKey.getSigner(), hosts, Constants.TLS_CERT_VALID_DAYS);
+                saveKey(deviceKey, certPem);
+                Log.i(TAG, "已轮换设备密钥与证书（" + (deviceKey.keyAlias == null ? "软件密钥" : "Android Keystore") + "）");
+            } else if (!coversHosts(certificate, hosts)) {
+                certPem = engine.createDeviceCertificate(deviceKey.publicKey, deviceKey.getSigner(), hosts, Constants.TLS_CERT_VALID_DAYS);
+                FileUtil.writeUtf8String(certPem, certFile);
+                Log.i(TAG, "本机地址变化，已重新签发设备证书");
+            } else {
+                certPem = FileUtil.readUtf8String(certFile);
+            }
+            engine.setDeviceCertificate(certPem, deviceKey.getSigner());
+            certificate = parseCertificate(certPem);
+            report = String.format("%s，有效期至 %s\nSHA-256 指纹：%s\n", deviceKey.keyAlias == null ? "软件密钥" : "Android Keystore 密钥",
+                    new SimpleDateFormat("yyyy-MM-dd", Locale.CHINA).format(certificate.getNotAfter()),
+                    HexUtil.encodeHexStr(DigestUtil.sha256(certificate.getEncoded()), false));
+        } catch (Exception e) {
+            report = "设备证书准备失败：" + e.getMessage() + "\n";
+            Log.e(TAG, "准备设备证书失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取证书对应的私钥，私钥缺失或与证书不匹配时返回空
+     */
+    private DeviceKey loadKey(X509Certificate certificate) {
+        String keyAlias = SettingsStore.getInstance().get(SettingsStore.TLS_KEY_ALIAS);
+        try {
+            PrivateKey privateKey;
+            if (keyAlias.isEmpty()) {
+                File keyFile = getKeyFile();
+                if (!keyFile.isFile()) {
+                    return null;
+                }
+                privateKey = KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(FileUtil.readBytes(keyFile)));
+            } else {
+                KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+                keyStore.load(null);
+                privateKey = (PrivateKey) keyStore.getKey(keyAlias, null);
+                if (privateKey == null) {
+                    return null;
+                }
+            }
+            //轮换中途被中断时私钥与证书可能不一致，用证书公钥验证一次签名
+            byte[] digest = new byte[32];
+            new SecureRandom().nextBytes(digest);
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initSign(privateKey);
+            signature.update(digest);
+            byte[] signed = signature.sign();
+            //签名实例已绑定 Keystore 提供方，验证使用新实例
+            Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+            verifier.initVerify(certificate.getPublicKey());
+            verifier.update(digest);
+            if (!verifier.verify(signed)) {
+                return null;
+            }
+            return new DeviceKey(privateKey, certificate.getPublicKey().getEncoded(), keyAlias.isEmpty() ? null : keyAlias);
+        } catch (Exception e) {
+            Log.w(TAG, "读取设备密钥失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 生成 P-256 密钥：优先 Android Keystore，失败时生成软件密钥
+     */
+    private DeviceKey generateKey() throws Exception {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            String keyAlias = KEY_ALIAS_PREFIX + System.currentTimeMillis();
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_EC, KEYSTORE);
+                generator.initialize(new KeyGenParameterSpec.Builder(keyAlias, KeyProperties.PURPOSE_SIGN)
+                        .setAlgorithmParameterSpec(new ECGenParameterSpec("secp256r1"))
+                        //引擎传入的是已计算好的摘要
+                        .setDigests(KeyProperties.DIGEST_NONE, KeyProperties.DIGEST_SHA256)
+                        .build());
+                KeyPair keyPair = generator.generateKeyPair();
+                return new DeviceKey(keyPair.getPrivate(), keyPair.getPublic().getEncoded(), keyAlias);
+            } catch (Exception e) {
+                Log.w(TAG, "Android Keystore 不可用，使用软件密钥: " + e.getMessage());
+            }
+        }
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        return new DeviceKey(keyPair.getPrivate(), keyPair.getPublic().getEncoded(), null);
+    }
+
+    /**
+     * 保存新密钥与证书，之后删除旧密钥（包括此前轮换中断遗留的）
+     */
+    private void saveKey(DeviceKey deviceKey, String certPem) throws Exception {
+        if (deviceKey.keyAlias == null) {
+            File keyFile = getKeyFile();
+            File tempFile = new File(keyFile.getPath() + ".tmp");
+            FileUtil.writeBytes(deviceKey.privateKey.getEncoded(), tempFile);
+            FileUtil.rename(tempFile, keyFile.getName(), true);
+        }
+        FileUtil.writeUtf8String(certPem, getCertFile());
+        SettingsStore.getInstance().edit().put(SettingsStore.TLS_KEY_ALIAS, deviceKey.keyAlias == null ? "" : deviceKey.keyAlias).commit();
+        if (deviceKey.keyAlias != null) {
+            FileUtil.del(getKeyFile());
+        }
+        try {
+            KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+            keyStore.load(null);
+            for (String keyAlias : Collections.list(keyStore.aliases())) {
+                if (keyAlias.startsWith(KEY_ALIAS_PREFIX) && !keyAlias.equals(deviceKey.keyAlias)) {
+                    keyStore.deleteEntry(keyAlias);
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "清理旧设备密钥失败: " + e.getMessage());
+        }
+    }
+
+    private boolean coversHosts(X509Certificate certificate, String hosts) throws Exception {
+        Collection<List<?>> names = certificate.getSubjectAlternativeNames();
+        if (names == null) {
+            return false;
+        }
+        for (String host : hosts.split(",")) {
+            boolean isCovered = host.trim().isEmpty();
+            for (List<?> name : names) {
+                isCovered |= name.size() > 1 && host.trim().equals(String.valueOf(name.get(1)));
+            }
+            if (!isCovered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * HTTPS 证书状态
+     */
+    public String getReport() {
+        StringBuilder builder = new StringBuilder("【HTTPS 证书】\n");
+        try {
+            Alist alistServer = Alist.getInstance();
+            String certFile = alistServer.getConfigValue("scheme.cert_file");
+            String keyFile = alistServer.getConfigValue("scheme.key_file");
+            if ("-1".equals(alistServer.getConfigValue("scheme.https_port"))) {
+                builder.append("HTTPS 端口未开启\n");
+            } else if ((certFile != null && !certFile.isEmpty()) || (keyFile != null && !keyFile.isEmpty())) {
+                builder.append("使用配置中的证书文件\n");
+                return builder.toString();
+            }
+        } catch (Exception ignored) {
+        }
+        return builder.append(report).toString();
+    }
+
+    /**
+     * WebView 证书校验失败时判断是否为本机设备证书（界面进程可用，读取当前证书文件比较）
+     */
+    public static boolean isDeviceCertificate(SslCertificate sslCertificate) {
+        try {
+            byte[] encoded;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                X509Certificate x509Certificate = sslCertificate.getX509Certificate();
+                encoded = x509Certificate == null ? null : x509Certificate.getEncoded();
+            } else {
+                //低版本未公开证书对象，保存状态中包含 DER 编码
+                encoded = SslCertificate.saveState(sslCertificate).getByteArray("x509-certificate");
+            }
+            File certFile = getCertFile();
+            if (encoded == null || !certFile.isFile()) {
+                return false;
+            }
+            return Arrays.equals(encoded, parseCertificate(FileUtil.readUtf8String(certFile)).getEncoded());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static X509Certificate parseCertificate(String certPem) throws Exception {
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(certPem.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static File getCertFile() {
+        return new File(new File(applicationContext.getFilesDir(), Constants.TLS_FOLDER_NAME), Constants.TLS_CERT_FILE_NAME);
+    }
+
+    private static File getKeyFile() {
+        return new File(new File(applicationContext.getFilesDir(), Constants.TLS_FOLDER_NAME), Constants.TLS_KEY_FILE_NAME);
+    }
+}
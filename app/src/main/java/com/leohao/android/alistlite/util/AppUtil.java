@@ -14,7 +14,7 @@ import java.util.List;
  * @author LeoHao
  */
 public class AppUtil {
-    private static final SharedDataHelper SHARED_DATA_HELPER = SharedDataHelper.getInstance();
+    private static final SettingsStore SETTINGS_STORE = SettingsStore.getInstance();
 
     /**
      * 判断 AList 是否已初始化
@@ -22,10 +22,9 @@ public class AppUtil {
      * @return bool
      */
     public static boolean checkAlistHasInitialized() {
-        String key = Constants.ANDROID_SHARED_DATA_KEY_ALIST_INITIALIZED;
-        boolean isInitialized = SHARED_DATA_HELPER.getBoolShareData(key, false);
+        boolean isInitialized = SETTINGS_STORE.get(SettingsStore.ALIST_INITIALIZED);
         if (!isInitialized) {
-            SHARED_DATA_HELPER.putSharedData(key, true);
+            SETTINGS_STORE.put(SettingsStore.ALIST_INITIALIZED, true);
         }
         return isInitialized;
     }
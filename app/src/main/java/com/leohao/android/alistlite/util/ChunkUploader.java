@@ -0,0 +1,352 @@
+package com.leohao.android.alistlite.util;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import android.util.Log;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.apache.commons.io.IOUtils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 原生分块上传
+ * 直接读取文件选择器返回的内容 Uri 的文件描述符，按固定大小分块并发上传到引擎的分块上传接口（本机回环地址），
+ * 不经过 WebView 的前端上传逻辑。上传会话由目标路径、Uri、大小与修改时间确定，中断后重新选择同一文件会跳过已上传的分块；
+ * 无法定位读取的内容（管道等）或大小未知时改为单次流式上传
+ *
+ * @author LeoHao
+ */
+public class ChunkUploader {
+    private static final String TAG = "ChunkUploader";
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private final ContentResolver resolver;
+    private final String apiBase;
+    private final String token;
+    private final ExecutorService workers = Executors.newFixedThreadPool(Constants.UPLOAD_CONCURRENCY);
+
+    /**
+     * 上传进度（在上传线程中回调）
+     */
+    public interface Listener {
+        void onProgress(String fileName, long uploaded, long total);
+    }
+
+    /**
+     * @param apiBase 引擎访问地址（含 site_url 路径前缀）
+     * @param token   前端登录令牌
+     */
+    public ChunkUploader(ContentResolver resolver, String apiBase, String token) {
+        this.resolver = resolver;
+        this.apiBase = apiBase;
+        this.token = token;
+    }
+
+    /**
+     * 上传单个文件到指定目录（阻塞）
+     *
+     * @return 文件名
+     */
+    public String upload(Uri uri, String dirPath, Listener listener) throws Exception {
+        SourceInfo source = querySource(resolver, uri);
+        try (ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, "r")) {
+            upload(descriptor, source.fileName, source.size, source.lastModified, uri.toString(), dirPath, listener);
+        }
+        return source.fileName;
+    }
+
+    /**
+     * 内容 Uri 对应文件的名称、大小与修改时间
+     */
+    public static class SourceInfo {
+        public String fileName;
+        /**
+         * 未知时为 -1
+         */
+        public long size = -1;
+        /**
+         * 未知时为 0
+         */
+        public long lastModified = 0;
+    }
+
+    /**
+     * 查询内容 Uri 的文件信息，查询不到文件名时使用 Uri 的最后一段路径
+     */
+    public static SourceInfo querySource(ContentResolver resolver, Uri uri) {
+        SourceInfo source = new SourceInfo();
+        try (Cursor cursor = resolver.query(uri, null, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+                int modifiedIndex = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+                if (nameIndex >= 0 && !cursor.isNull(nameIndex)) {
+                    source.fileName = cursor.getString(nameIndex);
+                }
+                if (sizeIndex >= 0 && !cursor.isNull(sizeIndex)) {
+                    source.size = cursor.getLong(sizeIndex);
+                }
+                if (modifiedIndex >= 0 && !cursor.isNull(modifiedIndex)) {
+                    source.lastModified = cursor.getLong(modifiedIndex);
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "查询文件信息失败: " + e.getMessage());
+        }
+        if (source.fileName == null || source.fileName.isEmpty()) {
+            String lastSegment = uri.getLastPathSegment();
+            source.fileName = lastSegment == null || lastSegment.isEmpty() ? "file_" + System.currentTimeMillis() : lastSegment;
+        }
+        //文件名中的路径分隔符会被当作子目录
+        source.fileName = source.fileName.replace('/', '_');
+        return source;
+    }
+
+    /**
+     * 上传已打开的文件描述符到指定目录（阻塞，不关闭文件描述符）
+     *
+     * @param size       文件大小，未知时为 -1
+     * @param sessionKey 标识文件来源的字符串，与目标路径、大小、修改时间一起确定续传会话
+     */
+    public void upload(ParcelFileDescriptor descriptor, String fileName, long size, long lastModified, String sessionKey,
+                       String dirPath, Listener listener) throws Exception {
+        String filePath = (dirPath.endsWith("/") ? dirPath : dirPath + "/") + fileName;
+        //不关闭输入流，文件描述符由调用方关闭
+        FileInputStream inputStream = new FileInputStream(descriptor.getFileDescriptor());
+        if (size < 0) {
+            size = descriptor.getStatSize();
+        }
+        FileChannel channel = inputStream.getChannel();
+        if (size > 0 && isSeekable(channel)) {
+            String uploadId = DigestUtil.md5Hex(filePath + "|" + sessionKey + "|" + size + "|" + lastModified);
+            uploadChunks(channel, filePath, uploadId, size, lastModified, fileName, listener);
+        } else {
+            uploadStream(inputStream, filePath, size, lastModified, fileName, listener);
+        }
+    }
+
+    private boolean isSeekable(FileChannel channel) {
+        try {
+            channel.position(0);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void uploadChunks(FileChannel channel, String filePath, String uploadId, long size, long lastModified,
+                              String fileName, Listener listener) throws Exception {
+        long chunkSize = Constants.UPLOAD_CHUNK_SIZE;
+        long chunkCount = (size + chunkSize - 1) / chunkSize;
+        Set<Long> received = queryReceivedChunks(filePath, uploadId, size);
+        AtomicLong uploaded = new AtomicLong();
+        for (long index : received) {
+            uploaded.addAndGet(Math.min(chunkSize, size - index * chunkSize));
+        }
+        if (!received.isEmpty()) {
+            Log.i(TAG, String.format("续传 %s：已上传 %d/%d 块", fileName, received.size(), chunkCount));
+        }
+        listener.onProgress(fileName, uploaded.get(), size);
+        List<Future<?>> futures = new ArrayList<>();
+        for (long index = 0; index < chunkCount; index++) {
+            if (received.contains(index)) {
+                continue;
+            }
+            long chunkIndex = index;
+            futures.add(workers.submit(() -> {
+                putChunkWithRetry(channel, filePath, uploadId, size, chunkIndex, fileName, uploaded, listener);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        HttpURLConnection connection = openConnection("/api/fs/put_chunk/complete", "POST", filePath);
+        setSessionHeaders(connection, uploadId, size);
+        connection.setRequestProperty("Last-Modified", String.valueOf(lastModified > 0 ? lastModified : System.currentTimeMillis()));
+        connection.setRequestProperty("Overwrite", "false");
+        connection.setFixedLengthStreamingMode(0);
+        connection.setDoOutput(true);
+        connection.getOutputStream().close();
+        readResponse(connection);
+    }
+
+    /**
+     * 上传单个分块，失败时按递增间隔重试（服务端按偏移写入，重复上传同一分块不影响结果）
+     */
+    private void putChunkWithRetry(FileChannel channel, String filePath, String uploadId, long size, long index,
+                                   String fileName, AtomicLong uploaded, Listener listener) throws Exception {
+        long offset = index * Constants.UPLOAD_CHUNK_SIZE;
+        int length = (int) Math.min(Constants.UPLOAD_CHUNK_SIZE, size - offset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            //按位置读取，多个线程共用同一文件描述符互不影响
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("文件在上传过程中被截断: " + fileName);
+            }
+        }
+        for (int attempt = 1; ; attempt++) {
+            long sent = 0;
+            try {
+                HttpURLConnection connection = openConnection("/api/fs/put_chunk", "PUT", filePath);
+                setSessionHeaders(connection, uploadId, size);
+                connection.setRequestProperty("Chunk-Index", String.valueOf(index));
+                connection.setRequestProperty("Content-Type", "application/octet-stream");
+                connection.setFixedLengthStreamingMode(length);
+                connection.setDoOutput(true);
+                try (OutputStream outputStream = connection.getOutputStream()) {
+                    byte[] data = buffer.array();
+                    while (sent < length) {
+                        int count = (int) Math.min(WRITE_BUFFER_SIZE, length - sent);
+                        outputStream.write(data, (int) sent, count);
+                        sent += count;
+                        listener.onProgress(fileName, uploaded.addAndGet(count), size);
+                    }
+                }
+                readResponse(connection);
+                return;
+            } catch (IOException e) {
+                //未完成的分块不计入进度
+                listener.onProgress(fileName, uploaded.addAndGet(-sent), size);
+                if (attempt >= Constants.UPLOAD_CHUNK_RETRIES || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                Log.w(TAG, String.format("分块 %d 上传失败（第 %d 次）: %s", index, attempt, e.getMessage()));
+                Thread.sleep(Constants.UPLOAD_RETRY_INTERVAL * attempt);
+            }
+        }
+    }
+
+    private Set<Long> queryReceivedChunks(String filePath, String uploadId, long size) {
+        Set<Long> received = new HashSet<>();
+        try {
+            HttpURLConnection connection = openConnection("/api/fs/put_chunk", "GET", filePath);
+            setSessionHeaders(connection, uploadId, size);
+            JSONObject data = readResponse(connection);
+            JSONArray chunks = data == null ? null : data.getJSONArray("chunks");
+            if (chunks != null) {
+                for (int i = 0; i < chunks.size(); i++) {
+                    received.add(chunks.getLong(i));
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "查询已上传分块失败，从头上传: " + e.getMessage());
+        }
+        return received;
+    }
+
+    /**
+     * 单次流式上传（大小未知时由服务端按流处理）
+     */
+    private void uploadStream(InputStream inputStream, String filePath, long size, long lastModified,
+                              String fileName, Listener listener) throws Exception {
+        HttpURLConnection connection = openConnection("/api/fs/put", "PUT", filePath);
+        connection.setRequestProperty("Last-Modified", String.valueOf(lastModified > 0 ? lastModified : System.currentTimeMillis()));
+        connection.setRequestProperty("Overwrite", "false");
+        connection.setRequestProperty("Content-Type", "application/octet-stream");
+        if (size >= 0) {
+            connection.setFixedLengthStreamingMode(size);
+        } else {
+            connection.setChunkedStreamingMode(WRITE_BUFFER_SIZE);
+        }
+        connection.setDoOutput(true);
+        long sent = 0;
+        byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            int count;
+            while ((count = inputStream.read(buffer)) > 0) {
+                outputStream.write(buffer, 0, count);
+                sent += count;
+                listener.onProgress(fileName, sent, size);
+            }
+        }
+        readResponse(connection);
+    }
+
+    private HttpURLConnection openConnection(String api, String method, String filePath) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(apiBase + api).openConnection();
+        //本机回环地址，证书签发给对外域名
+        MyHttpUtil.trustLoopback(connection);
+        connection.setRequestMethod(method);
+        connection.setUseCaches(false);
+        connection.setConnectTimeout(Constants.UPLOAD_CONNECT_TIMEOUT);
+        connection.setRequestProperty("Authorization", token);
+        connection.setRequestProperty("File-Path", encodePath(filePath));
+        return connection;
+    }
+
+    private void setSessionHeaders(HttpURLConnection connection, String uploadId, long size) {
+        connection.setRequestProperty("Upload-Id", uploadId);
+        connection.setRequestProperty("X-File-Size", String.valueOf(size));
+        connection.setRequestProperty("Chunk-Size", String.valueOf(Constants.UPLOAD_CHUNK_SIZE));
+    }
+
+    /**
+     * 服务端按 URL 路径规则解码，空格不能编码为 +
+     */
+    private String encodePath(String path) throws UnsupportedEncodingException {
+        return URLEncoder.encode(path, "UTF-8").replace("+", "%20");
+    }
+
+    /**
+     * 读取接口响应，业务码不为 200 时抛出异常
+     *
+     * @return 响应中的 data
+     */
+    private JSONObject readResponse(HttpURLConnection connection) throws IOException {
+        try {
+            int code = connection.getResponseCode();
+            InputStream stream = code >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            String body = stream == null ? "" : IOUtils.toString(stream, StandardCharsets.UTF_8);
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("HTTP %d %s", code, body));
+            }
+            JSONObject response = JSONUtil.parseObj(body);
+            if (response.getInt("code", 0) != 200) {
+                throw new IOException(response.getStr("message", body));
+            }
+            return response.getJSONObject("data");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * 停止上传线程（正在上传的分块被中断，已完成的分块可续传）
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -31,7 +31,88 @@ public class Constants {
     public static String ANDROID_SHARED_DATA_PREFERENCES_NAME = "USER_INFO";
     public static String ANDROID_SHARED_DATA_KEY_ALIST_INITIALIZED = "alist_initialized";
     public static String KEY_ROOT_PERMISSION_ENABLED = "root_permission_enabled";
+    public static String SETTINGS_FILE_NAME = "settings.bin";
+    public static Long SETTINGS_WRITE_DELAY = 500L;
+    public static String KEY_BOOT_START_DELAY = "boot_start_delay";
+    public static Long BOOT_START_DELAY = 0L;
+    public static Long BOOT_READY_TIMEOUT = 90000L;
+    public static Long BOOT_READY_CHECK_INTERVAL = 2000L;
+    public static String KEY_DATA_LOCATION = "data_location";
+    public static String KEY_DATA_LOCATION_MODE = "data_location_mode";
+    public static String DATA_FOLDER_NAME = "data";
     public static String UNIVERSAL_ABI_NAME = "universal";
+    public static String THUMB_CACHE_FOLDER_NAME = "thumb";
+    public static Integer THUMB_WIDTH = 144;
+    public static Long THUMB_CACHE_MAX_SIZE = 256L * 1024 * 1024;
+    public static Integer INDEX_WATCH_MAX_DIRS = 4096;
+    public static Long INDEX_WATCH_FLUSH_INTERVAL = 2000L;
+    public static Long SHUTDOWN_DRAIN_DEADLINE = 30000L;
+    public static Long MOUNT_TABLE_CACHE_TTL = 5000L;
+    public static Long POWER_IDLE_RELEASE_DELAY = 60000L;
+    public static String KEY_POWER_IDLE_RELEASE_DELAY = "power_idle_release_delay";
+    public static Long WATCHDOG_PROBE_INTERVAL = 30000L;
+    public static Integer WATCHDOG_PROBE_TIMEOUT = 5000;
+    public static Integer WATCHDOG_FAILURE_THRESHOLD = 3;
+    public static Integer WATCHDOG_LATENCY_SAMPLES = 120;
+    public static Integer WATCHDOG_HISTORY_SIZE = 50;
+    public static Long WATCHDOG_STABLE_PERIOD = 600000L;
+    public static Long WATCHDOG_RESTART_BACKOFF_BASE = 10000L;
+    public static Long WATCHDOG_RESTART_BACKOFF_MAX = 1800000L;
+    public static Long WATCHDOG_SHUTDOWN_TIMEOUT = 3000L;
+    public static Long METRICS_POLL_INTERVAL = 2000L;
+    public static Integer METRICS_HISTORY_SIZE = 150;
+    public static String LOG_FOLDER_NAME = "logs";
+    public static Integer LOG_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static Long LOG_SEGMENT_MAX_AGE = 24 * 3600 * 1000L;
+    public static Long LOG_TOTAL_QUOTA = 32L * 1024 * 1024;
+    public static Long LOG_FLUSH_INTERVAL = 5000L;
+    public static Integer LOG_PAGE_MAX_CHARS = 100000;
+    public static Long LOG_MAX_CHARS_LOW_MEMORY = 100000L;
+    public static Long MEMORY_LIMIT_MIN = 64L * 1024 * 1024;
+    public static Integer MEMORY_LIMIT_CLASS_FACTOR = 2;
+    public static Double MEMORY_LIMIT_TOTAL_RATIO = 0.25;
+    public static Long MEMORY_FREE_MIN_INTERVAL = 30000L;
+    public static Long MEMORY_RESTORE_DELAY = 300000L;
+    public static String DB_TUNING_FILENAME = "sqlite.json";
+    public static Integer DB_LOW_MEMORY_CLASS = 128;
+    public static Long DB_CACHE_SIZE_MIN = 2L * 1024 * 1024;
+    public static Long DB_CACHE_SIZE_MAX = 32L * 1024 * 1024;
+    public static Long DB_MMAP_SIZE_MAX = 256L * 1024 * 1024;
+    public static Long DB_MMAP_SIZE_MAX_32BIT = 64L * 1024 * 1024;
+    public static Integer DB_WAL_AUTOCHECKPOINT_SLOW = 4000;
+    public static Integer DB_WAL_AUTOCHECKPOINT_FAST = 1000;
+    public static Integer DB_BUSY_TIMEOUT = 5000;
+    public static Long DB_MAINTAIN_IDLE_DELAY = 60000L;
+    public static Long DB_MAINTAIN_INTERVAL = 1800000L;
+    public static Integer DB_BENCHMARK_ROWS = 2000;
+    public static Long ROUTE_BENCH_FILE_SIZE = 16L * 1024 * 1024;
+    public static Integer ROUTE_BENCH_SMALL_FILES = 200;
+    public static Long ROUTE_BENCH_PHASE_BUDGET = 1000L;
+    public static String ROUTE_BENCH_REPORT_FILE_NAME = "route_benchmark.txt";
+    public static String KEY_CHUNK_CACHE_SIZE = "chunk_cache_size";
+    public static String KEY_CHUNK_CACHE_DIR = "chunk_cache_dir";
+    public static String CHUNK_CACHE_FOLDER_NAME = "chunks";
+    public static Long CHUNK_CACHE_MAX_SIZE = 1024L * 1024 * 1024;
+    public static Long CHUNK_CACHE_CHUNK_SIZE = 2L * 1024 * 1024;
+    public static Integer CHUNK_CACHE_READ_AHEAD = 4;
+    public static Double CHUNK_CACHE_SPACE_RATIO = 0.5;
+    public static Long UPLOAD_CHUNK_SIZE = 8L * 1024 * 1024;
+    public static Integer UPLOAD_CONCURRENCY = 3;
+    public static Integer UPLOAD_CHUNK_RETRIES = 3;
+    public static Long UPLOAD_RETRY_INTERVAL = 1000L;
+    public static Integer UPLOAD_CONNECT_TIMEOUT = 10000;
+    public static Long UPLOAD_PROGRESS_INTERVAL = 300L;
+    public static String KEY_SHARE_TARGET_PATH = "share_target_path";
+    public static Integer SHARE_INGEST_CONCURRENCY = 2;
+    public static Integer SHARE_RESPONSE_TIMEOUT = 600000;
+    public static Integer SHARE_NOTIFICATION_ID = 10001;
+    public static String KEY_TLS_KEY_ALIAS = "tls_key_alias";
+    public static String TLS_FOLDER_NAME = "tls";
+    public static String TLS_CERT_FILE_NAME = "device.crt";
+    public static String TLS_KEY_FILE_NAME = "device.key";
+    public static Long TLS_CERT_VALID_DAYS = 90L;
+    public static Long TLS_CERT_RENEW_BEFORE = 30L * 24 * 3600 * 1000;
+    public static Long TLS_CHECK_INTERVAL = 24L * 3600 * 1000;
     public static String VERSION_INFO = "AListLite-Plus v%s | Powered by OpenList v%s";
     public static List<String> SUPPORTED_DOWNLOAD_ABI_NAMES = Arrays.asList("x86", "armeabi-v7a", "x86_64", "arm64-v8a");
     public static Map<String, String> permissionDescriptionMap = new HashMap<>();
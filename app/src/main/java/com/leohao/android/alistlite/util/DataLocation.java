@@ -0,0 +1,138 @@
+package com.leohao.android.alistlite.util;
+
+import android.util.Log;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 引擎数据目录位置
+ * 外部存储的应用目录在 Android 11+ 上经由 FUSE 访问，数据库每次读写与 fsync 都要经过 FUSE 守护进程，
+ * 因此默认将数据目录（数据库、索引、配置）放在内部存储；旧版本的外部数据目录在引擎启动前迁移一次。
+ * 迁移先复制到临时目录并修正配置中的绝对路径，再原子重命名，最后记录当前位置，任何一步中断后都会重新迁移
+ *
+ * @author LeoHao
+ */
+public class DataLocation {
+    private static final String TAG = "DataLocation";
+    public static final String INTERNAL = "internal";
+    public static final String EXTERNAL = "external";
+    private static final String MIGRATING_SUFFIX = ".migrating";
+
+    private static class SingletonHolder {
+        private static final DataLocation INSTANCE = new DataLocation();
+    }
+
+    private DataLocation() {
+    }
+
+    public static DataLocation getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 当前数据目录（迁移完成前仍为原目录）
+     */
+    public File getDataDir() {
+        return getDir(SettingsStore.getInstance().get(SettingsStore.DATA_LOCATION));
+    }
+
+    private File getDir(String location) {
+        if (EXTERNAL.equals(location)) {
+            File externalDir = applicationContext.getExternalFilesDir(Constants.DATA_FOLDER_NAME);
+            if (externalDir != null) {
+                return externalDir;
+            }
+        }
+        return new File(applicationContext.getNoBackupFilesDir(), Constants.DATA_FOLDER_NAME);
+    }
+
+    /**
+     * 设置的位置与当前位置不同，启动前需要迁移数据目录
+     */
+    public boolean isMigrationPending() {
+        SettingsStore settingsStore = SettingsStore.getInstance();
+        return !getDir(settingsStore.get(SettingsStore.DATA_LOCATION)).equals(getDir(settingsStore.get(SettingsStore.DATA_LOCATION_MODE)));
+    }
+
+    /**
+     * 将数据目录迁移到设置的位置（仅在引擎进程中、引擎未初始化数据库前调用；阻塞）
+     *
+     * @return 迁移后的数据目录，迁移失败时为原目录
+     */
+    public File migrate() {
+        SettingsStore settingsStore = SettingsStore.getInstance();
+        String current = settingsStore.get(SettingsStore.DATA_LOCATION);
+        String target = settingsStore.get(SettingsStore.DATA_LOCATION_MODE);
+        File currentDir = getDir(current);
+        File targetDir = getDir(target);
+        if (currentDir.equals(targetDir)) {
+            return currentDir;
+        }
+        File tempDir = new File(targetDir.getParentFile(), targetDir.getName() + MIGRATING_SUFFIX);
+        try {
+            String[] files = currentDir.list();
+            if (files != null && files.length > 0) {
+                long begin = System.currentTimeMillis();
+                //清理上次中断留下的临时目录与未记录的目标目录
+                FileUtils.deleteDirectory(tempDir);
+                FileUtils.copyDirectory(currentDir, tempDir);
+                rewriteConfigPaths(new File(tempDir, Constants.ALIST_CONFIG_FILENAME), currentDir, targetDir);
+                syncDir(tempDir);
+                FileUtils.deleteDirectory(targetDir);
+                if (!tempDir.renameTo(targetDir)) {
+                    throw new IOException("重命名失败: " + tempDir);
+                }
+                Log.i(TAG, String.format("数据目录已迁移：%s -> %s（%dms）", currentDir, targetDir, System.currentTimeMillis() - begin));
+            }
+            //目标目录就绪后才记录新位置
+            if (!settingsStore.edit().put(SettingsStore.DATA_LOCATION, target).commit()) {
+                throw new IOException("无法保存数据目录位置");
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "数据目录迁移失败，继续使用原目录: " + e.getMessage());
+            return currentDir;
+        }
+        //原目录已不再使用，清理失败不影响运行
+        FileUtils.deleteQuietly(currentDir);
+        return targetDir;
+    }
+
+    /**
+     * 配置中的数据库、索引、临时目录与日志使用绝对路径，随目录一并修正
+     */
+    private void rewriteConfigPaths(File configFile, File fromDir, File toDir) throws IOException {
+        if (!configFile.exists()) {
+            return;
+        }
+        String config = FileUtils.readFileToString(configFile, StandardCharsets.UTF_8);
+        String rewritten = config.replace("\"" + fromDir.getAbsolutePath(), "\"" + toDir.getAbsolutePath());
+        if (!rewritten.equals(config)) {
+            FileUtils.writeStringToFile(configFile, rewritten, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 重命名前确保复制的文件已落盘，避免断电后得到不完整的数据库
+     */
+    private void syncDir(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                syncDir(file);
+            } else {
+                try (FileOutputStream outputStream = new FileOutputStream(file, true)) {
+                    outputStream.getFD().sync();
+                }
+            }
+        }
+    }
+}
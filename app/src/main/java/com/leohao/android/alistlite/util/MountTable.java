@@ -0,0 +1,276 @@
+package com.leohao.android.alistlite.util;
+
+import android.os.Build;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructStat;
+import android.system.StructStatVfs;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 挂载表工具类
+ * 直接解析 /proc/self/mountinfo，并通过 Os.stat/Os.statvfs 获取文件信息，
+ * 替代执行 mount、ls、getenforce 等外部命令
+ *
+ * @author lambda567
+ */
+public class MountTable {
+    private static final String TAG = "MountTable";
+    private static final String MOUNT_INFO_PATH = "/proc/self/mountinfo";
+    private static final String SELINUX_ENFORCE_PATH = "/sys/fs/selinux/enforce";
+    /**
+     * 挂载表缓存及读取时间
+     */
+    private static List<MountEntry> cachedEntries = null;
+    private static long cachedAt = 0;
+
+    /**
+     * 获取挂载表（带缓存，过期后重新解析）
+     */
+    public static synchronized List<MountEntry> getMounts() {
+        long now = System.currentTimeMillis();
+        if (cachedEntries == null || now - cachedAt > Constants.MOUNT_TABLE_CACHE_TTL) {
+            cachedEntries = Collections.unmodifiableList(parse());
+            cachedAt = now;
+        }
+        return cachedEntries;
+    }
+
+    /**
+     * 丢弃缓存（存储设备插拔后调用）
+     */
+    public static synchronized void invalidate() {
+        cachedEntries = null;
+    }
+
+    /**
+     * 查找路径所在的挂载点（挂载点最长匹配，同一挂载点取最后挂载的一项）
+     *
+     * @param path 文件路径
+     * @return 挂载项，未找到时返回 null
+     */
+    public static MountEntry findMount(String path) {
+        String target = canonicalPath(path);
+        MountEntry found = null;
+        for (MountEntry entry : getMounts()) {
+            if (isSameOrChild(target, entry.mountPoint) && (found == null || entry.mountPoint.length() >= found.mountPoint.length())) {
+                found = entry;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 判断路径本身是否为挂载点
+     */
+    public static boolean isMountPoint(String path) {
+        String target = canonicalPath(path);
+        for (MountEntry entry : getMounts()) {
+            if (entry.mountPoint.equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断路径是否位于只读挂载上（优先使用 statvfs，其次使用挂载表）
+     */
+    public static boolean isReadOnly(String path) {
+        try {
+            StructStatVfs statVfs = Os.statvfs(path);
+            return (statVfs.f_flag & OsConstants.ST_RDONLY) != 0;
+        } catch (Exception e) {
+            MountEntry entry = findMount(path);
+            return entry != null && entry.isReadOnly();
+        }
+    }
+
+    /**
+     * 获取 SELinux 状态（Enforcing/Permissive/Disabled）
+     */
+    public static String getSELinuxStatus() {
+        File enforce = new File(SELINUX_ENFORCE_PATH);
+        if (!enforce.exists()) {
+            //selinuxfs 未挂载时视为关闭；应用无权访问时无法区分，返回未知
+            return new File("/sys/fs/selinux").exists() ? "未知" : "Disabled";
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(enforce))) {
+            String value = reader.readLine();
+            if ("1".equals(value)) {
+                return "Enforcing";
+            }
+            if ("0".equals(value)) {
+                return "Permissive";
+            }
+        } catch (IOException e) {
+            Log.d(TAG, "无法读取 SELinux 状态: " + e.getMessage());
+        }
+        return "未知";
+    }
+
+    /**
+     * 获取路径的 SELinux 上下文（Android 8.0 以上可读取扩展属性）
+     */
+    public static String getSELinuxContext(String path) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return "未知";
+        }
+        try {
+            byte[] value = Os.getxattr(path, "security.selinux");
+            int length = value.length;
+            //去掉末尾的 \0
+            while (length > 0 && value[length - 1] == 0) {
+                length--;
+            }
+            return new String(value, 0, length, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            return "未知";
+        }
+    }
+
+    /**
+     * 获取路径权限信息，格式与 ls -ld 相近：drwxrwx--x uid gid 路径
+     */
+    public static String describePermissions(String path) {
+        try {
+            StructStat stat = Os.stat(path);
+            return String.format(Locale.CHINA, "%s %d %d %s", formatMode(stat.st_mode), stat.st_uid, stat.st_gid, path);
+        } catch (Exception e) {
+            return "无法获取权限信息: " + e.getMessage();
+        }
+    }
+
+    private static String formatMode(int mode) {
+        char[] chars = new char[10];
+        chars[0] = OsConstants.S_ISDIR(mode) ? 'd' : OsConstants.S_ISLNK(mode) ? 'l' : '-';
+        String rwx = "rwxrwxrwx";
+        for (int i = 0; i < 9; i++) {
+            chars[i + 1] = (mode & (1 << (8 - i))) != 0 ? rwx.charAt(i) : '-';
+        }
+        return new String(chars);
+    }
+
+    private static List<MountEntry> parse() {
+        List<MountEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(MOUNT_INFO_PATH))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                MountEntry entry = parseLine(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "读取挂载表失败: " + e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * 解析一行 mountinfo：
+     * 挂载ID 父ID 主:次设备号 根 挂载点 挂载选项 [可选字段...] - 文件系统类型 挂载源 超级块选项
+     */
+    private static MountEntry parseLine(String line) {
+        String[] fields = line.split(" ");
+        int separator = Arrays.asList(fields).indexOf("-");
+        if (separator < 6 || fields.length < separator + 3) {
+            return null;
+        }
+        try {
+            MountEntry entry = new MountEntry();
+            entry.mountId = Integer.parseInt(fields[0]);
+            entry.parentId = Integer.parseInt(fields[1]);
+            entry.root = unescape(fields[3]);
+            entry.mountPoint = unescape(fields[4]);
+            entry.options = new HashSet<>(Arrays.asList(fields[5].split(",")));
+            entry.fsType = fields[separator + 1];
+            entry.source = unescape(fields[separator + 2]);
+            entry.superOptions = fields.length > separator + 3 ? new HashSet<>(Arrays.asList(fields[separator + 3].split(","))) : Collections.<String>emptySet();
+            return entry;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 还原路径中的八进制转义（如空格 \040）
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 3 < value.length() && isOctal(value, i + 1)) {
+                builder.append((char) Integer.parseInt(value.substring(i + 1, i + 4), 8));
+                i += 3;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isOctal(String value, int start) {
+        for (int i = start; i < start + 3; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '7') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String canonicalPath(String path) {
+        try {
+            return new File(path).getCanonicalPath();
+        } catch (IOException e) {
+            return new File(path).getAbsolutePath();
+        }
+    }
+
+    private static boolean isSameOrChild(String path, String mountPoint) {
+        if ("/".equals(mountPoint)) {
+            return true;
+        }
+        return path.equals(mountPoint) || path.startsWith(mountPoint + "/");
+    }
+
+    /**
+     * 挂载项
+     */
+    public static class MountEntry {
+        public int mountId;
+        public int parentId;
+        public String root;          // 挂载源中被挂载的根目录
+        public String mountPoint;    // 挂载点
+        public Set<String> options;  // 挂载选项（rw/ro 等）
+        public String fsType;        // 文件系统类型
+        public String source;        // 挂载源
+        public Set<String> superOptions;
+
+        public boolean isReadOnly() {
+            return options.contains("ro") || superOptions.contains("ro");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s on %s type %s (%s)", source, mountPoint, fsType, isReadOnly() ? "ro" : "rw");
+        }
+    }
+}
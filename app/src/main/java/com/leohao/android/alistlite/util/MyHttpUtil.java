@@ -5,11 +5,15 @@ import android.webkit.MimeTypeMap;
 import cn.hutool.http.HttpUtil;
 import cn.hutool.http.Method;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 网络请求工具类
@@ -57,28 +61,7 @@ public class MyHttpUtil {
      * @return 文件名
      */
     public static String guessFileName(String contentDisposition) {
-        if (TextUtils.isEmpty(contentDisposition)) {
-            return "file";
-        }
-        // 优先匹配 filename*=utf-8''xxx 格式
-        Pattern utf8Pattern = Pattern.compile("filename\\*=utf-8''([^;]+)");
-        Matcher utf8Matcher = utf8Pattern.matcher(contentDisposition);
-        if (utf8Matcher.find()) {
-            String fileName = utf8Matcher.group(1);
-            // 解码URL编码的字符（如空格可能被编码为%20）
-            try {
-                return URLDecoder.decode(fileName, "UTF-8");
-            } catch (UnsupportedEncodingException e) {
-                return fileName;
-            }
-        }
-        // 再匹配 filename="xxx" 或 filename=xxx 格式
-        Pattern normalPattern = Pattern.compile("filename=\"?([^\"]+)\"?");
-        Matcher normalMatcher = normalPattern.matcher(contentDisposition);
-        if (normalMatcher.find()) {
-            return normalMatcher.group(1);
-        }
-        return "file";
+        return HttpHeaderUtil.guessFileName(contentDisposition);
     }
 
     /**
@@ -93,6 +76,57 @@ public class MyHttpUtil {
         return extension != null ? "." + extension : ".bin";
     }
 
+    /**
+     * 访问本机回环地址时不校验证书（证书签发给对外域名）
+     *
+     * @param connection 连接，非 HTTPS 连接时不做处理
+     */
+    public static void trustLoopback(HttpURLConnection connection) throws GeneralSecurityException {
+        if (!(connection instanceof HttpsURLConnection)) {
+            return;
+        }
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        }}, null);
+        HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+        httpsConnection.setSSLSocketFactory(context.getSocketFactory());
+        httpsConnection.setHostnameVerifier((hostname, session) -> true);
+    }
+
+    /**
+     * site_url 中的路径前缀（引擎路由注册在该前缀下）
+     *
+     * @param siteUrl 配置中的 site_url
+     * @return 路径前缀（不以 / 结尾），没有前缀时为空字符串
+     */
+    public static String getSiteBasePath(String siteUrl) {
+        if (siteUrl == null) {
+            return "";
+        }
+        try {
+            String path = siteUrl.contains("://") ? new URI(siteUrl).getPath() : siteUrl;
+            if (path == null || path.isEmpty() || "/".equals(path)) {
+                return "";
+            }
+            path = path.startsWith("/") ? path : "/" + path;
+            return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
     /**
      * 清理文件名中的非法字符（避免保存失败）
      *
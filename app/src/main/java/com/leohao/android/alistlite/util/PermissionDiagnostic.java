@@ -3,11 +3,7 @@ package com.leohao.android.alistlite.util;
 import android.content.Context;
 import android.util.Log;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * 权限诊断工具
@@ -41,10 +37,10 @@ public class PermissionDiagnostic {
         
         // 3. 检查SELinux状态
         report.append("【SELinux状态】\n");
-        String selinuxStatus = checkSELinux();
+        String selinuxStatus = checkSELinux(storagePath);
         report.append(selinuxStatus).append("\n");
         
-        // 4. 检查目录权限（ls -ld）
+        // 4. 检查目录权限
         report.append("【目录权限】\n");
         String dirPermissions = checkDirectoryPermissions(storagePath);
         report.append(dirPermissions).append("\n");
@@ -65,77 +61,35 @@ public class PermissionDiagnostic {
      * 检查文件系统挂载选项
      */
     private static String checkMountOptions(String path) {
-        try {
-            Process process = Runtime.getRuntime().exec("mount");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            StringBuilder result = new StringBuilder();
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains(path) || line.contains("storage") || line.contains("media_rw")) {
-                    result.append(line).append("\n");
-                    
-                    // 检查是否为只读挂载
-                    if (line.contains("(ro,") || line.contains(" ro ")) {
-                        result.append("⚠️ 警告：此存储挂载为只读模式！\n");
-                    } else if (line.contains("(rw,") || line.contains(" rw ")) {
-                        result.append("✓ 存储挂载为读写模式\n");
-                    }
-                }
-            }
-            reader.close();
-            
-            if (result.length() == 0) {
-                return "未找到对应的挂载信息\n";
-            }
-            return result.toString();
-        } catch (Exception e) {
-            return "检查失败: " + e.getMessage() + "\n";
+        MountTable.MountEntry entry = MountTable.findMount(path);
+        if (entry == null) {
+            return "未找到对应的挂载信息\n";
         }
+        StringBuilder result = new StringBuilder();
+        result.append(entry).append("\n");
+        result.append("选项: ").append(entry.options).append(" ").append(entry.superOptions).append("\n");
+        // 检查是否为只读挂载
+        if (entry.isReadOnly()) {
+            result.append("⚠️ 警告：此存储挂载为只读模式！\n");
+        } else {
+            result.append("✓ 存储挂载为读写模式\n");
+        }
+        return result.toString();
     }
 
     /**
      * 检查SELinux状态
      */
-    private static String checkSELinux() {
-        StringBuilder result = new StringBuilder();
-        try {
-            // 获取SELinux状态
-            Process process = Runtime.getRuntime().exec("getenforce");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String status = reader.readLine();
-            process.waitFor();
-            result.append("状态: ").append(status != null ? status : "未知").append("\n");
-            
-            // 获取SELinux上下文
-            Process process2 = Runtime.getRuntime().exec("ls -Zd " + System.getenv("EXTERNAL_STORAGE"));
-            BufferedReader reader2 = new BufferedReader(new InputStreamReader(process2.getInputStream()));
-            String context = reader2.readLine();
-            process2.waitFor();
-            result.append("上下文: ").append(context != null ? context : "未知").append("\n");
-        } catch (Exception e) {
-            result.append("检查失败: ").append(e.getMessage()).append("\n");
-        }
-        return result.toString();
+    private static String checkSELinux(String path) {
+        return "状态: " + MountTable.getSELinuxStatus() + "\n" +
+                "上下文: " + MountTable.getSELinuxContext(path) + "\n";
     }
 
     /**
      * 检查目录权限
      */
     private static String checkDirectoryPermissions(String path) {
-        try {
-            Process process = Runtime.getRuntime().exec(new String[]{"ls", "-ld", path});
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String permissions = reader.readLine();
-            reader.close();
-            
-            if (permissions != null) {
-                return permissions + "\n";
-            }
-            return "无法获取权限信息\n";
-        } catch (Exception e) {
-            return "检查失败: " + e.getMessage() + "\n";
-        }
+        return MountTable.describePermissions(path) + "\n";
     }
 
     /**
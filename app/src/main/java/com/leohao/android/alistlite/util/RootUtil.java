@@ -157,15 +157,7 @@ public class RootUtil {
      * 检查SELinux状态
      */
     public static String checkSELinuxStatus() {
-        try {
-            Process process = Runtime.getRuntime().exec("getenforce");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String status = reader.readLine();
-            process.waitFor();
-            return status != null ? status : "未知";
-        } catch (Exception e) {
-            return "检查失败: " + e.getMessage();
-        }
+        return MountTable.getSELinuxStatus();
     }
 }
 
@@ -0,0 +1,244 @@
+package com.leohao.android.alistlite.util;
+
+import android.os.SystemClock;
+import android.util.Log;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 存储访问路径测速
+ * 同一存储卷通常可经多条路径访问（/storage 下的 FUSE/sdcardfs 视图、/mnt/media_rw 或 /data/media 下的底层文件系统），
+ * 对每条候选路径测量顺序写入、顺序读取、小文件创建与目录列举，选出最快的可写路径。
+ * 每项测试都有时间上限，避免慢速存储拖慢服务启动
+ *
+ * @author LeoHao
+ */
+public class RouteBenchmark {
+    private static final String TAG = "RouteBenchmark";
+    private static final String BENCH_DIR_PREFIX = ".alistlite_route_bench_";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int SMALL_FILE_SIZE = 4 * 1024;
+    private static final double MB = 1024 * 1024;
+
+    /**
+     * 单条路径测速结果
+     */
+    public static class RouteResult {
+        public final String path;
+        public boolean isWritable = false;
+        public double writeSpeed = 0;
+        public double readSpeed = 0;
+        public double createRate = 0;
+        public double listMillis = 0;
+        public int listEntries = 0;
+        public String error = null;
+
+        RouteResult(String path) {
+            this.path = path;
+        }
+
+        /**
+         * 选择依据：大文件顺序读写吞吐（MB/s）
+         */
+        public double getScore() {
+            return readSpeed + writeSpeed;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null && !isWritable && listEntries == 0) {
+                return String.format("%s\n  不可用：%s", path, error);
+            }
+            if (!isWritable) {
+                return String.format(Locale.CHINA, "%s\n  只读，列目录 %d 项 %.1fms", path, listEntries, listMillis);
+            }
+            return String.format(Locale.CHINA, "%s\n  写 %.1f MB/s，读 %.1f MB/s，建小文件 %.0f 个/s，列目录 %d 项 %.1fms",
+                    path, writeSpeed, readSpeed, createRate, listEntries, listMillis);
+        }
+    }
+
+    private RouteBenchmark() {
+    }
+
+    /**
+     * 存储卷的候选访问路径（仅保留存在且可读的路径）
+     *
+     * @param storage      存储卷
+     * @param selectedPath 按权限规则选出的路径（一并参与测速）
+     */
+    public static List<String> getCandidateRoutes(StorageUtil.StorageInfo storage, String selectedPath) {
+        Set<String> routes = new LinkedHashSet<>();
+        routes.add(selectedPath);
+        routes.add(storage.path);
+        if (storage.path.startsWith("/storage/emulated/")) {
+            //内置存储的底层目录（通常需要 Root 或媒体存储权限）
+            routes.add("/data/media/" + storage.path.substring("/storage/emulated/".length()));
+        } else if (storage.path.startsWith("/storage/")) {
+            routes.add("/mnt/media_rw/" + storage.path.substring("/storage/".length()));
+        }
+        List<String> candidates = new ArrayList<>();
+        for (String route : routes) {
+            File file = new File(route);
+            if (file.isDirectory() && file.canRead()) {
+                candidates.add(route);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 对候选路径逐一测速，返回最快的可写路径，均不可写时返回 null
+     *
+     * @param report 测速报告（追加）
+     */
+    public static RouteResult selectFastest(StorageUtil.StorageInfo storage, List<String> routes, StringBuilder report) {
+        report.append(String.format("【%s】\n", storage.name));
+        RouteResult fastest = null;
+        for (String route : routes) {
+            RouteResult result = measure(route);
+            report.append(result).append("\n");
+            if (result.isWritable && (fastest == null || result.getScore() > fastest.getScore())) {
+                fastest = result;
+            }
+        }
+        report.append(fastest == null ? "  → 没有可写路径\n\n" : String.format("  → 选用 %s\n\n", fastest.path));
+        return fastest;
+    }
+
+    /**
+     * 测量单条路径（阻塞，每项测试不超过测试时间上限）
+     */
+    public static RouteResult measure(String path) {
+        RouteResult result = new RouteResult(path);
+        File benchDir = new File(path, BENCH_DIR_PREFIX + System.currentTimeMillis());
+        try {
+            if (!benchDir.mkdir()) {
+                //只读路径仅测目录列举
+                result.error = "无法创建测试目录";
+                measureListing(new File(path), result);
+                return result;
+            }
+            result.isWritable = true;
+            File dataFile = new File(benchDir, "sequential.bin");
+            measureWrite(dataFile, result);
+            measureRead(dataFile, result);
+            measureCreate(benchDir, result);
+            measureListing(benchDir, result);
+        } catch (IOException e) {
+            result.isWritable = false;
+            result.error = e.getMessage();
+        } finally {
+            FileUtils.deleteQuietly(benchDir);
+        }
+        Log.i(TAG, result.toString());
+        return result;
+    }
+
+    private static void measureWrite(File file, RouteResult result) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        long begin = SystemClock.elapsedRealtime();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            while (written < Constants.ROUTE_BENCH_FILE_SIZE && SystemClock.elapsedRealtime() - begin < Constants.ROUTE_BENCH_PHASE_BUDGET) {
+                outputStream.write(buffer);
+                written += buffer.length;
+            }
+            //包含落盘时间，避免只测到页缓存
+            outputStream.getFD().sync();
+        }
+        result.writeSpeed = written / MB / seconds(begin);
+    }
+
+    private static void measureRead(File file, RouteResult result) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long read = 0;
+        long begin = SystemClock.elapsedRealtime();
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            int count;
+            while ((count = inputStream.read(buffer)) > 0 && SystemClock.elapsedRealtime() - begin < Constants.ROUTE_BENCH_PHASE_BUDGET) {
+                read += count;
+            }
+        }
+        result.readSpeed = read / MB / seconds(begin);
+    }
+
+    private static void measureCreate(File dir, RouteResult result) throws IOException {
+        byte[] content = new byte[SMALL_FILE_SIZE];
+        int created = 0;
+        long begin = SystemClock.elapsedRealtime();
+        while (created < Constants.ROUTE_BENCH_SMALL_FILES && SystemClock.elapsedRealtime() - begin < Constants.ROUTE_BENCH_PHASE_BUDGET) {
+            try (FileOutputStream outputStream = new FileOutputStream(new File(dir, "small_" + created))) {
+                outputStream.write(content);
+            }
+            created++;
+        }
+        result.createRate = created / seconds(begin);
+    }
+
+    /**
+     * 列举并读取每一项的属性（与文件浏览时的开销一致），重复多次取平均
+     */
+    private static void measureListing(File dir, RouteResult result) throws IOException {
+        int rounds = 0;
+        long begin = SystemClock.elapsedRealtime();
+        do {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                throw new IOException("无法列举目录");
+            }
+            for (File file : files) {
+                file.length();
+                file.lastModified();
+            }
+            result.listEntries = files.length;
+            rounds++;
+        } while (rounds < 20 && SystemClock.elapsedRealtime() - begin < Constants.ROUTE_BENCH_PHASE_BUDGET);
+        result.listMillis = (SystemClock.elapsedRealtime() - begin) / (double) rounds;
+    }
+
+    private static double seconds(long begin) {
+        return Math.max(1, SystemClock.elapsedRealtime() - begin) / 1000.0;
+    }
+
+    /**
+     * 保存测速报告，供权限配置页查看（引擎与界面进程共用）
+     */
+    public static void saveReport(String report) {
+        try {
+            FileUtils.writeStringToFile(getReportFile(), report, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "保存测速报告失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return 最近一次测速报告，尚未测速时为 null
+     */
+    public static String loadReport() {
+        File file = getReportFile();
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static File getReportFile() {
+        return new File(applicationContext.getFilesDir(), Constants.ROUTE_BENCH_REPORT_FILE_NAME);
+    }
+}
@@ -0,0 +1,403 @@
+package com.leohao.android.alistlite.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.leohao.android.alistlite.AlistLiteApplication.applicationContext;
+
+/**
+ * 设置存储
+ * 所有设置常驻内存，读取不访问磁盘；修改通过 {@link Editor} 批量提交，短时间内的多次提交合并为一次写入。
+ * 设置以二进制格式写入临时文件并同步到磁盘后原子重命名，写入过程中进程被杀也不会损坏已有设置。
+ * 界面进程与引擎进程各自持有一份设置：写入时在文件锁内读取磁盘上的最新设置，只合并本进程修改过的设置项，
+ * 另一进程的修改可通过 {@link #reload()} 读入
+ *
+ * @author LeoHao
+ */
+public class SettingsStore {
+    private static final String TAG = "SettingsStore";
+    private static final int FILE_MAGIC = 0x414c5354;
+    private static final int FILE_VERSION = 1;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_STRING = 5;
+    /**
+     * 删除标记
+     */
+    private static final Object REMOVED = new Object();
+
+    public static final Key<Boolean> ALIST_INITIALIZED = Key.ofBoolean(Constants.ANDROID_SHARED_DATA_KEY_ALIST_INITIALIZED, false);
+    public static final Key<Boolean> ROOT_PERMISSION_ENABLED = Key.ofBoolean(Constants.KEY_ROOT_PERMISSION_ENABLED, false);
+    public static final Key<Long> POWER_IDLE_RELEASE_DELAY = Key.ofLong(Constants.KEY_POWER_IDLE_RELEASE_DELAY, Constants.POWER_IDLE_RELEASE_DELAY);
+    public static final Key<Long> BOOT_START_DELAY = Key.ofLong(Constants.KEY_BOOT_START_DELAY, Constants.BOOT_START_DELAY);
+    /**
+     * 数据目录当前所在位置（旧版本数据在外部存储）与设置的位置
+     */
+    public static final Key<String> DATA_LOCATION = Key.ofString(Constants.KEY_DATA_LOCATION, DataLocation.EXTERNAL);
+    public static final Key<String> DATA_LOCATION_MODE = Key.ofString(Constants.KEY_DATA_LOCATION_MODE, DataLocation.INTERNAL);
+    /**
+     * 远程文件分块缓存容量（0 为关闭）与测速选出的缓存目录
+     */
+    public static final Key<Long> CHUNK_CACHE_SIZE = Key.ofLong(Constants.KEY_CHUNK_CACHE_SIZE, Constants.CHUNK_CACHE_MAX_SIZE);
+    public static final Key<String> CHUNK_CACHE_DIR = Key.ofString(Constants.KEY_CHUNK_CACHE_DIR, "");
+    /**
+     * 分享上传最近一次选择的目标目录
+     */
+    public static final Key<String> SHARE_TARGET_PATH = Key.ofString(Constants.KEY_SHARE_TARGET_PATH, "/");
+    /**
+     * 设备 TLS 私钥在 Android Keystore 中的别名（为空时使用应用私有目录中的软件密钥）
+     */
+    public static final Key<String> TLS_KEY_ALIAS = Key.ofString(Constants.KEY_TLS_KEY_ALIAS, "");
+
+    private final File file = new File(applicationContext.getFilesDir(), Constants.SETTINGS_FILE_NAME);
+    /**
+     * 跨进程写锁
+     */
+    private final File lockFile = new File(applicationContext.getFilesDir(), Constants.SETTINGS_FILE_NAME + ".lock");
+    private final Map<String, Object> values = new HashMap<>();
+    /**
+     * 尚未写入磁盘的修改（设置项 -> 新值或删除标记）
+     */
+    private final Map<String, Object> pending = new HashMap<>();
+    private boolean isWriteScheduled = false;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+
+    private static class SingletonHolder {
+        private static final SettingsStore INSTANCE = new SettingsStore();
+    }
+
+    private SettingsStore() {
+        if (file.exists()) {
+            reload();
+        } else {
+            migrateSharedPreferences();
+        }
+    }
+
+    public static SettingsStore getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 类型化的设置项
+     */
+    public static final class Key<T> {
+        public final String name;
+        private final Class<T> type;
+        private final T defaultValue;
+
+        private Key(String name, Class<T> type, T defaultValue) {
+            this.name = name;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+
+        public static Key<Boolean> ofBoolean(String name, boolean defaultValue) {
+            return new Key<>(name, Boolean.class, defaultValue);
+        }
+
+        public static Key<Integer> ofInteger(String name, int defaultValue) {
+            return new Key<>(name, Integer.class, defaultValue);
+        }
+
+        public static Key<Long> ofLong(String name, long defaultValue) {
+            return new Key<>(name, Long.class, defaultValue);
+        }
+
+        public static Key<Float> ofFloat(String name, float defaultValue) {
+            return new Key<>(name, Float.class, defaultValue);
+        }
+
+        public static Key<String> ofString(String name, String defaultValue) {
+            return new Key<>(name, String.class, defaultValue);
+        }
+    }
+
+    /**
+     * 批量修改，{@link #apply()} 或 {@link #commit()} 后一次性生效
+     */
+    public final class Editor {
+        private final Map<String, Object> changes = new HashMap<>();
+
+        private Editor() {
+        }
+
+        public <T> Editor put(Key<T> key, T value) {
+            changes.put(key.name, value == null ? REMOVED : value);
+            return this;
+        }
+
+        public Editor remove(Key<?> key) {
+            changes.put(key.name, REMOVED);
+            return this;
+        }
+
+        /**
+         * 立即更新内存中的设置，稍后在后台合并写入磁盘
+         */
+        public void apply() {
+            if (applyChanges(changes)) {
+                scheduleWrite();
+            }
+        }
+
+        /**
+         * 更新内存中的设置并同步写入磁盘（阻塞，不要在主线程调用）
+         *
+         * @return 是否写入成功
+         */
+        public boolean commit() {
+            applyChanges(changes);
+            return write();
+        }
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    public synchronized <T> T get(Key<T> key) {
+        Object value = values.get(key.name);
+        return key.type.isInstance(value) ? key.type.cast(value) : key.defaultValue;
+    }
+
+    public synchronized boolean contains(Key<?> key) {
+        return key.type.isInstance(values.get(key.name));
+    }
+
+    /**
+     * 修改单个设置项
+     */
+    public <T> void put(Key<T> key, T value) {
+        edit().put(key, value).apply();
+    }
+
+    /**
+     * 立即写入尚未落盘的修改（阻塞）
+     */
+    public void flush() {
+        write();
+    }
+
+    /**
+     * 重新读取磁盘上的设置（读入另一进程的修改，本进程尚未写入的修改保留；阻塞）
+     */
+    public void reload() {
+        Map<String, Object> stored;
+        synchronized (file) {
+            try (RandomAccessFile lock = new RandomAccessFile(lockFile, "rw")) {
+                lock.getChannel().lock();
+                stored = read();
+            } catch (IOException e) {
+                //文件以原子重命名写入，正常情况下不会损坏
+                Log.e(TAG, "读取设置失败: " + e.getMessage());
+                return;
+            }
+        }
+        mergeStored(stored);
+    }
+
+    private synchronized boolean applyChanges(Map<String, Object> changes) {
+        boolean isChanged = false;
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Object previous = change.getValue() == REMOVED ? values.remove(change.getKey()) : values.put(change.getKey(), change.getValue());
+            if (previous == null ? change.getValue() != REMOVED : !previous.equals(change.getValue())) {
+                pending.put(change.getKey(), change.getValue());
+                isChanged = true;
+            }
+        }
+        return isChanged;
+    }
+
+    /**
+     * 以磁盘上的设置为准，叠加本进程尚未写入的修改
+     */
+    private synchronized void mergeStored(Map<String, Object> stored) {
+        values.clear();
+        values.putAll(stored);
+        for (Map.Entry<String, Object> change : pending.entrySet()) {
+            if (change.getValue() == REMOVED) {
+                values.remove(change.getKey());
+            } else {
+                values.put(change.getKey(), change.getValue());
+            }
+        }
+    }
+
+    private synchronized void scheduleWrite() {
+        if (isWriteScheduled) {
+            return;
+        }
+        isWriteScheduled = true;
+        writer.schedule(this::write, Constants.SETTINGS_WRITE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在文件锁内读取磁盘上的设置并合并本进程的修改，写入临时文件同步到磁盘后原子替换设置文件
+     */
+    private boolean write() {
+        Map<String, Object> changes;
+        synchronized (this) {
+            isWriteScheduled = false;
+            if (pending.isEmpty()) {
+                return true;
+            }
+            changes = new HashMap<>(pending);
+            pending.clear();
+        }
+        Map<String, Object> stored;
+        //写入过程串行化，避免后台合并写入与 commit 同时写临时文件；文件锁避免与另一进程同时写入
+        synchronized (file) {
+            try (RandomAccessFile lock = new RandomAccessFile(lockFile, "rw")) {
+                lock.getChannel().lock();
+                stored = read();
+                for (Map.Entry<String, Object> change : changes.entrySet()) {
+                    if (change.getValue() == REMOVED) {
+                        stored.remove(change.getKey());
+                    } else {
+                        stored.put(change.getKey(), change.getValue());
+                    }
+                }
+                writeFile(stored);
+            } catch (IOException e) {
+                Log.e(TAG, "写入设置失败: " + e.getMessage());
+                synchronized (this) {
+                    //写入期间没有被再次修改的设置项重新加入待写入
+                    for (Map.Entry<String, Object> change : changes.entrySet()) {
+                        if (!pending.containsKey(change.getKey())) {
+                            pending.put(change.getKey(), change.getValue());
+                        }
+                    }
+                }
+                return false;
+            }
+        }
+        mergeStored(stored);
+        return true;
+    }
+
+    private void writeFile(Map<String, Object> snapshot) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fos));
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeInt(snapshot.size());
+            for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                output.writeUTF(entry.getKey());
+                writeValue(output, entry.getValue());
+            }
+            output.flush();
+            fos.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("替换设置文件失败");
+        }
+    }
+
+    private void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value instanceof Boolean) {
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(TYPE_INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(TYPE_LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            output.writeByte(TYPE_FLOAT);
+            output.writeFloat((Float) value);
+        } else {
+            output.writeByte(TYPE_STRING);
+            //writeUTF 限制 64KB，字符串按字节数组写入
+            byte[] data = value.toString().getBytes(StandardCharsets.UTF_8);
+            output.writeInt(data.length);
+            output.write(data);
+        }
+    }
+
+    private Object readValue(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case TYPE_BOOLEAN:
+                return input.readBoolean();
+            case TYPE_INTEGER:
+                return input.readInt();
+            case TYPE_LONG:
+                return input.readLong();
+            case TYPE_FLOAT:
+                return input.readFloat();
+            case TYPE_STRING:
+                byte[] data = new byte[input.readInt()];
+                input.readFully(data);
+                return new String(data, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("未知的设置类型: " + type);
+        }
+    }
+
+    private Map<String, Object> read() throws IOException {
+        Map<String, Object> stored = new HashMap<>();
+        if (!file.exists()) {
+            return stored;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION) {
+                throw new IOException("设置文件格式不正确");
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = input.readUTF();
+                stored.put(name, readValue(input));
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * 首次使用时导入旧版 SharedPreferences 中的设置
+     */
+    private void migrateSharedPreferences() {
+        SharedPreferences preferences = applicationContext.getSharedPreferences(Constants.ANDROID_SHARED_DATA_PREFERENCES_NAME, Context.MODE_PRIVATE);
+        Map<String, ?> all = preferences.getAll();
+        if (all.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Boolean || value instanceof Integer || value instanceof Long
+                    || value instanceof Float || value instanceof String) {
+                values.put(entry.getKey(), value);
+                pending.put(entry.getKey(), value);
+            }
+        }
+        if (write()) {
+            preferences.edit().clear().apply();
+            Log.i(TAG, "已导入 " + values.size() + " 项旧版设置");
+        }
+    }
+}
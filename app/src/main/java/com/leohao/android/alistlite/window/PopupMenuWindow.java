@@ -50,6 +50,16 @@ public class PopupMenuWindow extends PopupWindow {
             dismiss();
             MainActivity.getInstance().showServiceLogs(view);
         });
+        //服务状态
+        popupView.findViewById(R.id.btn_serviceHealth).setOnClickListener((view) -> {
+            dismiss();
+            MainActivity.getInstance().showServiceHealth(view);
+        });
+        //运行监控
+        popupView.findViewById(R.id.btn_metrics).setOnClickListener((view) -> {
+            dismiss();
+            MainActivity.getInstance().showMetricsDashboard(view);
+        });
         //检查更新
         popupView.findViewById(R.id.btn_checkUpdates).setOnClickListener((view) -> {
             dismiss();
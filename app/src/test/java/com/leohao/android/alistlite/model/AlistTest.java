@@ -0,0 +1,187 @@
+package com.leohao.android.alistlite.model;
+
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Looper;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.test.core.app.ApplicationProvider;
+import com.leohao.android.alistlite.AlistLiteApplication;
+import com.leohao.android.alistlite.engine.SimulatedEngine;
+import com.leohao.android.alistlite.service.ReloadResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowToast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Alist 启动、关闭与配置热加载流程测试（使用模拟引擎，不加载 gomobile 原生库）
+ *
+ * @author LeoHao
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class AlistTest {
+    private static final long TIMEOUT = 5000;
+    private final List<Intent> progress = new ArrayList<>();
+    private final List<Intent> statusChanges = new ArrayList<>();
+    private final BroadcastReceiver progressReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            progress.add(intent);
+        }
+    };
+    private final BroadcastReceiver statusReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            statusChanges.add(intent);
+        }
+    };
+    private Alist alist;
+    private SimulatedEngine engine;
+
+    @Before
+    public void setUp() {
+        //使用默认 Application，避免初始化崩溃上报
+        AlistLiteApplication.applicationContext = ApplicationProvider.getApplicationContext();
+        LocalBroadcastManager broadcastManager = LocalBroadcastManager.getInstance(AlistLiteApplication.applicationContext);
+        broadcastManager.registerReceiver(progressReceiver, new IntentFilter(Alist.ACTION_START_PROGRESS));
+        broadcastManager.registerReceiver(statusReceiver, new IntentFilter(Alist.ACTION_STATUS_CHANGED));
+        LogStore.getInstance().clear();
+        alist = Alist.getInstance();
+        engine = new SimulatedEngine();
+        alist.setEngine(engine);
+    }
+
+    @After
+    public void tearDown() {
+        alist.shutdown(0L);
+        LocalBroadcastManager broadcastManager = LocalBroadcastManager.getInstance(AlistLiteApplication.applicationContext);
+        broadcastManager.unregisterReceiver(progressReceiver);
+        broadcastManager.unregisterReceiver(statusReceiver);
+    }
+
+    @Test
+    public void startupBroadcastsPhases() throws Exception {
+        engine.addStorage("/本地存储", 10, null)
+                .addStorage("/外置存储", 5, "permission denied");
+        alist.startup(false);
+        assertTrue(alist.hasRunning());
+        awaitPhase(Alist.PHASE_READY);
+
+        assertEquals(Arrays.asList(Alist.PHASE_LISTENING, Alist.PHASE_LOADING_STORAGES, Alist.PHASE_LOADING_STORAGES,
+                Alist.PHASE_LOADING_STORAGES, Alist.PHASE_READY), phases());
+        Intent first = progress.get(2);
+        assertEquals("/本地存储", first.getStringExtra(Alist.EXTRA_STORAGE));
+        assertEquals(10L, first.getLongExtra(Alist.EXTRA_MILLIS, -1));
+        assertNull(first.getStringExtra(Alist.EXTRA_ERROR));
+        Intent second = progress.get(3);
+        assertEquals("/外置存储", second.getStringExtra(Alist.EXTRA_STORAGE));
+        assertEquals("permission denied", second.getStringExtra(Alist.EXTRA_ERROR));
+        assertEquals(Alist.PHASE_READY, alist.getStartPhase());
+        //startup 本身发出一次状态变化
+        assertEquals(1, statusChanges.size());
+    }
+
+    @Test
+    public void delayedStartupBroadcastsDelayedPhase() throws Exception {
+        engine.setDelayedStart(50);
+        alist.startup(true);
+        awaitPhase(Alist.PHASE_READY);
+        assertEquals(Arrays.asList(Alist.PHASE_LISTENING, Alist.PHASE_DELAYED, Alist.PHASE_LOADING_STORAGES, Alist.PHASE_READY), phases());
+    }
+
+    @Test
+    public void startupIgnoredWhileRunning() throws Exception {
+        alist.startup(false);
+        awaitPhase(Alist.PHASE_READY);
+        int count = progress.size();
+        alist.startup(false);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(count, progress.size());
+    }
+
+    @Test
+    public void shutdownNotifiesStatusChanged() throws Exception {
+        alist.startup(false);
+        awaitPhase(Alist.PHASE_READY);
+        statusChanges.clear();
+
+        alist.shutdown(1000L);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertFalse(alist.hasRunning());
+        assertEquals(1, statusChanges.size());
+        assertEquals(1, LogStore.getInstance().query(new LogStore.Query(LogStore.LEVEL_MASK_ALL, 0, 0, "服务已关闭")).size());
+    }
+
+    @Test
+    public void shutdownFailureKeepsRunning() throws Exception {
+        alist.startup(false);
+        awaitPhase(Alist.PHASE_READY);
+        engine.failShutdown("listener busy");
+
+        alist.shutdown(1000L);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue(alist.hasRunning());
+        assertEquals("Alist服务关闭失败", ShadowToast.getTextOfLatestToast());
+        assertEquals(1, LogStore.getInstance().query(new LogStore.Query(LogStore.levelMask(LogStore.LEVEL_ERROR), 0, 0, "服务关闭失败")).size());
+        engine.failShutdown(null);
+    }
+
+    @Test
+    public void reloadConfigAllApplied() throws Exception {
+        alist.startup(false);
+        awaitPhase(Alist.PHASE_READY);
+        ReloadResult result = alist.reloadConfig();
+        assertTrue(result.restartRequired.isEmpty());
+        assertTrue(result.errors.isEmpty());
+    }
+
+    @Test
+    public void reloadConfigReportsRestartRequired() throws Exception {
+        alist.setEngine(new SimulatedEngine() {
+            @Override
+            public String reloadConfig() {
+                return "{\"restart_required\":[\"database\",\"site_url\"],\"errors\":[\"HTTP: bind: address already in use\"]}";
+            }
+        });
+        ReloadResult result = alist.reloadConfig();
+        assertEquals(Arrays.asList("database", "site_url"), result.restartRequired);
+        assertEquals(Arrays.asList("HTTP: bind: address already in use"), result.errors);
+    }
+
+    /**
+     * 等待引擎进入指定阶段，期间处理主线程消息（本地广播在主线程分发）
+     */
+    private void awaitPhase(String phase) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!phases().contains(phase)) {
+            assertTrue("timeout waiting for phase " + phase, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+
+    private List<String> phases() {
+        List<String> phases = new ArrayList<>();
+        for (Intent intent : progress) {
+            phases.add(intent.getStringExtra(Alist.EXTRA_PHASE));
+        }
+        return phases;
+    }
+}
@@ -0,0 +1,57 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.util.ConfigSource;
+import com.leohao.android.alistlite.util.JsonConfigFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置读取：从 config.json 读取单个配置项（每次读取都重新解析文件）
+ *
+ * @author LeoHao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLookupBenchmark {
+    @Param({"scheme.http_port", "site_url", "delayed_start", "database.type"})
+    public String jsonPath;
+    private File configFile;
+    private ConfigSource configSource;
+
+    @Setup
+    public void setup() throws IOException {
+        configFile = File.createTempFile("config", ".json");
+        Files.write(configFile.toPath(), SampleData.CONFIG_JSON.getBytes(StandardCharsets.UTF_8));
+        configSource = new JsonConfigFile(configFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        configFile.delete();
+    }
+
+    @Benchmark
+    public String lookup() throws IOException {
+        return configSource.getValue(jsonPath);
+    }
+}
@@ -0,0 +1,123 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.engine.AlistEngine;
+import com.leohao.android.alistlite.engine.SimulatedEngine;
+import com.leohao.android.alistlite.model.LogStore;
+import com.leohao.android.alistlite.util.LogEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 引擎生命周期：使用模拟引擎测量启动到就绪、存储挂载与日志洪峰写入的应用侧开销
+ * （事件处理与 Alist 中的引擎回调一致：日志写入内存日志并编码日志行）
+ *
+ * @author LeoHao
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineLifecycleBenchmark {
+    private static final int LOG_FLOOD_SIZE = 10000;
+    @Param({"1", "16"})
+    public int storageCount;
+    private SimulatedEngine engine;
+    private LogStore logStore;
+    private final LogEncoder encoder = new LogEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private volatile CountDownLatch ready;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        logStore = new LogStore(LogStore.DEFAULT_MAX_CHARS);
+        engine = new SimulatedEngine();
+        for (int i = 0; i < storageCount; i++) {
+            engine.addStorage("/storage" + i, 0, i % 8 == 7 ? "permission denied" : null);
+        }
+        engine.init("data", new AlistEngine.Listener() {
+            @Override
+            public void onStartError(String type, String error) {
+                ready.countDown();
+            }
+
+            @Override
+            public void onShutdown(String type) {
+            }
+
+            @Override
+            public void onStartPhase(String phase) {
+                if (AlistEngine.PHASE_READY.equals(phase)) {
+                    ready.countDown();
+                }
+            }
+
+            @Override
+            public void onStorageLoaded(String mountPath, long millis, String error) {
+                onLog(error == null ? LogStore.LEVEL_INFO : LogStore.LEVEL_ERROR, "load storage " + mountPath);
+            }
+
+            @Override
+            public void onDrainProgress(long activeRequests, long activeTransfers) {
+            }
+
+            @Override
+            public void onActivityChanged(boolean busy) {
+            }
+
+            @Override
+            public void onLog(int level, String message) {
+                ingest(level, message);
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        engine.shutdown(0);
+    }
+
+    @Benchmark
+    public void startupToReady() throws Exception {
+        ready = new CountDownLatch(1);
+        engine.startAsync(false);
+        ready.await();
+        engine.shutdown(0);
+    }
+
+    @Benchmark
+    public void mountLocalStorages() {
+        for (int i = 0; i < storageCount; i++) {
+            engine.addLocalStorage("/sdcard/dir" + i, "/local" + i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOG_FLOOD_SIZE)
+    public void logFlood() {
+        engine.emitLogs(LOG_FLOOD_SIZE, LogStore.LEVEL_INFO, SampleData.LOG_MESSAGES[0]);
+    }
+
+    private synchronized void ingest(int level, String message) {
+        long time = System.currentTimeMillis();
+        logStore.append(level, time, message);
+        line.setLength(0);
+        encoder.encode(line, LogStore.getLevelName(level), time, message);
+    }
+}
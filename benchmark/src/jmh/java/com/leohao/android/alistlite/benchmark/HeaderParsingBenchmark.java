@@ -0,0 +1,56 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.util.HttpHeaderUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP 头解析：从 Content-Disposition 中解析下载文件名
+ *
+ * @author LeoHao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderParsingBenchmark {
+    @Param({"utf8", "quoted", "plain", "missing"})
+    public String variant;
+    private String header;
+
+    @Setup
+    public void setup() {
+        switch (variant) {
+            case "utf8":
+                header = "attachment; filename*=utf-8''%E6%B5%8B%E8%AF%95%20%E6%96%87%E4%BB%B6.mp4";
+                break;
+            case "quoted":
+                header = "attachment; filename=\"holiday photos 2024.zip\"";
+                break;
+            case "plain":
+                header = "inline; filename=report.pdf";
+                break;
+            default:
+                header = "attachment";
+                break;
+        }
+    }
+
+    @Benchmark
+    public String guessFileName() {
+        return HttpHeaderUtil.guessFileName(header);
+    }
+}
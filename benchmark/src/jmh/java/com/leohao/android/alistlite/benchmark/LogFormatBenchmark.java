@@ -0,0 +1,49 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.util.LogEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志行格式化：缓存时间前缀的编码器与逐行 String.format + 日期格式化的对比
+ *
+ * @author LeoHao
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogFormatBenchmark {
+    private final LogEncoder encoder = new LogEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private int sequence = 0;
+
+    @Benchmark
+    public int encoder() {
+        String message = SampleData.LOG_MESSAGES[sequence++ % SampleData.LOG_MESSAGES.length];
+        line.setLength(0);
+        encoder.encode(line, "INFO", System.currentTimeMillis(), message);
+        return line.length();
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        String message = SampleData.LOG_MESSAGES[sequence++ % SampleData.LOG_MESSAGES.length];
+        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.CHINA).format(new Date());
+        return String.format("%s[%s] %s\r\n\r\n", "INFO", time, message);
+    }
+}
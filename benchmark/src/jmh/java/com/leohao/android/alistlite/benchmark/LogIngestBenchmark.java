@@ -0,0 +1,83 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.model.LogStore;
+import com.leohao.android.alistlite.util.LogEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志写入：模拟引擎日志回调，多个生产者线程同时写入内存日志并编码日志行
+ *
+ * @author LeoHao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogIngestBenchmark {
+    private LogStore logStore;
+
+    /**
+     * 每个生产者线程各自的编码缓冲（与持久化日志一致，缓冲复用）
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        final LogEncoder encoder = new LogEncoder();
+        final StringBuilder line = new StringBuilder(256);
+        int sequence = 0;
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        logStore = new LogStore(LogStore.DEFAULT_MAX_CHARS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int producers1(Producer producer) {
+        return ingest(producer);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int producers2(Producer producer) {
+        return ingest(producer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int producers4(Producer producer) {
+        return ingest(producer);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int producers8(Producer producer) {
+        return ingest(producer);
+    }
+
+    private int ingest(Producer producer) {
+        int sequence = producer.sequence++;
+        String message = SampleData.LOG_MESSAGES[sequence % SampleData.LOG_MESSAGES.length];
+        int level = SampleData.LOG_LEVELS[sequence % SampleData.LOG_LEVELS.length];
+        long time = System.currentTimeMillis();
+        logStore.append(level, time, message);
+        producer.line.setLength(0);
+        producer.encoder.encode(producer.line, LogStore.getLevelName(level), time, message);
+        return producer.line.length();
+    }
+}
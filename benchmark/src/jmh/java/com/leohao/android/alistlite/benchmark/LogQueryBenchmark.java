@@ -0,0 +1,63 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.model.LogStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志筛选：在写满的内存日志中按级别、时间范围和关键字筛选
+ *
+ * @author LeoHao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogQueryBenchmark {
+    private final LogStore logStore = new LogStore(LogStore.DEFAULT_MAX_CHARS);
+    private long middleTime;
+
+    @Setup
+    public void setup() {
+        //按每 10ms 一条日志写满内存日志
+        long time = System.currentTimeMillis() - 3600 * 1000L;
+        for (int i = 0; i < 20000; i++) {
+            logStore.append(SampleData.LOG_LEVELS[i % SampleData.LOG_LEVELS.length], time + i * 10L,
+                    SampleData.LOG_MESSAGES[i % SampleData.LOG_MESSAGES.length]);
+        }
+        middleTime = time + 10000 * 10L;
+    }
+
+    @Benchmark
+    public List<LogStore.Entry> errorsOnly() {
+        return logStore.query(new LogStore.Query(LogStore.levelMask(LogStore.LEVEL_ERROR), 0, 0, ""));
+    }
+
+    @Benchmark
+    public List<LogStore.Entry> keyword() {
+        return logStore.query(new LogStore.Query(LogStore.LEVEL_MASK_ALL, 0, 0, "upload fail"));
+    }
+
+    @Benchmark
+    public List<LogStore.Entry> timeRangeAndKeyword() {
+        return logStore.query(new LogStore.Query(LogStore.LEVEL_MASK_ALL, middleTime, 0, "storage"));
+    }
+
+    @Benchmark
+    public String formatAll() {
+        return logStore.getText();
+    }
+}
@@ -0,0 +1,51 @@
+package com.leohao.android.alistlite.benchmark;
+
+import com.leohao.android.alistlite.model.LogStore;
+
+/**
+ * 基准测试样本数据
+ *
+ * @author LeoHao
+ */
+final class SampleData {
+    static final String[] LOG_MESSAGES = {
+            "[GIN] 2024/05/01 - 10:00:00 | 200 |     1.234ms |   192.168.1.20 | GET      \"/api/fs/list\"",
+            "[GIN] 2024/05/01 - 10:00:01 | 206 |  1523.117ms |   192.168.1.20 | GET      \"/d/本地存储/电影/Sample.mkv\"",
+            "success load storage: [/本地存储], driver: [Local], order: [0], cost: 12ms",
+            "failed load storage [/外置存储]: permission denied",
+            "upload failed: /本地存储/照片/IMG_0001.jpg: no space left on device",
+            "[GIN] 2024/05/01 - 10:00:02 | 500 |     8.001ms |   192.168.1.35 | PUT      \"/api/fs/put\"",
+            "delayed start for 10 seconds",
+            "[GIN] 2024/05/01 - 10:00:03 | 200 |     0.512ms |       127.0.0.1 | GET      \"/ping\""
+    };
+    static final int[] LOG_LEVELS = {
+            LogStore.LEVEL_INFO, LogStore.LEVEL_INFO, LogStore.LEVEL_INFO, LogStore.LEVEL_ERROR,
+            LogStore.LEVEL_ERROR, LogStore.LEVEL_WARN, LogStore.LEVEL_INFO, LogStore.LEVEL_DEBUG
+    };
+    static final String CONFIG_JSON = "{\n"
+            + "  \"force\": false,\n"
+            + "  \"site_url\": \"\",\n"
+            + "  \"cdn\": \"\",\n"
+            + "  \"jwt_secret\": \"random_generated\",\n"
+            + "  \"token_expires_in\": 48,\n"
+            + "  \"database\": {\"type\": \"sqlite3\", \"host\": \"\", \"port\": 0, \"user\": \"\", \"password\": \"\", \"name\": \"\",\n"
+            + "    \"db_file\": \"data/data.db\", \"table_prefix\": \"x_\", \"ssl_mode\": \"\", \"dsn\": \"\"},\n"
+            + "  \"meilisearch\": {\"host\": \"http://localhost:7700\", \"api_key\": \"\", \"index_prefix\": \"\"},\n"
+            + "  \"scheme\": {\"address\": \"0.0.0.0\", \"http_port\": 5244, \"https_port\": -1, \"force_https\": false,\n"
+            + "    \"cert_file\": \"\", \"key_file\": \"\", \"unix_file\": \"\", \"unix_file_perm\": \"\"},\n"
+            + "  \"temp_dir\": \"data/temp\",\n"
+            + "  \"bleve_dir\": \"data/bleve\",\n"
+            + "  \"dist_dir\": \"\",\n"
+            + "  \"log\": {\"enable\": true, \"name\": \"data/log/log.log\", \"max_size\": 50, \"max_backups\": 30, \"max_age\": 28, \"compress\": false},\n"
+            + "  \"delayed_start\": 0,\n"
+            + "  \"max_connections\": 0,\n"
+            + "  \"tls_insecure_skip_verify\": true,\n"
+            + "  \"tasks\": {\"download\": {\"workers\": 5, \"max_retry\": 1}, \"transfer\": {\"workers\": 5, \"max_retry\": 2},\n"
+            + "    \"upload\": {\"workers\": 5, \"max_retry\": 0}, \"copy\": {\"workers\": 5, \"max_retry\": 2}},\n"
+            + "  \"cors\": {\"allow_origins\": [\"*\"], \"allow_methods\": [\"*\"], \"allow_headers\": [\"*\"]},\n"
+            + "  \"s3\": {\"enable\": false, \"port\": 5246, \"ssl\": false}\n"
+            + "}\n";
+
+    private SampleData() {
+    }
+}
@@ -0,0 +1,181 @@
+package com.leohao.android.alistlite.engine;
+
+/**
+ * AList 引擎接口
+ * 应用只通过该接口访问引擎：正式运行时为 gomobile 绑定，在普通 JVM 上可替换为 {@link SimulatedEngine}
+ *
+ * @author LeoHao
+ */
+public interface AlistEngine {
+    /**
+     * 异步启动阶段
+     */
+    String PHASE_LISTENING = "listening";
+    String PHASE_DELAYED = "delayed";
+    String PHASE_LOADING_STORAGES = "loading_storages";
+    String PHASE_READY = "ready";
+
+    /**
+     * 引擎事件（由引擎线程回调）
+     */
+    interface Listener {
+        void onStartError(String type, String error);
+
+        void onShutdown(String type);
+
+        void onStartPhase(String phase);
+
+        /**
+         * @param error 加载错误信息（成功时为空）
+         */
+        void onStorageLoaded(String mountPath, long millis, String error);
+
+        void onDrainProgress(long activeRequests, long activeTransfers);
+
+        void onActivityChanged(boolean busy);
+
+        /**
+         * @param level 日志级别（与 LogStore.LEVEL_* 一致）
+         */
+        void onLog(int level, String message);
+    }
+
+    /**
+     * 本地存储缩略图生成（可能并发调用）
+     */
+    interface ThumbnailProvider {
+        boolean generate(String srcPath, String dstPath);
+    }
+
+    /**
+     * 设备私钥签名（签发证书与 TLS 握手时由引擎线程回调）
+     */
+    interface KeySigner {
+        /**
+         * @param digest SHA-256 摘要
+         * @return ASN.1 DER 编码的 ECDSA 签名
+         */
+        byte[] sign(byte[] digest) throws Exception;
+    }
+
+    /**
+     * 设置数据目录并初始化引擎（可重复调用）
+     */
+    void init(String dataPath, Listener listener) throws Exception;
+
+    /**
+     * @param type 监听类型 http/https/unix，为空表示任意
+     */
+    boolean isRunning(String type);
+
+    /**
+     * 非阻塞启动：监听端口就绪后返回，存储在后台加载
+     *
+     * @param isDelayed 是否执行配置中的 delayed_start
+     * @throws Exception 端口绑定失败（如端口占用）
+     */
+    void startAsync(boolean isDelayed) throws Exception;
+
+    void shutdown(long timeout) throws Exception;
+
+    void shutdownGraceful(long deadline) throws Exception;
+
+    /**
+     * @return JSON：restart_required 为需要重启服务才能生效的配置项，errors 为重新绑定监听或加载证书的错误
+     */
+    String reloadConfig() throws Exception;
+
+    void setAdminPassword(String password);
+
+    String getAdminUser();
+
+    /**
+     * 为管理员签发登录令牌（本机回环调用接口时使用）
+     */
+    String generateAdminToken() throws Exception;
+
+    void addLocalStorage(String localPath, String mountPath);
+
+    void setThumbnailProvider(ThumbnailProvider provider, String cacheFolder);
+
+    void setLocalThumbnail(boolean isEnabled);
+
+    String getOutboundIP();
+
+    /**
+     * @return 已加载本地存储的根目录（换行分隔）
+     */
+    String getLocalStorageRoots();
+
+    void updateLocalIndex(String localDir);
+
+    /**
+     * @return 累计运行指标快照（JSON）
+     */
+    String getMetricsSnapshot();
+
+    /**
+     * 设置引擎堆的软内存上限
+     *
+     * @param limit 上限（字节），不大于 0 时取消上限
+     * @return 之前的上限，0 表示未设置
+     */
+    long setMemoryLimit(long limit);
+
+    /**
+     * 立即回收并将空闲内存归还给系统（可能耗时，不应在主线程调用）
+     */
+    void freeOSMemory();
+
+    /**
+     * @return 引擎堆使用情况（JSON）
+     */
+    String getMemoryStats();
+
+    /**
+     * 空闲时维护数据库（检查点、更新统计、归还空闲页）
+     *
+     * @return 维护结果说明
+     */
+    String maintainDatabase() throws Exception;
+
+    /**
+     * 在数据库所在存储上比较默认参数与当前调优参数的读写耗时
+     *
+     * @param rows 写入与读取的行数
+     * @return 测试结果（JSON，baseline 与 tuned 两组）
+     */
+    String benchmarkDatabase(long rows) throws Exception;
+
+    /**
+     * 设置远程存储代理下载的分块缓存
+     *
+     * @param dir       缓存目录
+     * @param maxBytes  容量上限（字节），不大于 0 时关闭缓存
+     * @param chunkSize 分块大小（字节）
+     * @param readAhead 顺序读取时预读的块数
+     */
+    void setChunkCache(String dir, long maxBytes, long chunkSize, long readAhead) throws Exception;
+
+    /**
+     * @return 分块缓存状态与累计命中统计（JSON）
+     */
+    String getChunkCacheStats();
+
+    /**
+     * 为设备密钥签发自签名证书
+     *
+     * @param publicKey DER 编码的 P-256 公钥
+     * @param hosts     写入证书的 IP 或域名（逗号分隔）
+     * @param validDays 有效天数
+     * @return 证书 PEM
+     */
+    String createDeviceCertificate(byte[] publicKey, KeySigner signer, String hosts, long validDays) throws Exception;
+
+    /**
+     * 设置设备证书（配置中未指定证书文件时 HTTPS 使用），HTTPS 运行中直接替换
+     *
+     * @param certPem 证书 PEM，为空时清除
+     */
+    void setDeviceCertificate(String certPem, KeySigner signer) throws Exception;
+}
@@ -0,0 +1,371 @@
+package com.leohao.android.alistlite.engine;
+
+import com.leohao.android.alistlite.model.LogStore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 模拟引擎
+ * 不启动真实服务的内存实现，按脚本模拟监听/存储加载耗时、启动与关闭失败以及大量日志输出，
+ * 用于在普通 JVM 上测试与测量启动、挂载和日志写入流程
+ *
+ * @author LeoHao
+ */
+public class SimulatedEngine implements AlistEngine {
+    private static final String TYPE_HTTP = "http";
+    /**
+     * 与真实引擎一致：启动后续阶段与事件在后台线程回调
+     */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private Listener listener = null;
+    private volatile boolean isRunning = false;
+    private String adminPassword = "";
+    private final Map<String, String> localStorages = new LinkedHashMap<>();
+    private final List<Storage> storages = new ArrayList<>();
+    private long listenLatency = 0;
+    private long delayedStart = 0;
+    private String initError = null;
+    private String startError = null;
+    private String shutdownError = null;
+    private int startLogCount = 0;
+    private int startLogLevel = LogStore.LEVEL_INFO;
+    private String startLogMessage = "";
+    private long memoryLimit = 0;
+    private int freeOSMemoryCount = 0;
+    private String chunkCacheDir = "";
+    private long chunkCacheMaxBytes = 0;
+    private long chunkCacheChunkSize = 0;
+    private long chunkCacheReadAhead = 0;
+    private String deviceCertPem = "";
+
+    private static class Storage {
+        final String mountPath;
+        final long loadMillis;
+        final String error;
+
+        Storage(String mountPath, long loadMillis, String error) {
+            this.mountPath = mountPath;
+            this.loadMillis = loadMillis;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 端口监听就绪耗时（startAsync 阻塞时间）
+     */
+    public synchronized SimulatedEngine setListenLatency(long millis) {
+        this.listenLatency = millis;
+        return this;
+    }
+
+    /**
+     * 配置中的 delayed_start（毫秒）
+     */
+    public synchronized SimulatedEngine setDelayedStart(long millis) {
+        this.delayedStart = millis;
+        return this;
+    }
+
+    /**
+     * 启动时加载的存储
+     *
+     * @param error 加载失败信息（为空表示成功）
+     */
+    public synchronized SimulatedEngine addStorage(String mountPath, long loadMillis, String error) {
+        storages.add(new Storage(mountPath, loadMillis, error));
+        return this;
+    }
+
+    public synchronized SimulatedEngine failInit(String error) {
+        this.initError = error;
+        return this;
+    }
+
+    public synchronized SimulatedEngine failStart(String error) {
+        this.startError = error;
+        return this;
+    }
+
+    public synchronized SimulatedEngine failShutdown(String error) {
+        this.shutdownError = error;
+        return this;
+    }
+
+    /**
+     * 启动就绪后连续输出的日志
+     */
+    public synchronized SimulatedEngine floodLogsOnStart(int count, int level, String message) {
+        this.startLogCount = count;
+        this.startLogLevel = level;
+        this.startLogMessage = message;
+        return this;
+    }
+
+    /**
+     * 在调用线程上立即连续输出日志
+     */
+    public void emitLogs(int count, int level, String message) {
+        Listener current = getListener();
+        if (current == null) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            current.onLog(level, message);
+        }
+    }
+
+    @Override
+    public synchronized void init(String dataPath, Listener listener) throws Exception {
+        if (initError != null) {
+            throw new Exception(initError);
+        }
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean isRunning(String type) {
+        return isRunning && (type.isEmpty() || TYPE_HTTP.equals(type));
+    }
+
+    @Override
+    public void startAsync(boolean isDelayed) throws Exception {
+        Listener current;
+        String error;
+        long latency;
+        synchronized (this) {
+            current = listener;
+            error = startError;
+            latency = listenLatency;
+        }
+        if (current == null || isRunning) {
+            return;
+        }
+        if (error != null) {
+            throw new Exception(error);
+        }
+        sleep(latency);
+        isRunning = true;
+        current.onLog(LogStore.LEVEL_INFO, "start HTTP server @ 0.0.0.0:5244");
+        current.onStartPhase(PHASE_LISTENING);
+        worker.execute(() -> loadStorages(current, isDelayed));
+    }
+
+    private void loadStorages(Listener current, boolean isDelayed) {
+        List<Storage> plan;
+        long delay;
+        int logCount;
+        int logLevel;
+        String logMessage;
+        synchronized (this) {
+            plan = new ArrayList<>(storages);
+            delay = delayedStart;
+            logCount = startLogCount;
+            logLevel = startLogLevel;
+            logMessage = startLogMessage;
+        }
+        if (isDelayed && delay > 0) {
+            current.onStartPhase(PHASE_DELAYED);
+            sleep(delay);
+        }
+        current.onStartPhase(PHASE_LOADING_STORAGES);
+        for (Storage storage : plan) {
+            if (!isRunning) {
+                return;
+            }
+            sleep(storage.loadMillis);
+            current.onStorageLoaded(storage.mountPath, storage.loadMillis, storage.error);
+        }
+        current.onStartPhase(PHASE_READY);
+        for (int i = 0; i < logCount; i++) {
+            current.onLog(logLevel, logMessage);
+        }
+    }
+
+    @Override
+    public void shutdown(long timeout) throws Exception {
+        String error;
+        synchronized (this) {
+            error = shutdownError;
+        }
+        if (error != null) {
+            throw new Exception(error);
+        }
+        isRunning = false;
+        Listener current = getListener();
+        if (current != null) {
+            current.onShutdown(TYPE_HTTP);
+        }
+    }
+
+    @Override
+    public void shutdownGraceful(long deadline) throws Exception {
+        Listener current = getListener();
+        if (current != null) {
+            current.onDrainProgress(0, 0);
+        }
+        shutdown(deadline);
+    }
+
+    @Override
+    public String reloadConfig() {
+        return "{\"restart_required\":[],\"errors\":[]}";
+    }
+
+    @Override
+    public synchronized void setAdminPassword(String password) {
+        this.adminPassword = password;
+    }
+
+    @Override
+    public String getAdminUser() {
+        return "admin";
+    }
+
+    @Override
+    public String generateAdminToken() {
+        return "simulated-admin-token";
+    }
+
+    public synchronized String getAdminPassword() {
+        return adminPassword;
+    }
+
+    @Override
+    public synchronized void addLocalStorage(String localPath, String mountPath) {
+        localStorages.put(mountPath, localPath);
+    }
+
+    @Override
+    public void setThumbnailProvider(ThumbnailProvider provider, String cacheFolder) {
+    }
+
+    @Override
+    public void setLocalThumbnail(boolean isEnabled) {
+    }
+
+    @Override
+    public String getOutboundIP() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public synchronized String getLocalStorageRoots() {
+        StringBuilder roots = new StringBuilder();
+        for (String localPath : localStorages.values()) {
+            if (roots.length() > 0) {
+                roots.append('\n');
+            }
+            roots.append(localPath);
+        }
+        return roots.toString();
+    }
+
+    @Override
+    public void updateLocalIndex(String localDir) {
+    }
+
+    @Override
+    public String getMetricsSnapshot() {
+        return "{\"time\":" + System.currentTimeMillis() + ",\"requests\":0,\"errors\":0,\"bytes_in\":0,\"bytes_out\":0,"
+                + "\"active_conns\":0,\"active_requests\":0,\"active_transfers\":0,\"latency_bounds\":[],\"routes\":[],\"storages\":[]}";
+    }
+
+    @Override
+    public synchronized long setMemoryLimit(long limit) {
+        long previous = memoryLimit;
+        memoryLimit = Math.max(0, limit);
+        return previous;
+    }
+
+    @Override
+    public synchronized void freeOSMemory() {
+        freeOSMemoryCount++;
+    }
+
+    /**
+     * @return 调用 {@link #freeOSMemory()} 的次数
+     */
+    public synchronized int getFreeOSMemoryCount() {
+        return freeOSMemoryCount;
+    }
+
+    /**
+     * 以当前 JVM 堆模拟引擎堆使用情况
+     */
+    @Override
+    public synchronized String getMemoryStats() {
+        Runtime runtime = Runtime.getRuntime();
+        long heapInuse = runtime.totalMemory() - runtime.freeMemory();
+        return "{\"time\":" + System.currentTimeMillis() + ",\"heap_alloc\":" + heapInuse + ",\"heap_inuse\":" + heapInuse
+                + ",\"heap_idle\":" + runtime.freeMemory() + ",\"heap_released\":0,\"sys\":" + runtime.totalMemory()
+                + ",\"num_gc\":0,\"memory_limit\":" + memoryLimit + "}";
+    }
+
+    @Override
+    public String maintainDatabase() {
+        return "";
+    }
+
+    @Override
+    public String benchmarkDatabase(long rows) {
+        String result = "{\"insert_millis\":0,\"query_millis\":0}";
+        return "{\"baseline\":" + result + ",\"tuned\":" + result + "}";
+    }
+
+    @Override
+    public synchronized void setChunkCache(String dir, long maxBytes, long chunkSize, long readAhead) {
+        boolean isEnabled = !dir.isEmpty() && maxBytes > 0 && chunkSize > 0;
+        chunkCacheDir = isEnabled ? dir : "";
+        chunkCacheMaxBytes = isEnabled ? maxBytes : 0;
+        chunkCacheChunkSize = isEnabled ? chunkSize : 0;
+        chunkCacheReadAhead = isEnabled ? readAhead : 0;
+    }
+
+    /**
+     * 模拟引擎没有远程存储，缓存始终为空
+     */
+    @Override
+    public synchronized String getChunkCacheStats() {
+        return "{\"enabled\":" + !chunkCacheDir.isEmpty() + ",\"dir\":\"" + chunkCacheDir.replace("\\", "\\\\").replace("\"", "\\\"")
+                + "\",\"max_bytes\":" + chunkCacheMaxBytes + ",\"chunk_size\":" + chunkCacheChunkSize + ",\"read_ahead\":" + chunkCacheReadAhead
+                + ",\"size\":0,\"chunks\":0,\"hits\":0,\"misses\":0,\"prefetched\":0,\"prefetch_hits\":0,\"evictions\":0,\"bytes_saved\":0,\"bytes_fetched\":0}";
+    }
+
+    /**
+     * 不生成真实证书：调用一次签名后返回占位 PEM
+     */
+    @Override
+    public String createDeviceCertificate(byte[] publicKey, KeySigner signer, String hosts, long validDays) throws Exception {
+        signer.sign(new byte[32]);
+        return "-----BEGIN CERTIFICATE-----\n" + hosts + "\n-----END CERTIFICATE-----\n";
+    }
+
+    @Override
+    public synchronized void setDeviceCertificate(String certPem, KeySigner signer) {
+        deviceCertPem = certPem == null ? "" : certPem;
+    }
+
+    public synchronized String getDeviceCertPem() {
+        return deviceCertPem;
+    }
+
+    private synchronized Listener getListener() {
+        return listener;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
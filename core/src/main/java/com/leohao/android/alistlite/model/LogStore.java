@@ -0,0 +1,454 @@
+package com.leohao.android.alistlite.model;
+
+import com.leohao.android.alistlite.util.LogEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 内存日志存储
+ * 保存最近的日志条目并维护轻量索引：级别位图、按分钟的时间桶和消息分词倒排表，
+ * 日志查看器按级别、时间范围和关键字筛选时只需校验候选条目
+ *
+ * @author LeoHao
+ */
+public class LogStore {
+    /**
+     * 日志级别（与引擎日志回调的级别编号一致）
+     */
+    public static final int LEVEL_ERROR = 1;
+    public static final int LEVEL_DEBUG = 2;
+    public static final int LEVEL_WARN = 3;
+    public static final int LEVEL_INFO = 4;
+    public static final int LEVEL_MASK_ALL = levelMask(LEVEL_ERROR, LEVEL_DEBUG, LEVEL_WARN, LEVEL_INFO);
+    private static final String[] LEVEL_NAMES = {"INFO", "ERROR", "DEBUG", "WARN", "INFO"};
+    private static final String TRUNCATED_NOTICE = "... [日志已自动清理旧内容] ...\r\n\r\n";
+    private static final long BUCKET_MILLIS = 60 * 1000L;
+    /**
+     * 默认内存日志上限（字符数），防止内存溢出
+     */
+    public static final long DEFAULT_MAX_CHARS = 500000;
+
+    private long maxChars;
+    private final List<Entry> entries = new ArrayList<>();
+    private final BitSet[] levelBits = new BitSet[LEVEL_NAMES.length];
+    /**
+     * 时间桶：分钟 -> 该分钟内第一条日志的下标
+     */
+    private final TreeMap<Long, Integer> timeBuckets = new TreeMap<>();
+    /**
+     * 分词 -> 包含该词的日志下标（递增）
+     */
+    private final Map<String, PostingList> tokenIndex = new HashMap<>();
+    private long totalChars = 0;
+    private boolean isTruncated = false;
+    /**
+     * 下一条日志的序号（递增，清空日志后也不重置，用作分页读取的游标）
+     */
+    private long nextSequence = 1;
+    /**
+     * 每次变更递增，查看器据此判断是否需要刷新
+     */
+    private volatile long version = 0;
+
+    private static class SingletonHolder {
+        private static final LogStore INSTANCE = new LogStore(DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * @param maxChars 内存日志上限（字符数），超出后删除最旧的日志
+     */
+    public LogStore(long maxChars) {
+        this.maxChars = maxChars;
+        for (int i = 0; i < levelBits.length; i++) {
+            levelBits[i] = new BitSet();
+        }
+    }
+
+    public static LogStore getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 日志条目
+     */
+    public static class Entry {
+        public final long sequence;
+        public final int level;
+        public final long time;
+        /**
+         * 原始日志消息（完整日志行在查看/导出时才格式化）
+         */
+        public final String message;
+
+        Entry(long sequence, int level, long time, String message) {
+            this.sequence = sequence;
+            this.level = level;
+            this.time = time;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 筛选条件
+     */
+    public static class Query {
+        public final int levelMask;
+        public final long from;
+        public final long to;
+        public final String keyword;
+
+        /**
+         * @param levelMask 级别掩码，见 {@link #levelMask(int...)}
+         * @param from      起始时间（毫秒，0 表示不限）
+         * @param to        结束时间（毫秒，0 表示不限）
+         * @param keyword   关键字（忽略大小写，空表示不限）
+         */
+        public Query(int levelMask, long from, long to, String keyword) {
+            this.levelMask = levelMask;
+            this.from = from;
+            this.to = to;
+            this.keyword = keyword == null ? "" : keyword.trim();
+        }
+
+        public boolean isEmpty() {
+            return levelMask == LEVEL_MASK_ALL && from <= 0 && to <= 0 && keyword.isEmpty();
+        }
+    }
+
+    /**
+     * 分页读取结果
+     */
+    public static class Page {
+        /**
+         * 本页日志文本
+         */
+        public final String text;
+        public final int count;
+        /**
+         * 读取下一页时传入的游标
+         */
+        public final long cursor;
+        public final boolean hasMore;
+
+        public Page(String text, int count, long cursor, boolean hasMore) {
+            this.text = text;
+            this.count = count;
+            this.cursor = cursor;
+            this.hasMore = hasMore;
+        }
+    }
+
+    public static int levelMask(int... levels) {
+        int mask = 0;
+        for (int level : levels) {
+            mask |= 1 << level;
+        }
+        return mask;
+    }
+
+    public static String getLevelName(int level) {
+        return level > 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : LEVEL_NAMES[0];
+    }
+
+    /**
+     * 根据级别名称获取级别编号，未知名称视为 INFO
+     */
+    public static int parseLevel(String levelName) {
+        for (int i = 1; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equalsIgnoreCase(levelName)) {
+                return i;
+            }
+        }
+        return LEVEL_INFO;
+    }
+
+    /**
+     * 追加一条日志
+     *
+     * @param time 日志时间（毫秒）
+     */
+    public synchronized void append(int level, long time, String message) {
+        Entry entry = new Entry(nextSequence++, level, time, message);
+        entries.add(entry);
+        totalChars += length(entry);
+        if (totalChars > maxChars) {
+            //保留最新的 80%
+            trim((long) (maxChars * 0.8));
+        } else {
+            index(entries.size() - 1, entry);
+        }
+        version++;
+    }
+
+    /**
+     * 调整内存日志上限，超出新上限的旧日志立即删除（内存紧张时收缩，恢复后放宽）
+     */
+    public synchronized void setMaxChars(long maxChars) {
+        this.maxChars = maxChars;
+        if (totalChars > maxChars) {
+            trim((long) (maxChars * 0.8));
+            version++;
+        }
+    }
+
+    public synchronized long getMaxChars() {
+        return maxChars;
+    }
+
+    /**
+     * 已占用的字符数
+     */
+    public synchronized long getTotalChars() {
+        return totalChars;
+    }
+
+    /**
+     * 删除最旧的日志直至不超过 keepChars（至少保留一条），然后重建索引
+     */
+    private void trim(long keepChars) {
+        int removeCount = 0;
+        while (removeCount < entries.size() - 1 && totalChars > keepChars) {
+            totalChars -= length(entries.get(removeCount));
+            removeCount++;
+        }
+        entries.subList(0, removeCount).clear();
+        isTruncated = true;
+        rebuildIndex();
+    }
+
+    /**
+     * 清空日志
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalChars = 0;
+        isTruncated = false;
+        rebuildIndex();
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 全部日志文本
+     */
+    public String getText() {
+        return format(query(new Query(LEVEL_MASK_ALL, 0, 0, "")));
+    }
+
+    /**
+     * 将日志条目格式化为文本，日志被清理过时在开头提示
+     */
+    public String format(List<Entry> result) {
+        long length = isTruncated ? TRUNCATED_NOTICE.length() : 0;
+        for (Entry entry : result) {
+            length += length(entry);
+        }
+        StringBuilder builder = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE));
+        if (isTruncated) {
+            builder.append(TRUNCATED_NOTICE);
+        }
+        LogEncoder encoder = new LogEncoder();
+        for (Entry entry : result) {
+            encoder.encode(builder, getLevelName(entry.level), entry.time, entry.message);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 按条件筛选日志：先由级别位图与时间桶确定候选范围，再以分词倒排表缩小候选，最后逐条校验关键字
+     */
+    public synchronized List<Entry> query(Query query) {
+        List<Entry> result = new ArrayList<>();
+        String keyword = query.keyword.toLowerCase(Locale.ROOT);
+        BitSet candidates = findCandidates(query, keyword, 0);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Entry entry = entries.get(i);
+            if (keyword.isEmpty() || containsIgnoreCase(entry.message, keyword)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从游标之后分页读取筛选结果（每页文本不超过 maxChars，至少包含一条日志），
+     * 供其他进程增量拉取日志，避免单次传输过大
+     *
+     * @param cursor 上一页返回的游标，0 表示从最早的日志开始
+     */
+    public synchronized Page read(Query query, long cursor, int maxChars) {
+        String keyword = query.keyword.toLowerCase(Locale.ROOT);
+        int firstIndex = entries.isEmpty() ? 0 : (int) Math.min(entries.size(), Math.max(0, cursor + 1 - entries.get(0).sequence));
+        BitSet candidates = findCandidates(query, keyword, firstIndex);
+        StringBuilder text = new StringBuilder();
+        if (cursor == 0 && isTruncated) {
+            text.append(TRUNCATED_NOTICE);
+        }
+        LogEncoder encoder = new LogEncoder();
+        int count = 0;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Entry entry = entries.get(i);
+            if (!keyword.isEmpty() && !containsIgnoreCase(entry.message, keyword)) {
+                continue;
+            }
+            if (count > 0 && text.length() + length(entry) > maxChars) {
+                return new Page(text.toString(), count, entry.sequence - 1, true);
+            }
+            encoder.encode(text, getLevelName(entry.level), entry.time, entry.message);
+            count++;
+        }
+        //已读到最新的日志
+        return new Page(text.toString(), count, nextSequence - 1, false);
+    }
+
+    /**
+     * 由级别位图、时间桶与分词倒排表确定候选日志下标（不早于 firstIndex）
+     */
+    private BitSet findCandidates(Query query, String keyword, int firstIndex) {
+        int start = Math.max(firstIndex, query.from > 0 ? firstIndexAfter(query.from) : 0);
+        int end = query.to > 0 ? firstIndexAfter(query.to + 1) : entries.size();
+        BitSet candidates = new BitSet();
+        if (start >= end) {
+            return candidates;
+        }
+        for (int level = 1; level < levelBits.length; level++) {
+            if ((query.levelMask & (1 << level)) != 0) {
+                candidates.or(levelBits[level]);
+            }
+        }
+        candidates.clear(0, start);
+        candidates.clear(end, Math.max(end, candidates.length()));
+        for (String token : tokenize(keyword)) {
+            if (candidates.isEmpty()) {
+                break;
+            }
+            candidates.and(findToken(token));
+        }
+        return candidates;
+    }
+
+    /**
+     * 时间不早于 time 的第一条日志的下标
+     */
+    private int firstIndexAfter(long time) {
+        Map.Entry<Long, Integer> bucket = timeBuckets.floorEntry(time / BUCKET_MILLIS);
+        int index = bucket == null ? 0 : bucket.getValue();
+        while (index < entries.size() && entries.get(index).time < time) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 查询词可能只是日志中某个词的一部分，合并所有包含该查询词的分词的倒排表
+     */
+    private BitSet findToken(String token) {
+        BitSet result = new BitSet();
+        PostingList exact = tokenIndex.get(token);
+        if (exact != null) {
+            exact.addTo(result);
+        }
+        for (Map.Entry<String, PostingList> item : tokenIndex.entrySet()) {
+            if (item.getKey().length() > token.length() && item.getKey().contains(token)) {
+                item.getValue().addTo(result);
+            }
+        }
+        return result;
+    }
+
+    private void rebuildIndex() {
+        for (BitSet bits : levelBits) {
+            bits.clear();
+        }
+        timeBuckets.clear();
+        tokenIndex.clear();
+        for (int i = 0; i < entries.size(); i++) {
+            index(i, entries.get(i));
+        }
+    }
+
+    private void index(int index, Entry entry) {
+        levelBits[entry.level > 0 && entry.level < levelBits.length ? entry.level : LEVEL_INFO].set(index);
+        long bucket = entry.time / BUCKET_MILLIS;
+        if (!timeBuckets.containsKey(bucket)) {
+            timeBuckets.put(bucket, index);
+        }
+        for (String token : tokenize(entry.message.toLowerCase(Locale.ROOT))) {
+            PostingList postings = tokenIndex.get(token);
+            if (postings == null) {
+                postings = new PostingList();
+                tokenIndex.put(token, postings);
+            }
+            postings.add(index);
+        }
+    }
+
+    /**
+     * 日志行格式化后的长度（用于控制内存占用）
+     */
+    private static long length(Entry entry) {
+        return entry.message.length() + LogEncoder.ENVELOPE_LENGTH;
+    }
+
+    /**
+     * 按字母/数字连续片段分词（中文按连续汉字成词）
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean containsIgnoreCase(String text, String lowerKeyword) {
+        int max = text.length() - lowerKeyword.length();
+        for (int i = 0; i <= max; i++) {
+            if (text.regionMatches(true, i, lowerKeyword, 0, lowerKeyword.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 递增的日志下标列表（同一条日志只记录一次）
+     */
+    private static class PostingList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.leohao.android.alistlite.util;
+
+import java.io.IOException;
+
+/**
+ * 配置读取
+ *
+ * @author LeoHao
+ */
+public interface ConfigSource {
+    /**
+     * 读取指定配置项
+     *
+     * @param jsonPath 配置项路径 如 scheme.http_port
+     * @return 配置项的字符串形式
+     */
+    String getValue(String jsonPath) throws IOException;
+}
@@ -0,0 +1,45 @@
+package com.leohao.android.alistlite.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP 头解析工具类
+ *
+ * @author LeoHao
+ */
+public class HttpHeaderUtil {
+    private static final Pattern UTF8_FILENAME_PATTERN = Pattern.compile("filename\\*=utf-8''([^;]+)");
+    private static final Pattern FILENAME_PATTERN = Pattern.compile("filename=\"?([^\"]+)\"?");
+
+    /**
+     * 手动解析 contentDisposition 获取文件名
+     *
+     * @param contentDisposition contentDisposition
+     * @return 文件名
+     */
+    public static String guessFileName(String contentDisposition) {
+        if (contentDisposition == null || contentDisposition.isEmpty()) {
+            return "file";
+        }
+        // 优先匹配 filename*=utf-8''xxx 格式
+        Matcher utf8Matcher = UTF8_FILENAME_PATTERN.matcher(contentDisposition);
+        if (utf8Matcher.find()) {
+            String fileName = utf8Matcher.group(1);
+            // 解码URL编码的字符（如空格可能被编码为%20）
+            try {
+                return URLDecoder.decode(fileName, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                return fileName;
+            }
+        }
+        // 再匹配 filename="xxx" 或 filename=xxx 格式
+        Matcher normalMatcher = FILENAME_PATTERN.matcher(contentDisposition);
+        if (normalMatcher.find()) {
+            return normalMatcher.group(1);
+        }
+        return "file";
+    }
+}
@@ -0,0 +1,27 @@
+package com.leohao.android.alistlite.util;
+
+import com.jayway.jsonpath.JsonPath;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从 JSON 配置文件读取配置项（每次读取最新的文件内容，配置可能被用户随时修改）
+ *
+ * @author LeoHao
+ */
+public class JsonConfigFile implements ConfigSource {
+    private final File file;
+
+    public JsonConfigFile(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getValue(String jsonPath) throws IOException {
+        String configString = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        return JsonPath.read(configString, jsonPath).toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.leohao.android.alistlite.util;
+
+import java.util.Calendar;
+
+/**
+ * 日志行编码器
+ * 将日志编码为 "LEVEL[yyyy-MM-dd HH:mm:ss.SSS] message" 格式并追加到调用方复用的缓冲区，
+ * 同一秒内的日志复用已格式化的时间前缀，只填入毫秒，避免每行创建 Date/格式化器/临时字符串
+ * 非线程安全，每个使用方各自持有实例
+ *
+ * @author LeoHao
+ */
+public class LogEncoder {
+    /**
+     * 日志行除消息外的固定长度（级别名按最长的 ERROR 计算）
+     */
+    public static final int ENVELOPE_LENGTH = "ERROR[yyyy-MM-dd HH:mm:ss.SSS] \r\n\r\n".length();
+    private static final String LINE_END = "\r\n\r\n";
+    /**
+     * 缓存的秒级时间前缀 "yyyy-MM-dd HH:mm:ss."
+     */
+    private final char[] secondPrefix = new char[20];
+    private long cachedSecond = -1;
+    private final Calendar calendar = Calendar.getInstance();
+
+    /**
+     * 追加一行完整日志
+     */
+    public void encode(StringBuilder out, String levelName, long time, String message) {
+        out.append(levelName).append('[');
+        appendTimestamp(out, time);
+        out.append("] ").append(message).append(LINE_END);
+    }
+
+    /**
+     * 追加 "yyyy-MM-dd HH:mm:ss.SSS" 格式的时间
+     */
+    public void appendTimestamp(StringBuilder out, long time) {
+        long second = time / 1000;
+        if (second != cachedSecond) {
+            calendar.setTimeInMillis(second * 1000);
+            writeDigits(calendar.get(Calendar.YEAR), 0, 4);
+            secondPrefix[4] = '-';
+            writeDigits(calendar.get(Calendar.MONTH) + 1, 5, 2);
+            secondPrefix[7] = '-';
+            writeDigits(calendar.get(Calendar.DAY_OF_MONTH), 8, 2);
+            secondPrefix[10] = ' ';
+            writeDigits(calendar.get(Calendar.HOUR_OF_DAY), 11, 2);
+            secondPrefix[13] = ':';
+            writeDigits(calendar.get(Calendar.MINUTE), 14, 2);
+            secondPrefix[16] = ':';
+            writeDigits(calendar.get(Calendar.SECOND), 17, 2);
+            secondPrefix[19] = '.';
+            cachedSecond = second;
+        }
+        int millis = (int) (time % 1000);
+        out.append(secondPrefix)
+                .append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10));
+    }
+
+    private void writeDigits(int value, int offset, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            secondPrefix[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.leohao.android.alistlite.model;
+
+import com.leohao.android.alistlite.util.LogEncoder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * LogStore 索引筛选与分页读取测试：结果与逐条暴力筛选一致
+ *
+ * @author LeoHao
+ */
+public class LogStoreTest {
+    private static final String[] WORDS = {
+            "GIN", "api", "fs", "list", "upload", "failed", "Storage", "local", "本地存储", "电影", "ping",
+            "127.0.0.1", "Permission", "denied", "/d/本地存储/电影/Sample.mkv", "200", "500", "success"
+    };
+    private static final int[] LEVELS = {LogStore.LEVEL_ERROR, LogStore.LEVEL_DEBUG, LogStore.LEVEL_WARN, LogStore.LEVEL_INFO};
+    private static final long START_TIME = 1714528800000L;
+
+    @Test
+    public void queryMatchesBruteForce() {
+        List<LogStore.Entry> appended = new ArrayList<>();
+        LogStore store = fill(new LogStore(LogStore.DEFAULT_MAX_CHARS * 10), appended, 3000, new Random(42));
+        for (LogStore.Query query : queries(appended)) {
+            assertSameEntries(bruteForce(appended, query), store.query(query));
+        }
+    }
+
+    @Test
+    public void queryMatchesBruteForceAfterTrim() {
+        List<LogStore.Entry> appended = new ArrayList<>();
+        LogStore store = fill(new LogStore(20000), appended, 3000, new Random(7));
+        List<LogStore.Entry> remaining = store.query(new LogStore.Query(LogStore.LEVEL_MASK_ALL, 0, 0, ""));
+        assertTrue(remaining.size() < appended.size());
+        assertTrue(store.getTotalChars() <= store.getMaxChars());
+        //保留的是最新的日志
+        List<LogStore.Entry> expected = appended.subList(appended.size() - remaining.size(), appended.size());
+        assertSameEntries(expected, remaining);
+        for (LogStore.Query query : queries(expected)) {
+            assertSameEntries(bruteForce(expected, query), store.query(query));
+        }
+        assertTrue(store.getText().startsWith("... [日志已自动清理旧内容] ..."));
+    }
+
+    @Test
+    public void readPagesMatchBruteForce() {
+        List<LogStore.Entry> appended = new ArrayList<>();
+        LogStore store = fill(new LogStore(LogStore.DEFAULT_MAX_CHARS * 10), appended, 2000, new Random(1));
+        for (LogStore.Query query : queries(appended)) {
+            List<LogStore.Entry> expected = bruteForce(appended, query);
+            StringBuilder text = new StringBuilder();
+            int count = 0;
+            long cursor = 0;
+            while (true) {
+                LogStore.Page page = store.read(query, cursor, 4096);
+                assertTrue(page.count == 1 || page.text.length() <= 4096);
+                text.append(page.text);
+                count += page.count;
+                cursor = page.cursor;
+                if (!page.hasMore) {
+                    break;
+                }
+                assertTrue(page.count > 0);
+            }
+            assertEquals(expected.size(), count);
+            assertEquals(encode(expected), text.toString());
+            assertEquals(appended.get(appended.size() - 1).sequence, cursor);
+        }
+    }
+
+    @Test
+    public void readFromCursorReturnsOnlyNewerEntries() {
+        List<LogStore.Entry> appended = new ArrayList<>();
+        LogStore store = fill(new LogStore(LogStore.DEFAULT_MAX_CHARS * 10), appended, 500, new Random(3));
+        LogStore.Query all = new LogStore.Query(LogStore.LEVEL_MASK_ALL, 0, 0, "");
+        LogStore.Page first = store.read(all, 0, Integer.MAX_VALUE);
+        assertFalse(first.hasMore);
+        assertEquals(appended.size(), first.count);
+
+        LogStore.Page empty = store.read(all, first.cursor, Integer.MAX_VALUE);
+        assertEquals(0, empty.count);
+        assertEquals("", empty.text);
+
+        long time = appended.get(appended.size() - 1).time + 1;
+        store.append(LogStore.LEVEL_WARN, time, "new entry after cursor");
+        LogStore.Page next = store.read(all, first.cursor, Integer.MAX_VALUE);
+        assertEquals(1, next.count);
+        assertEquals(first.cursor + 1, next.cursor);
+        assertTrue(next.text.startsWith("WARN["));
+        assertTrue(next.text.contains("] new entry after cursor"));
+
+        //游标位于中间时，只返回其后的日志
+        LogStore.Entry middle = appended.get(appended.size() / 2);
+        LogStore.Page rest = store.read(all, middle.sequence, Integer.MAX_VALUE);
+        assertEquals(appended.size() - appended.size() / 2, rest.count);
+    }
+
+    @Test
+    public void clearKeepsSequenceIncreasing() {
+        LogStore store = new LogStore(LogStore.DEFAULT_MAX_CHARS);
+        store.append(LogStore.LEVEL_INFO, START_TIME, "first");
+        long version = store.getVersion();
+        store.clear();
+        assertTrue(store.getVersion() > version);
+        assertEquals("", store.getText());
+        store.append(LogStore.LEVEL_INFO, START_TIME, "second");
+        List<LogStore.Entry> entries = store.query(new LogStore.Query(LogStore.LEVEL_MASK_ALL, 0, 0, ""));
+        assertEquals(1, entries.size());
+        assertEquals(2, entries.get(0).sequence);
+    }
+
+    @Test
+    public void parseLevelAndLevelName() {
+        assertEquals(LogStore.LEVEL_ERROR, LogStore.parseLevel("error"));
+        assertEquals(LogStore.LEVEL_WARN, LogStore.parseLevel("WARN"));
+        assertEquals(LogStore.LEVEL_INFO, LogStore.parseLevel("unknown"));
+        assertEquals("DEBUG", LogStore.getLevelName(LogStore.LEVEL_DEBUG));
+        assertEquals("INFO", LogStore.getLevelName(0));
+        assertEquals("INFO", LogStore.getLevelName(99));
+    }
+
+    /**
+     * 生成随机日志（时间单调不减，跨越多个时间桶）
+     */
+    private static LogStore fill(LogStore store, List<LogStore.Entry> appended, int count, Random random) {
+        long time = START_TIME;
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(10) == 0 ? 0 : random.nextInt(20000);
+            int level = LEVELS[random.nextInt(LEVELS.length)];
+            StringBuilder message = new StringBuilder();
+            int wordCount = 1 + random.nextInt(6);
+            for (int j = 0; j < wordCount; j++) {
+                if (j > 0) {
+                    message.append(random.nextBoolean() ? " " : " | ");
+                }
+                message.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            store.append(level, time, message.toString());
+            appended.add(new LogStore.Entry(i + 1, level, time, message.toString()));
+        }
+        return store;
+    }
+
+    /**
+     * 覆盖级别、时间范围、关键字（整词、部分词、多词、大小写、中文、无匹配）的组合
+     */
+    private static List<LogStore.Query> queries(List<LogStore.Entry> entries) {
+        long first = entries.get(0).time;
+        long last = entries.get(entries.size() - 1).time;
+        long quarter = (last - first) / 4;
+        int[] masks = {
+                LogStore.LEVEL_MASK_ALL,
+                LogStore.levelMask(LogStore.LEVEL_ERROR),
+                LogStore.levelMask(LogStore.LEVEL_WARN, LogStore.LEVEL_ERROR),
+                0
+        };
+        long[][] ranges = {
+                {0, 0},
+                {first + quarter, 0},
+                {0, last - quarter},
+                {first + quarter, first + quarter * 2},
+                {entries.get(10).time, entries.get(10).time},
+                {last + 1, 0}
+        };
+        String[] keywords = {"", "upload", "OAD", "stor", "本地", "api fs", "127.0.0.1", "fs/list", "no such word", "  Failed  "};
+        List<LogStore.Query> queries = new ArrayList<>();
+        for (int mask : masks) {
+            for (long[] range : ranges) {
+                for (String keyword : keywords) {
+                    queries.add(new LogStore.Query(mask, range[0], range[1], keyword));
+                }
+            }
+        }
+        return queries;
+    }
+
+    private static List<LogStore.Entry> bruteForce(List<LogStore.Entry> entries, LogStore.Query query) {
+        String keyword = query.keyword.toLowerCase(Locale.ROOT);
+        List<LogStore.Entry> result = new ArrayList<>();
+        for (LogStore.Entry entry : entries) {
+            if ((query.levelMask & (1 << entry.level)) == 0) {
+                continue;
+            }
+            if (query.from > 0 && entry.time < query.from) {
+                continue;
+            }
+            if (query.to > 0 && entry.time > query.to) {
+                continue;
+            }
+            if (!entry.message.toLowerCase(Locale.ROOT).contains(keyword)) {
+                continue;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static String encode(List<LogStore.Entry> entries) {
+        StringBuilder builder = new StringBuilder();
+        LogEncoder encoder = new LogEncoder();
+        for (LogStore.Entry entry : entries) {
+            encoder.encode(builder, LogStore.getLevelName(entry.level), entry.time, entry.message);
+        }
+        return builder.toString();
+    }
+
+    private static void assertSameEntries(List<LogStore.Entry> expected, List<LogStore.Entry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).sequence, actual.get(i).sequence);
+            assertEquals(expected.get(i).level, actual.get(i).level);
+            assertEquals(expected.get(i).time, actual.get(i).time);
+            assertEquals(expected.get(i).message, actual.get(i).message);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.leohao.android.alistlite.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * HttpHeaderUtil 文件名解析测试
+ *
+ * @author LeoHao
+ */
+public class HttpHeaderUtilTest {
+    @Test
+    public void missingHeader() {
+        assertEquals("file", HttpHeaderUtil.guessFileName(null));
+        assertEquals("file", HttpHeaderUtil.guessFileName(""));
+        assertEquals("file", HttpHeaderUtil.guessFileName("attachment"));
+    }
+
+    @Test
+    public void quotedFileName() {
+        assertEquals("report 2024.pdf", HttpHeaderUtil.guessFileName("attachment; filename=\"report 2024.pdf\""));
+    }
+
+    @Test
+    public void unquotedFileName() {
+        assertEquals("report.pdf", HttpHeaderUtil.guessFileName("attachment; filename=report.pdf"));
+    }
+
+    @Test
+    public void utf8FileName() {
+        assertEquals("电影 Sample.mkv",
+                HttpHeaderUtil.guessFileName("attachment; filename*=utf-8''%E7%94%B5%E5%BD%B1%20Sample.mkv"));
+    }
+
+    @Test
+    public void utf8FileNamePreferred() {
+        assertEquals("照片.jpg",
+                HttpHeaderUtil.guessFileName("attachment; filename=\"photo.jpg\"; filename*=utf-8''%E7%85%A7%E7%89%87.jpg"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.leohao.android.alistlite.util;
+
+import com.jayway.jsonpath.PathNotFoundException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JsonConfigFile 测试
+ *
+ * @author LeoHao
+ */
+public class JsonConfigFileTest {
+    private static final String CONFIG_JSON = "{\n"
+            + "  \"site_url\": \"\",\n"
+            + "  \"delayed_start\": 0,\n"
+            + "  \"scheme\": {\"address\": \"0.0.0.0\", \"http_port\": 5244, \"https_port\": -1, \"force_https\": false},\n"
+            + "  \"log\": {\"enable\": true, \"name\": \"data/log/log.log\"},\n"
+            + "  \"cors\": {\"allow_origins\": [\"*\"]}\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("config.json");
+        FileUtils.writeStringToFile(file, CONFIG_JSON, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void readValues() throws IOException {
+        ConfigSource config = new JsonConfigFile(file);
+        assertEquals("5244", config.getValue("scheme.http_port"));
+        assertEquals("-1", config.getValue("scheme.https_port"));
+        assertEquals("false", config.getValue("scheme.force_https"));
+        assertEquals("0.0.0.0", config.getValue("$.scheme.address"));
+        assertEquals("", config.getValue("site_url"));
+        assertEquals("*", config.getValue("cors.allow_origins[0]"));
+    }
+
+    @Test
+    public void readsLatestContent() throws IOException {
+        ConfigSource config = new JsonConfigFile(file);
+        assertEquals("5244", config.getValue("scheme.http_port"));
+        FileUtils.writeStringToFile(file, CONFIG_JSON.replace("5244", "5255"), StandardCharsets.UTF_8);
+        assertEquals("5255", config.getValue("scheme.http_port"));
+    }
+
+    @Test(expected = PathNotFoundException.class)
+    public void missingPath() throws IOException {
+        new JsonConfigFile(file).getValue("scheme.missing");
+    }
+}
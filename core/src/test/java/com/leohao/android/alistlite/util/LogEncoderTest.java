@@ -0,0 +1,74 @@
+package com.leohao.android.alistlite.util;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * LogEncoder 测试：时间格式与 SimpleDateFormat 一致，秒级前缀缓存在跨秒时正确刷新
+ *
+ * @author LeoHao
+ */
+public class LogEncoderTest {
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.CHINA);
+
+    @Test
+    public void encodeLine() {
+        long time = 1714528800123L;
+        StringBuilder out = new StringBuilder();
+        new LogEncoder().encode(out, "WARN", time, "磁盘空间不足");
+        assertEquals("WARN[" + dateFormat.format(new Date(time)) + "] 磁盘空间不足\r\n\r\n", out.toString());
+    }
+
+    @Test
+    public void envelopeLengthCoversLongestLevel() {
+        StringBuilder out = new StringBuilder();
+        new LogEncoder().encode(out, "ERROR", 1714528800000L, "");
+        assertEquals(LogEncoder.ENVELOPE_LENGTH, out.length());
+    }
+
+    @Test
+    public void timestampMatchesSimpleDateFormat() {
+        LogEncoder encoder = new LogEncoder();
+        long[] times = {
+                0L, 999L, 1000L, 1001L,
+                //跨年、跨月、跨日
+                1704038399999L, 1704038400000L, 1709222399999L, 1709222400000L,
+                //同一秒内复用缓存的前缀
+                1714528800000L, 1714528800001L, 1714528800010L, 1714528800100L, 1714528800999L, 1714528801000L,
+                //时间回退
+                1714528799999L
+        };
+        for (long time : times) {
+            assertTimestamp(encoder, time);
+        }
+        Random random = new Random(11);
+        long time = 1714528800000L;
+        for (int i = 0; i < 10000; i++) {
+            time += random.nextInt(3000);
+            assertTimestamp(encoder, time);
+        }
+    }
+
+    @Test
+    public void appendsToExistingBuffer() {
+        LogEncoder encoder = new LogEncoder();
+        StringBuilder out = new StringBuilder("prefix|");
+        encoder.encode(out, "INFO", 1714528800000L, "a");
+        encoder.encode(out, "INFO", 1714528800500L, "b");
+        assertEquals("prefix|"
+                + "INFO[" + dateFormat.format(new Date(1714528800000L)) + "] a\r\n\r\n"
+                + "INFO[" + dateFormat.format(new Date(1714528800500L)) + "] b\r\n\r\n", out.toString());
+    }
+
+    private void assertTimestamp(LogEncoder encoder, long time) {
+        StringBuilder out = new StringBuilder();
+        encoder.appendTimestamp(out, time);
+        assertEquals(dateFormat.format(new Date(time)), out.toString());
+    }
+}